@@ -0,0 +1,26 @@
+package org.quickocm.benchmark;
+
+/**
+ * The nested object of <code>QuotedNestedRecord</code>.
+ */
+public class Address {
+
+  private String city;
+  private String country;
+
+  public String getCity() {
+    return city;
+  }
+
+  public void setCity(String city) {
+    this.city = city;
+  }
+
+  public String getCountry() {
+    return country;
+  }
+
+  public void setCountry(String country) {
+    this.country = country;
+  }
+}
@@ -0,0 +1,132 @@
+package org.quickocm.benchmark;
+
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static java.util.Arrays.asList;
+
+/**
+ * The shapes of the csv fixtures the benchmarks run on, each with its model class and a generator of its rows.
+ * Fixtures are generated from a fixed seed, so that every run parses the same content.
+ */
+public enum CsvShape {
+
+  NARROW_NUMERIC(NarrowNumericRecord.class, "id", "quantity", "price", "active") {
+    @Override
+    void appendRow(StringBuilder csv, int row, Random random) {
+      csv.append(row).append(',')
+        .append(random.nextInt(1000000) * 1000L).append(',')
+        .append(random.nextInt(100000) / 100.0).append(',')
+        .append(random.nextBoolean());
+    }
+  },
+
+  NARROW_TEXT(NarrowTextRecord.class, "code", "name", "city", "description") {
+    @Override
+    void appendRow(StringBuilder csv, int row, Random random) {
+      csv.append("CODE-").append(row).append(',')
+        .append(word(random, 8)).append(' ').append(word(random, 10)).append(',')
+        .append(CITIES[random.nextInt(CITIES.length)]).append(',')
+        .append(word(random, 6)).append(' ').append(word(random, 12)).append(' ').append(word(random, 9));
+    }
+  },
+
+  WIDE_NUMERIC(WideNumericRecord.class, numbered("count", 8, "total", 8, "ratio", 8)) {
+    @Override
+    void appendRow(StringBuilder csv, int row, Random random) {
+      csv.append(row);
+      for (int i = 1; i < 8; i++) csv.append(',').append(random.nextInt(100000));
+      for (int i = 0; i < 8; i++) csv.append(',').append(random.nextLong() / 1000);
+      for (int i = 0; i < 8; i++) csv.append(',').append(random.nextInt(1000000) / 1000.0);
+    }
+  },
+
+  WIDE_TEXT(WideTextRecord.class, numbered("text", 24)) {
+    @Override
+    void appendRow(StringBuilder csv, int row, Random random) {
+      csv.append("ROW-").append(row);
+      for (int i = 1; i < 24; i++) csv.append(',').append(word(random, 4 + random.nextInt(12)));
+    }
+  },
+
+  QUOTED_NESTED(QuotedNestedRecord.class, "mandatory string field", "mandatoryIntField", "optionalStringField",
+    "OPTIONAL DATE FIELD", "city", "country") {
+    @Override
+    void appendRow(StringBuilder csv, int row, Random random) {
+      csv.append("Random").append(row).append("          ,  ").append(row).append("   ,");
+      switch (row % 3) {
+        case 0:
+          csv.append("\"with, comma\"");
+          break;
+        case 1:
+          csv.append("\"said \"\"hello\"\"\nover two lines\"");
+          break;
+        default:
+          csv.append("   ");
+      }
+      csv.append(',').append(1 + random.nextInt(28)).append('/').append(1 + random.nextInt(12)).append('/')
+        .append(1950 + random.nextInt(60)).append(',')
+        .append(CITIES[random.nextInt(CITIES.length)]).append(",\"").append(word(random, 7)).append('"');
+    }
+  };
+
+  private static final String[] CITIES = {"Kathmandu", "Pokhara", "San Francisco", "New Delhi", "Nairobi", "Lima"};
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+  private final Class modelClass;
+  private final List<String> headers;
+
+  CsvShape(Class modelClass, String... headers) {
+    this.modelClass = modelClass;
+    this.headers = asList(headers);
+  }
+
+  public Class getModelClass() {
+    return modelClass;
+  }
+
+  public List<String> getHeaders() {
+    return headers;
+  }
+
+  /**
+   * Generates the csv of a header row followed by the given number of rows, encoded in UTF-8.
+   */
+  public byte[] generate(int rows) {
+    Random random = new Random(42);
+    StringBuilder csv = new StringBuilder();
+    for (int i = 0; i < headers.size(); i++) {
+      if (i > 0) csv.append(", ");
+      csv.append(headers.get(i));
+    }
+    csv.append('\n');
+
+    for (int row = 1; row <= rows; row++) {
+      appendRow(csv, row, random);
+      csv.append('\n');
+    }
+    return csv.toString().getBytes(UTF_8);
+  }
+
+  abstract void appendRow(StringBuilder csv, int row, Random random);
+
+  private static String word(Random random, int length) {
+    char[] chars = new char[length];
+    for (int i = 0; i < length; i++) {
+      chars[i] = (char) ('a' + random.nextInt(26));
+    }
+    return new String(chars);
+  }
+
+  private static String[] numbered(Object... prefixesAndCounts) {
+    List<String> names = new ArrayList<String>();
+    for (int i = 0; i < prefixesAndCounts.length; i += 2) {
+      for (int number = 1; number <= (Integer) prefixesAndCounts[i + 1]; number++) {
+        names.add(prefixesAndCounts[i] + Integer.toString(number));
+      }
+    }
+    return names.toArray(new String[names.size()]);
+  }
+}
@@ -0,0 +1,60 @@
+package org.quickocm.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.quickocm.model.ModelClass;
+import org.quickocm.processor.CsvCellProcessors;
+import org.supercsv.cellprocessor.ift.CellProcessor;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the work done once per csv before its rows are parsed: reflecting the model class, building the cell
+ * processors of the headers and validating the headers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MetadataBenchmark {
+
+  @Param({"NARROW_NUMERIC", "WIDE_NUMERIC", "WIDE_TEXT", "QUOTED_NESTED"})
+  public CsvShape shape;
+
+  private ModelClass modelClass;
+  private List<String> headers;
+
+  @Setup
+  public void setUp() {
+    modelClass = new ModelClass(shape.getModelClass());
+    headers = shape.getHeaders();
+  }
+
+  @Benchmark
+  public ModelClass modelClassConstruction() {
+    return new ModelClass(shape.getModelClass());
+  }
+
+  @Benchmark
+  public List<CellProcessor> getProcessors() {
+    return CsvCellProcessors.getProcessors(modelClass, headers);
+  }
+
+  @Benchmark
+  public ModelClass validateHeaders() {
+    modelClass.validateHeaders(headers);
+    return modelClass;
+  }
+}
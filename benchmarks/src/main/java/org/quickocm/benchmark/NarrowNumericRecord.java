@@ -0,0 +1,53 @@
+package org.quickocm.benchmark;
+
+import org.quickocm.annotation.ImportField;
+
+/**
+ * A model class of four numeric and boolean columns.
+ */
+public class NarrowNumericRecord {
+
+  @ImportField(mandatory = true, type = "int")
+  private int id;
+
+  @ImportField(type = "long")
+  private long quantity;
+
+  @ImportField(type = "double")
+  private double price;
+
+  @ImportField(type = "boolean")
+  private boolean active;
+
+  public int getId() {
+    return id;
+  }
+
+  public void setId(int id) {
+    this.id = id;
+  }
+
+  public long getQuantity() {
+    return quantity;
+  }
+
+  public void setQuantity(long quantity) {
+    this.quantity = quantity;
+  }
+
+  public double getPrice() {
+    return price;
+  }
+
+  public void setPrice(double price) {
+    this.price = price;
+  }
+
+  public boolean getActive() {
+    return active;
+  }
+
+  public void setActive(boolean active) {
+    this.active = active;
+  }
+}
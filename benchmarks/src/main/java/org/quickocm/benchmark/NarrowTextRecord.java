@@ -0,0 +1,53 @@
+package org.quickocm.benchmark;
+
+import org.quickocm.annotation.ImportField;
+
+/**
+ * A model class of four text columns.
+ */
+public class NarrowTextRecord {
+
+  @ImportField(mandatory = true)
+  private String code;
+
+  @ImportField
+  private String name;
+
+  @ImportField
+  private String city;
+
+  @ImportField
+  private String description;
+
+  public String getCode() {
+    return code;
+  }
+
+  public void setCode(String code) {
+    this.code = code;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public void setName(String name) {
+    this.name = name;
+  }
+
+  public String getCity() {
+    return city;
+  }
+
+  public void setCity(String city) {
+    this.city = city;
+  }
+
+  public String getDescription() {
+    return description;
+  }
+
+  public void setDescription(String description) {
+    this.description = description;
+  }
+}
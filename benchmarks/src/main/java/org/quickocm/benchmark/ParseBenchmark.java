@@ -0,0 +1,98 @@
+package org.quickocm.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.quickocm.RecordHandler;
+import org.quickocm.binding.BindingMode;
+import org.quickocm.parser.CsvParser;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures end-to-end parsing with <code>CsvParser.process</code>, from the bytes of a csv to the objects handed
+ * to the record handler. Scores are in rows per second; run with <code>-prof gc</code> for the allocation rate and
+ * the bytes allocated per row.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParseBenchmark {
+
+  private static final int ROWS = 10000;
+
+  @Param({"NARROW_NUMERIC", "NARROW_TEXT", "WIDE_NUMERIC", "WIDE_TEXT", "QUOTED_NESTED"})
+  public CsvShape shape;
+
+  @Param({"DOZER", "COMPILED"})
+  public BindingMode bindingMode;
+
+  @Param({"1"})
+  public int workerThreads;
+
+  private byte[] csv;
+  private Path csvFile;
+  private CsvParser<Object> csvParser;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    csv = shape.generate(ROWS);
+    csvFile = Files.createTempFile("quickocm-" + shape, ".csv");
+    Files.write(csvFile, csv);
+
+    csvParser = new CsvParser<Object>();
+    csvParser.setBindingMode(bindingMode);
+    csvParser.setWorkerThreads(workerThreads);
+    csvParser.setPreserveOrder(false);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    Files.deleteIfExists(csvFile);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(ROWS)
+  public int processStream(Blackhole blackhole) {
+    return csvParser.process(new ByteArrayInputStream(csv), shape.getModelClass(), new ConsumingHandler(blackhole));
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(ROWS)
+  public int processFile(Blackhole blackhole) {
+    return csvParser.process(csvFile, shape.getModelClass(), new ConsumingHandler(blackhole));
+  }
+
+  private static class ConsumingHandler implements RecordHandler<Object> {
+    private final Blackhole blackhole;
+
+    private ConsumingHandler(Blackhole blackhole) {
+      this.blackhole = blackhole;
+    }
+
+    @Override
+    public void execute(Object imported, int rowNumber, Map supplementaryInfo) {
+      blackhole.consume(imported);
+    }
+  }
+}
@@ -0,0 +1,69 @@
+package org.quickocm.benchmark;
+
+import org.quickocm.annotation.ImportField;
+import org.quickocm.annotation.ImportFields;
+
+import java.util.Date;
+
+/**
+ * A model class in the style of <code>test.csv</code>: padded and quoted text, a date and nested fields.
+ */
+public class QuotedNestedRecord {
+
+  @ImportField(mandatory = true, name = "mandatory string field")
+  private String name;
+
+  @ImportField(mandatory = true, type = "int")
+  private int mandatoryIntField;
+
+  @ImportField
+  private String optionalStringField;
+
+  @ImportField(type = "Date", name = "OPTIONAL DATE FIELD")
+  private Date optionalDateField;
+
+  @ImportFields(importFields = {
+    @ImportField(name = "city", nested = "city"),
+    @ImportField(name = "country", nested = "country")})
+  private Address address;
+
+  public String getName() {
+    return name;
+  }
+
+  public void setName(String name) {
+    this.name = name;
+  }
+
+  public int getMandatoryIntField() {
+    return mandatoryIntField;
+  }
+
+  public void setMandatoryIntField(int mandatoryIntField) {
+    this.mandatoryIntField = mandatoryIntField;
+  }
+
+  public String getOptionalStringField() {
+    return optionalStringField;
+  }
+
+  public void setOptionalStringField(String optionalStringField) {
+    this.optionalStringField = optionalStringField;
+  }
+
+  public Date getOptionalDateField() {
+    return optionalDateField;
+  }
+
+  public void setOptionalDateField(Date optionalDateField) {
+    this.optionalDateField = optionalDateField;
+  }
+
+  public Address getAddress() {
+    return address;
+  }
+
+  public void setAddress(Address address) {
+    this.address = address;
+  }
+}
@@ -0,0 +1,273 @@
+package org.quickocm.benchmark;
+
+import org.quickocm.annotation.ImportField;
+
+/**
+ * A model class of twenty four numeric columns.
+ */
+public class WideNumericRecord {
+
+  @ImportField(mandatory = true, type = "int")
+  private int count1;
+
+  @ImportField(type = "int")
+  private int count2;
+
+  @ImportField(type = "int")
+  private int count3;
+
+  @ImportField(type = "int")
+  private int count4;
+
+  @ImportField(type = "int")
+  private int count5;
+
+  @ImportField(type = "int")
+  private int count6;
+
+  @ImportField(type = "int")
+  private int count7;
+
+  @ImportField(type = "int")
+  private int count8;
+
+  @ImportField(type = "long")
+  private long total1;
+
+  @ImportField(type = "long")
+  private long total2;
+
+  @ImportField(type = "long")
+  private long total3;
+
+  @ImportField(type = "long")
+  private long total4;
+
+  @ImportField(type = "long")
+  private long total5;
+
+  @ImportField(type = "long")
+  private long total6;
+
+  @ImportField(type = "long")
+  private long total7;
+
+  @ImportField(type = "long")
+  private long total8;
+
+  @ImportField(type = "double")
+  private double ratio1;
+
+  @ImportField(type = "double")
+  private double ratio2;
+
+  @ImportField(type = "double")
+  private double ratio3;
+
+  @ImportField(type = "double")
+  private double ratio4;
+
+  @ImportField(type = "double")
+  private double ratio5;
+
+  @ImportField(type = "double")
+  private double ratio6;
+
+  @ImportField(type = "double")
+  private double ratio7;
+
+  @ImportField(type = "double")
+  private double ratio8;
+
+  public int getCount1() {
+    return count1;
+  }
+
+  public void setCount1(int count1) {
+    this.count1 = count1;
+  }
+
+  public int getCount2() {
+    return count2;
+  }
+
+  public void setCount2(int count2) {
+    this.count2 = count2;
+  }
+
+  public int getCount3() {
+    return count3;
+  }
+
+  public void setCount3(int count3) {
+    this.count3 = count3;
+  }
+
+  public int getCount4() {
+    return count4;
+  }
+
+  public void setCount4(int count4) {
+    this.count4 = count4;
+  }
+
+  public int getCount5() {
+    return count5;
+  }
+
+  public void setCount5(int count5) {
+    this.count5 = count5;
+  }
+
+  public int getCount6() {
+    return count6;
+  }
+
+  public void setCount6(int count6) {
+    this.count6 = count6;
+  }
+
+  public int getCount7() {
+    return count7;
+  }
+
+  public void setCount7(int count7) {
+    this.count7 = count7;
+  }
+
+  public int getCount8() {
+    return count8;
+  }
+
+  public void setCount8(int count8) {
+    this.count8 = count8;
+  }
+
+  public long getTotal1() {
+    return total1;
+  }
+
+  public void setTotal1(long total1) {
+    this.total1 = total1;
+  }
+
+  public long getTotal2() {
+    return total2;
+  }
+
+  public void setTotal2(long total2) {
+    this.total2 = total2;
+  }
+
+  public long getTotal3() {
+    return total3;
+  }
+
+  public void setTotal3(long total3) {
+    this.total3 = total3;
+  }
+
+  public long getTotal4() {
+    return total4;
+  }
+
+  public void setTotal4(long total4) {
+    this.total4 = total4;
+  }
+
+  public long getTotal5() {
+    return total5;
+  }
+
+  public void setTotal5(long total5) {
+    this.total5 = total5;
+  }
+
+  public long getTotal6() {
+    return total6;
+  }
+
+  public void setTotal6(long total6) {
+    this.total6 = total6;
+  }
+
+  public long getTotal7() {
+    return total7;
+  }
+
+  public void setTotal7(long total7) {
+    this.total7 = total7;
+  }
+
+  public long getTotal8() {
+    return total8;
+  }
+
+  public void setTotal8(long total8) {
+    this.total8 = total8;
+  }
+
+  public double getRatio1() {
+    return ratio1;
+  }
+
+  public void setRatio1(double ratio1) {
+    this.ratio1 = ratio1;
+  }
+
+  public double getRatio2() {
+    return ratio2;
+  }
+
+  public void setRatio2(double ratio2) {
+    this.ratio2 = ratio2;
+  }
+
+  public double getRatio3() {
+    return ratio3;
+  }
+
+  public void setRatio3(double ratio3) {
+    this.ratio3 = ratio3;
+  }
+
+  public double getRatio4() {
+    return ratio4;
+  }
+
+  public void setRatio4(double ratio4) {
+    this.ratio4 = ratio4;
+  }
+
+  public double getRatio5() {
+    return ratio5;
+  }
+
+  public void setRatio5(double ratio5) {
+    this.ratio5 = ratio5;
+  }
+
+  public double getRatio6() {
+    return ratio6;
+  }
+
+  public void setRatio6(double ratio6) {
+    this.ratio6 = ratio6;
+  }
+
+  public double getRatio7() {
+    return ratio7;
+  }
+
+  public void setRatio7(double ratio7) {
+    this.ratio7 = ratio7;
+  }
+
+  public double getRatio8() {
+    return ratio8;
+  }
+
+  public void setRatio8(double ratio8) {
+    this.ratio8 = ratio8;
+  }
+}
@@ -0,0 +1,273 @@
+package org.quickocm.benchmark;
+
+import org.quickocm.annotation.ImportField;
+
+/**
+ * A model class of twenty four text columns.
+ */
+public class WideTextRecord {
+
+  @ImportField(mandatory = true)
+  private String text1;
+
+  @ImportField
+  private String text2;
+
+  @ImportField
+  private String text3;
+
+  @ImportField
+  private String text4;
+
+  @ImportField
+  private String text5;
+
+  @ImportField
+  private String text6;
+
+  @ImportField
+  private String text7;
+
+  @ImportField
+  private String text8;
+
+  @ImportField
+  private String text9;
+
+  @ImportField
+  private String text10;
+
+  @ImportField
+  private String text11;
+
+  @ImportField
+  private String text12;
+
+  @ImportField
+  private String text13;
+
+  @ImportField
+  private String text14;
+
+  @ImportField
+  private String text15;
+
+  @ImportField
+  private String text16;
+
+  @ImportField
+  private String text17;
+
+  @ImportField
+  private String text18;
+
+  @ImportField
+  private String text19;
+
+  @ImportField
+  private String text20;
+
+  @ImportField
+  private String text21;
+
+  @ImportField
+  private String text22;
+
+  @ImportField
+  private String text23;
+
+  @ImportField
+  private String text24;
+
+  public String getText1() {
+    return text1;
+  }
+
+  public void setText1(String text1) {
+    this.text1 = text1;
+  }
+
+  public String getText2() {
+    return text2;
+  }
+
+  public void setText2(String text2) {
+    this.text2 = text2;
+  }
+
+  public String getText3() {
+    return text3;
+  }
+
+  public void setText3(String text3) {
+    this.text3 = text3;
+  }
+
+  public String getText4() {
+    return text4;
+  }
+
+  public void setText4(String text4) {
+    this.text4 = text4;
+  }
+
+  public String getText5() {
+    return text5;
+  }
+
+  public void setText5(String text5) {
+    this.text5 = text5;
+  }
+
+  public String getText6() {
+    return text6;
+  }
+
+  public void setText6(String text6) {
+    this.text6 = text6;
+  }
+
+  public String getText7() {
+    return text7;
+  }
+
+  public void setText7(String text7) {
+    this.text7 = text7;
+  }
+
+  public String getText8() {
+    return text8;
+  }
+
+  public void setText8(String text8) {
+    this.text8 = text8;
+  }
+
+  public String getText9() {
+    return text9;
+  }
+
+  public void setText9(String text9) {
+    this.text9 = text9;
+  }
+
+  public String getText10() {
+    return text10;
+  }
+
+  public void setText10(String text10) {
+    this.text10 = text10;
+  }
+
+  public String getText11() {
+    return text11;
+  }
+
+  public void setText11(String text11) {
+    this.text11 = text11;
+  }
+
+  public String getText12() {
+    return text12;
+  }
+
+  public void setText12(String text12) {
+    this.text12 = text12;
+  }
+
+  public String getText13() {
+    return text13;
+  }
+
+  public void setText13(String text13) {
+    this.text13 = text13;
+  }
+
+  public String getText14() {
+    return text14;
+  }
+
+  public void setText14(String text14) {
+    this.text14 = text14;
+  }
+
+  public String getText15() {
+    return text15;
+  }
+
+  public void setText15(String text15) {
+    this.text15 = text15;
+  }
+
+  public String getText16() {
+    return text16;
+  }
+
+  public void setText16(String text16) {
+    this.text16 = text16;
+  }
+
+  public String getText17() {
+    return text17;
+  }
+
+  public void setText17(String text17) {
+    this.text17 = text17;
+  }
+
+  public String getText18() {
+    return text18;
+  }
+
+  public void setText18(String text18) {
+    this.text18 = text18;
+  }
+
+  public String getText19() {
+    return text19;
+  }
+
+  public void setText19(String text19) {
+    this.text19 = text19;
+  }
+
+  public String getText20() {
+    return text20;
+  }
+
+  public void setText20(String text20) {
+    this.text20 = text20;
+  }
+
+  public String getText21() {
+    return text21;
+  }
+
+  public void setText21(String text21) {
+    this.text21 = text21;
+  }
+
+  public String getText22() {
+    return text22;
+  }
+
+  public void setText22(String text22) {
+    this.text22 = text22;
+  }
+
+  public String getText23() {
+    return text23;
+  }
+
+  public void setText23(String text23) {
+    this.text23 = text23;
+  }
+
+  public String getText24() {
+    return text24;
+  }
+
+  public void setText24(String text24) {
+    this.text24 = text24;
+  }
+}
@@ -0,0 +1,27 @@
+package org.quickocm;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Implement this class and pass the implementation to the <code>CsvParser</code>'s processAsync method to handle
+ * each row without blocking the parser, e.g. when handling a row calls a remote service. The parser goes on reading
+ * rows while calls are outstanding, up to the <code>maxInFlight</code> limit of the parser, after which it waits for
+ * a call to complete.
+ *
+ * @see RecordHandler
+ */
+public interface AsyncRecordHandler<I> {
+
+  /**
+   * execute method is called for each row of the csv after it is parsed into an equivalent object. It is called in
+   * the order of the rows unless the parser has several worker threads and does not preserve order, in which case
+   * the worker threads call it in no fixed order. The calls may complete in any order.
+   *
+   * @param imported          the object parsed from the row
+   * @param rowNumber         the row number of the line in csv
+   * @param supplementaryInfo the extra information passed by the record-parser.
+   * @return a future completing once the row has been handled, exceptionally when it could not be
+   */
+  public CompletableFuture<?> execute(I imported, int rowNumber, Map supplementaryInfo);
+}
@@ -0,0 +1,24 @@
+package org.quickocm;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Implement this class and pass the implementation to the <code>CsvParser</code>'s processInBatches method to receive
+ * the objects parsed from a CSV file in batches rather than one at a time, e.g. to insert them with JDBC batching.
+ *
+ * @see RecordHandler
+ */
+public interface BatchRecordHandler<I> {
+
+  /**
+   * execute method is called for each batch of rows after they are parsed into equivalent objects.
+   * The list is not reused by the parser, so it may be retained.
+   *
+   * @param batch             the objects parsed from the rows of the batch, in the order of the rows
+   * @param firstRowNumber    the row number of the first line of the batch in csv
+   * @param lastRowNumber     the row number of the last line of the batch in csv
+   * @param supplementaryInfo the extra information passed by the record-parser.
+   */
+  public void execute(List<I> batch, int firstRowNumber, int lastRowNumber, Map supplementaryInfo);
+}
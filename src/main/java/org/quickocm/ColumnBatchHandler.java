@@ -0,0 +1,26 @@
+package org.quickocm;
+
+import org.quickocm.parser.ColumnBatch;
+
+import java.util.Map;
+
+/**
+ * Implement this class and pass the implementation to the <code>CsvParser</code>'s processColumnar method to receive
+ * the rows of a CSV file as batches of columns rather than as objects, e.g. to aggregate numeric columns.
+ *
+ * @see BatchRecordHandler
+ */
+public interface ColumnBatchHandler {
+
+  /**
+   * execute method is called for each batch of rows after their cells are converted into the columns of the batch.
+   * The batch is reused by the parser for the next rows once this method returns, so neither the batch nor its
+   * columns may be retained.
+   *
+   * @param batch             the columns of the rows of the batch, in the order of the rows
+   * @param firstRowNumber    the row number of the first line of the batch in csv
+   * @param lastRowNumber     the row number of the last line of the batch in csv
+   * @param supplementaryInfo the extra information passed by the record-parser.
+   */
+  public void execute(ColumnBatch batch, int firstRowNumber, int lastRowNumber, Map supplementaryInfo);
+}
@@ -0,0 +1,26 @@
+package org.quickocm;
+
+import org.quickocm.exception.UploadException;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Implement this class and set the implementation on the <code>CsvParser</code> to quarantine the rows that fail
+ * conversion when the parser collects errors instead of stopping at the first one, e.g. to write them to a file of
+ * rejected rows for the user to correct.
+ *
+ * @see RecordHandler
+ */
+public interface RejectedRowHandler {
+
+  /**
+   * reject method is called for each row of the csv that could not be parsed into an equivalent object.
+   *
+   * @param columns           the cells of the row as found in the csv, empty cells being null
+   * @param rowNumber         the row number of the line in csv
+   * @param error             the error the row was rejected for
+   * @param supplementaryInfo the extra information passed by the record-parser.
+   */
+  public void reject(List<String> columns, int rowNumber, UploadException error, Map supplementaryInfo);
+}
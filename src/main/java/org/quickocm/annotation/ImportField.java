@@ -39,4 +39,21 @@ public @interface ImportField {
    * @return
    */
   String nested() default "";
+
+  /**
+   * The format of a <code>Date</code> or <code>LocalDate</code> field, used both to parse its cells and to write them.
+   * For <code>Date</code> it is in the pattern syntax of <code>SimpleDateFormat</code>, by default
+   * <code>dd/MM/yyyy</code>. For <code>LocalDate</code> it is in the pattern syntax of <code>java.time</code>'s
+   * <code>DateTimeFormatter</code>, e.g. <code>uuuu-MM-dd</code>, by default ISO format.
+   *
+   * @return
+   */
+  String format() default "";
+
+  /**
+   * Marks that the values of a <code>String</code> field repeat a lot, like codes or statuses, so that rows share
+   * a single instance of each repeated value instead of holding copies of it.
+   * The default value is false
+   */
+  boolean intern() default false;
 }
@@ -0,0 +1,300 @@
+package org.quickocm.binding;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.ObjDoubleConsumer;
+import java.util.function.ObjIntConsumer;
+import java.util.function.ObjLongConsumer;
+import java.util.function.Supplier;
+
+import static java.lang.invoke.MethodType.methodType;
+
+/**
+ * Compiles constructors, getters and setters of model classes into functional objects.
+ * <p/>
+ * Public members of public classes visible to QuickOCM's class loader are bound through
+ * <code>LambdaMetafactory</code>, so that calling them costs the same as a direct call.
+ * Everything else, like package-private fields or classes of a child class loader, goes through method handles.
+ */
+public class Accessors {
+
+  private static final MethodHandles.Lookup lookup = MethodHandles.lookup();
+
+  public static Supplier<Object> constructor(Class<?> clazz) {
+    try {
+      Constructor<?> constructor = clazz.getDeclaredConstructor();
+      if (isLinkable(constructor.getDeclaringClass(), constructor.getModifiers())) {
+        MethodHandle target = lookup.unreflectConstructor(constructor);
+        return spin(Supplier.class, "get", methodType(Object.class), target, methodType(clazz));
+      }
+      constructor.setAccessible(true);
+      final MethodHandle handle = lookup.unreflectConstructor(constructor).asType(methodType(Object.class));
+      return new Supplier<Object>() {
+        @Override
+        public Object get() {
+          try {
+            return handle.invokeExact();
+          } catch (Throwable throwable) {
+            throw propagate(throwable);
+          }
+        }
+      };
+    } catch (NoSuchMethodException e) {
+      throw new IllegalArgumentException(clazz.getName() + " has no default constructor", e);
+    } catch (Throwable throwable) {
+      throw propagate(throwable);
+    }
+  }
+
+  public static Function<Object, Object> getter(Class clazz, String property) {
+    try {
+      Method method = findMethod(clazz, "get" + capitalize(property));
+      if (method == null) method = findMethod(clazz, "is" + capitalize(property));
+      if (method != null && isLinkable(method.getDeclaringClass(), method.getModifiers())) {
+        MethodHandle target = lookup.unreflect(method);
+        return spin(Function.class, "apply", methodType(Object.class, Object.class), target,
+          methodType(box(method.getReturnType()), method.getDeclaringClass()));
+      }
+
+      MethodHandle handle;
+      if (method != null) {
+        method.setAccessible(true);
+        handle = lookup.unreflect(method);
+      } else {
+        Field field = findField(clazz, property);
+        field.setAccessible(true);
+        handle = lookup.unreflectGetter(field);
+      }
+      final MethodHandle genericHandle = handle.asType(methodType(Object.class, Object.class));
+      return new Function<Object, Object>() {
+        @Override
+        public Object apply(Object bean) {
+          try {
+            return genericHandle.invokeExact(bean);
+          } catch (Throwable throwable) {
+            throw propagate(throwable);
+          }
+        }
+      };
+    } catch (Throwable throwable) {
+      throw propagate(throwable);
+    }
+  }
+
+  public static BiConsumer<Object, Object> setter(Class clazz, String property) {
+    try {
+      Class type = propertyType(clazz, property);
+      Method method = findMethod(clazz, "set" + capitalize(property), type);
+      if (method != null && isLinkable(method.getDeclaringClass(), method.getModifiers())) {
+        MethodHandle target = lookup.unreflect(method);
+        return spin(BiConsumer.class, "accept", methodType(void.class, Object.class, Object.class),
+          target, methodType(void.class, method.getDeclaringClass(), box(type)));
+      }
+
+      MethodHandle handle;
+      if (method != null) {
+        method.setAccessible(true);
+        handle = lookup.unreflect(method);
+      } else {
+        Field field = findField(clazz, property);
+        field.setAccessible(true);
+        handle = lookup.unreflectSetter(field);
+      }
+      final MethodHandle genericHandle = handle.asType(methodType(void.class, Object.class, Object.class));
+      return new BiConsumer<Object, Object>() {
+        @Override
+        public void accept(Object bean, Object value) {
+          try {
+            genericHandle.invokeExact(bean, value);
+          } catch (Throwable throwable) {
+            throw propagate(throwable);
+          }
+        }
+      };
+    } catch (Throwable throwable) {
+      throw propagate(throwable);
+    }
+  }
+
+  public static ObjIntConsumer<Object> intSetter(Class clazz, String property) {
+    try {
+      ObjIntConsumer<Object> linked = linkPrimitiveSetter(clazz, property, int.class, ObjIntConsumer.class);
+      if (linked != null) return linked;
+
+      final MethodHandle handle = primitiveSetterHandle(clazz, property, int.class);
+      return new ObjIntConsumer<Object>() {
+        @Override
+        public void accept(Object bean, int value) {
+          try {
+            handle.invokeExact(bean, value);
+          } catch (Throwable throwable) {
+            throw propagate(throwable);
+          }
+        }
+      };
+    } catch (Throwable throwable) {
+      throw propagate(throwable);
+    }
+  }
+
+  public static ObjLongConsumer<Object> longSetter(Class clazz, String property) {
+    try {
+      ObjLongConsumer<Object> linked = linkPrimitiveSetter(clazz, property, long.class, ObjLongConsumer.class);
+      if (linked != null) return linked;
+
+      final MethodHandle handle = primitiveSetterHandle(clazz, property, long.class);
+      return new ObjLongConsumer<Object>() {
+        @Override
+        public void accept(Object bean, long value) {
+          try {
+            handle.invokeExact(bean, value);
+          } catch (Throwable throwable) {
+            throw propagate(throwable);
+          }
+        }
+      };
+    } catch (Throwable throwable) {
+      throw propagate(throwable);
+    }
+  }
+
+  public static ObjDoubleConsumer<Object> doubleSetter(Class clazz, String property) {
+    try {
+      ObjDoubleConsumer<Object> linked = linkPrimitiveSetter(clazz, property, double.class, ObjDoubleConsumer.class);
+      if (linked != null) return linked;
+
+      final MethodHandle handle = primitiveSetterHandle(clazz, property, double.class);
+      return new ObjDoubleConsumer<Object>() {
+        @Override
+        public void accept(Object bean, double value) {
+          try {
+            handle.invokeExact(bean, value);
+          } catch (Throwable throwable) {
+            throw propagate(throwable);
+          }
+        }
+      };
+    } catch (Throwable throwable) {
+      throw propagate(throwable);
+    }
+  }
+
+  public static ObjBooleanConsumer<Object> booleanSetter(Class clazz, String property) {
+    try {
+      ObjBooleanConsumer<Object> linked = linkPrimitiveSetter(clazz, property, boolean.class, ObjBooleanConsumer.class);
+      if (linked != null) return linked;
+
+      final MethodHandle handle = primitiveSetterHandle(clazz, property, boolean.class);
+      return new ObjBooleanConsumer<Object>() {
+        @Override
+        public void accept(Object bean, boolean value) {
+          try {
+            handle.invokeExact(bean, value);
+          } catch (Throwable throwable) {
+            throw propagate(throwable);
+          }
+        }
+      };
+    } catch (Throwable throwable) {
+      throw propagate(throwable);
+    }
+  }
+
+  public static Class propertyType(Class clazz, String property) {
+    Method getter = findMethod(clazz, "get" + capitalize(property));
+    if (getter == null) getter = findMethod(clazz, "is" + capitalize(property));
+    if (getter != null) return getter.getReturnType();
+    return findField(clazz, property).getType();
+  }
+
+  private static <T> T linkPrimitiveSetter(Class clazz, String property, Class type,
+                                           Class<? super T> functionalInterface) throws Throwable {
+    Method method = findMethod(clazz, "set" + capitalize(property), type);
+    if (method == null || !isLinkable(method.getDeclaringClass(), method.getModifiers())) return null;
+
+    return spin(functionalInterface, "accept", methodType(void.class, Object.class, type), lookup.unreflect(method),
+      methodType(void.class, method.getDeclaringClass(), type));
+  }
+
+  private static MethodHandle primitiveSetterHandle(Class clazz, String property, Class type) throws Throwable {
+    Method method = findMethod(clazz, "set" + capitalize(property), type);
+    MethodHandle handle;
+    if (method != null) {
+      method.setAccessible(true);
+      handle = lookup.unreflect(method);
+    } else {
+      Field field = findField(clazz, property);
+      field.setAccessible(true);
+      handle = lookup.unreflectSetter(field);
+    }
+    return handle.asType(methodType(void.class, Object.class, type));
+  }
+
+  /**
+   * Links a target to an implementation of a functional interface, typed as the parameterization of the interface
+   * the caller expects, which matches the types the target is adapted to.
+   */
+  @SuppressWarnings("unchecked")
+  private static <T> T spin(Class<? super T> functionalInterface, String methodName, MethodType samType,
+                            MethodHandle target, MethodType instantiatedType) throws Throwable {
+    CallSite callSite = LambdaMetafactory.metafactory(lookup, methodName, methodType(functionalInterface), samType,
+      target, instantiatedType);
+    return (T) callSite.getTarget().invoke();
+  }
+
+  private static boolean isLinkable(Class declaringClass, int modifiers) {
+    return Modifier.isPublic(modifiers) && Modifier.isPublic(declaringClass.getModifiers())
+      && declaringClass.getEnclosingClass() == null && isVisible(declaringClass);
+  }
+
+  private static boolean isVisible(Class clazz) {
+    try {
+      return Class.forName(clazz.getName(), false, Accessors.class.getClassLoader()) == clazz;
+    } catch (ClassNotFoundException e) {
+      return false;
+    }
+  }
+
+  private static Method findMethod(Class<?> clazz, String name, Class<?>... parameterTypes) {
+    for (Class<?> current = clazz; current != null; current = current.getSuperclass()) {
+      try {
+        return current.getDeclaredMethod(name, parameterTypes);
+      } catch (NoSuchMethodException ignored) {
+      }
+    }
+    return null;
+  }
+
+  private static Field findField(Class clazz, String name) {
+    for (Class current = clazz; current != null; current = current.getSuperclass()) {
+      try {
+        return current.getDeclaredField(name);
+      } catch (NoSuchFieldException ignored) {
+      }
+    }
+    throw new IllegalArgumentException("No property " + name + " found in " + clazz.getName());
+  }
+
+  private static String capitalize(String property) {
+    return Character.toUpperCase(property.charAt(0)) + property.substring(1);
+  }
+
+  private static Class box(Class type) {
+    return methodType(type).wrap().returnType();
+  }
+
+  private static RuntimeException propagate(Throwable throwable) {
+    if (throwable instanceof RuntimeException) return (RuntimeException) throwable;
+    if (throwable instanceof Error) throw (Error) throwable;
+    return new IllegalStateException(throwable);
+  }
+}
@@ -0,0 +1,29 @@
+package org.quickocm.binding;
+
+import java.util.List;
+
+/**
+ * Populates a new object of the model class from the processed columns of a csv row.
+ * Implementations are shared between readers and threads, so they must be thread-safe.
+ */
+public interface BeanBinder<I> {
+
+  /**
+   * Creates an object of the model class and sets the value of each mapped column on it.
+   * Null values are not set, so fields of columns left empty keep their default value.
+   *
+   * @param columns the values of a row after running the cell processors, in header order
+   * @return the populated object
+   */
+  I bind(List<Object> columns);
+
+  /**
+   * Sets the value of each mapped column on an object of the model class created beforehand, for instance to set
+   * some of its fields without going through the columns. Null values are not set.
+   *
+   * @param bean    the object to populate
+   * @param columns the values of a row after running the cell processors, in header order
+   * @return the populated object
+   */
+  I bind(I bean, List<Object> columns);
+}
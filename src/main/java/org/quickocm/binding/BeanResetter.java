@@ -0,0 +1,82 @@
+package org.quickocm.binding;
+
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Resets the properties an object of the model class is bound from, so that the object can be bound again from
+ * another row as if it had just been created: each mapped property is set back to the value it has in a new object,
+ * read once from an object created when the resetter is built, so that the values of field initializers are kept.
+ * Nested objects are kept and only their mapped properties are reset, to their values in a new nested object, so
+ * that rebinding creates no object at all; nested objects that are null stay null.
+ */
+public class BeanResetter<I> {
+
+  private final PropertyResetter[] resetters;
+
+  public BeanResetter(Class<I> clazz, String[] fieldNameMappings) {
+    resetters = new PropertyResetter[fieldNameMappings.length];
+
+    for (int i = 0; i < fieldNameMappings.length; i++) {
+      if (fieldNameMappings[i] == null) continue;
+      resetters[i] = compile(clazz, newInstance(clazz), fieldNameMappings[i].split("\\."), 0);
+    }
+  }
+
+  public I reset(I bean) {
+    for (PropertyResetter resetter : resetters) {
+      if (resetter != null) resetter.reset(bean);
+    }
+    return bean;
+  }
+
+  /**
+   * @param template a new object of the class, which the values properties are reset to are read from
+   */
+  private static PropertyResetter compile(Class clazz, Object template, String[] path, int index) {
+    Function<Object, Object> getter = Accessors.getter(clazz, path[index]);
+    if (index == path.length - 1) {
+      return new PropertyResetter(Accessors.setter(clazz, path[index]), getter.apply(template));
+    }
+
+    Class type = Accessors.propertyType(clazz, path[index]);
+    Object nestedTemplate = getter.apply(template);
+    if (nestedTemplate == null) nestedTemplate = newInstance(type);
+    return new NestedPropertyResetter(getter, compile(type, nestedTemplate, path, index + 1));
+  }
+
+  private static Object newInstance(Class clazz) {
+    return Accessors.constructor(clazz).get();
+  }
+
+  private static class PropertyResetter {
+    private final BiConsumer<Object, Object> setter;
+    private final Object defaultValue;
+
+    private PropertyResetter(BiConsumer<Object, Object> setter, Object defaultValue) {
+      this.setter = setter;
+      this.defaultValue = defaultValue;
+    }
+
+    void reset(Object bean) {
+      setter.accept(bean, defaultValue);
+    }
+  }
+
+  private static class NestedPropertyResetter extends PropertyResetter {
+    private final Function<Object, Object> getter;
+    private final PropertyResetter nestedResetter;
+
+    private NestedPropertyResetter(Function<Object, Object> getter, PropertyResetter nestedResetter) {
+      super(null, null);
+      this.getter = getter;
+      this.nestedResetter = nestedResetter;
+    }
+
+    @Override
+    void reset(Object bean) {
+      Object nested = getter.apply(bean);
+      if (nested != null) nestedResetter.reset(nested);
+    }
+  }
+}
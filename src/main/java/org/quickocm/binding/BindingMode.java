@@ -0,0 +1,18 @@
+package org.quickocm.binding;
+
+/**
+ * The engines available to populate objects of the model class from csv rows.
+ */
+public enum BindingMode {
+
+  /**
+   * Maps each row through Dozer, the default.
+   */
+  DOZER,
+
+  /**
+   * Sets each column through accessors compiled once per model class and header mapping.
+   * Values are assigned as produced by the cell processors, without Dozer's type conversions.
+   */
+  COMPILED
+}
@@ -0,0 +1,89 @@
+package org.quickocm.binding;
+
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Binds rows through accessors compiled from the field name mappings of a model class, instead of looking up
+ * properties on each row. Nested mappings like <code>dummyNestedField.code</code> create the intermediate object
+ * through its default constructor the first time a non null value is set on it.
+ */
+public class CompiledBeanBinder<I> implements BeanBinder<I> {
+
+  private final Class<I> clazz;
+  private final Supplier<Object> constructor;
+  private final PropertyWriter[] writers;
+
+  public CompiledBeanBinder(Class<I> clazz, String[] fieldNameMappings) {
+    this.clazz = clazz;
+    constructor = Accessors.constructor(clazz);
+    writers = new PropertyWriter[fieldNameMappings.length];
+
+    for (int i = 0; i < fieldNameMappings.length; i++) {
+      if (fieldNameMappings[i] == null) continue;
+      writers[i] = compile(clazz, fieldNameMappings[i].split("\\."), 0);
+    }
+  }
+
+  @Override
+  public I bind(List<Object> columns) {
+    return bind(clazz.cast(constructor.get()), columns);
+  }
+
+  @Override
+  public I bind(I bean, List<Object> columns) {
+    for (int i = 0; i < writers.length; i++) {
+      Object value = columns.get(i);
+      if (writers[i] == null || value == null) continue;
+      writers[i].write(bean, value);
+    }
+    return bean;
+  }
+
+  private static PropertyWriter compile(Class clazz, String[] path, int index) {
+    BiConsumer<Object, Object> setter = Accessors.setter(clazz, path[index]);
+    if (index == path.length - 1) return new PropertyWriter(setter);
+
+    Class nestedClass = Accessors.propertyType(clazz, path[index]);
+    return new NestedPropertyWriter(setter, Accessors.getter(clazz, path[index]), Accessors.constructor(nestedClass),
+      compile(nestedClass, path, index + 1));
+  }
+
+  private static class PropertyWriter {
+    final BiConsumer<Object, Object> setter;
+
+    private PropertyWriter(BiConsumer<Object, Object> setter) {
+      this.setter = setter;
+    }
+
+    void write(Object bean, Object value) {
+      setter.accept(bean, value);
+    }
+  }
+
+  private static class NestedPropertyWriter extends PropertyWriter {
+    private final Function<Object, Object> getter;
+    private final Supplier<Object> constructor;
+    private final PropertyWriter nestedWriter;
+
+    private NestedPropertyWriter(BiConsumer<Object, Object> setter, Function<Object, Object> getter,
+                                 Supplier<Object> constructor, PropertyWriter nestedWriter) {
+      super(setter);
+      this.getter = getter;
+      this.constructor = constructor;
+      this.nestedWriter = nestedWriter;
+    }
+
+    @Override
+    void write(Object bean, Object value) {
+      Object nested = getter.apply(bean);
+      if (nested == null) {
+        nested = constructor.get();
+        setter.accept(bean, nested);
+      }
+      nestedWriter.write(nested, value);
+    }
+  }
+}
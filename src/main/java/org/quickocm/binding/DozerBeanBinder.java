@@ -0,0 +1,78 @@
+package org.quickocm.binding;
+
+import org.dozer.DozerBeanMapper;
+import org.dozer.loader.api.BeanMappingBuilder;
+import org.dozer.loader.api.TypeMappingBuilder;
+import org.supercsv.io.dozer.CsvDozerBeanData;
+
+import java.util.List;
+
+import static org.dozer.loader.api.FieldsMappingOptions.copyByReference;
+import static org.dozer.loader.api.TypeMappingOptions.mapNull;
+import static org.dozer.loader.api.TypeMappingOptions.oneWay;
+import static org.dozer.loader.api.TypeMappingOptions.wildcard;
+
+/**
+ * Binds rows through a Dozer mapper configured the same way as <code>CsvDozerBeanReader</code> does it.
+ */
+public class DozerBeanBinder<I> implements BeanBinder<I> {
+
+  private final Class<I> clazz;
+  private final DozerBeanMapper dozerBeanMapper = new DozerBeanMapper();
+
+  public DozerBeanBinder(Class<I> clazz, String[] fieldNameMappings) {
+    this(clazz, fieldNameMappings, new boolean[fieldNameMappings.length]);
+  }
+
+  /**
+   * @param copiedByReference whether the value of each column is set as it is instead of being mapped by Dozer,
+   *                          for values of types Dozer can not create, like <code>UUID</code> or <code>LocalDate</code>
+   */
+  public DozerBeanBinder(Class<I> clazz, String[] fieldNameMappings, boolean[] copiedByReference) {
+    this.clazz = clazz;
+    dozerBeanMapper.addMapping(new CsvBeanMappingBuilder(clazz, fieldNameMappings, copiedByReference));
+  }
+
+  @Override
+  public I bind(List<Object> columns) {
+    CsvDozerBeanData beanData = new CsvDozerBeanData();
+    beanData.setColumns(columns);
+    return dozerBeanMapper.map(beanData, clazz);
+  }
+
+  @Override
+  public I bind(I bean, List<Object> columns) {
+    CsvDozerBeanData beanData = new CsvDozerBeanData();
+    beanData.setColumns(columns);
+    dozerBeanMapper.map(beanData, bean);
+    return bean;
+  }
+
+  /**
+   * Maps the processed columns of a csv row to the fields of the model class, column by column.
+   * Columns without a field mapping are ignored and null values are not mapped.
+   */
+  private static class CsvBeanMappingBuilder extends BeanMappingBuilder {
+
+    private final Class clazz;
+    private final String[] fieldNameMappings;
+    private final boolean[] copiedByReference;
+
+    private CsvBeanMappingBuilder(Class clazz, String[] fieldNameMappings, boolean[] copiedByReference) {
+      this.clazz = clazz;
+      this.fieldNameMappings = fieldNameMappings;
+      this.copiedByReference = copiedByReference;
+    }
+
+    @Override
+    protected void configure() {
+      TypeMappingBuilder mappingBuilder = mapping(CsvDozerBeanData.class, clazz, oneWay(), wildcard(false), mapNull(false));
+
+      for (int i = 0; i < fieldNameMappings.length; i++) {
+        if (fieldNameMappings[i] == null) continue;
+        if (copiedByReference[i]) mappingBuilder.fields("columns[" + i + "]", fieldNameMappings[i], copyByReference());
+        else mappingBuilder.fields("columns[" + i + "]", fieldNameMappings[i]);
+      }
+    }
+  }
+}
@@ -0,0 +1,9 @@
+package org.quickocm.binding;
+
+/**
+ * The <code>boolean</code> counterpart of <code>java.util.function.ObjIntConsumer</code>, which the JDK lacks.
+ */
+public interface ObjBooleanConsumer<T> {
+
+  void accept(T t, boolean value);
+}
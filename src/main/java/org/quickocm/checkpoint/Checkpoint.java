@@ -0,0 +1,75 @@
+package org.quickocm.checkpoint;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The position a csv has been processed up to, from which processing can be resumed without reading the csv again.
+ * <p/>
+ * The byte offset is the one of the first byte after the last handled row in the csv, once decompressed, and the
+ * line and row numbers are the ones of that row. The charset and headers are the ones the csv was read with, so that
+ * a resumed run converts the remaining rows the same way without reading the header row.
+ */
+public final class Checkpoint {
+
+  private final long byteOffset;
+  private final int lineNumber;
+  private final int rowNumber;
+  private final String charset;
+  private final List<String> headers;
+
+  public Checkpoint(long byteOffset, int lineNumber, int rowNumber, String charset, List<String> headers) {
+    this.byteOffset = byteOffset;
+    this.lineNumber = lineNumber;
+    this.rowNumber = rowNumber;
+    this.charset = charset;
+    this.headers = Collections.unmodifiableList(new ArrayList<String>(headers));
+  }
+
+  public long getByteOffset() {
+    return byteOffset;
+  }
+
+  public int getLineNumber() {
+    return lineNumber;
+  }
+
+  /**
+   * The row number of the last handled row, the header being row 1.
+   */
+  public int getRowNumber() {
+    return rowNumber;
+  }
+
+  public String getCharset() {
+    return charset;
+  }
+
+  public List<String> getHeaders() {
+    return headers;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (!(o instanceof Checkpoint)) return false;
+
+    Checkpoint that = (Checkpoint) o;
+    return byteOffset == that.byteOffset && lineNumber == that.lineNumber && rowNumber == that.rowNumber
+      && charset.equals(that.charset) && headers.equals(that.headers);
+  }
+
+  @Override
+  public int hashCode() {
+    int result = (int) (byteOffset ^ (byteOffset >>> 32));
+    result = 31 * result + rowNumber;
+    return 31 * result + headers.hashCode();
+  }
+
+  @Override
+  public String toString() {
+    return "Checkpoint{byteOffset=" + byteOffset + ", lineNumber=" + lineNumber + ", rowNumber=" + rowNumber
+      + ", charset=" + charset + ", headers=" + headers + "}";
+  }
+}
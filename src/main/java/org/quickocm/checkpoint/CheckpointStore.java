@@ -0,0 +1,27 @@
+package org.quickocm.checkpoint;
+
+import java.io.IOException;
+
+/**
+ * Implement this class and set the implementation on the <code>CsvParser</code> to make imports resumable: the
+ * parser saves a checkpoint every <code>checkpointInterval</code> rows, resumes from the saved checkpoint when there
+ * is one, and clears it once the csv has been processed to the end.
+ * <p/>
+ * A store holds the checkpoint of a single csv.
+ *
+ * @see FileCheckpointStore
+ */
+public interface CheckpointStore {
+
+  /**
+   * @return the last saved checkpoint, or null when there is none
+   */
+  public Checkpoint load() throws IOException;
+
+  /**
+   * save method is called with a checkpoint once all the rows up to it have been handled, replacing the previous one.
+   */
+  public void save(Checkpoint checkpoint) throws IOException;
+
+  public void clear() throws IOException;
+}
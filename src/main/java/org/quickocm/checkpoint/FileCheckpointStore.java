@@ -0,0 +1,89 @@
+package org.quickocm.checkpoint;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Keeps a checkpoint in a properties file. A checkpoint is written to a temporary file next to it first and moved
+ * over it, so that a crash while saving leaves the previous checkpoint in place. A file that can not be read back
+ * as a checkpoint, e.g. one truncated or edited by hand, fails loading with an <code>IOException</code>.
+ */
+public class FileCheckpointStore implements CheckpointStore {
+
+  private final Path path;
+
+  public FileCheckpointStore(Path path) {
+    this.path = path;
+  }
+
+  @Override
+  public Checkpoint load() throws IOException {
+    if (!Files.exists(path)) return null;
+
+    Properties properties = new Properties();
+    try (InputStream inputStream = Files.newInputStream(path)) {
+      properties.load(inputStream);
+    } catch (IllegalArgumentException e) {
+      throw new IOException("the checkpoint file " + path + " is malformed", e);
+    }
+
+    List<String> headers = new ArrayList<String>();
+    long headerCount = getNumber(properties, "headers");
+    for (int i = 0; i < headerCount; i++) {
+      headers.add(properties.getProperty("header." + i));
+    }
+    return new Checkpoint(getNumber(properties, "byteOffset"), (int) getNumber(properties, "lineNumber"),
+      (int) getNumber(properties, "rowNumber"), getProperty(properties, "charset"), headers);
+  }
+
+  private String getProperty(Properties properties, String key) throws IOException {
+    String value = properties.getProperty(key);
+    if (value == null) throw new IOException("the checkpoint file " + path + " has no " + key);
+    return value;
+  }
+
+  /**
+   * A property that holds a number no less than 0, which is an <code>int</code> except for the byte offset.
+   */
+  private long getNumber(Properties properties, String key) throws IOException {
+    String value = getProperty(properties, key);
+    try {
+      long number = key.equals("byteOffset") ? Long.parseLong(value) : Integer.parseInt(value);
+      if (number >= 0) return number;
+    } catch (NumberFormatException ignored) {
+    }
+    throw new IOException("the checkpoint file " + path + " has an invalid " + key + ": " + value);
+  }
+
+  @Override
+  public void save(Checkpoint checkpoint) throws IOException {
+    Properties properties = new Properties();
+    properties.setProperty("byteOffset", Long.toString(checkpoint.getByteOffset()));
+    properties.setProperty("lineNumber", Integer.toString(checkpoint.getLineNumber()));
+    properties.setProperty("rowNumber", Integer.toString(checkpoint.getRowNumber()));
+    properties.setProperty("charset", checkpoint.getCharset());
+    properties.setProperty("headers", Integer.toString(checkpoint.getHeaders().size()));
+    for (int i = 0; i < checkpoint.getHeaders().size(); i++) {
+      String header = checkpoint.getHeaders().get(i);
+      if (header != null) properties.setProperty("header." + i, header);
+    }
+
+    Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+    try (OutputStream outputStream = Files.newOutputStream(temporary)) {
+      properties.store(outputStream, null);
+    }
+    Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  @Override
+  public void clear() throws IOException {
+    Files.deleteIfExists(path);
+  }
+}
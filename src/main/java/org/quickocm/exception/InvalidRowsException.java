@@ -0,0 +1,20 @@
+package org.quickocm.exception;
+
+/**
+ * Thrown at the end of parsing a csv when errors were collected instead of stopping at the first invalid row.
+ * Its code is <code>error.upload.rows.invalid</code> with the number of invalid rows as parameter, and the errors
+ * of the rows are in its report.
+ */
+public class InvalidRowsException extends UploadException {
+
+  private final UploadErrorReport errorReport;
+
+  public InvalidRowsException(UploadErrorReport errorReport) {
+    super("error.upload.rows.invalid", Integer.toString(errorReport.getErrorCount()));
+    this.errorReport = errorReport;
+  }
+
+  public UploadErrorReport getErrorReport() {
+    return errorReport;
+  }
+}
@@ -0,0 +1,91 @@
+package org.quickocm.exception;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * The errors of the rows of a csv, collected while parsing it to the end instead of stopping at the first one.
+ * <p/>
+ * The report keeps the errors of at most <code>maxErrors</code> rows, the ones with the lowest row numbers, so that
+ * its memory use does not grow with the number of invalid rows; all of them are counted though.
+ * Errors may be added from several threads.
+ */
+public class UploadErrorReport {
+
+  private static final Comparator<RowError> ROW_ORDER = new Comparator<RowError>() {
+    @Override
+    public int compare(RowError first, RowError second) {
+      return first.rowNumber < second.rowNumber ? -1 : first.rowNumber == second.rowNumber ? 0 : 1;
+    }
+  };
+
+  private final int maxErrors;
+  private final PriorityQueue<RowError> errors;
+  private int errorCount;
+
+  public UploadErrorReport(int maxErrors) {
+    if (maxErrors < 1) throw new IllegalArgumentException("maxErrors should be at least 1");
+    this.maxErrors = maxErrors;
+    this.errors = new PriorityQueue<RowError>(Math.min(maxErrors, 64), Collections.reverseOrder(ROW_ORDER));
+  }
+
+  /**
+   * Records the error of a row, dropping the error of the highest row number once the report is full.
+   *
+   * @param rowNumber the row number of the line in csv
+   * @param error     the error of the row
+   */
+  public synchronized void add(int rowNumber, UploadException error) {
+    errorCount++;
+    if (errors.size() == maxErrors) {
+      if (errors.peek().rowNumber < rowNumber) return;
+      errors.poll();
+    }
+    errors.add(new RowError(rowNumber, error));
+  }
+
+  /**
+   * The errors kept by the report, in the order of their rows.
+   */
+  public synchronized List<UploadException> getErrors() {
+    List<RowError> rowErrors = new ArrayList<RowError>(errors);
+    Collections.sort(rowErrors, ROW_ORDER);
+
+    List<UploadException> uploadExceptions = new ArrayList<UploadException>(rowErrors.size());
+    for (RowError rowError : rowErrors) {
+      uploadExceptions.add(rowError.error);
+    }
+    return uploadExceptions;
+  }
+
+  /**
+   * The number of invalid rows found, including the ones whose error was dropped.
+   */
+  public synchronized int getErrorCount() {
+    return errorCount;
+  }
+
+  /**
+   * Whether errors were dropped because there were more than <code>maxErrors</code> of them.
+   */
+  public synchronized boolean isTruncated() {
+    return errorCount > errors.size();
+  }
+
+  public synchronized boolean isEmpty() {
+    return errorCount == 0;
+  }
+
+  private static class RowError {
+    private final int rowNumber;
+    private final UploadException error;
+
+    private RowError(int rowNumber, UploadException error) {
+      this.rowNumber = rowNumber;
+      this.error = error;
+    }
+  }
+}
@@ -8,6 +8,8 @@ public class Field {
     private String name;
     private String nested;
     private String type;
+    private String format;
+    private boolean intern;
 
     public Field(java.lang.reflect.Field field, ImportField annotation) {
         this.field = field;
@@ -15,12 +17,23 @@ public class Field {
         this.name = annotation.name().isEmpty() ? field.getName() : annotation.name();
         this.nested = annotation.nested();
         this.type = annotation.type();
+        this.format = annotation.format();
+        this.intern = annotation.intern();
     }
 
     public boolean hasName(String name) {
         return this.name.equalsIgnoreCase(name);
     }
 
+    /**
+     * The property this field is mapped to, in the form <code>field</code> or <code>field.nested</code>.
+     */
+    public String getFieldNameMapping() {
+        if (nested.isEmpty()) return field.getName();
+
+        return field.getName() + "." + nested;
+    }
+
     public java.lang.reflect.Field getField() {
         return field;
     }
@@ -60,4 +73,20 @@ public class Field {
     public void setType(String type) {
         this.type = type;
     }
+
+    public String getFormat() {
+        return format;
+    }
+
+    public void setFormat(String format) {
+        this.format = format;
+    }
+
+    public boolean isIntern() {
+        return intern;
+    }
+
+    public void setIntern(boolean intern) {
+        this.intern = intern;
+    }
 }
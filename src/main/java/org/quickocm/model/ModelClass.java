@@ -1,27 +1,48 @@
 package org.quickocm.model;
 
-import org.apache.commons.collections.CollectionUtils;
-import org.apache.commons.collections.ListUtils;
-import org.apache.commons.collections.Predicate;
-import org.apache.commons.collections.Transformer;
 import org.apache.commons.lang.StringUtils;
 import org.quickocm.annotation.ImportField;
 import org.quickocm.annotation.ImportFields;
 import org.quickocm.exception.UploadException;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import static java.util.Arrays.asList;
 
 public class ModelClass {
   private Class clazz;
   private List<Field> importFields;
+  private Map<String, Field> importFieldsByName = new HashMap<String, Field>();
+  private Map<String, Integer> importFieldNameCounts = new HashMap<String, Integer>();
   private boolean acceptExtraHeaders = false;
+  private Set<String> projection;
 
   public ModelClass(Class clazz) {
     this.clazz = clazz;
     importFields = fieldsWithImportFieldAnnotation();
+    indexImportFields();
+  }
+
+  /**
+   * Creates a model class for the same class as the given one, sharing its already reflected import fields
+   * instead of scanning the class again.
+   *
+   * @param modelClass the model class to copy
+   */
+  public ModelClass(ModelClass modelClass) {
+    this.clazz = modelClass.clazz;
+    this.importFields = modelClass.importFields;
+    this.importFieldsByName = modelClass.importFieldsByName;
+    this.importFieldNameCounts = modelClass.importFieldNameCounts;
+    this.acceptExtraHeaders = modelClass.acceptExtraHeaders;
+    this.projection = modelClass.projection;
   }
 
   public void validateHeaders(List<String> headers) {
@@ -32,22 +53,49 @@ public class ModelClass {
   }
 
   public String[] getFieldNameMappings(String[] headers) {
-    List<String> fieldMappings = new ArrayList<String>();
+    Field[] columnFields = getColumnFields(headers);
+    String[] fieldMappings = new String[columnFields.length];
 
-    CollectionUtils.collect(asList(headers), new HeaderToFieldNameTransformer(), fieldMappings);
+    for (int i = 0; i < columnFields.length; i++) {
+      fieldMappings[i] = columnFields[i] == null ? null : columnFields[i].getFieldNameMapping();
+    }
+    return fieldMappings;
+  }
 
-    return fieldMappings.toArray(new String[fieldMappings.size()]);
+  /**
+   * Resolves the import field of each column of a csv file in a single pass over its headers.
+   *
+   * @param headers the headers of the csv file
+   * @return the import field of each column, null for the columns which are not mapped or not in the projection
+   */
+  public Field[] getColumnFields(String[] headers) {
+    Field[] columnFields = new Field[headers.length];
+
+    for (int i = 0; i < headers.length; i++) {
+      Field field = findImportFieldWithName(headers[i]);
+      columnFields[i] = field != null && isProjected(field) ? field : null;
+    }
+    return columnFields;
+  }
+
+  private boolean isProjected(Field field) {
+    return projection == null || projection.contains(field.getName().toLowerCase());
+  }
+
+  /**
+   * The import fields of the class in the order they are declared, only the ones of the projection when there is one.
+   */
+  public List<Field> getImportFields() {
+    List<Field> fields = new ArrayList<Field>();
+    for (Field field : importFields) {
+      if (isProjected(field)) fields.add(field);
+    }
+    return fields;
   }
 
   public Field findImportFieldWithName(final String name) {
-    Object result = CollectionUtils.find(importFields, new Predicate() {
-      @Override
-      public boolean evaluate(Object object) {
-        Field field = (Field) object;
-        return field.hasName(name);
-      }
-    });
-    return (Field) result;
+    if (name == null) return null;
+    return importFieldsByName.get(name.toLowerCase());
   }
 
   private List<Field> fieldsWithImportFieldAnnotation() {
@@ -71,6 +119,16 @@ public class ModelClass {
     return result;
   }
 
+  private void indexImportFields() {
+    for (Field field : importFields) {
+      String name = field.getName().toLowerCase();
+      if (!importFieldsByName.containsKey(name)) importFieldsByName.put(name, field);
+
+      Integer count = importFieldNameCounts.get(name);
+      importFieldNameCounts.put(name, count == null ? 1 : count + 1);
+    }
+  }
+
   private void validateNullHeaders(List<String> headers) throws UploadException {
     if (headers == null) throw new UploadException("error.upload.csv.empty");
 
@@ -89,19 +147,30 @@ public class ModelClass {
   }
 
   private void validateInvalidHeaders(List<String> headers) {
-    List<String> fieldNames = getAllImportedFieldNames();
-    List invalidHeaders = ListUtils.subtract(headers, lowerCase(fieldNames));
+    List<String> invalidHeaders = new ArrayList<String>();
+    Map<String, Integer> occurrences = new HashMap<String, Integer>();
+
+    for (String header : headers) {
+      Integer occurrence = occurrences.get(header);
+      occurrence = occurrence == null ? 1 : occurrence + 1;
+      occurrences.put(header, occurrence);
+
+      Integer available = importFieldNameCounts.get(header);
+      if (available == null || occurrence > available) invalidHeaders.add(header);
+    }
+
     if (!invalidHeaders.isEmpty()) {
       throw new UploadException("error.upload.invalid.header", invalidHeaders.toString());
     }
   }
 
   private List<String> findMissingFields(List<String> headers) {
+    Set<String> headerSet = new HashSet<String>(headers);
     List<String> missingFields = new ArrayList<String>();
     for (Field field : importFields) {
       if (field.isMandatory()) {
         String fieldName = field.getName();
-        if (!headers.contains(fieldName.toLowerCase())) {
+        if (!headerSet.contains(fieldName.toLowerCase())) {
           missingFields.add(fieldName);
         }
       }
@@ -117,14 +186,6 @@ public class ModelClass {
     return lowerCaseHeaders;
   }
 
-  private List<String> getAllImportedFieldNames() {
-    List<String> outputCollection = new ArrayList<String>();
-    for (Field field : importFields) {
-      outputCollection.add(field.getName());
-    }
-    return outputCollection;
-  }
-
   public Class getClazz() {
     return clazz;
   }
@@ -137,22 +198,33 @@ public class ModelClass {
     this.acceptExtraHeaders = acceptExtraHeaders;
   }
 
-  private class HeaderToFieldNameTransformer implements Transformer {
-
-    @Override
-    public Object transform(Object headerName) {
-      Field importField = findImportFieldWithName((String) headerName);
-
-      if (importField == null) return null;
-
-      String nestedProperty = importField.getNested();
+  /**
+   * The lower case names of the import fields columns are mapped to, null when all of them are.
+   */
+  public Set<String> getProjection() {
+    return projection;
+  }
 
-      if (nestedProperty.isEmpty())
-        return importField.getField().getName();
+  /**
+   * Restricts the columns mapped to import fields to the ones of the given fields, so that the columns of the other
+   * fields are left out like extra columns. Headers are still validated against all import fields.
+   *
+   * @param importFieldNames the names of the import fields to map, case insensitive, null to map all of them
+   * @throws IllegalArgumentException when a name is not the name of an import field of the class
+   */
+  public void setProjection(Collection<String> importFieldNames) {
+    if (importFieldNames == null) {
+      projection = null;
+      return;
+    }
 
-      return (importField.getField().getName() + "." + nestedProperty);
+    Set<String> names = new HashSet<String>();
+    for (String name : importFieldNames) {
+      if (findImportFieldWithName(name) == null) {
+        throw new IllegalArgumentException(name + " is not an import field of " + clazz.getName());
+      }
+      names.add(name.toLowerCase());
     }
+    projection = Collections.unmodifiableSet(names);
   }
-
-
 }
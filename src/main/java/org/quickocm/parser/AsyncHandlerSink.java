@@ -0,0 +1,127 @@
+package org.quickocm.parser;
+
+import org.quickocm.AsyncRecordHandler;
+import org.quickocm.exception.UploadException;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Invokes an <code>AsyncRecordHandler</code> for each row without waiting for its calls to complete, blocking the
+ * rows handed over once <code>maxInFlight</code> calls are outstanding so that reading slows down to the pace of
+ * the handler.
+ * <p/>
+ * Once a call has failed no more rows are handed to the handler and the failure is rethrown, reported as
+ * <code>error.upload.async.failed</code> with the record number of its row unless the handler failed with an
+ * <code>UploadException</code> itself. When calls of several rows fail, the one of the lowest row number observed
+ * is reported. At the end of the csv, and when processing fails, the sink waits for all outstanding calls.
+ */
+class AsyncHandlerSink<I> implements RowSink<I> {
+
+  private final AsyncRecordHandler<I> asyncRecordHandler;
+  private final Map supplementaryInfo;
+  private final int maxInFlight;
+  private final Semaphore inFlight;
+
+  private RuntimeException failure;
+  private int failedRowNumber = Integer.MAX_VALUE;
+
+  AsyncHandlerSink(AsyncRecordHandler<I> asyncRecordHandler, Map supplementaryInfo, int maxInFlight) {
+    this.asyncRecordHandler = asyncRecordHandler;
+    this.supplementaryInfo = supplementaryInfo;
+    this.maxInFlight = maxInFlight;
+    this.inFlight = new Semaphore(maxInFlight);
+  }
+
+  @Override
+  public void start(CsvBeanReader<I> csvBeanReader) {
+  }
+
+  @Override
+  public void accept(I imported, CsvRow row) {
+    throwIfFailed();
+    acquire(1);
+    throwIfFailedReleasing();
+
+    final int rowNumber = row.getRowNumber();
+    CompletableFuture<?> future;
+    try {
+      future = asyncRecordHandler.execute(imported, rowNumber, supplementaryInfo);
+    } catch (RuntimeException e) {
+      inFlight.release();
+      throw forFailedRow(rowNumber, e);
+    }
+
+    if (future == null) {
+      inFlight.release();
+      return;
+    }
+    future.whenComplete((result, throwable) -> {
+      if (throwable != null) fail(rowNumber, throwable);
+      inFlight.release();
+    });
+  }
+
+  @Override
+  public void finish() {
+    acquire(maxInFlight);
+    inFlight.release(maxInFlight);
+    throwIfFailed();
+  }
+
+  /**
+   * Waits for the outstanding calls, which may still use what the caller of the parser releases once it returns.
+   */
+  @Override
+  public void abort() {
+    try {
+      inFlight.acquire(maxInFlight);
+      inFlight.release(maxInFlight);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void acquire(int permits) {
+    try {
+      inFlight.acquire(permits);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("interrupted while waiting for the record handler", e);
+    }
+  }
+
+  private void throwIfFailedReleasing() {
+    try {
+      throwIfFailed();
+    } catch (RuntimeException e) {
+      inFlight.release();
+      throw e;
+    }
+  }
+
+  private synchronized void throwIfFailed() {
+    if (failure != null) throw failure;
+  }
+
+  private synchronized void fail(int rowNumber, Throwable throwable) {
+    if (rowNumber < failedRowNumber) {
+      failedRowNumber = rowNumber;
+      failure = forFailedRow(rowNumber, throwable);
+    }
+  }
+
+  private static RuntimeException forFailedRow(int rowNumber, Throwable throwable) {
+    Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null
+      ? throwable.getCause()
+      : throwable;
+    if (cause instanceof UploadException) return (UploadException) cause;
+
+    UploadException uploadException = new UploadException("error.upload.async.failed",
+      "record.number." + (rowNumber - 1));
+    uploadException.initCause(cause);
+    return uploadException;
+  }
+}
@@ -0,0 +1,154 @@
+package org.quickocm.parser;
+
+import org.quickocm.BatchRecordHandler;
+import org.quickocm.exception.UploadException;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Accumulates rows and invokes a <code>BatchRecordHandler</code> once a batch reaches its row count or size limit,
+ * and once more for the remaining rows at the end of the csv.
+ * <p/>
+ * With a spill limit, once the objects of a batch come from that many characters of csv, the further rows of the
+ * batch are kept off the heap in a <code>SpillBuffer</code> instead of as objects, and the handler receives a
+ * <code>SpilledBatch</code> converting them again as it goes through them.
+ * <p/>
+ * A failure of the handler is reported as <code>error.upload.batch.failed</code> with the batch number and the
+ * record numbers of its first and last rows, unless the handler throws an <code>UploadException</code> itself.
+ * A failure to write to the spill buffer is reported as <code>error.upload.spill.failed</code>. When processing
+ * fails the rows not yet handed over are discarded and their spill buffer is closed.
+ */
+class BatchingSink<I> implements RowSink<I> {
+
+  private final BatchRecordHandler<I> batchRecordHandler;
+  private final Map supplementaryInfo;
+  private final int batchSize;
+  private final long batchCharacters;
+  private final long spillCharacters;
+  private final Path spillDirectory;
+
+  private CsvBeanReader<I> csvBeanReader;
+  private List<I> batch = new ArrayList<I>();
+  private SpillBuffer spillBuffer;
+  private int firstRowNumber;
+  private int lastRowNumber;
+  private long characters;
+  private int batchNumber;
+
+  BatchingSink(BatchRecordHandler<I> batchRecordHandler, Map supplementaryInfo, int batchSize, long batchCharacters) {
+    this(batchRecordHandler, supplementaryInfo, batchSize, batchCharacters, 0, null);
+  }
+
+  /**
+   * @param spillCharacters the characters of csv whose objects a batch holds before it keeps its further rows off
+   *                        the heap, 0 to hold all of them
+   * @param spillDirectory  the directory of the files rows are kept in, null for the default temporary directory
+   */
+  BatchingSink(BatchRecordHandler<I> batchRecordHandler, Map supplementaryInfo, int batchSize, long batchCharacters,
+               long spillCharacters, Path spillDirectory) {
+    this.batchRecordHandler = batchRecordHandler;
+    this.supplementaryInfo = supplementaryInfo;
+    this.batchSize = batchSize;
+    this.batchCharacters = batchCharacters;
+    this.spillCharacters = spillCharacters;
+    this.spillDirectory = spillDirectory;
+  }
+
+  @Override
+  public synchronized void start(CsvBeanReader<I> csvBeanReader) {
+    this.csvBeanReader = csvBeanReader;
+  }
+
+  @Override
+  public synchronized void accept(I imported, CsvRow row) {
+    if (size() == 0) firstRowNumber = row.getRowNumber();
+    lastRowNumber = row.getRowNumber();
+    if (shouldSpill()) spill(row);
+    else batch.add(imported);
+    characters += row.getSize();
+
+    if (size() >= batchSize || (batchCharacters > 0 && characters >= batchCharacters)) flush();
+  }
+
+  @Override
+  public synchronized void finish() {
+    if (size() > 0) flush();
+  }
+
+  /**
+   * Releases the spill buffer of the batch being accumulated, whose file is only deleted once it is closed.
+   */
+  @Override
+  public synchronized void abort() {
+    closeQuietly(spillBuffer);
+    spillBuffer = null;
+    batch = new ArrayList<I>();
+  }
+
+  private int size() {
+    return batch.size() + (spillBuffer == null ? 0 : spillBuffer.size());
+  }
+
+  private boolean shouldSpill() {
+    return spillBuffer != null || (spillCharacters > 0 && csvBeanReader != null && characters >= spillCharacters);
+  }
+
+  private void spill(CsvRow row) {
+    try {
+      if (spillBuffer == null) spillBuffer = csvBeanReader.newSpillBuffer(spillDirectory);
+      spillBuffer.append(row);
+    } catch (IOException e) {
+      closeQuietly(spillBuffer);
+      spillBuffer = null;
+      UploadException uploadException = new UploadException("error.upload.spill.failed",
+        "record.number." + (row.getRowNumber() - 1));
+      uploadException.initCause(e);
+      throw uploadException;
+    }
+  }
+
+  private void flush() {
+    List<I> full = batch;
+    batch = new ArrayList<I>(full.size());
+    characters = 0;
+    batchNumber++;
+
+    try {
+      if (spillBuffer != null) full = seal(full);
+      batchRecordHandler.execute(full, firstRowNumber, lastRowNumber, supplementaryInfo);
+    } catch (UploadException e) {
+      throw e;
+    } catch (RuntimeException e) {
+      UploadException uploadException = new UploadException("error.upload.batch.failed", "batch.number." + batchNumber,
+        "record.number." + (firstRowNumber - 1), "record.number." + (lastRowNumber - 1));
+      uploadException.initCause(e);
+      throw uploadException;
+    }
+  }
+
+  private List<I> seal(List<I> objects) {
+    SpillBuffer spilled = spillBuffer;
+    spillBuffer = null;
+    try {
+      spilled.seal();
+    } catch (IOException e) {
+      UploadException uploadException = new UploadException("error.upload.spill.failed",
+        "record.number." + (lastRowNumber - 1));
+      uploadException.initCause(e);
+      throw uploadException;
+    }
+    return new SpilledBatch<I>(objects, spilled, csvBeanReader);
+  }
+
+  private static void closeQuietly(SpillBuffer spillBuffer) {
+    if (spillBuffer == null) return;
+    try {
+      spillBuffer.close();
+    } catch (IOException ignored) {
+    }
+  }
+}
@@ -0,0 +1,49 @@
+package org.quickocm.parser;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * Decodes the bytes of a buffer, like a memory mapped region of a file, straight into the character array of the
+ * caller. Malformed input is replaced, the same as <code>InputStreamReader</code> does it.
+ */
+class ByteBufferReader extends Reader {
+
+  private final ByteBuffer bytes;
+  private final CharsetDecoder decoder;
+  private boolean decoded;
+  private boolean flushed;
+
+  ByteBufferReader(ByteBuffer bytes, Charset charset) {
+    this.bytes = bytes;
+    this.decoder = charset.newDecoder()
+      .onMalformedInput(CodingErrorAction.REPLACE)
+      .onUnmappableCharacter(CodingErrorAction.REPLACE);
+  }
+
+  @Override
+  public int read(char[] chars, int offset, int length) throws IOException {
+    if (length == 0) return 0;
+
+    CharBuffer out = CharBuffer.wrap(chars, offset, length);
+    if (!decoded) {
+      CoderResult result = decoder.decode(bytes, out, true);
+      if (result.isError()) result.throwException();
+      decoded = result.isUnderflow();
+    }
+    if (decoded && !flushed) flushed = decoder.flush(out).isUnderflow();
+
+    int read = out.position() - offset;
+    return read == 0 && flushed ? -1 : read;
+  }
+
+  @Override
+  public void close() {
+  }
+}
@@ -0,0 +1,69 @@
+package org.quickocm.parser;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * The byte order marks that may start a csv, telling its charset. A csv starting with one is read in the charset of
+ * the mark whatever charset is configured, and the mark is not part of the first header.
+ */
+enum ByteOrderMark {
+
+  UTF_8(StandardCharsets.UTF_8, 0xef, 0xbb, 0xbf),
+  UTF_16BE(StandardCharsets.UTF_16BE, 0xfe, 0xff),
+  UTF_16LE(StandardCharsets.UTF_16LE, 0xff, 0xfe);
+
+  static final int MAX_LENGTH = 3;
+
+  final Charset charset;
+  private final int[] bytes;
+
+  ByteOrderMark(Charset charset, int... bytes) {
+    this.charset = charset;
+    this.bytes = bytes;
+  }
+
+  int length() {
+    return bytes.length;
+  }
+
+  /**
+   * Finds the mark at the start of the bytes between offset and limit, null when there is none.
+   */
+  static ByteOrderMark find(byte[] bytes, int offset, int limit) {
+    for (ByteOrderMark byteOrderMark : values()) {
+      if (byteOrderMark.startsAt(bytes, offset, limit)) return byteOrderMark;
+    }
+    return null;
+  }
+
+  static ByteOrderMark find(ByteBuffer buffer) {
+    byte[] start = new byte[Math.min(MAX_LENGTH, buffer.limit())];
+    for (int i = 0; i < start.length; i++) start[i] = buffer.get(i);
+    return find(start, 0, start.length);
+  }
+
+  static ByteOrderMark find(Path path) throws IOException {
+    try (InputStream inputStream = Files.newInputStream(path)) {
+      byte[] start = new byte[MAX_LENGTH];
+      int length = 0, read;
+      while (length < start.length && (read = inputStream.read(start, length, start.length - length)) >= 0) {
+        length += read;
+      }
+      return find(start, 0, length);
+    }
+  }
+
+  private boolean startsAt(byte[] bytes, int offset, int limit) {
+    if (limit - offset < this.bytes.length) return false;
+    for (int i = 0; i < this.bytes.length; i++) {
+      if ((bytes[offset + i] & 0xff) != this.bytes[i]) return false;
+    }
+    return true;
+  }
+}
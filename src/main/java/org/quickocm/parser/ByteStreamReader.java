@@ -0,0 +1,251 @@
+package org.quickocm.parser;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Decodes the bytes of an input stream straight into the character array of the caller, which is the buffer of the
+ * tokenizer, in place of an <code>InputStreamReader</code>.
+ * <p/>
+ * The charset is the one of the byte order mark the stream starts with, if any, and the given one otherwise.
+ * For UTF-8 and US-ASCII the ASCII bytes are copied as they are and only the runs of other bytes go through the
+ * charset decoder; ISO-8859-1 is copied byte by byte without a decoder. Malformed input is replaced, the same as
+ * <code>InputStreamReader</code> does it. Unlike it, the reader is not synchronized: it is only ever read by the
+ * tokenizer of a single <code>CsvBeanReader</code>.
+ * <p/>
+ * The reader keeps track of the bytes each read was decoded from, so that the offset of the input at a character of
+ * the last read can be told, see {@link #getByteOffset(int)}.
+ */
+class ByteStreamReader extends Reader {
+
+  static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+
+  private static final int MIN_BUFFER_SIZE = 16;
+
+  private final InputStream inputStream;
+  private final ByteBuffer bytes;
+  private final boolean detectByteOrderMark;
+  private long bytesRead;
+  private long lastReadStart;
+  private long lastReadEnd;
+  private int lastReadChars;
+  private Charset charset;
+  private CharsetDecoder decoder;
+  private CharsetDecoder offsetDecoder;
+  private boolean asciiCopied;
+  private boolean latin1;
+  private boolean started;
+  private boolean endOfInput;
+  private boolean finishing;
+  private boolean flushed;
+  private final char[] single = new char[2];
+  private int pending = -1;
+
+  ByteStreamReader(InputStream inputStream, Charset charset, int bufferSize) {
+    this(inputStream, charset, bufferSize, 0);
+  }
+
+  /**
+   * Creates a reader of an input stream that has already been read up to the given offset, which does not look for
+   * a byte order mark unless the offset is 0.
+   */
+  ByteStreamReader(InputStream inputStream, Charset charset, int bufferSize, long byteOffset) {
+    this.inputStream = inputStream;
+    this.charset = charset;
+    this.bytes = ByteBuffer.allocate(Math.max(bufferSize, MIN_BUFFER_SIZE));
+    this.bytes.flip();
+    this.detectByteOrderMark = byteOffset == 0;
+    this.bytesRead = byteOffset;
+    this.lastReadStart = byteOffset;
+    this.lastReadEnd = byteOffset;
+  }
+
+  Charset getCharset() {
+    return charset;
+  }
+
+  /**
+   * The offset in the input of the byte following the first characters of the last read.
+   *
+   * @param count the number of characters to skip, at most the number of characters of the last read
+   */
+  long getByteOffset(int count) {
+    if (count == lastReadChars) return lastReadEnd;
+    return lastReadStart + decodedLength(count);
+  }
+
+  @Override
+  public int read(char[] chars, int offset, int length) throws IOException {
+    if (length == 0) return 0;
+    if (pending >= 0) {
+      chars[offset] = (char) pending;
+      pending = -1;
+      return lastRead(lastReadEnd, 1);
+    }
+    if (length == 1) return readSingle(chars, offset);
+    if (!started) start();
+
+    long start = consumed();
+    if (finishing) return lastRead(start, finish(chars, offset, length));
+    while (true) {
+      int decoded = decode(chars, offset, length);
+      if (decoded > 0) return lastRead(start, decoded);
+      if (endOfInput) return lastRead(start, finish(chars, offset, length));
+      fill();
+      start = consumed();
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    inputStream.close();
+  }
+
+  /**
+   * Reads a single character through a buffer of two, so that a character of a surrogate pair is never split.
+   */
+  private int readSingle(char[] chars, int offset) throws IOException {
+    int read = read(single, 0, 2);
+    if (read < 0) return -1;
+    chars[offset] = single[0];
+    if (read == 2) {
+      pending = single[1];
+      lastReadEnd = lastReadStart + decodedLength(1);
+    }
+    lastReadChars = 1;
+    return 1;
+  }
+
+  /**
+   * Records the bytes the characters of a read were decoded from.
+   */
+  private int lastRead(long start, int chars) {
+    lastReadStart = start;
+    lastReadEnd = consumed();
+    lastReadChars = Math.max(chars, 0);
+    return chars;
+  }
+
+  private long consumed() {
+    return bytesRead - bytes.remaining();
+  }
+
+  private void start() throws IOException {
+    started = true;
+    if (detectByteOrderMark) {
+      while (!endOfInput && bytes.remaining() < ByteOrderMark.MAX_LENGTH) fill();
+
+      ByteOrderMark byteOrderMark = ByteOrderMark.find(bytes.array(), bytes.position(), bytes.limit());
+      if (byteOrderMark != null) {
+        charset = byteOrderMark.charset;
+        bytes.position(bytes.position() + byteOrderMark.length());
+      }
+    }
+    if (charset.equals(StandardCharsets.UTF_16)) charset = StandardCharsets.UTF_16BE;
+
+    decoder = charset.newDecoder()
+      .onMalformedInput(CodingErrorAction.REPLACE)
+      .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    asciiCopied = charset.equals(StandardCharsets.UTF_8) || charset.equals(StandardCharsets.US_ASCII);
+    latin1 = charset.equals(StandardCharsets.ISO_8859_1);
+  }
+
+  private int decode(char[] chars, int offset, int length) {
+    if (latin1) return copyLatin1(chars, offset, length);
+    if (!asciiCopied) {
+      CharBuffer out = CharBuffer.wrap(chars, offset, length);
+      decoder.decode(bytes, out, false);
+      return out.position() - offset;
+    }
+
+    byte[] array = bytes.array();
+    int position = bytes.position();
+    int limit = bytes.limit();
+    int decoded = 0;
+    while (decoded < length && position < limit) {
+      byte b = array[position];
+      if (b >= 0) {
+        chars[offset + decoded++] = (char) b;
+        position++;
+        continue;
+      }
+
+      int runEnd = position;
+      while (runEnd < limit && array[runEnd] < 0) runEnd++;
+
+      int window = Math.min(length - decoded, runEnd - position + 1);
+      CharBuffer out = CharBuffer.wrap(chars, offset + decoded, window);
+      bytes.position(position);
+      decoder.decode(bytes, out, false);
+      int produced = out.position() - (offset + decoded);
+      decoded += produced;
+      position = bytes.position();
+      if (produced == 0) break;
+    }
+    bytes.position(position);
+    return decoded;
+  }
+
+  /**
+   * The number of bytes the first characters of the last read were decoded from. The bytes of the last read are still
+   * in the buffer, so they are decoded again up to that many characters, which consumes the same bytes as the read
+   * did, malformed input included.
+   */
+  private int decodedLength(int count) {
+    if (latin1 || count == 0) return count;
+
+    if (offsetDecoder == null) {
+      offsetDecoder = decoder.charset().newDecoder()
+        .onMalformedInput(CodingErrorAction.REPLACE)
+        .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+    int start = (int) (lastReadStart - (bytesRead - bytes.limit()));
+    ByteBuffer in = ByteBuffer.wrap(bytes.array(), start, (int) (lastReadEnd - lastReadStart));
+    offsetDecoder.reset();
+    offsetDecoder.decode(in, CharBuffer.allocate(count), false);
+    return in.position() - start;
+  }
+
+  private int copyLatin1(char[] chars, int offset, int length) {
+    byte[] array = bytes.array();
+    int position = bytes.position();
+    int count = Math.min(length, bytes.remaining());
+    for (int i = 0; i < count; i++) chars[offset + i] = (char) (array[position + i] & 0xff);
+    bytes.position(position + count);
+    return count;
+  }
+
+  private int finish(char[] chars, int offset, int length) {
+    if (flushed) return -1;
+
+    finishing = true;
+    CharBuffer out = CharBuffer.wrap(chars, offset, length);
+    CoderResult result = decoder.decode(bytes, out, true);
+    if (!result.isOverflow()) {
+      result = decoder.flush(out);
+      flushed = !result.isOverflow();
+    }
+    int decoded = out.position() - offset;
+    return decoded > 0 ? decoded : -1;
+  }
+
+  private void fill() throws IOException {
+    bytes.compact();
+    int read = inputStream.read(bytes.array(), bytes.position(), bytes.remaining());
+    if (read < 0) {
+      endOfInput = true;
+    } else {
+      bytes.position(bytes.position() + read);
+      bytesRead += read;
+    }
+    bytes.flip();
+  }
+}
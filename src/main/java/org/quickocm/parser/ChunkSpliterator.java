@@ -0,0 +1,89 @@
+package org.quickocm.parser;
+
+import org.quickocm.parser.MappedCsvFile.Chunk;
+import org.supercsv.exception.SuperCsvException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * Splits the objects of the rows of a <code>MappedCsvFile</code> along its chunks, so that a parallel stream
+ * tokenizes and converts the chunks on different threads. The number of rows of each chunk is known from splitting
+ * the file, so the spliterator is sized. A chunk is only split off before its rows have started being read.
+ */
+class ChunkSpliterator<I> implements Spliterator<I> {
+
+  private final MappedCsvFile csvFile;
+  private final CsvBeanReader<I> csvBeanReader;
+  private final List<Chunk> chunks;
+  private final List<ByteBuffer> regions;
+  private int from;
+  private final int to;
+
+  private CsvTokenizer tokenizer;
+  private final CsvRow row = new CsvRow();
+
+  ChunkSpliterator(MappedCsvFile csvFile, CsvBeanReader<I> csvBeanReader, List<ByteBuffer> regions) {
+    this(csvFile, csvBeanReader, regions, 0, regions.size());
+  }
+
+  private ChunkSpliterator(MappedCsvFile csvFile, CsvBeanReader<I> csvBeanReader, List<ByteBuffer> regions,
+                           int from, int to) {
+    this.csvFile = csvFile;
+    this.csvBeanReader = csvBeanReader;
+    this.chunks = csvFile.getChunks();
+    this.regions = regions;
+    this.from = from;
+    this.to = to;
+  }
+
+  @Override
+  public boolean tryAdvance(Consumer<? super I> action) {
+    try {
+      while (true) {
+        if (tokenizer == null) {
+          if (from == to) return false;
+          tokenizer = csvFile.openChunk(chunks.get(from), regions.get(from));
+          csvBeanReader.configure(tokenizer);
+          from++;
+        }
+        if (tokenizer.readRow(row)) {
+          action.accept(csvBeanReader.convert(row));
+          return true;
+        }
+        tokenizer = null;
+      }
+    } catch (SuperCsvException e) {
+      throw UploadExceptions.forInvalidData(csvBeanReader, csvBeanReader.getHeaders(), e);
+    } catch (IOException e) {
+      throw UploadExceptions.forUnreadableInput(e);
+    }
+  }
+
+  @Override
+  public Spliterator<I> trySplit() {
+    if (tokenizer != null || to - from < 2) return null;
+
+    int middle = (from + to) >>> 1;
+    ChunkSpliterator<I> prefix = new ChunkSpliterator<I>(csvFile, csvBeanReader, regions, from, middle);
+    from = middle;
+    return prefix;
+  }
+
+  @Override
+  public long estimateSize() {
+    if (tokenizer == null && from == to) return 0;
+
+    int rowsRead = tokenizer != null ? tokenizer.getRowNumber() : chunks.get(from).rowsBefore;
+    int rowsEnd = to < chunks.size() ? chunks.get(to).rowsBefore : csvFile.getRowCount();
+    return rowsEnd - rowsRead;
+  }
+
+  @Override
+  public int characteristics() {
+    return ORDERED | NONNULL | IMMUTABLE | SIZED | SUBSIZED;
+  }
+}
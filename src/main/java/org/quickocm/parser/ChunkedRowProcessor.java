@@ -0,0 +1,182 @@
+package org.quickocm.parser;
+
+import org.quickocm.parser.MappedCsvFile.Chunk;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Tokenizes and converts the chunks of a <code>MappedCsvFile</code> on a pool of worker threads, one chunk per
+ * thread at a time.
+ * <p/>
+ * With ordered delivery the converted rows of each chunk are queued, up to <code>queueCapacity</code> rows for all
+ * chunks together, and handed to the sink on the calling thread one chunk after the other, in the order of the rows.
+ * With unordered delivery the workers hand the rows of their chunk to the sink themselves, in order within the
+ * chunk but concurrently with the other chunks, so the sink must be thread-safe. With a single worker thread the
+ * chunks are handled one after the other on the calling thread.
+ * <p/>
+ * A failing chunk stops at its failing row, the chunks after it stop as well, and the failure of the first failing
+ * chunk is rethrown once the chunks before it have been handled.
+ */
+class ChunkedRowProcessor<I> {
+
+  private final MappedCsvFile csvFile;
+  private final RowConverter<I> rowConverter;
+  private final RowSink<I> rowSink;
+  private final int workerThreads;
+  private final int queueCapacity;
+  private final CsvBeanReader<I> csvBeanReader;
+
+  private Throwable failure;
+  private int failedChunk = Integer.MAX_VALUE;
+
+  ChunkedRowProcessor(MappedCsvFile csvFile, CsvBeanReader<I> csvBeanReader, RowConverter<I> rowConverter,
+                      RowSink<I> rowSink, int workerThreads, int queueCapacity) {
+    this.csvBeanReader = csvBeanReader;
+    this.csvFile = csvFile;
+    this.rowConverter = rowConverter;
+    this.rowSink = rowSink;
+    this.workerThreads = workerThreads;
+    this.queueCapacity = queueCapacity;
+  }
+
+  void process(boolean ordered) throws IOException {
+    List<Chunk> chunks = csvFile.getChunks();
+    if (workerThreads == 1 || chunks.size() == 1) {
+      for (Chunk chunk : chunks) processChunk(chunk, 0);
+      return;
+    }
+
+    int threads = Math.min(workerThreads, chunks.size());
+    ExecutorService executor = Executors.newFixedThreadPool(threads, new WorkerThreadFactory());
+    try {
+      List<Future<?>> tasks = new ArrayList<Future<?>>(chunks.size());
+      List<BlockingQueue<Converted<I>>> queues = new ArrayList<BlockingQueue<Converted<I>>>(chunks.size());
+      for (int i = 0; i < chunks.size(); i++) {
+        BlockingQueue<Converted<I>> queue = ordered
+          ? new ArrayBlockingQueue<Converted<I>>(Math.max(1, queueCapacity / threads)) : null;
+        queues.add(queue);
+        tasks.add(executor.submit(new ChunkTask(chunks.get(i), i, queue)));
+      }
+      if (ordered) {
+        for (int i = 0; i < chunks.size() && !shouldStop(i); i++) deliver(queues.get(i));
+      } else {
+        for (Future<?> task : tasks) await(task);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("csv processing interrupted");
+    } finally {
+      executor.shutdownNow();
+    }
+
+    if (failure instanceof IOException) throw (IOException) failure;
+    if (failure instanceof Error) throw (Error) failure;
+    if (failure != null) throw (RuntimeException) failure;
+  }
+
+  private void processChunk(Chunk chunk, int index) throws IOException {
+    CsvTokenizer tokenizer = csvFile.openChunk(chunk);
+    csvBeanReader.configure(tokenizer);
+    CsvRow row = new CsvRow();
+    while (!shouldStop(index) && tokenizer.readRow(row)) {
+      I imported = rowConverter.convert(row);
+      if (imported != null) rowSink.accept(imported, row);
+    }
+  }
+
+  /**
+   * Converts the rows of a chunk into a queue, for the calling thread to hand them to the sink.
+   */
+  private void queueChunk(Chunk chunk, int index, BlockingQueue<Converted<I>> queue)
+    throws IOException, InterruptedException {
+    CsvTokenizer tokenizer = csvFile.openChunk(chunk);
+    csvBeanReader.configure(tokenizer);
+    CsvRow row = new CsvRow();
+    while (!shouldStop(index) && tokenizer.readRow(row)) {
+      I imported = rowConverter.convert(row);
+      if (imported == null) continue;
+      queue.put(new Converted<I>(imported, row));
+      row = new CsvRow();
+    }
+  }
+
+  private void deliver(BlockingQueue<Converted<I>> queue) throws InterruptedException {
+    Converted<I> converted;
+    while ((converted = queue.take()) != Converted.END) {
+      rowSink.accept(converted.imported, converted.row);
+    }
+  }
+
+  private void await(Future<?> task) throws InterruptedException {
+    try {
+      task.get();
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof Error) throw (Error) e.getCause();
+      throw new IllegalStateException(e.getCause());
+    }
+  }
+
+  private synchronized boolean shouldStop(int index) {
+    return failedChunk < index;
+  }
+
+  private synchronized void fail(int index, Throwable exception) {
+    if (index < failedChunk) {
+      failedChunk = index;
+      failure = exception;
+    }
+  }
+
+  private class ChunkTask implements Runnable {
+    private final Chunk chunk;
+    private final int index;
+    private final BlockingQueue<Converted<I>> queue;
+
+    private ChunkTask(Chunk chunk, int index, BlockingQueue<Converted<I>> queue) {
+      this.chunk = chunk;
+      this.index = index;
+      this.queue = queue;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void run() {
+      try {
+        if (queue == null) processChunk(chunk, index);
+        else queueChunk(chunk, index, queue);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      } catch (Throwable e) {
+        fail(index, e);
+      }
+
+      try {
+        if (queue != null) queue.put((Converted<I>) Converted.END);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  private static class Converted<I> {
+    private static final Converted<Object> END = new Converted<Object>(null, null);
+
+    private final I imported;
+    private final CsvRow row;
+
+    private Converted(I imported, CsvRow row) {
+      this.imported = imported;
+      this.row = row;
+    }
+  }
+}
@@ -0,0 +1,113 @@
+package org.quickocm.parser;
+
+import org.quickocm.model.Field;
+import org.supercsv.exception.SuperCsvException;
+import org.supercsv.util.CsvContext;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The rows of a batch of a csv as columns, one {@link ColumnVector} per import field in the order of the columns
+ * of the csv, converted straight from the characters of the rows without creating an object per row.
+ * <p/>
+ * A batch holds up to its capacity of rows and is reused for the next batch once it has been handed over, so the
+ * arrays of its columns are only allocated once per import. Columns that are not mapped to an import field are left
+ * out.
+ *
+ * <pre>
+ * IntVector quantities = (IntVector) batch.getColumn("quantity");
+ * for (int row = 0; row &lt; batch.size(); row++) {
+ *   if (!quantities.isNull(row)) total += quantities.get(row);
+ * }
+ * </pre>
+ */
+public final class ColumnBatch {
+
+  private final ColumnVector[] vectorsByColumn;
+  private final List<ColumnVector> columns = new ArrayList<ColumnVector>();
+  private final Map<String, ColumnVector> columnsByName = new HashMap<String, ColumnVector>();
+  private final int capacity;
+  private final CsvContext context = new CsvContext(0, 0, 1);
+  private int size;
+
+  ColumnBatch(HeaderMapping headerMapping, int capacity) {
+    this.capacity = capacity;
+    Field[] columnFields = headerMapping.getColumnFields();
+    vectorsByColumn = new ColumnVector[columnFields.length];
+
+    for (int i = 0; i < columnFields.length; i++) {
+      if (columnFields[i] == null) continue;
+      vectorsByColumn[i] = ColumnVector.create(columnFields[i], headerMapping.getProcessors()[i],
+        headerMapping.getCharProcessors()[i], headerMapping.isCopiedByReference(i), capacity);
+      columns.add(vectorsByColumn[i]);
+      columnsByName.put(columnFields[i].getName().toLowerCase(), vectorsByColumn[i]);
+    }
+  }
+
+  /**
+   * The number of rows of the batch.
+   */
+  public int size() {
+    return size;
+  }
+
+  public int getCapacity() {
+    return capacity;
+  }
+
+  public List<ColumnVector> getColumns() {
+    return Collections.unmodifiableList(columns);
+  }
+
+  /**
+   * The column of an import field, by the name of the field in any case, or null when the csv has no such column.
+   */
+  public ColumnVector getColumn(String name) {
+    return columnsByName.get(name.toLowerCase());
+  }
+
+  boolean isFull() {
+    return size == capacity;
+  }
+
+  /**
+   * Converts the cells of a row into the next row of the batch. A row that fails conversion is not added, and the
+   * values it was converted into so far are overwritten by the next row.
+   */
+  void append(CsvRow row) {
+    context.setLineNumber(row.getLineNumber());
+    context.setRowNumber(row.getRowNumber());
+    context.setColumnNumber(1);
+    context.setRowSource(null);
+
+    try {
+      if (row.length() != vectorsByColumn.length) {
+        throw new SuperCsvException(String.format(
+          "The number of columns to be processed (%d) must match the number of CellProcessors (%d)",
+          row.length(), vectorsByColumn.length), context);
+      }
+
+      for (int i = 0; i < vectorsByColumn.length; i++) {
+        if (vectorsByColumn[i] == null) continue;
+        context.setColumnNumber(i + 1);
+        vectorsByColumn[i].fill(size, row, i, context);
+      }
+    } catch (SuperCsvException e) {
+      if (e.getCsvContext() != null) e.getCsvContext().setRowSource(new ArrayList<Object>(row.getColumns()));
+      throw e;
+    }
+    size++;
+  }
+
+  /**
+   * Empties the batch for the rows of the next batch.
+   */
+  void clear() {
+    for (ColumnVector column : columns) column.clear();
+    size = 0;
+  }
+}
@@ -0,0 +1,59 @@
+package org.quickocm.parser;
+
+import org.quickocm.ColumnBatchHandler;
+import org.quickocm.exception.UploadException;
+
+import java.util.Map;
+
+/**
+ * Hands a batch of columns to a <code>ColumnBatchHandler</code> once it is full, and once more for the remaining
+ * rows at the end of the csv, clearing it for the next rows in between.
+ * <p/>
+ * A failure of the handler is reported as <code>error.upload.batch.failed</code> with the batch number and the
+ * record numbers of its first and last rows, unless the handler throws an <code>UploadException</code> itself.
+ */
+class ColumnBatchSink {
+
+  private final ColumnBatchHandler columnBatchHandler;
+  private final Map supplementaryInfo;
+  private final ColumnBatch batch;
+
+  private int firstRowNumber;
+  private int lastRowNumber;
+  private int batchNumber;
+
+  ColumnBatchSink(ColumnBatchHandler columnBatchHandler, Map supplementaryInfo, ColumnBatch batch) {
+    this.columnBatchHandler = columnBatchHandler;
+    this.supplementaryInfo = supplementaryInfo;
+    this.batch = batch;
+  }
+
+  /**
+   * Called once a row has been appended to the batch.
+   */
+  void appended(CsvRow row) {
+    if (batch.size() == 1) firstRowNumber = row.getRowNumber();
+    lastRowNumber = row.getRowNumber();
+    if (batch.isFull()) flush();
+  }
+
+  void finish() {
+    if (batch.size() > 0) flush();
+  }
+
+  private void flush() {
+    batchNumber++;
+    try {
+      columnBatchHandler.execute(batch, firstRowNumber, lastRowNumber, supplementaryInfo);
+    } catch (UploadException e) {
+      throw e;
+    } catch (RuntimeException e) {
+      UploadException uploadException = new UploadException("error.upload.batch.failed", "batch.number." + batchNumber,
+        "record.number." + (firstRowNumber - 1), "record.number." + (lastRowNumber - 1));
+      uploadException.initCause(e);
+      throw uploadException;
+    } finally {
+      batch.clear();
+    }
+  }
+}
@@ -0,0 +1,401 @@
+package org.quickocm.parser;
+
+import org.quickocm.model.Field;
+import org.quickocm.processor.CharCellProcessor;
+import org.supercsv.cellprocessor.ift.CellProcessor;
+import org.supercsv.util.CsvContext;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * The values of one import field for the rows of a {@link ColumnBatch}, held in an array of the type of the field
+ * instead of one object per row. Empty cells of optional fields are marked in the null bitmap of the column and
+ * hold the default value of the type.
+ * <p/>
+ * <ul>
+ * <li><code>int</code>, <code>long</code> and <code>double</code> fields are held in primitive arrays, see
+ * {@link IntVector}, {@link LongVector} and {@link DoubleVector}</li>
+ * <li><code>boolean</code> fields are held in a bitset, see {@link BooleanVector}</li>
+ * <li><code>String</code> fields are dictionary encoded, see {@link StringVector}</li>
+ * <li>fields of other types, like dates, decimals or registered types, are held as the objects their cells convert
+ * to, see {@link ObjectVector}</li>
+ * </ul>
+ */
+public abstract class ColumnVector {
+
+  private final String name;
+  private final String type;
+  private final BitSet nulls = new BitSet();
+
+  ColumnVector(Field field) {
+    this.name = field.getName();
+    this.type = field.getType();
+  }
+
+  /**
+   * Creates the column of an import field, of the class suited to the conversion of its cells.
+   *
+   * @param registered whether the type of the field is converted by a type registry, which may convert it to any
+   *                   type of object
+   */
+  static ColumnVector create(Field field, CellProcessor processor, CharCellProcessor charProcessor, boolean registered,
+                             int capacity) {
+    if (charProcessor instanceof CharCellProcessor.IntProcessor) {
+      return new IntVector(field, (CharCellProcessor.IntProcessor) charProcessor, capacity);
+    }
+    if (charProcessor instanceof CharCellProcessor.LongProcessor) {
+      return new LongVector(field, (CharCellProcessor.LongProcessor) charProcessor, capacity);
+    }
+    if (charProcessor instanceof CharCellProcessor.DoubleProcessor) {
+      return new DoubleVector(field, (CharCellProcessor.DoubleProcessor) charProcessor, capacity);
+    }
+    if (charProcessor instanceof CharCellProcessor.BooleanProcessor) {
+      return new BooleanVector(field, (CharCellProcessor.BooleanProcessor) charProcessor);
+    }
+    if (field.getType().equals("String") && charProcessor != null && !registered) {
+      return new StringVector(field, charProcessor, capacity);
+    }
+    return new ObjectVector(field, processor, charProcessor, capacity);
+  }
+
+  /**
+   * The name of the import field of the column.
+   */
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * The type of the import field of the column.
+   */
+  public String getType() {
+    return type;
+  }
+
+  public boolean isNull(int row) {
+    return nulls.get(row);
+  }
+
+  /**
+   * The null bitmap of the column, with a bit set for each row whose cell is empty.
+   */
+  public BitSet getNulls() {
+    return nulls;
+  }
+
+  /**
+   * Converts a cell of a row into the value of the column at the given index, replacing what was there.
+   */
+  void fill(int index, CsvRow row, int column, CsvContext context) {
+    boolean absent = isAbsent(index, row, column, context);
+    nulls.set(index, absent);
+  }
+
+  /**
+   * Converts a cell into the value at the given index, unless the cell is empty.
+   *
+   * @return whether the cell was empty
+   */
+  abstract boolean isAbsent(int index, CsvRow row, int column, CsvContext context);
+
+  /**
+   * Forgets the values of the rows of the previous batch.
+   */
+  void clear() {
+    nulls.clear();
+  }
+
+  public static class IntVector extends ColumnVector {
+    private final CharCellProcessor.IntProcessor processor;
+    private final int[] values;
+
+    private IntVector(Field field, CharCellProcessor.IntProcessor processor, int capacity) {
+      super(field);
+      this.processor = processor;
+      this.values = new int[capacity];
+    }
+
+    public int get(int row) {
+      return values[row];
+    }
+
+    /**
+     * The values of the column, of which only the first <code>ColumnBatch.size()</code> belong to the batch.
+     */
+    public int[] getValues() {
+      return values;
+    }
+
+    @Override
+    boolean isAbsent(int index, CsvRow row, int column, CsvContext context) {
+      if (processor.isAbsent(row.getStart(column), context)) {
+        values[index] = 0;
+        return true;
+      }
+      values[index] = processor.executeInt(row.getChars(), row.getStart(column), row.getEnd(column), context);
+      return false;
+    }
+  }
+
+  public static class LongVector extends ColumnVector {
+    private final CharCellProcessor.LongProcessor processor;
+    private final long[] values;
+
+    private LongVector(Field field, CharCellProcessor.LongProcessor processor, int capacity) {
+      super(field);
+      this.processor = processor;
+      this.values = new long[capacity];
+    }
+
+    public long get(int row) {
+      return values[row];
+    }
+
+    /**
+     * The values of the column, of which only the first <code>ColumnBatch.size()</code> belong to the batch.
+     */
+    public long[] getValues() {
+      return values;
+    }
+
+    @Override
+    boolean isAbsent(int index, CsvRow row, int column, CsvContext context) {
+      if (processor.isAbsent(row.getStart(column), context)) {
+        values[index] = 0;
+        return true;
+      }
+      values[index] = processor.executeLong(row.getChars(), row.getStart(column), row.getEnd(column), context);
+      return false;
+    }
+  }
+
+  public static class DoubleVector extends ColumnVector {
+    private final CharCellProcessor.DoubleProcessor processor;
+    private final double[] values;
+
+    private DoubleVector(Field field, CharCellProcessor.DoubleProcessor processor, int capacity) {
+      super(field);
+      this.processor = processor;
+      this.values = new double[capacity];
+    }
+
+    public double get(int row) {
+      return values[row];
+    }
+
+    /**
+     * The values of the column, of which only the first <code>ColumnBatch.size()</code> belong to the batch.
+     */
+    public double[] getValues() {
+      return values;
+    }
+
+    @Override
+    boolean isAbsent(int index, CsvRow row, int column, CsvContext context) {
+      if (processor.isAbsent(row.getStart(column), context)) {
+        values[index] = 0;
+        return true;
+      }
+      values[index] = processor.executeDouble(row.getChars(), row.getStart(column), row.getEnd(column), context);
+      return false;
+    }
+  }
+
+  public static class BooleanVector extends ColumnVector {
+    private final CharCellProcessor.BooleanProcessor processor;
+    private final BitSet values = new BitSet();
+
+    private BooleanVector(Field field, CharCellProcessor.BooleanProcessor processor) {
+      super(field);
+      this.processor = processor;
+    }
+
+    public boolean get(int row) {
+      return values.get(row);
+    }
+
+    /**
+     * The values of the column as a bitset, with a bit set for each row holding true.
+     */
+    public BitSet getValues() {
+      return values;
+    }
+
+    @Override
+    boolean isAbsent(int index, CsvRow row, int column, CsvContext context) {
+      if (processor.isAbsent(row.getStart(column), context)) {
+        values.clear(index);
+        return true;
+      }
+      values.set(index, processor.executeBoolean(row.getChars(), row.getStart(column), row.getEnd(column), context));
+      return false;
+    }
+
+    @Override
+    void clear() {
+      super.clear();
+      values.clear();
+    }
+  }
+
+  /**
+   * Holds the trimmed values of a <code>String</code> column as codes into a dictionary of the distinct values of
+   * the batch, which is built from the characters of the cells, so that a value repeated in a batch creates a single
+   * <code>String</code>. Codes are numbered from 0 in the order values first appear in the batch, and empty cells
+   * have the code -1. The dictionary starts over with each batch.
+   */
+  public static class StringVector extends ColumnVector {
+    private final CharCellProcessor processor;
+    private final int[] codes;
+    private String[] dictionary = new String[16];
+    private int[] hashes = new int[16];
+    private int[] slots = new int[32];
+    private int dictionarySize;
+
+    private StringVector(Field field, CharCellProcessor processor, int capacity) {
+      super(field);
+      this.processor = processor;
+      this.codes = new int[capacity];
+    }
+
+    public String get(int row) {
+      int code = codes[row];
+      return code < 0 ? null : dictionary[code];
+    }
+
+    public int getCode(int row) {
+      return codes[row];
+    }
+
+    /**
+     * The codes of the column, of which only the first <code>ColumnBatch.size()</code> belong to the batch.
+     */
+    public int[] getCodes() {
+      return codes;
+    }
+
+    /**
+     * The number of distinct values of the batch.
+     */
+    public int getDictionarySize() {
+      return dictionarySize;
+    }
+
+    public String getDictionaryValue(int code) {
+      if (code < 0 || code >= dictionarySize) throw new IndexOutOfBoundsException("no value of code " + code);
+      return dictionary[code];
+    }
+
+    @Override
+    boolean isAbsent(int index, CsvRow row, int column, CsvContext context) {
+      int start = row.getStart(column);
+      if (processor.isAbsent(start, context)) {
+        codes[index] = -1;
+        return true;
+      }
+
+      char[] chars = row.getChars();
+      int end = row.getEnd(column);
+      while (start < end && chars[start] <= ' ') start++;
+      while (end > start && chars[end - 1] <= ' ') end--;
+      codes[index] = encode(chars, start, end);
+      return false;
+    }
+
+    private int encode(char[] chars, int start, int end) {
+      int hash = 0;
+      for (int i = start; i < end; i++) hash = 31 * hash + chars[i];
+
+      int mask = slots.length - 1;
+      for (int slot = (hash ^ (hash >>> 16)) & mask; ; slot = (slot + 1) & mask) {
+        int code = slots[slot] - 1;
+        if (code < 0) {
+          code = add(new String(chars, start, end - start), hash);
+          slots[slot] = code + 1;
+          if (dictionarySize * 2 > slots.length) rehash();
+          return code;
+        }
+        if (hashes[code] == hash && matches(dictionary[code], chars, start, end)) return code;
+      }
+    }
+
+    private int add(String value, int hash) {
+      if (dictionarySize == dictionary.length) {
+        dictionary = Arrays.copyOf(dictionary, dictionarySize * 2);
+        hashes = Arrays.copyOf(hashes, dictionarySize * 2);
+      }
+      dictionary[dictionarySize] = value;
+      hashes[dictionarySize] = hash;
+      return dictionarySize++;
+    }
+
+    private void rehash() {
+      slots = new int[slots.length * 2];
+      int mask = slots.length - 1;
+      for (int code = 0; code < dictionarySize; code++) {
+        int slot = (hashes[code] ^ (hashes[code] >>> 16)) & mask;
+        while (slots[slot] != 0) slot = (slot + 1) & mask;
+        slots[slot] = code + 1;
+      }
+    }
+
+    private static boolean matches(String value, char[] chars, int start, int end) {
+      if (value.length() != end - start) return false;
+      for (int i = 0; i < value.length(); i++) {
+        if (value.charAt(i) != chars[start + i]) return false;
+      }
+      return true;
+    }
+
+    @Override
+    void clear() {
+      super.clear();
+      Arrays.fill(dictionary, 0, dictionarySize, null);
+      Arrays.fill(slots, 0);
+      dictionarySize = 0;
+    }
+  }
+
+  /**
+   * Holds the objects the cells of a column convert to, for the types that have no primitive representation.
+   */
+  public static class ObjectVector extends ColumnVector {
+    private final CellProcessor processor;
+    private final CharCellProcessor charProcessor;
+    private final Object[] values;
+
+    private ObjectVector(Field field, CellProcessor processor, CharCellProcessor charProcessor, int capacity) {
+      super(field);
+      this.processor = processor;
+      this.charProcessor = charProcessor;
+      this.values = new Object[capacity];
+    }
+
+    public Object get(int row) {
+      return values[row];
+    }
+
+    /**
+     * The values of the column, of which only the first <code>ColumnBatch.size()</code> belong to the batch.
+     */
+    public Object[] getValues() {
+      return values;
+    }
+
+    @Override
+    boolean isAbsent(int index, CsvRow row, int column, CsvContext context) {
+      Object value = charProcessor != null
+        ? charProcessor.execute(row.getChars(), row.getStart(column), row.getEnd(column), context)
+        : processor.execute(row.getColumn(column), context);
+      values[index] = value;
+      return value == null;
+    }
+
+    @Override
+    void clear() {
+      super.clear();
+      Arrays.fill(values, null);
+    }
+  }
+}
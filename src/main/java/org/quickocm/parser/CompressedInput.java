@@ -0,0 +1,80 @@
+package org.quickocm.parser;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Recognizes compressed csv input by its first bytes, so that gzip and zlib wrapped deflate uploads can be parsed
+ * as they are, without being decompressed to a file first.
+ * <p/>
+ * Compressed input is decompressed on a thread of its own, see {@link PipelinedInputStream}, so that decompressing
+ * overlaps with tokenizing and converting rows. Zlib input is recognized by the headers written by common
+ * compression levels; raw deflate input has no header and can not be recognized.
+ */
+class CompressedInput {
+
+  static final int BUFFER_SIZE = 1 << 16;
+
+  private static final int GZIP_MAGIC_FIRST = 0x1f;
+  private static final int GZIP_MAGIC_SECOND = 0x8b;
+  private static final int ZLIB_DEFLATE_32K_WINDOW = 0x78;
+
+  /**
+   * Gives a stream of the decompressed bytes of compressed input, or of the bytes as they are otherwise.
+   */
+  static InputStream open(InputStream inputStream) throws IOException {
+    PushbackInputStream pushbackInputStream = new PushbackInputStream(inputStream, 2);
+    byte[] magic = new byte[2];
+    int length = readFully(pushbackInputStream, magic);
+    pushbackInputStream.unread(magic, 0, length);
+
+    if (isGzip(magic, length)) {
+      return new PipelinedInputStream(new GZIPInputStream(pushbackInputStream, BUFFER_SIZE));
+    }
+    if (isZlib(magic, length)) {
+      return new PipelinedInputStream(new InflaterInputStream(new BufferedInputStream(pushbackInputStream, BUFFER_SIZE)));
+    }
+    return pushbackInputStream;
+  }
+
+  /**
+   * Whether a file holds compressed input, which can not be split into chunks of rows.
+   */
+  static boolean isCompressed(Path path) throws IOException {
+    try (InputStream inputStream = Files.newInputStream(path)) {
+      byte[] magic = new byte[2];
+      int length = readFully(inputStream, magic);
+      return isGzip(magic, length) || isZlib(magic, length);
+    }
+  }
+
+  private static boolean isGzip(byte[] magic, int length) {
+    return length == 2 && (magic[0] & 0xff) == GZIP_MAGIC_FIRST && (magic[1] & 0xff) == GZIP_MAGIC_SECOND;
+  }
+
+  /**
+   * Whether the bytes are a zlib header of the default, fastest or best compression, leaving out
+   * <code>78 5E</code> which is also the text <code>x^</code>.
+   */
+  private static boolean isZlib(byte[] magic, int length) {
+    if (length < 2 || (magic[0] & 0xff) != ZLIB_DEFLATE_32K_WINDOW) return false;
+    int flags = magic[1] & 0xff;
+    return flags == 0x01 || flags == 0x9c || flags == 0xda;
+  }
+
+  private static int readFully(InputStream inputStream, byte[] bytes) throws IOException {
+    int length = 0;
+    while (length < bytes.length) {
+      int read = inputStream.read(bytes, length, bytes.length - length);
+      if (read < 0) break;
+      length += read;
+    }
+    return length;
+  }
+}
@@ -0,0 +1,94 @@
+package org.quickocm.parser;
+
+import org.quickocm.exception.UploadException;
+import org.supercsv.exception.SuperCsvException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Iterates lazily over the objects of the rows of a csv, reading a row only when the next object is asked for.
+ * <p/>
+ * The reader, and the input stream it reads from, is closed once the last row has been read or a row fails.
+ * Callers that stop iterating early should close the iterator themselves.
+ * Invalid rows fail with the same <code>UploadException</code>s as <code>CsvParser.process</code>.
+ */
+public class CsvBeanIterator<I> implements Iterator<I>, Closeable {
+
+  private final CsvBeanReader<I> csvBeanReader;
+  private I next;
+  private int nextRowNumber;
+  private int rowNumber;
+  private boolean closed;
+
+  CsvBeanIterator(CsvBeanReader<I> csvBeanReader) {
+    this.csvBeanReader = csvBeanReader;
+  }
+
+  @Override
+  public boolean hasNext() {
+    if (next == null && !closed) next = readNext();
+    return next != null;
+  }
+
+  @Override
+  public I next() {
+    if (!hasNext()) throw new NoSuchElementException();
+
+    I current = next;
+    next = null;
+    rowNumber = nextRowNumber;
+    return current;
+  }
+
+  @Override
+  public void remove() {
+    throw new UnsupportedOperationException("rows of a csv can not be removed");
+  }
+
+  /**
+   * The row number of the csv row of the object last returned by {@link #next()}, the header being row 1.
+   */
+  public int getRowNumber() {
+    return rowNumber;
+  }
+
+  @Override
+  public void close() {
+    if (closed) return;
+
+    closed = true;
+    try {
+      csvBeanReader.close();
+    } catch (IOException e) {
+      throw UploadExceptions.forUnreadableInput(e);
+    }
+  }
+
+  private I readNext() {
+    I imported;
+    try {
+      imported = csvBeanReader.read();
+    } catch (SuperCsvException e) {
+      UploadException uploadException = UploadExceptions.forInvalidData(csvBeanReader, csvBeanReader.getHeaders(), e);
+      closeQuietly();
+      throw uploadException;
+    } catch (IOException e) {
+      closeQuietly();
+      throw UploadExceptions.forUnreadableInput(e);
+    }
+
+    if (imported == null) close();
+    nextRowNumber = csvBeanReader.getRowNumber();
+    return imported;
+  }
+
+  private void closeQuietly() {
+    try {
+      close();
+    } catch (UploadException ignored) {
+    }
+  }
+}
@@ -1,66 +1,306 @@
 package org.quickocm.parser;
 
+import org.quickocm.binding.BeanBinder;
+import org.quickocm.binding.BindingMode;
+import org.quickocm.checkpoint.Checkpoint;
+import org.quickocm.model.Field;
 import org.quickocm.model.ModelClass;
-import org.quickocm.processor.CsvCellProcessors;
+import org.quickocm.processor.CharCellProcessor;
+import org.quickocm.processor.TypeRegistry;
 import org.supercsv.cellprocessor.ift.CellProcessor;
-import org.supercsv.io.dozer.CsvDozerBeanReader;
+import org.supercsv.exception.SuperCsvCellProcessorException;
+import org.supercsv.exception.SuperCsvException;
 import org.supercsv.prefs.CsvPreference;
+import org.supercsv.util.CsvContext;
 
-import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
 
 import static java.util.Arrays.asList;
 
 public class CsvBeanReader<I> {
 
+  static final CsvPreference DEFAULT_PREFERENCE = new CsvPreference.Builder(CsvPreference.STANDARD_PREFERENCE)
+    .surroundingSpacesNeedQuotes(true).build();
+
   private ModelClass modelClass;
-  private CsvDozerBeanReader dozerBeanReader;
-  private CellProcessor[] processors;
+  private CsvTokenizer tokenizer;
+  private CsvRow currentRow = new CsvRow();
+  private HeaderMapping<I> headerMapping;
+  private BeanBinder<I> beanBinder;
   private String[] headers;
+  private ParseMetrics metrics;
+  private boolean[] skippedColumns;
+  private ThreadLocal<I> reusedObjects;
 
   public CsvBeanReader(ModelClass modelClass, InputStream inputStream) throws IOException {
-    this(modelClass, inputStream, new CsvPreference.Builder(CsvPreference.STANDARD_PREFERENCE)
-      .surroundingSpacesNeedQuotes(true).build());
+    this(modelClass, inputStream, DEFAULT_PREFERENCE);
   }
 
   public CsvBeanReader(ModelClass modelClass, InputStream inputStream, CsvPreference csvPreference) throws IOException {
+    this(modelClass, inputStream, csvPreference, BindingMode.DOZER);
+  }
+
+  public CsvBeanReader(ModelClass modelClass, InputStream inputStream, CsvPreference csvPreference,
+                       BindingMode bindingMode) throws IOException {
+    this(modelClass, new CsvTokenizer(new ByteStreamReader(CompressedInput.open(inputStream), Charset.defaultCharset(),
+      ByteStreamReader.DEFAULT_BUFFER_SIZE), csvPreference), bindingMode, TypeRegistry.getDefault());
+  }
+
+  CsvBeanReader(ModelClass modelClass, CsvTokenizer tokenizer, BindingMode bindingMode, TypeRegistry typeRegistry)
+    throws IOException {
+    this.modelClass = modelClass;
+    this.tokenizer = tokenizer;
+    if (tokenizer.readRow(currentRow)) {
+      List<String> columns = currentRow.getColumns();
+      useHeaders(columns.toArray(new String[columns.size()]), bindingMode, typeRegistry);
+    }
+  }
+
+  /**
+   * Creates a reader of a csv whose header row has already been read, for a tokenizer reading from the middle of it.
+   */
+  CsvBeanReader(ModelClass modelClass, CsvTokenizer tokenizer, BindingMode bindingMode, TypeRegistry typeRegistry,
+                String[] headers) {
     this.modelClass = modelClass;
-    configureDozerBeanReader(inputStream, csvPreference);
-    configureProcessors();
+    this.tokenizer = tokenizer;
+    useHeaders(headers, bindingMode, typeRegistry);
   }
 
   public I read() throws IOException {
-    return (I) dozerBeanReader.read(modelClass.getClazz(), processors);
+    return readRow(currentRow) ? convert(currentRow) : null;
+  }
+
+  /**
+   * Tokenizes the next row of the csv without converting it, so that conversion can happen on another thread.
+   *
+   * @return the next row or null at the end of the csv
+   */
+  public CsvRow readRow() throws IOException {
+    CsvRow row = new CsvRow();
+    return readRow(row) ? row : null;
+  }
+
+  /**
+   * Tokenizes the next row of the csv into the given row, replacing its previous content.
+   *
+   * @return false at the end of the csv
+   */
+  public boolean readRow(CsvRow row) throws IOException {
+    if (!tokenizer.readRow(row)) return false;
+    currentRow = row;
+    return true;
+  }
+
+  /**
+   * Runs the cell processors on a row read by {@link #readRow()} and binds the result to a new object.
+   * Columns of primitive types are parsed straight from the characters of the row, and written to primitive fields
+   * of the model class without boxing.
+   * This method is thread-safe.
+   *
+   * @param row the row to convert
+   * @return the object equivalent to the row
+   */
+  public I convert(CsvRow row) {
+    return process(row, true, metrics);
+  }
+
+  /**
+   * Converts a row again after it was converted by {@link #convert(CsvRow)}, e.g. one kept in a
+   * <code>SpillBuffer</code>, without counting it in the metrics a second time.
+   */
+  I reconvert(CsvRow row) {
+    return process(row, true, null);
+  }
+
+  /**
+   * Runs the cell processors on a row read by {@link #readRow()}, failing the same way as {@link #convert(CsvRow)},
+   * without creating an object of the model class.
+   * This method is thread-safe.
+   *
+   * @param row the row to validate
+   */
+  public void validate(CsvRow row) {
+    process(row, false, metrics);
+  }
+
+  private I process(CsvRow row, boolean bind, ParseMetrics metrics) {
+    CellProcessor[] processors = headerMapping.getProcessors();
+    CharCellProcessor[] charProcessors = headerMapping.getCharProcessors();
+    CsvContext context = new CsvContext(row.getLineNumber(), row.getRowNumber(), 1);
+    long start = metrics == null ? 0 : System.nanoTime();
+
+    try {
+      if (row.length() != processors.length) {
+        throw new SuperCsvException(String.format(
+          "The number of columns to be processed (%d) must match the number of CellProcessors (%d)",
+          row.length(), processors.length), context);
+      }
+
+      PrimitiveColumn[] primitiveColumns = headerMapping.getPrimitiveColumns();
+      I bean = null;
+      if (bind && reusedObjects != null) bean = reusedObject();
+      else if (bind && primitiveColumns != null) bean = headerMapping.newInstance();
+
+      List<Object> columns = bind ? new ArrayList<Object>(row.length()) : null;
+      for (int i = 0; i < processors.length; i++) {
+        context.setColumnNumber(i + 1);
+        Object value;
+        if (primitiveColumns != null && primitiveColumns[i] != null) {
+          primitiveColumns[i].write(bean, row, i, context);
+          value = null;
+        } else if (charProcessors[i] != null) {
+          value = charProcessors[i].execute(row.getChars(), row.getStart(i), row.getEnd(i), context);
+        } else if (processors[i] == null) {
+          value = bind ? row.getColumn(i) : null;
+        } else {
+          value = processors[i].execute(row.getColumn(i), context);
+        }
+        if (bind) columns.add(value);
+      }
+
+      if (metrics == null) {
+        if (!bind) return null;
+        return bean == null ? beanBinder.bind(columns) : beanBinder.bind(bean, columns);
+      }
+
+      long converted = System.nanoTime();
+      metrics.converted(converted - start);
+      if (!bind) return null;
+      I bound = bean == null ? beanBinder.bind(columns) : beanBinder.bind(bean, columns);
+      metrics.bound(System.nanoTime() - converted);
+      return bound;
+    } catch (SuperCsvException e) {
+      if (e.getCsvContext() != null) e.getCsvContext().setRowSource(new ArrayList<Object>(row.getColumns()));
+      if (metrics != null) metrics.failed(getFailedHeader(e));
+      throw e;
+    }
+  }
+
+  /**
+   * The object reused by the calling thread, reset from the previous row it was bound from.
+   */
+  private I reusedObject() {
+    I bean = reusedObjects.get();
+    if (bean == null) {
+      bean = headerMapping.newInstance();
+      reusedObjects.set(bean);
+      return bean;
+    }
+    return headerMapping.getBeanResetter().reset(bean);
+  }
+
+  private String getFailedHeader(SuperCsvException e) {
+    if (!(e instanceof SuperCsvCellProcessorException) || e.getCsvContext() == null) return null;
+    return headers[e.getCsvContext().getColumnNumber() - 1];
+  }
+
+  /**
+   * Creates a batch of up to the given number of rows, converted column by column instead of into objects.
+   */
+  ColumnBatch newColumnBatch(int capacity) {
+    return new ColumnBatch(headerMapping, capacity);
+  }
+
+  /**
+   * Creates a buffer of rows kept off the heap, which leaves out the cells this reader does not convert and keeps
+   * the cells of integer fields as numbers.
+   */
+  SpillBuffer newSpillBuffer(Path directory) {
+    CharCellProcessor[] charProcessors = headerMapping.getCharProcessors();
+    Field[] columnFields = headerMapping.getColumnFields();
+    boolean[] storedColumns = new boolean[columnFields.length];
+    boolean[] integerColumns = new boolean[columnFields.length];
+    for (int i = 0; i < columnFields.length; i++) {
+      storedColumns[i] = columnFields[i] != null;
+      integerColumns[i] = charProcessors[i] instanceof CharCellProcessor.IntProcessor
+        || charProcessors[i] instanceof CharCellProcessor.LongProcessor;
+    }
+    return new SpillBuffer(directory, storedColumns, integerColumns);
   }
 
   public int getRowNumber() {
-    return dozerBeanReader.getRowNumber();
+    return tokenizer.getRowNumber();
+  }
+
+  /**
+   * Counts the rows read and converted from now on in the given metrics, null to stop counting.
+   */
+  void setMetrics(ParseMetrics metrics) {
+    this.metrics = metrics;
+    tokenizer.setMetrics(metrics);
+  }
+
+  /**
+   * Whether rows are converted into a single object per thread, reset and bound again for each row, instead of a new
+   * object per row. The object of a row is only valid until the same thread converts the next one.
+   */
+  void setReuseObjects(boolean reuseObjects) {
+    this.reusedObjects = reuseObjects ? new ThreadLocal<I>() : null;
+  }
+
+  /**
+   * Skips the content of the columns that are not mapped to an import field from the next row on, so that it is
+   * neither unescaped nor copied. Those columns are null in the rows read.
+   */
+  void skipUnmappedColumns() {
+    skippedColumns = headerMapping == null ? null : headerMapping.getUnmappedColumns();
+    tokenizer.setSkippedColumns(skippedColumns);
+  }
+
+  /**
+   * Sets up a tokenizer of a chunk of the same csv to read rows the same way as this reader.
+   */
+  void configure(CsvTokenizer chunkTokenizer) {
+    chunkTokenizer.setMetrics(metrics);
+    chunkTokenizer.setSkippedColumns(skippedColumns);
+  }
+
+  /**
+   * The number of bytes of the input read up to the end of the last row, for a reader of bytes decoded by a
+   * <code>ByteStreamReader</code>.
+   */
+  long getBytesRead() {
+    return tokenizer.getByteOffset();
   }
 
   public int length() {
-    return dozerBeanReader.length();
+    return currentRow.length();
   }
 
   public void validateHeaders() {
-    modelClass.validateHeaders(asList(headers));
+    modelClass.validateHeaders(headers == null ? null : asList(headers));
   }
 
   public String[] getHeaders() {
     return headers;
   }
 
-  private void configureDozerBeanReader(InputStream inputStream, CsvPreference csvPreference) throws IOException {
-    dozerBeanReader = new CsvDozerBeanReader(new BufferedReader(new InputStreamReader(inputStream)), csvPreference);
-    headers = dozerBeanReader.getHeader(true);
-    String[] mappings = modelClass.getFieldNameMappings(headers);
-    dozerBeanReader.configureBeanMapping(modelClass.getClazz(), mappings);
+  /**
+   * Closes the reader of the csv, and with it the input stream it was created with.
+   */
+  public void close() throws IOException {
+    tokenizer.close();
+  }
+
+  /**
+   * A checkpoint after the last row read, for a reader of bytes decoded by a <code>ByteStreamReader</code>.
+   */
+  Checkpoint checkpoint() {
+    return new Checkpoint(tokenizer.getByteOffset(), tokenizer.getLineNumber(), tokenizer.getRowNumber(),
+      tokenizer.getCharset().name(), asList(headers));
   }
 
-  private void configureProcessors() {
-    List<CellProcessor> cellProcessors = new CsvCellProcessors().getProcessors(modelClass, asList(headers));
-    processors = cellProcessors.toArray(new CellProcessor[cellProcessors.size()]);
+  private void useHeaders(String[] headers, BindingMode bindingMode, TypeRegistry typeRegistry) {
+    this.headers = headers;
+    @SuppressWarnings("unchecked")
+    HeaderMapping<I> headerMapping = (HeaderMapping<I>) MetadataCache.getHeaderMapping(modelClass, headers,
+      typeRegistry);
+    this.headerMapping = headerMapping;
+    beanBinder = headerMapping.getBeanBinder(bindingMode);
   }
 }
@@ -1,17 +1,41 @@
 package org.quickocm.parser;
 
+import org.quickocm.AsyncRecordHandler;
+import org.quickocm.BatchRecordHandler;
+import org.quickocm.ColumnBatchHandler;
 import org.quickocm.RecordHandler;
+import org.quickocm.RejectedRowHandler;
+import org.quickocm.binding.BindingMode;
+import org.quickocm.checkpoint.Checkpoint;
+import org.quickocm.checkpoint.CheckpointStore;
+import org.quickocm.exception.InvalidRowsException;
+import org.quickocm.exception.UploadErrorReport;
 import org.quickocm.exception.UploadException;
 import org.quickocm.model.ModelClass;
-import org.supercsv.exception.SuperCsvCellProcessorException;
-import org.supercsv.exception.SuperCsvConstraintViolationException;
+import org.quickocm.processor.TypeRegistry;
 import org.supercsv.exception.SuperCsvException;
-import org.supercsv.util.CsvContext;
 
+import java.io.Closeable;
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 
 /**
@@ -19,6 +43,7 @@ import java.util.Map;
  */
 public class CsvParser<I> {
 
+  private static final int CHUNKS_PER_WORKER_THREAD = 4;
 
   /**
    * It is used to pass this info to the <code>RecordHandler</code>'s execute method as extra needed information.
@@ -33,6 +58,139 @@ public class CsvParser<I> {
    */
   private Map supplementaryInfo = new HashMap();
 
+  /**
+   * The engine used to populate the objects of each row, Dozer by default.
+   *
+   * @see BindingMode
+   */
+  private BindingMode bindingMode = BindingMode.DOZER;
+
+  /**
+   * Resolves the type of each import field to the conversion of its cells.
+   *
+   * @see TypeRegistry
+   */
+  private TypeRegistry typeRegistry = TypeRegistry.getDefault();
+
+  /**
+   * The charset of csv input that does not start with a byte order mark, the platform default by default.
+   */
+  private Charset charset = Charset.defaultCharset();
+
+  /**
+   * The size of the byte buffer input is read through, and of the character buffer rows are tokenized from.
+   */
+  private int bufferSize = ByteStreamReader.DEFAULT_BUFFER_SIZE;
+
+  /**
+   * Whether csv may have columns that are not mapped to any import field, which are then left out.
+   */
+  private boolean acceptExtraHeaders = false;
+
+  /**
+   * The names of the import fields converted, null to convert all of them.
+   *
+   * @see #setProjection(Collection)
+   */
+  private Collection<String> projection;
+
+  /**
+   * Whether the content of columns that are not converted is skipped by the tokenizer.
+   */
+  private boolean skipUnmappedColumns = false;
+
+  /**
+   * Whether the <code>RecordHandler</code> is invoked with the same object, refilled for each row, instead of a new
+   * object per row.
+   *
+   * @see #setReuseObjects(boolean)
+   */
+  private boolean reuseObjects = false;
+
+  /**
+   * The number of threads converting rows and invoking the <code>RecordHandler</code>.
+   * With the default of 1 every row is read, converted and handled on the calling thread.
+   *
+   * @see #setWorkerThreads(int)
+   */
+  private int workerThreads = 1;
+
+  /**
+   * Whether the <code>RecordHandler</code> is invoked in the order of the rows when rows are processed by worker threads.
+   */
+  private boolean preserveOrder = true;
+
+  /**
+   * The number of rows that may be read ahead of the rows being handled when rows are processed by worker threads.
+   */
+  private int queueCapacity = 1024;
+
+  /**
+   * The maximum number of rows handed to a <code>BatchRecordHandler</code> or a <code>ColumnBatchHandler</code> at
+   * once.
+   */
+  private int batchSize = 1000;
+
+  /**
+   * The number of characters of csv after which a batch is handed over even if it holds fewer than
+   * <code>batchSize</code> rows, 0 for no limit.
+   */
+  private long batchCharacters = 0;
+
+  /**
+   * The number of characters of csv whose objects a batch holds on the heap, after which the further rows of the
+   * batch are kept off the heap until the batch is handed over, 0 to hold all of them on the heap.
+   *
+   * @see #setSpillCharacters(long)
+   */
+  private long spillCharacters = 0;
+
+  /**
+   * The directory of the files rows kept off the heap are written to, null for the default temporary directory.
+   */
+  private Path spillDirectory;
+
+  /**
+   * The maximum number of calls of an <code>AsyncRecordHandler</code> that may be outstanding at once.
+   */
+  private int maxInFlight = 256;
+
+  /**
+   * Whether rows that fail conversion are collected in an error report instead of stopping processing.
+   *
+   * @see #setCollectErrors(boolean)
+   */
+  private boolean collectErrors = false;
+
+  /**
+   * The maximum number of row errors kept in the error report when collecting errors.
+   */
+  private int maxErrors = 1000;
+
+  /**
+   * Receives the rows that fail conversion when collecting errors, null to skip them.
+   */
+  private RejectedRowHandler rejectedRowHandler;
+
+  /**
+   * Where the position of a resumable import is kept, null for imports that are not resumable.
+   *
+   * @see #setCheckpointStore(CheckpointStore)
+   */
+  private CheckpointStore checkpointStore;
+
+  /**
+   * The number of rows handled between two checkpoints of a resumable import.
+   */
+  private int checkpointInterval = 100000;
+
+  /**
+   * Counts the rows, bytes and time of each stage of parsing, null to count nothing.
+   *
+   * @see ParseMetrics
+   */
+  private ParseMetrics metrics;
+
   /**
    * This api creates a CsvParser that has null <code>supplementaryInfo</code>
    */
@@ -51,6 +209,8 @@ public class CsvParser<I> {
 
   /**
    * Processes a csv input stream for the given type and invokes designated record handler for each field.
+   * Gzip and zlib compressed input is recognized by its first bytes and decompressed on a separate thread while
+   * rows are being parsed. The input stream is closed when processing fails, which also stops that thread.
    *
    * @param inputStream   The input stream of the csv file.
    * @param clazz         The class of which each row is to be made object of.
@@ -64,56 +224,897 @@ public class CsvParser<I> {
    *                         5. has missing headers
    *                         6. input stream can not be read
    *                         7. has columns with data in invalid format
+   *                         and with an <code>InvalidRowsException</code> at the end when collecting errors
+   * @see #setCollectErrors(boolean)
+   * @see #setCheckpointStore(CheckpointStore)
    */
   public int process(InputStream inputStream, Class clazz, RecordHandler<I> recordHandler)
     throws UploadException {
+    RowSink<I> rowSink = new RecordHandlerSink<I>(recordHandler, supplementaryInfo);
+    if (checkpointStore != null) return processResumable(inputStream, clazz, rowSink);
+    return processRows(inputStream, clazz, rowSink, false);
+  }
+
+  /**
+   * Processes a csv file for the given type and invokes designated record handler for each row, reading the file
+   * through memory mapped regions instead of a stream.
+   * <p/>
+   * With more than one worker thread the file is split into chunks of whole rows, found by following the quotes,
+   * and the chunks are tokenized and converted concurrently. When <code>preserveOrder</code> is true the handler is
+   * invoked on the calling thread in the order of the rows, as for streams; otherwise the rows of a chunk reach the
+   * handler in order, but rows of different chunks reach it concurrently, so the handler must be thread-safe. Row
+   * numbers passed to the handler and reported in <code>UploadException</code>s stay the same as when processing
+   * sequentially, and the failure of the first failing row is reported.
+   * Compressed files and files in charsets whose bytes can not be split on are processed like a stream.
+   *
+   * @param path          The path of the csv file.
+   * @param clazz         The class of which each row is to be made object of.
+   * @param recordHandler The Record Handler which is invoked with the parameter of each.
+   * @return The row number of the record in csv that has just been processed.
+   * @throws UploadException in the same cases as {@link #process(InputStream, Class, RecordHandler)}
+   */
+  public int process(Path path, Class clazz, RecordHandler<I> recordHandler) throws UploadException {
+    RowSink<I> rowSink = new RecordHandlerSink<I>(recordHandler, supplementaryInfo);
+    if (checkpointStore == null) return processFile(path, clazz, rowSink, false);
+
+    try (InputStream inputStream = Files.newInputStream(path)) {
+      return processResumable(inputStream, clazz, rowSink);
+    } catch (IOException e) {
+      throw UploadExceptions.forUnreadableInput(e);
+    }
+  }
+
+  /**
+   * Validates a csv input stream for the given type without creating any object, e.g. to check a file before
+   * importing it. Headers are validated and every cell is run through the cell processor of its column, failing
+   * the same way as {@link #process(InputStream, Class, RecordHandler)} would, but no object of the class is
+   * created and no handler is invoked. Collecting errors and worker threads apply as for processing.
+   *
+   * @param inputStream The input stream of the csv file.
+   * @param clazz       The class of which each row would be made object of.
+   * @return The row number of the record in csv that has just been validated.
+   * @throws UploadException in the same cases as {@link #process(InputStream, Class, RecordHandler)}
+   */
+  public int validate(InputStream inputStream, Class clazz) throws UploadException {
+    return processRows(inputStream, clazz, new ValidationSink<I>(), true);
+  }
+
+  /**
+   * Validates a csv file for the given type without creating any object, like {@link #validate(InputStream, Class)},
+   * reading the file like {@link #process(Path, Class, RecordHandler)}.
+   *
+   * @param path  The path of the csv file.
+   * @param clazz The class of which each row would be made object of.
+   * @return The row number of the record in csv that has just been validated.
+   * @throws UploadException in the same cases as {@link #process(InputStream, Class, RecordHandler)}
+   */
+  public int validate(Path path, Class clazz) throws UploadException {
+    return processFile(path, clazz, new ValidationSink<I>(), true);
+  }
+
+  /**
+   * Gives a lazy stream of the objects of the rows of a csv input stream. Headers are validated right away, and
+   * each row is read and converted only when the stream asks for it, so a stream that is filtered, limited or short
+   * circuited stops reading the csv early. The input stream is closed once all rows have been read, a row fails or
+   * the stream is closed.
+   * <p/>
+   * Parallel streams split the rows of an input stream in batches read on the calling thread.
+   *
+   * @param inputStream The input stream of the csv file.
+   * @param clazz       The class of which each row is to be made object of.
+   * @return The objects of the rows, in the order of the rows.
+   * @throws UploadException in the same cases as {@link #process(InputStream, Class, RecordHandler)}; the ones
+   *                         about rows are thrown by the operations of the stream
+   */
+  public Stream<I> stream(InputStream inputStream, Class clazz) throws UploadException {
+    final CsvBeanIterator<I> iterator = iterator(inputStream, clazz);
+    Spliterator<I> spliterator = Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL);
+    return StreamSupport.stream(spliterator, false).onClose(new Runnable() {
+      @Override
+      public void run() {
+        iterator.close();
+      }
+    });
+  }
+
+  /**
+   * Gives a lazy stream of the objects of the rows of a csv file, like {@link #stream(InputStream, Class)}.
+   * The file is memory mapped and split into chunks of whole rows, so parallel streams tokenize and convert the
+   * chunks on different threads, and the stream knows its size. The file is released as soon as it is mapped.
+   *
+   * @param path  The path of the csv file.
+   * @param clazz The class of which each row is to be made object of.
+   * @return The objects of the rows, in the order of the rows.
+   * @throws UploadException in the same cases as {@link #stream(InputStream, Class)}
+   */
+  public Stream<I> stream(Path path, Class clazz) throws UploadException {
+    try {
+      Charset charset = getCharset(path);
+      if (!isSplittable(path, charset)) return stream(Files.newInputStream(path), clazz);
+
+      try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+        MappedCsvFile csvFile = MappedCsvFile.split(channel, charset, CsvBeanReader.DEFAULT_PREFERENCE,
+          getChunkSize(channel.size(), ForkJoinPool.getCommonPoolParallelism()));
+        CsvBeanReader<I> csvBeanReader = createCsvBeanReader(clazz, csvFile.openHeader());
+        csvBeanReader.validateHeaders();
+
+        List<ByteBuffer> regions = new ArrayList<ByteBuffer>();
+        for (MappedCsvFile.Chunk chunk : csvFile.getChunks()) {
+          regions.add(csvFile.map(chunk));
+        }
+        return StreamSupport.stream(new ChunkSpliterator<I>(csvFile, csvBeanReader, regions), false);
+      }
+    } catch (IOException e) {
+      throw UploadExceptions.forUnreadableInput(e);
+    }
+  }
+
+  /**
+   * Gives a lazy iterator over the objects of the rows of a csv input stream, see {@link #stream(InputStream, Class)}.
+   * Callers that stop iterating before the end should close the iterator.
+   *
+   * @param inputStream The input stream of the csv file.
+   * @param clazz       The class of which each row is to be made object of.
+   * @return The iterator over the objects of the rows, in the order of the rows.
+   * @throws UploadException in the same cases as {@link #stream(InputStream, Class)}
+   */
+  public CsvBeanIterator<I> iterator(InputStream inputStream, Class clazz) throws UploadException {
+    CsvBeanReader<I> csvBeanReader = null;
+    try {
+      csvBeanReader = createCsvBeanReader(clazz, openReader(inputStream));
+      csvBeanReader.validateHeaders();
+      return new CsvBeanIterator<I>(csvBeanReader);
+
+    } catch (RuntimeException e) {
+      closeQuietly(csvBeanReader);
+      throw e;
+    } catch (IOException e) {
+      closeQuietly(csvBeanReader);
+      throw UploadExceptions.forUnreadableInput(e);
+    }
+  }
+
+  /**
+   * Processes a csv input stream for the given type and invokes designated batch record handler for each batch of
+   * rows. A batch is handed over once it holds <code>batchSize</code> rows or, when <code>batchCharacters</code> is
+   * set, once its rows take up that many characters in the csv; the remaining rows are handed over at the end.
+   * Batches larger than <code>spillCharacters</code> keep their further rows off the heap, see
+   * {@link #setSpillCharacters(long)}.
+   *
+   * @param inputStream        The input stream of the csv file.
+   * @param clazz              The class of which each row is to be made object of.
+   * @param batchRecordHandler The Batch Record Handler which is invoked with the objects of each batch.
+   * @return The row number of the record in csv that has just been processed.
+   * @throws UploadException in the same cases as {@link #process(InputStream, Class, RecordHandler)}, and with
+   *                         <code>error.upload.batch.failed</code> when the handler fails on a batch
+   */
+  public int processInBatches(InputStream inputStream, Class clazz, BatchRecordHandler<I> batchRecordHandler)
+    throws UploadException {
+    return processRows(inputStream, clazz, new BatchingSink<I>(batchRecordHandler, supplementaryInfo, batchSize,
+      batchCharacters, spillCharacters, spillDirectory), false);
+  }
 
-    CsvBeanReader csvBeanReader = null;
+  /**
+   * Processes a csv input stream for the given type and invokes designated async record handler for each row
+   * without waiting for its calls to complete, so that rows go on being read and converted while calls are
+   * outstanding. Once <code>maxInFlight</code> calls are outstanding the parser waits for one to complete before
+   * handing over the next row. The method returns once all calls have completed, also when it fails.
+   * <p/>
+   * With worker threads the handler is invoked from several threads, as for
+   * {@link #process(InputStream, Class, RecordHandler)}.
+   *
+   * @param inputStream        The input stream of the csv file.
+   * @param clazz              The class of which each row is to be made object of.
+   * @param asyncRecordHandler The Async Record Handler which is invoked with the object of each row.
+   * @return The row number of the record in csv that has just been processed.
+   * @throws UploadException in the same cases as {@link #process(InputStream, Class, RecordHandler)}, and with
+   *                         <code>error.upload.async.failed</code> when a call of the handler fails, in which case
+   *                         no more rows are handed to it
+   */
+  public int processAsync(InputStream inputStream, Class clazz, AsyncRecordHandler<I> asyncRecordHandler)
+    throws UploadException {
+    return processRows(inputStream, clazz, new AsyncHandlerSink<I>(asyncRecordHandler, supplementaryInfo, maxInFlight),
+      false);
+  }
+
+  /**
+   * Processes a csv file for the given type and invokes designated async record handler for each row, like
+   * {@link #processAsync(InputStream, Class, AsyncRecordHandler)}, reading the file like
+   * {@link #process(Path, Class, RecordHandler)}.
+   *
+   * @param path               The path of the csv file.
+   * @param clazz              The class of which each row is to be made object of.
+   * @param asyncRecordHandler The Async Record Handler which is invoked with the object of each row.
+   * @return The row number of the record in csv that has just been processed.
+   * @throws UploadException in the same cases as {@link #processAsync(InputStream, Class, AsyncRecordHandler)}
+   */
+  public int processAsync(Path path, Class clazz, AsyncRecordHandler<I> asyncRecordHandler) throws UploadException {
+    return processFile(path, clazz, new AsyncHandlerSink<I>(asyncRecordHandler, supplementaryInfo, maxInFlight),
+      false);
+  }
+
+  /**
+   * Processes a csv input stream for the given type and invokes designated column batch handler for each batch of
+   * <code>batchSize</code> rows, converted column by column into arrays instead of into objects of the class, see
+   * {@link ColumnBatch}; the remaining rows are handed over at the end. The class is only used for its import
+   * fields and no object of it is created. Rows are read, converted and handed over on the calling thread, and the
+   * same batch is reused for every batch of the csv.
+   *
+   * @param inputStream        The input stream of the csv file.
+   * @param clazz              The class whose import fields the columns are converted for.
+   * @param columnBatchHandler The Column Batch Handler which is invoked with the columns of each batch.
+   * @return The row number of the record in csv that has just been processed.
+   * @throws UploadException in the same cases as {@link #process(InputStream, Class, RecordHandler)}, and with
+   *                         <code>error.upload.batch.failed</code> when the handler fails on a batch
+   */
+  public int processColumnar(InputStream inputStream, Class clazz, ColumnBatchHandler columnBatchHandler)
+    throws UploadException {
+    long start = System.nanoTime();
+    CsvBeanReader<I> csvBeanReader = null;
     String[] headers = null;
+    boolean completed = false;
 
     try {
-      csvBeanReader = new CsvBeanReader(new ModelClass(clazz), inputStream);
+      csvBeanReader = createCsvBeanReader(clazz, openReader(inputStream));
       headers = csvBeanReader.getHeaders();
       csvBeanReader.validateHeaders();
-      invokeRecordHandlerForEachRow(recordHandler, csvBeanReader);
+      UploadErrorReport errorReport = createErrorReport();
+      RowConverter<I> rowConverter = createRowConverter(csvBeanReader, errorReport, false);
+      ColumnBatch batch = csvBeanReader.newColumnBatch(batchSize);
+      ColumnBatchSink columnBatchSink = new ColumnBatchSink(columnBatchHandler, supplementaryInfo, batch);
+
+      CsvRow row = new CsvRow();
+      while (csvBeanReader.readRow(row)) {
+        if (rowConverter.append(row, batch)) columnBatchSink.appended(row);
+      }
+      columnBatchSink.finish();
+      completed = true;
+      throwIfRowsWereInvalid(errorReport);
 
-    } catch (SuperCsvConstraintViolationException e) {
-      throwUploadExceptionForInvalidData(getErrorMessageForMissingFieldOrInvalidDate(e), headers, e);
-    } catch (SuperCsvCellProcessorException processorException) {
-      throwUploadExceptionForInvalidData("incorrect.data.type", headers, processorException);
     } catch (SuperCsvException e) {
-      throwUploadExceptionForInvalidData(getErrorMessageForHeaderCount(csvBeanReader, headers), headers, e);
+      throw UploadExceptions.forInvalidData(csvBeanReader, headers, e);
     } catch (IOException e) {
-      throw new UploadException(e.getStackTrace().toString());
+      throw UploadExceptions.forUnreadableInput(e);
+    } finally {
+      if (!completed) closeQuietly(csvBeanReader);
+      recordRun(start, csvBeanReader == null ? 0 : csvBeanReader.getBytesRead());
     }
 
     return csvBeanReader.getRowNumber() - 1;
   }
 
-  private String getErrorMessageForMissingFieldOrInvalidDate(SuperCsvConstraintViolationException e) {
-    return e.getMessage().contains("^\\d{1,2}/\\d{1,2}/\\d{4}$")
-      ? "incorrect.date.format"
-      : "missing.mandatory";
+  private int processRows(InputStream inputStream, Class clazz, RowSink<I> rowSink, boolean validateOnly) {
+    long start = System.nanoTime();
+    boolean reusesObjects = reusesObjects(rowSink);
+    boolean ordered = preservesOrder(rowSink);
+    rowSink = meter(rowSink);
+    CsvBeanReader<I> csvBeanReader = null;
+    String[] headers = null;
+    boolean completed = false;
+
+    try {
+      csvBeanReader = createCsvBeanReader(clazz, openReader(inputStream));
+      headers = csvBeanReader.getHeaders();
+      csvBeanReader.validateHeaders();
+      csvBeanReader.setReuseObjects(reusesObjects && (workerThreads == 1 || !ordered));
+      rowSink.start(csvBeanReader);
+      UploadErrorReport errorReport = createErrorReport();
+      RowConverter<I> rowConverter = createRowConverter(csvBeanReader, errorReport, validateOnly);
+      if (workerThreads > 1) {
+        new ParallelRowProcessor<I>(csvBeanReader, rowConverter, rowSink, workerThreads, queueCapacity).process(ordered);
+      } else {
+        acceptEachRow(rowSink, csvBeanReader, rowConverter);
+      }
+      rowSink.finish();
+      completed = true;
+      throwIfRowsWereInvalid(errorReport);
+
+    } catch (SuperCsvException e) {
+      throw UploadExceptions.forInvalidData(csvBeanReader, headers, e);
+    } catch (IOException e) {
+      throw UploadExceptions.forUnreadableInput(e);
+    } finally {
+      if (!completed) abort(rowSink, csvBeanReader);
+      recordRun(start, csvBeanReader == null ? 0 : csvBeanReader.getBytesRead());
+    }
+
+    return csvBeanReader.getRowNumber() - 1;
+  }
+
+  /**
+   * Processes the rows of a csv on the calling thread, saving a checkpoint every <code>checkpointInterval</code>
+   * rows once they have been handled, and starting from the saved checkpoint when there is one.
+   */
+  private int processResumable(InputStream inputStream, Class clazz, RowSink<I> rowSink) {
+    long start = System.nanoTime();
+    rowSink = meter(rowSink);
+    CsvBeanReader<I> csvBeanReader = null;
+    String[] headers = null;
+    Checkpoint checkpoint = null;
+    boolean completed = false;
+
+    try {
+      checkpoint = loadCheckpoint();
+      csvBeanReader = checkpoint == null
+        ? createCsvBeanReader(clazz, openReader(inputStream))
+        : resumeCsvBeanReader(clazz, inputStream, checkpoint);
+      headers = csvBeanReader.getHeaders();
+      csvBeanReader.validateHeaders();
+      csvBeanReader.setReuseObjects(reuseObjects);
+      rowSink.start(csvBeanReader);
+      UploadErrorReport errorReport = createErrorReport();
+      RowConverter<I> rowConverter = createRowConverter(csvBeanReader, errorReport, false);
+
+      CsvRow row = new CsvRow();
+      int rowsSinceCheckpoint = 0;
+      while (csvBeanReader.readRow(row)) {
+        I imported = rowConverter.convert(row);
+        if (imported != null) rowSink.accept(imported, row);
+        if (++rowsSinceCheckpoint == checkpointInterval) {
+          saveCheckpoint(csvBeanReader.checkpoint());
+          rowsSinceCheckpoint = 0;
+        }
+      }
+      rowSink.finish();
+      clearCheckpoint();
+      completed = true;
+      throwIfRowsWereInvalid(errorReport);
+
+    } catch (SuperCsvException e) {
+      throw UploadExceptions.forInvalidData(csvBeanReader, headers, e);
+    } catch (IOException e) {
+      throw UploadExceptions.forUnreadableInput(e);
+    } finally {
+      if (!completed) abort(rowSink, csvBeanReader);
+      long skipped = checkpoint == null ? 0 : checkpoint.getByteOffset();
+      recordRun(start, csvBeanReader == null ? 0 : csvBeanReader.getBytesRead() - skipped);
+    }
+
+    return csvBeanReader.getRowNumber() - 1;
+  }
+
+  private Checkpoint loadCheckpoint() {
+    try {
+      return checkpointStore.load();
+    } catch (IOException e) {
+      throw UploadExceptions.forCheckpointFailure(e);
+    }
+  }
+
+  private void saveCheckpoint(Checkpoint checkpoint) {
+    try {
+      checkpointStore.save(checkpoint);
+    } catch (IOException e) {
+      throw UploadExceptions.forCheckpointFailure(e, "record.number." + (checkpoint.getRowNumber() - 1));
+    }
+  }
+
+  private void clearCheckpoint() {
+    try {
+      checkpointStore.clear();
+    } catch (IOException e) {
+      throw UploadExceptions.forCheckpointFailure(e);
+    }
+  }
+
+  /**
+   * Gives a reader of the rows after a checkpoint, skipping the input up to the offset of the checkpoint, which is a
+   * seek for file streams, and reading the rows with the charset and headers of the checkpoint.
+   */
+  private CsvBeanReader<I> resumeCsvBeanReader(Class clazz, InputStream inputStream, Checkpoint checkpoint)
+    throws IOException {
+    InputStream input = CompressedInput.open(inputStream);
+    ByteStreamReader reader = null;
+    try {
+      skipFully(input, checkpoint.getByteOffset());
+      reader = new ByteStreamReader(input, Charset.forName(checkpoint.getCharset()), bufferSize,
+        checkpoint.getByteOffset());
+    } finally {
+      if (reader == null) closeQuietly(input);
+    }
+
+    CsvTokenizer tokenizer = new CsvTokenizer(reader, CsvBeanReader.DEFAULT_PREFERENCE, bufferSize);
+    tokenizer.startAt(checkpoint.getLineNumber(), checkpoint.getRowNumber());
+    List<String> headers = checkpoint.getHeaders();
+    return configure(new CsvBeanReader<I>(getModelClass(clazz), tokenizer, bindingMode, typeRegistry,
+      headers.toArray(new String[headers.size()])));
+  }
+
+  private static void skipFully(InputStream inputStream, long bytes) throws IOException {
+    while (bytes > 0) {
+      long skipped = inputStream.skip(bytes);
+      if (skipped <= 0) {
+        if (inputStream.read() < 0) throw new EOFException("the csv ends before the checkpoint");
+        skipped = 1;
+      }
+      bytes -= skipped;
+    }
+  }
+
+  private int processFile(Path path, Class clazz, RowSink<I> rowSink, boolean validateOnly) {
+    Charset charset;
+    try {
+      charset = getCharset(path);
+      if (!isSplittable(path, charset)) return processStream(path, clazz, rowSink, validateOnly);
+    } catch (IOException e) {
+      throw UploadExceptions.forUnreadableInput(e);
+    }
+
+    long start = System.nanoTime();
+    boolean reusesObjects = reusesObjects(rowSink);
+    boolean ordered = preservesOrder(rowSink);
+    rowSink = meter(rowSink);
+    CsvBeanReader<I> csvBeanReader = null;
+    String[] headers = null;
+    long fileSize = 0;
+    boolean completed = false;
+
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      fileSize = channel.size();
+      MappedCsvFile csvFile = MappedCsvFile.split(channel, charset, CsvBeanReader.DEFAULT_PREFERENCE,
+        getChunkSize(channel.size(), workerThreads));
+      csvBeanReader = createCsvBeanReader(clazz, csvFile.openHeader());
+      headers = csvBeanReader.getHeaders();
+      csvBeanReader.validateHeaders();
+      csvBeanReader.setReuseObjects(reusesObjects && (workerThreads == 1 || !ordered));
+      rowSink.start(csvBeanReader);
+      UploadErrorReport errorReport = createErrorReport();
+      new ChunkedRowProcessor<I>(csvFile, csvBeanReader, createRowConverter(csvBeanReader, errorReport, validateOnly),
+        rowSink, workerThreads, queueCapacity).process(ordered);
+      rowSink.finish();
+      completed = true;
+      throwIfRowsWereInvalid(errorReport);
+      return csvFile.getRowCount() - 1;
+
+    } catch (SuperCsvException e) {
+      throw UploadExceptions.forInvalidData(csvBeanReader, headers, e);
+    } catch (IOException e) {
+      throw UploadExceptions.forUnreadableInput(e);
+    } finally {
+      if (!completed) rowSink.abort();
+      recordRun(start, fileSize);
+    }
   }
 
-  private String getErrorMessageForHeaderCount(CsvBeanReader csvBeanReader, String[] headers) {
-    return csvBeanReader.length() > headers.length
-      ? "extra.columns.than.headers.found"
-      : "fewer.columns.than.headers.found";
+  private int processStream(Path path, Class clazz, RowSink<I> rowSink, boolean validateOnly) {
+    try (InputStream inputStream = Files.newInputStream(path)) {
+      return processRows(inputStream, clazz, rowSink, validateOnly);
+    } catch (IOException e) {
+      throw UploadExceptions.forUnreadableInput(e);
+    }
   }
 
-  private void invokeRecordHandlerForEachRow(RecordHandler<I> recordHandler, CsvBeanReader<I> csvBeanReader) throws IOException {
-    I importedModel;
-    while ((importedModel = csvBeanReader.read()) != null) {
-      recordHandler.execute(importedModel, csvBeanReader.getRowNumber(), supplementaryInfo);
+  private CsvBeanReader<I> createCsvBeanReader(Class clazz, Reader reader) throws IOException {
+    CsvBeanReader<I> csvBeanReader = null;
+    try {
+      csvBeanReader = configure(new CsvBeanReader<I>(getModelClass(clazz),
+        new CsvTokenizer(reader, CsvBeanReader.DEFAULT_PREFERENCE, bufferSize), bindingMode, typeRegistry));
+      return csvBeanReader;
+    } finally {
+      if (csvBeanReader == null) closeQuietly(reader);
     }
   }
 
-  private void throwUploadExceptionForInvalidData(String error, String[] headers, SuperCsvException exception) {
-    CsvContext csvContext = exception.getCsvContext();
-    String header = headers[csvContext.getColumnNumber() - 1];
-    Integer rowNum = csvContext.getRowNumber() - 1;
-    throw new UploadException(error, header, "record.number." + rowNum.toString());
+  private ModelClass getModelClass(Class clazz) {
+    ModelClass modelClass = MetadataCache.getModelClass(clazz);
+    modelClass.setAcceptExtraHeaders(acceptExtraHeaders);
+    modelClass.setProjection(projection);
+    return modelClass;
+  }
+
+  private CsvBeanReader<I> configure(CsvBeanReader<I> csvBeanReader) {
+    csvBeanReader.setMetrics(metrics);
+    if (skipUnmappedColumns || projection != null) csvBeanReader.skipUnmappedColumns();
+    return csvBeanReader;
+  }
+
+  /**
+   * Whether the objects handed to a sink can be reused, which they can only be for a <code>RecordHandler</code>
+   * invoked on the thread that converted the object before the thread converts the next row. Batches and
+   * outstanding asynchronous calls hold on to their objects.
+   */
+  private boolean reusesObjects(RowSink<I> rowSink) {
+    return reuseObjects && rowSink instanceof RecordHandlerSink;
+  }
+
+  /**
+   * Whether rows are handed to a sink in their order, which batches always are so that each batch is the range of
+   * rows between its first and last row numbers.
+   */
+  private boolean preservesOrder(RowSink<I> rowSink) {
+    return preserveOrder || rowSink instanceof BatchingSink;
+  }
+
+  /**
+   * Releases the reader and what the sink holds once processing has failed.
+   */
+  private void abort(RowSink<I> rowSink, CsvBeanReader<I> csvBeanReader) {
+    closeQuietly(csvBeanReader);
+    rowSink.abort();
+  }
+
+  private RowSink<I> meter(RowSink<I> rowSink) {
+    return metrics == null ? rowSink : new MeteredSink<I>(rowSink, metrics);
+  }
+
+  private void recordRun(long start, long bytesRead) {
+    if (metrics != null) metrics.ran(bytesRead, System.nanoTime() - start);
+  }
+
+  /**
+   * Gives a reader of the csv in an input stream, decompressing it on a thread of its own when it is compressed.
+   */
+  private Reader openReader(InputStream inputStream) throws IOException {
+    InputStream input = CompressedInput.open(inputStream);
+    Reader reader = null;
+    try {
+      reader = new ByteStreamReader(input, charset, bufferSize);
+      return reader;
+    } finally {
+      if (reader == null) closeQuietly(input);
+    }
+  }
+
+  /**
+   * The charset of a file, which is the one of its byte order mark if it starts with one.
+   */
+  private Charset getCharset(Path path) throws IOException {
+    ByteOrderMark byteOrderMark = ByteOrderMark.find(path);
+    return byteOrderMark == null ? charset : byteOrderMark.charset;
+  }
+
+  /**
+   * Whether a file can be mapped and split into chunks of rows, which compressed files and files in charsets where
+   * rows can not be told apart by their bytes can not.
+   */
+  private boolean isSplittable(Path path, Charset charset) throws IOException {
+    return MappedCsvFile.isSplittable(charset, CsvBeanReader.DEFAULT_PREFERENCE) && !CompressedInput.isCompressed(path);
+  }
+
+  private long getChunkSize(long fileSize, int threads) {
+    if (threads == 1) return MappedCsvFile.MAX_CHUNK_SIZE;
+    return Math.max(MappedCsvFile.MIN_CHUNK_SIZE, fileSize / (threads * CHUNKS_PER_WORKER_THREAD));
+  }
+
+  private void closeQuietly(CsvBeanReader<I> csvBeanReader) {
+    if (csvBeanReader == null) return;
+    try {
+      csvBeanReader.close();
+    } catch (IOException ignored) {
+    }
+  }
+
+  private static void closeQuietly(Closeable closeable) {
+    try {
+      closeable.close();
+    } catch (IOException ignored) {
+    }
+  }
+
+  private void acceptEachRow(RowSink<I> rowSink, CsvBeanReader<I> csvBeanReader, RowConverter<I> rowConverter)
+    throws IOException {
+    CsvRow row = new CsvRow();
+    while (csvBeanReader.readRow(row)) {
+      I imported = rowConverter.convert(row);
+      if (imported != null) rowSink.accept(imported, row);
+    }
+  }
+
+  private UploadErrorReport createErrorReport() {
+    return collectErrors ? new UploadErrorReport(maxErrors) : null;
+  }
+
+  private RowConverter<I> createRowConverter(CsvBeanReader<I> csvBeanReader, UploadErrorReport errorReport,
+                                             boolean validateOnly) {
+    return new RowConverter<I>(csvBeanReader, errorReport, rejectedRowHandler, supplementaryInfo, validateOnly);
+  }
+
+  private void throwIfRowsWereInvalid(UploadErrorReport errorReport) {
+    if (errorReport != null && !errorReport.isEmpty()) throw new InvalidRowsException(errorReport);
+  }
+
+  public BindingMode getBindingMode() {
+    return bindingMode;
+  }
+
+  public void setBindingMode(BindingMode bindingMode) {
+    this.bindingMode = bindingMode;
+  }
+
+  public TypeRegistry getTypeRegistry() {
+    return typeRegistry;
+  }
+
+  /**
+   * Sets the registry resolving the types of import fields, which may be shared with other parsers.
+   */
+  public void setTypeRegistry(TypeRegistry typeRegistry) {
+    this.typeRegistry = typeRegistry;
+  }
+
+  public Charset getCharset() {
+    return charset;
+  }
+
+  /**
+   * Sets the charset csv input is decoded with. Input starting with a UTF-8 or UTF-16 byte order mark is decoded
+   * in the charset of the mark instead, and the mark is skipped.
+   */
+  public void setCharset(Charset charset) {
+    this.charset = charset;
+  }
+
+  public int getBufferSize() {
+    return bufferSize;
+  }
+
+  /**
+   * Sets the size of the buffers input streams are read and tokenized through, 64K by default. Rows longer than
+   * the buffer are still read whole.
+   */
+  public void setBufferSize(int bufferSize) {
+    if (bufferSize < 1) throw new IllegalArgumentException("bufferSize should be at least 1");
+    this.bufferSize = bufferSize;
+  }
+
+  public boolean isAcceptExtraHeaders() {
+    return acceptExtraHeaders;
+  }
+
+  /**
+   * When true, headers that do not name any import field are accepted instead of failing with
+   * <code>error.upload.invalid.header</code>, and their columns are left out.
+   */
+  public void setAcceptExtraHeaders(boolean acceptExtraHeaders) {
+    this.acceptExtraHeaders = acceptExtraHeaders;
+  }
+
+  public Collection<String> getProjection() {
+    return projection;
+  }
+
+  /**
+   * Restricts conversion to the columns of the given import fields, e.g. when only a few fields of a wide csv are
+   * needed for a run. The other fields are not populated, and their columns are skipped by the tokenizer like with
+   * {@link #setSkipUnmappedColumns(boolean)}. Headers are still validated against all import fields, so mandatory
+   * columns must be present even when they are not converted.
+   *
+   * @param importFieldNames the names of the import fields to convert, case insensitive, null to convert all of them
+   */
+  public void setProjection(Collection<String> importFieldNames) {
+    this.projection = importFieldNames;
+  }
+
+  public boolean isSkipUnmappedColumns() {
+    return skipUnmappedColumns;
+  }
+
+  /**
+   * When true, the tokenizer skips over the columns that are not mapped to an import field, like extra columns,
+   * without unescaping or copying their content, which saves most of the reading of wide csv of which few columns
+   * are mapped. Those columns are null in the rows handed to the <code>RejectedRowHandler</code>.
+   */
+  public void setSkipUnmappedColumns(boolean skipUnmappedColumns) {
+    this.skipUnmappedColumns = skipUnmappedColumns;
+  }
+
+  public boolean isReuseObjects() {
+    return reuseObjects;
+  }
+
+  /**
+   * When true, the <code>process</code> methods invoke the <code>RecordHandler</code> with a single object per
+   * thread, whose mapped properties are reset and bound again for each row, instead of creating an object, and the
+   * nested objects of its nested fields, for every row. The handler must not keep the object, or any nested object
+   * of it, after it returns, and must copy out the values it needs. Nested objects are kept from row to row, so a
+   * nested object is not null when its columns are empty in a row after one in which they were not.
+   * <p/>
+   * Objects are only reused where each one is handled before the same thread converts the next row, which is not
+   * the case when rows are handled in order by worker threads, nor for batches, asynchronous handlers and streams,
+   * which go on creating an object per row.
+   */
+  public void setReuseObjects(boolean reuseObjects) {
+    this.reuseObjects = reuseObjects;
+  }
+
+  public int getWorkerThreads() {
+    return workerThreads;
+  }
+
+  /**
+   * Sets the number of threads converting rows and invoking the <code>RecordHandler</code>.
+   * Rows of a stream are always read on the calling thread; with more than one worker thread they are converted in
+   * parallel. Files are split into chunks that are read in parallel as well, see {@link #process(Path, Class, RecordHandler)}.
+   * Row numbers passed to the handler and reported in <code>UploadException</code>s stay the same as when
+   * processing sequentially, and the failure of the first failing row is reported.
+   *
+   * @param workerThreads the number of worker threads, 1 to process every row on the calling thread
+   */
+  public void setWorkerThreads(int workerThreads) {
+    if (workerThreads < 1) throw new IllegalArgumentException("workerThreads should be at least 1");
+    this.workerThreads = workerThreads;
+  }
+
+  public boolean isPreserveOrder() {
+    return preserveOrder;
+  }
+
+  /**
+   * When true, the default, the <code>RecordHandler</code> is invoked on the calling thread in the order of the rows.
+   * When false, worker threads invoke the <code>RecordHandler</code> concurrently as soon as they have converted a
+   * row, so the handler must be thread-safe. Batches of <code>processInBatches</code> are always made of rows in
+   * their order.
+   */
+  public void setPreserveOrder(boolean preserveOrder) {
+    this.preserveOrder = preserveOrder;
+  }
+
+  public int getQueueCapacity() {
+    return queueCapacity;
+  }
+
+  /**
+   * Sets how many rows may be read ahead of the ones being handled, reading blocks once this many rows are waiting.
+   */
+  public void setQueueCapacity(int queueCapacity) {
+    if (queueCapacity < 1) throw new IllegalArgumentException("queueCapacity should be at least 1");
+    this.queueCapacity = queueCapacity;
+  }
+
+  public int getBatchSize() {
+    return batchSize;
+  }
+
+  public void setBatchSize(int batchSize) {
+    if (batchSize < 1) throw new IllegalArgumentException("batchSize should be at least 1");
+    this.batchSize = batchSize;
+  }
+
+  public long getBatchCharacters() {
+    return batchCharacters;
+  }
+
+  /**
+   * Limits batches by the number of characters their rows take up in the csv, which follows the number of bytes
+   * for single byte encodings.
+   *
+   * @param batchCharacters the number of characters after which a batch is handed over, 0 for no limit
+   */
+  public void setBatchCharacters(long batchCharacters) {
+    if (batchCharacters < 0) throw new IllegalArgumentException("batchCharacters should not be negative");
+    this.batchCharacters = batchCharacters;
+  }
+
+  public long getSpillCharacters() {
+    return spillCharacters;
+  }
+
+  /**
+   * Bounds the heap taken by a batch of <code>processInBatches</code> by the number of characters of csv whose
+   * objects it holds. The further rows of a batch are written off the heap to a memory mapped temporary file, as
+   * their cells in a compact binary form, and the list handed to the <code>BatchRecordHandler</code> converts them
+   * again, in order, as the handler goes through it. Handlers that iterate over the batch once, without keeping
+   * the objects, then never hold more than the objects of <code>spillCharacters</code> characters at a time.
+   * The temporary file is deleted as soon as it is created, and its memory is released once the list is no longer
+   * referenced.
+   *
+   * @param spillCharacters the number of characters after which the rows of a batch are kept off the heap, 0, the
+   *                        default, to keep all of them on the heap
+   */
+  public void setSpillCharacters(long spillCharacters) {
+    if (spillCharacters < 0) throw new IllegalArgumentException("spillCharacters should not be negative");
+    this.spillCharacters = spillCharacters;
+  }
+
+  public Path getSpillDirectory() {
+    return spillDirectory;
+  }
+
+  /**
+   * Sets the directory of the temporary files rows kept off the heap are written to, null, the default, for the
+   * default temporary directory.
+   */
+  public void setSpillDirectory(Path spillDirectory) {
+    this.spillDirectory = spillDirectory;
+  }
+
+  public int getMaxInFlight() {
+    return maxInFlight;
+  }
+
+  /**
+   * Sets how many calls of an <code>AsyncRecordHandler</code> may be outstanding at once, reading blocks once this
+   * many calls are outstanding.
+   */
+  public void setMaxInFlight(int maxInFlight) {
+    if (maxInFlight < 1) throw new IllegalArgumentException("maxInFlight should be at least 1");
+    this.maxInFlight = maxInFlight;
+  }
+
+  public boolean isCollectErrors() {
+    return collectErrors;
+  }
+
+  /**
+   * When true, rows that fail conversion, like rows with missing mandatory values or invalid data, do not stop
+   * processing: their errors are collected, the rows are skipped or handed to the <code>RejectedRowHandler</code>,
+   * and the other rows are handled as usual. Once all rows have been processed an <code>InvalidRowsException</code>
+   * with the collected errors is thrown if any row failed. Invalid headers and unreadable csv still fail right away.
+   */
+  public void setCollectErrors(boolean collectErrors) {
+    this.collectErrors = collectErrors;
+  }
+
+  public int getMaxErrors() {
+    return maxErrors;
+  }
+
+  /**
+   * Sets how many row errors the error report keeps when collecting errors, the ones of the lowest row numbers.
+   * Further invalid rows are still counted and rejected.
+   */
+  public void setMaxErrors(int maxErrors) {
+    if (maxErrors < 1) throw new IllegalArgumentException("maxErrors should be at least 1");
+    this.maxErrors = maxErrors;
+  }
+
+  public RejectedRowHandler getRejectedRowHandler() {
+    return rejectedRowHandler;
+  }
+
+  /**
+   * Sets the handler receiving the rows that fail conversion when collecting errors, to quarantine them.
+   * With unordered worker threads or chunked files it is invoked concurrently, so it must be thread-safe.
+   */
+  public void setRejectedRowHandler(RejectedRowHandler rejectedRowHandler) {
+    this.rejectedRowHandler = rejectedRowHandler;
+  }
+
+  public CheckpointStore getCheckpointStore() {
+    return checkpointStore;
+  }
+
+  /**
+   * Makes the imports of the <code>process</code> methods resumable, e.g. to restart an import of a large file
+   * after the <code>RecordHandler</code> failed on a row. A checkpoint of the byte offset, row number, charset and
+   * headers is saved every <code>checkpointInterval</code> rows once they have been handled. When the store holds a
+   * checkpoint, processing skips the csv to its offset, which is a seek for files and uncompressed file streams, and
+   * goes on from the row after it with the same row numbers; the input must be the same csv from its start. The
+   * checkpoint is cleared once the csv has been processed to the end.
+   * <p/>
+   * Resumable imports are read, converted and handled on the calling thread whatever the number of worker threads.
+   * Errors collected before a checkpoint are not reported again by a resumed import. A failure of the store is
+   * reported as <code>error.upload.checkpoint.failed</code>, with the record number of the last row handled when
+   * saving a checkpoint fails.
+   *
+   * @param checkpointStore the store of the checkpoint of the csv being imported, null for imports that can not be
+   *                        resumed
+   */
+  public void setCheckpointStore(CheckpointStore checkpointStore) {
+    this.checkpointStore = checkpointStore;
+  }
+
+  public int getCheckpointInterval() {
+    return checkpointInterval;
+  }
+
+  public void setCheckpointInterval(int checkpointInterval) {
+    if (checkpointInterval < 1) throw new IllegalArgumentException("checkpointInterval should be at least 1");
+    this.checkpointInterval = checkpointInterval;
+  }
+
+  public ParseMetrics getMetrics() {
+    return metrics;
+  }
+
+  /**
+   * Sets the metrics the rows, bytes, stage times and conversion failures of this parser are counted in, null, the
+   * default, to count nothing. Rows read through streams and iterators are counted too, but only the runs of the
+   * <code>process</code>, <code>processInBatches</code>, <code>processColumnar</code> and <code>validate</code>
+   * methods count bytes and elapsed time.
+   */
+  public void setMetrics(ParseMetrics metrics) {
+    this.metrics = metrics;
   }
 
   public Map getSupplementaryInfo() {
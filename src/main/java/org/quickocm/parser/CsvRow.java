@@ -0,0 +1,132 @@
+package org.quickocm.parser;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A tokenized row of a csv file, read but not yet converted to an object of the model class.
+ * <p/>
+ * The unescaped content of all cells is kept in one character buffer and each cell is exposed as a range of it,
+ * so that reading a row does not create a <code>String</code> per cell. Strings are only created for the cells
+ * that ask for them through {@link #getColumn(int)} or {@link #getColumns()}.
+ * A row may be refilled by the reader, so it must not be retained unless it was read through
+ * <code>CsvBeanReader.readRow()</code>.
+ */
+public class CsvRow {
+
+  private char[] chars = new char[256];
+  private int[] starts = new int[16];
+  private int[] ends = new int[16];
+  private int length;
+  private int position;
+
+  private int lineNumber;
+  private int rowNumber;
+  private int size;
+  private String[] columns = new String[16];
+
+  /**
+   * The buffer holding the content of the cells, see {@link #getStart(int)} and {@link #getEnd(int)}.
+   */
+  public char[] getChars() {
+    return chars;
+  }
+
+  /**
+   * The offset of the first character of a cell in {@link #getChars()}, -1 when the cell is empty.
+   *
+   * @param column the index of the cell, starting at 0
+   */
+  public int getStart(int column) {
+    return starts[column];
+  }
+
+  /**
+   * The offset after the last character of a cell in {@link #getChars()}.
+   *
+   * @param column the index of the cell, starting at 0
+   */
+  public int getEnd(int column) {
+    return ends[column];
+  }
+
+  public boolean isNull(int column) {
+    return starts[column] < 0;
+  }
+
+  /**
+   * The content of a cell, null when the cell is empty.
+   *
+   * @param column the index of the cell, starting at 0
+   */
+  public String getColumn(int column) {
+    if (starts[column] < 0) return null;
+
+    String value = columns[column];
+    if (value == null) {
+      value = new String(chars, starts[column], ends[column] - starts[column]);
+      columns[column] = value;
+    }
+    return value;
+  }
+
+  public List<String> getColumns() {
+    List<String> values = new ArrayList<String>(length);
+    for (int i = 0; i < length; i++) {
+      values.add(getColumn(i));
+    }
+    return values;
+  }
+
+  public int getLineNumber() {
+    return lineNumber;
+  }
+
+  public int getRowNumber() {
+    return rowNumber;
+  }
+
+  /**
+   * The number of characters the row takes up in the csv, including its line terminator.
+   */
+  public int getSize() {
+    return size;
+  }
+
+  public int length() {
+    return length;
+  }
+
+  void clear() {
+    Arrays.fill(columns, 0, length, null);
+    length = 0;
+    position = 0;
+  }
+
+  void append(char c) {
+    if (position == chars.length) chars = Arrays.copyOf(chars, chars.length * 2);
+    chars[position++] = c;
+  }
+
+  int position() {
+    return position;
+  }
+
+  void endColumn(int start) {
+    if (length == starts.length) {
+      starts = Arrays.copyOf(starts, length * 2);
+      ends = Arrays.copyOf(ends, length * 2);
+      columns = Arrays.copyOf(columns, length * 2);
+    }
+    starts[length] = position > start ? start : -1;
+    ends[length] = position;
+    length++;
+  }
+
+  void setNumbers(int lineNumber, int rowNumber, int size) {
+    this.lineNumber = lineNumber;
+    this.rowNumber = rowNumber;
+    this.size = size;
+  }
+}
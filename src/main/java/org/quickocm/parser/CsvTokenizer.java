@@ -0,0 +1,281 @@
+package org.quickocm.parser;
+
+import org.supercsv.exception.SuperCsvException;
+import org.supercsv.prefs.CsvPreference;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.Charset;
+
+/**
+ * Splits csv text into rows and cells, reading through a reusable character buffer and writing the unescaped cells
+ * of each row into the buffer of a <code>CsvRow</code>.
+ * <p/>
+ * It follows the rules of SuperCSV's <code>Tokenizer</code>: empty lines are skipped, empty cells are null, a quote
+ * switches into quoted mode anywhere in a cell, two quotes in quoted mode stand for one, line breaks in quoted mode
+ * become <code>\n</code>, and with <code>surroundingSpacesNeedQuotes</code> the spaces around a cell are dropped
+ * unless they are quoted.
+ * <p/>
+ * Columns set to be skipped are scanned for their end without being unescaped or copied into the row, and are null.
+ */
+public class CsvTokenizer {
+
+  public static final int DEFAULT_BUFFER_SIZE = 8192;
+
+  private static final int END_OF_FILE = -1;
+  private static final int NONE = -2;
+
+  private final Reader reader;
+  private final char delimiter;
+  private final char quote;
+  private final boolean surroundingSpacesNeedQuotes;
+
+  private final char[] buffer;
+  private int position;
+  private int limit;
+  private int pushedBack = NONE;
+
+  private int lineNumber;
+  private int rowNumber;
+  private int rowSize;
+
+  private ParseMetrics metrics;
+  private boolean[] skippedColumns;
+
+  public CsvTokenizer(Reader reader, CsvPreference csvPreference) {
+    this(reader, csvPreference, DEFAULT_BUFFER_SIZE);
+  }
+
+  public CsvTokenizer(Reader reader, CsvPreference csvPreference, int bufferSize) {
+    this.reader = reader;
+    this.delimiter = (char) csvPreference.getDelimiterChar();
+    this.quote = (char) csvPreference.getQuoteChar();
+    this.surroundingSpacesNeedQuotes = csvPreference.isSurroundingSpacesNeedQuotes();
+    this.buffer = new char[bufferSize];
+  }
+
+  /**
+   * Reads the next row into the given row, replacing its previous content.
+   *
+   * @param row the row to fill
+   * @return false at the end of the csv
+   */
+  public boolean readRow(CsvRow row) throws IOException {
+    if (metrics == null) return tokenize(row);
+
+    long start = System.nanoTime();
+    boolean read = tokenize(row);
+    metrics.tokenized(read, System.nanoTime() - start);
+    return read;
+  }
+
+  private boolean tokenize(CsvRow row) throws IOException {
+    row.clear();
+
+    int c = skipEmptyLines();
+    if (c == END_OF_FILE) return false;
+    rowSize = 1;
+
+    boolean quoted = false;
+    int quoteStartLine = 0;
+    int spaces = 0;
+    int columnStart = row.position();
+    int column = 0;
+    if (isSkipped(column)) c = skipColumn(c);
+
+    while (true) {
+      if (quoted) {
+        if (c == END_OF_FILE) {
+          throw new SuperCsvException(String.format(
+            "unexpected end of file while reading quoted column beginning on line %d and ending on line %d",
+            quoteStartLine, lineNumber + 1));
+        } else if (c == '\n' || c == '\r') {
+          endLine(c);
+          row.append('\n');
+        } else if (c == quote) {
+          int next = read();
+          if (next == quote) {
+            row.append(quote);
+          } else {
+            quoted = false;
+            pushedBack = next;
+          }
+        } else {
+          row.append((char) c);
+        }
+      } else if (c == delimiter) {
+        if (!surroundingSpacesNeedQuotes) appendSpaces(row, spaces);
+        row.endColumn(columnStart);
+        spaces = 0;
+        columnStart = row.position();
+        if (isSkipped(++column)) {
+          c = skipColumn(read());
+          continue;
+        }
+      } else if (c == ' ') {
+        spaces++;
+      } else if (c == '\n' || c == '\r' || c == END_OF_FILE) {
+        if (!surroundingSpacesNeedQuotes) appendSpaces(row, spaces);
+        row.endColumn(columnStart);
+        endLine(c);
+        rowNumber++;
+        row.setNumbers(lineNumber, rowNumber, rowSize);
+        return true;
+      } else {
+        if (!surroundingSpacesNeedQuotes || row.position() > columnStart) appendSpaces(row, spaces);
+        spaces = 0;
+        if (c == quote) {
+          quoted = true;
+          quoteStartLine = lineNumber + 1;
+        } else {
+          row.append((char) c);
+        }
+      }
+      c = read();
+    }
+  }
+
+  /**
+   * Reads past the content of a skipped column, up to the delimiter or line break ending it, which is returned.
+   */
+  private int skipColumn(int c) throws IOException {
+    boolean quoted = false;
+    int quoteStartLine = 0;
+    while (true) {
+      if (quoted) {
+        if (c == END_OF_FILE) {
+          throw new SuperCsvException(String.format(
+            "unexpected end of file while reading quoted column beginning on line %d and ending on line %d",
+            quoteStartLine, lineNumber + 1));
+        } else if (c == '\n' || c == '\r') {
+          endLine(c);
+        } else if (c == quote) {
+          int next = read();
+          if (next != quote) {
+            quoted = false;
+            c = next;
+            continue;
+          }
+        }
+      } else if (c == delimiter || c == '\n' || c == '\r' || c == END_OF_FILE) {
+        return c;
+      } else if (c == quote) {
+        quoted = true;
+        quoteStartLine = lineNumber + 1;
+      }
+      c = read();
+    }
+  }
+
+  private boolean isSkipped(int column) {
+    return skippedColumns != null && column < skippedColumns.length && skippedColumns[column];
+  }
+
+  /**
+   * The number of lines read so far.
+   */
+  public int getLineNumber() {
+    return lineNumber;
+  }
+
+  /**
+   * The number of rows read so far, including the header.
+   */
+  public int getRowNumber() {
+    return rowNumber;
+  }
+
+  /**
+   * Continues the line and row numbers of a reader that has already read part of the csv, for a tokenizer reading
+   * from the middle of it.
+   */
+  void startAt(int lineNumber, int rowNumber) {
+    this.lineNumber = lineNumber;
+    this.rowNumber = rowNumber;
+  }
+
+  /**
+   * Sets the columns whose content is skipped from the next row on, null to read every column.
+   */
+  void setSkippedColumns(boolean[] skippedColumns) {
+    this.skippedColumns = skippedColumns;
+  }
+
+  /**
+   * Counts the rows read from now on and the time spent reading them in the given metrics, null to stop counting.
+   */
+  void setMetrics(ParseMetrics metrics) {
+    this.metrics = metrics;
+  }
+
+  /**
+   * The offset in the input of the byte following the last row read, for a tokenizer reading bytes decoded by a
+   * <code>ByteStreamReader</code>.
+   */
+  long getByteOffset() {
+    int consumed = pushedBack == NONE || pushedBack == END_OF_FILE ? position : position - 1;
+    return byteStreamReader().getByteOffset(consumed);
+  }
+
+  /**
+   * The charset of the input, for a tokenizer reading bytes decoded by a <code>ByteStreamReader</code>.
+   */
+  Charset getCharset() {
+    return byteStreamReader().getCharset();
+  }
+
+  private ByteStreamReader byteStreamReader() {
+    if (!(reader instanceof ByteStreamReader)) {
+      throw new IllegalStateException("the tokenizer does not read from a byte stream");
+    }
+    return (ByteStreamReader) reader;
+  }
+
+  public void close() throws IOException {
+    reader.close();
+  }
+
+  private int skipEmptyLines() throws IOException {
+    int c;
+    while ((c = read()) == '\n' || c == '\r') {
+      endLine(c);
+    }
+    return c;
+  }
+
+  private void endLine(int c) throws IOException {
+    if (c == END_OF_FILE) {
+      lineNumber++;
+      return;
+    }
+    if (c == '\r') {
+      int next = read();
+      if (next != '\n') pushedBack = next;
+    }
+    lineNumber++;
+  }
+
+  private int read() throws IOException {
+    if (pushedBack != NONE) {
+      int c = pushedBack;
+      pushedBack = NONE;
+      return c;
+    }
+    if (position == limit) {
+      limit = reader.read(buffer, 0, buffer.length);
+      position = 0;
+      if (limit <= 0) {
+        limit = 0;
+        return END_OF_FILE;
+      }
+    }
+    rowSize++;
+    return buffer[position++];
+  }
+
+  private static void appendSpaces(CsvRow row, int spaces) {
+    for (int i = 0; i < spaces; i++) {
+      row.append(' ');
+    }
+  }
+}
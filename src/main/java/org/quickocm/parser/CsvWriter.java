@@ -0,0 +1,300 @@
+package org.quickocm.parser;
+
+import org.quickocm.binding.Accessors;
+import org.quickocm.model.Field;
+import org.quickocm.model.ModelClass;
+import org.quickocm.processor.DateParser;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalAccessor;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Writes objects of a model class as csv that <code>CsvParser</code> reads back into equal objects: a header row of
+ * the names of the import fields, then a row per object with the value of each import field, read through the
+ * nested properties of the field, in the format its type is parsed in.
+ * <p/>
+ * Each row is built in a reusable character buffer and encoded into a reusable byte buffer, which is written out
+ * whenever it is full, so no string is created per cell for numbers and the output is written in large blocks.
+ * Cells holding the delimiter, quotes, line breaks or surrounding spaces are quoted. Null values are written as
+ * empty cells.
+ * <p/>
+ * A writer is not thread-safe. The header row is written with the first row, or on closing when no row was written.
+ *
+ * <pre>
+ * try (CsvWriter&lt;Product&gt; csvWriter = new CsvWriter&lt;Product&gt;(Product.class, outputStream)) {
+ *   csvWriter.writeAll(products);
+ * }
+ * </pre>
+ */
+public class CsvWriter<I> implements Closeable, Flushable {
+
+  public static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+
+  private final WritableByteChannel channel;
+  private final Column[] columns;
+  private final String[] headers;
+  private final char delimiter;
+  private final char quote;
+  private final String endOfLine;
+  private final CharsetEncoder encoder;
+  private final ByteBuffer bytes;
+
+  private final StringBuilder row = new StringBuilder(256);
+  private char[] chars = new char[256];
+  private CharBuffer charBuffer = CharBuffer.wrap(chars);
+  private boolean headerWritten;
+  private boolean closed;
+  private long rowCount;
+
+  public CsvWriter(Class<I> clazz, OutputStream outputStream) {
+    this(MetadataCache.getModelClass(clazz), Channels.newChannel(outputStream), Charset.defaultCharset(),
+      DEFAULT_BUFFER_SIZE);
+  }
+
+  public CsvWriter(Class<I> clazz, WritableByteChannel channel) {
+    this(MetadataCache.getModelClass(clazz), channel, Charset.defaultCharset(), DEFAULT_BUFFER_SIZE);
+  }
+
+  /**
+   * @param modelClass the model class of the objects, whose projection, if any, restricts the columns written
+   * @param channel    the channel the csv is written to, closed with the writer
+   * @param charset    the charset of the csv
+   * @param bufferSize the size of the byte buffer the csv is written through
+   */
+  public CsvWriter(ModelClass modelClass, WritableByteChannel channel, Charset charset, int bufferSize) {
+    if (bufferSize < 16) throw new IllegalArgumentException("bufferSize should be at least 16");
+
+    this.channel = channel;
+    this.delimiter = (char) CsvBeanReader.DEFAULT_PREFERENCE.getDelimiterChar();
+    this.quote = (char) CsvBeanReader.DEFAULT_PREFERENCE.getQuoteChar();
+    this.endOfLine = CsvBeanReader.DEFAULT_PREFERENCE.getEndOfLineSymbols();
+    this.encoder = charset.newEncoder()
+      .onMalformedInput(CodingErrorAction.REPLACE)
+      .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    this.bytes = ByteBuffer.allocate(bufferSize);
+
+    List<Field> fields = modelClass.getImportFields();
+    this.columns = new Column[fields.size()];
+    this.headers = new String[fields.size()];
+    for (int i = 0; i < columns.length; i++) {
+      columns[i] = new Column(modelClass.getClazz(), fields.get(i));
+      headers[i] = fields.get(i).getName();
+    }
+  }
+
+  public void write(I bean) throws IOException {
+    if (closed) throw new IOException("the csv writer is closed");
+    if (!headerWritten) writeHeader();
+
+    row.setLength(0);
+    for (int i = 0; i < columns.length; i++) {
+      if (i > 0) row.append(delimiter);
+      int start = row.length();
+      columns[i].append(bean, row);
+      if (needsQuotes(start)) quote(start);
+    }
+    row.append(endOfLine);
+    encode();
+    rowCount++;
+  }
+
+  public void writeAll(Iterable<? extends I> beans) throws IOException {
+    for (I bean : beans) write(bean);
+  }
+
+  /**
+   * Writes the objects of a stream in its encounter order, consuming it on the calling thread.
+   */
+  public void writeAll(Stream<? extends I> beans) throws IOException {
+    try {
+      beans.forEachOrdered(bean -> {
+        try {
+          write(bean);
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      });
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+  }
+
+  /**
+   * The number of rows written, not counting the header.
+   */
+  public long getRowCount() {
+    return rowCount;
+  }
+
+  /**
+   * Writes out the rows held in the buffer.
+   */
+  @Override
+  public void flush() throws IOException {
+    drain();
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (closed) return;
+    try {
+      if (!headerWritten) writeHeader();
+      charBuffer.clear().limit(0);
+      encode(true);
+      while (encoder.flush(bytes).isOverflow()) drain();
+      drain();
+    } finally {
+      closed = true;
+      channel.close();
+    }
+  }
+
+  private void writeHeader() throws IOException {
+    headerWritten = true;
+    row.setLength(0);
+    for (int i = 0; i < headers.length; i++) {
+      if (i > 0) row.append(delimiter);
+      int start = row.length();
+      row.append(headers[i]);
+      if (needsQuotes(start)) quote(start);
+    }
+    row.append(endOfLine);
+    encode();
+  }
+
+  private boolean needsQuotes(int start) {
+    int end = row.length();
+    if (start == end) return false;
+    if (row.charAt(start) == ' ' || row.charAt(end - 1) == ' ') return true;
+    for (int i = start; i < end; i++) {
+      char c = row.charAt(i);
+      if (c == delimiter || c == quote || c == '\n' || c == '\r') return true;
+    }
+    return false;
+  }
+
+  /**
+   * Quotes the cell starting at the given index in place, doubling its quotes, by moving its characters towards the
+   * end of the row from the last one on.
+   */
+  private void quote(int start) {
+    int end = row.length();
+    int quotes = 0;
+    for (int i = start; i < end; i++) {
+      if (row.charAt(i) == quote) quotes++;
+    }
+
+    int to = end + quotes + 2;
+    row.setLength(to);
+    row.setCharAt(--to, quote);
+    for (int i = end - 1; i >= start; i--) {
+      char c = row.charAt(i);
+      row.setCharAt(--to, c);
+      if (c == quote) row.setCharAt(--to, quote);
+    }
+    row.setCharAt(start, quote);
+  }
+
+  private void encode() throws IOException {
+    int length = row.length();
+    if (length > chars.length) {
+      chars = new char[Math.max(length, chars.length * 2)];
+      charBuffer = CharBuffer.wrap(chars);
+    }
+    row.getChars(0, length, chars, 0);
+    charBuffer.clear().limit(length);
+    encode(false);
+  }
+
+  private void encode(boolean endOfInput) throws IOException {
+    while (true) {
+      CoderResult result = encoder.encode(charBuffer, bytes, endOfInput);
+      if (result.isUnderflow()) return;
+      if (result.isOverflow()) drain();
+      else result.throwException();
+    }
+  }
+
+  private void drain() throws IOException {
+    bytes.flip();
+    while (bytes.hasRemaining()) channel.write(bytes);
+    bytes.clear();
+  }
+
+  /**
+   * Reads the value of an import field from an object and appends it in the format of its type.
+   */
+  private static class Column {
+    private final List<Function<Object, Object>> path;
+    private final String type;
+    private final DateParser dateParser;
+    private final DateTimeFormatter temporalFormatter;
+
+    private Column(Class clazz, Field field) {
+      String mapping = field.getFieldNameMapping();
+      String[] properties = mapping.split("\\.");
+      path = new ArrayList<Function<Object, Object>>(properties.length);
+      Class type = clazz;
+      for (int i = 0; i < properties.length; i++) {
+        path.add(Accessors.getter(type, properties[i]));
+        if (i < properties.length - 1) type = Accessors.propertyType(type, properties[i]);
+      }
+
+      this.type = field.getType();
+      this.dateParser = this.type.equals("Date")
+        ? DateParser.forPattern(field.getFormat().isEmpty() ? DateParser.DEFAULT_PATTERN : field.getFormat())
+        : null;
+      this.temporalFormatter = this.type.equals("LocalDate") && !field.getFormat().isEmpty()
+        ? DateTimeFormatter.ofPattern(field.getFormat())
+        : null;
+    }
+
+    private void append(Object bean, StringBuilder out) {
+      Object value = bean;
+      for (Function<Object, Object> getter : path) {
+        value = getter.apply(value);
+        if (value == null) return;
+      }
+
+      if (value instanceof Integer) {
+        out.append(((Integer) value).intValue());
+      } else if (value instanceof Long) {
+        out.append(((Long) value).longValue());
+      } else if (value instanceof Double) {
+        out.append(((Double) value).doubleValue());
+      } else if (value instanceof Boolean) {
+        out.append(((Boolean) value).booleanValue());
+      } else if (value instanceof BigDecimal) {
+        out.append(((BigDecimal) value).toPlainString());
+      } else if (value instanceof Date && dateParser != null) {
+        dateParser.format((Date) value, out);
+      } else if (value instanceof LocalDate && temporalFormatter != null) {
+        temporalFormatter.formatTo((TemporalAccessor) value, out);
+      } else if (value instanceof Enum) {
+        out.append(((Enum) value).name());
+      } else {
+        out.append(value);
+      }
+    }
+  }
+}
@@ -0,0 +1,135 @@
+package org.quickocm.parser;
+
+import org.quickocm.binding.Accessors;
+import org.quickocm.binding.BeanBinder;
+import org.quickocm.binding.BeanResetter;
+import org.quickocm.binding.BindingMode;
+import org.quickocm.binding.CompiledBeanBinder;
+import org.quickocm.binding.DozerBeanBinder;
+import org.quickocm.model.Field;
+import org.quickocm.processor.CharCellProcessor;
+import org.quickocm.processor.TypeRegistry;
+import org.supercsv.cellprocessor.ift.CellProcessor;
+
+import java.util.function.Supplier;
+
+/**
+ * Holds everything a <code>CsvBeanReader</code> derives from a model class and the headers of a csv file:
+ * the import field of each column, the field name mappings, the cell and char processors, the writers of primitive
+ * columns, the bean binders and the bean resetter.
+ * Instances are shared between readers through the <code>MetadataCache</code> and must not be modified.
+ */
+class HeaderMapping<I> {
+
+  private final Class<I> clazz;
+  private final Field[] columnFields;
+  private final String[] fieldNameMappings;
+  private final CellProcessor[] processors;
+  private final CharCellProcessor[] charProcessors;
+  private final PrimitiveColumn[] primitiveColumns;
+  private final boolean[] unmappedColumns;
+  private final boolean[] copiedByReference;
+  private final BeanBinder<I> dozerBeanBinder;
+  private volatile Supplier<Object> constructor;
+  private volatile BeanBinder<I> compiledBeanBinder;
+  private volatile BeanResetter<I> beanResetter;
+
+  /**
+   * @param copiedByReference whether the converted value of each column is bound as it is, see
+   *                          {@link TypeRegistry#isRegistered(String)}
+   */
+  HeaderMapping(Class<I> clazz, Field[] columnFields, String[] fieldNameMappings, CellProcessor[] processors,
+                CharCellProcessor[] charProcessors, boolean[] copiedByReference) {
+    this.clazz = clazz;
+    this.columnFields = columnFields;
+    this.fieldNameMappings = fieldNameMappings;
+    this.processors = processors;
+    this.charProcessors = charProcessors;
+    this.primitiveColumns = compilePrimitiveColumns(clazz, columnFields, charProcessors);
+    this.unmappedColumns = findUnmappedColumns(columnFields);
+    this.copiedByReference = copiedByReference;
+    this.dozerBeanBinder = new DozerBeanBinder<I>(clazz, fieldNameMappings, copiedByReference);
+  }
+
+  Field[] getColumnFields() {
+    return columnFields;
+  }
+
+  String[] getFieldNameMappings() {
+    return fieldNameMappings;
+  }
+
+  CellProcessor[] getProcessors() {
+    return processors;
+  }
+
+  CharCellProcessor[] getCharProcessors() {
+    return charProcessors;
+  }
+
+  /**
+   * The writers of the columns bound to primitive fields without boxing, null when there are none.
+   */
+  PrimitiveColumn[] getPrimitiveColumns() {
+    return primitiveColumns;
+  }
+
+  /**
+   * Whether each column is left out for not being mapped to an import field, null when all columns are mapped.
+   */
+  boolean[] getUnmappedColumns() {
+    return unmappedColumns;
+  }
+
+  /**
+   * Whether the converted value of a column is bound as it is, for a type converted by a type registry.
+   */
+  boolean isCopiedByReference(int column) {
+    return copiedByReference[column];
+  }
+
+  /**
+   * Creates an object of the model class for the primitive columns to be written to before binding the others, or
+   * to be reused from row to row.
+   */
+  I newInstance() {
+    if (constructor == null) constructor = Accessors.constructor(clazz);
+    return clazz.cast(constructor.get());
+  }
+
+  /**
+   * Resets the properties of an object of the model class bound from the columns, for the object to be reused.
+   */
+  BeanResetter<I> getBeanResetter() {
+    if (beanResetter == null) beanResetter = new BeanResetter<I>(clazz, fieldNameMappings);
+    return beanResetter;
+  }
+
+  BeanBinder<I> getBeanBinder(BindingMode bindingMode) {
+    if (bindingMode == BindingMode.DOZER) return dozerBeanBinder;
+
+    if (compiledBeanBinder == null) compiledBeanBinder = new CompiledBeanBinder<I>(clazz, fieldNameMappings);
+    return compiledBeanBinder;
+  }
+
+  private static boolean[] findUnmappedColumns(Field[] columnFields) {
+    boolean[] unmappedColumns = new boolean[columnFields.length];
+    boolean found = false;
+    for (int i = 0; i < columnFields.length; i++) {
+      unmappedColumns[i] = columnFields[i] == null;
+      found |= unmappedColumns[i];
+    }
+    return found ? unmappedColumns : null;
+  }
+
+  private static PrimitiveColumn[] compilePrimitiveColumns(Class clazz, Field[] columnFields,
+                                                           CharCellProcessor[] charProcessors) {
+    PrimitiveColumn[] primitiveColumns = new PrimitiveColumn[columnFields.length];
+    boolean found = false;
+    for (int i = 0; i < columnFields.length; i++) {
+      primitiveColumns[i] = PrimitiveColumn.compile(clazz, columnFields[i], charProcessors[i]);
+      found |= primitiveColumns[i] != null;
+    }
+    return found ? primitiveColumns : null;
+  }
+}
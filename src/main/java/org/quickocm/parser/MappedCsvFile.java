@@ -0,0 +1,202 @@
+package org.quickocm.parser;
+
+import org.supercsv.prefs.CsvPreference;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static java.nio.channels.FileChannel.MapMode.READ_ONLY;
+
+/**
+ * A csv file read through memory mapped regions and split into chunks of whole rows, so that the chunks can be
+ * tokenized independently of each other.
+ * <p/>
+ * Splitting takes one pass over the bytes of the file that follows the quotes to find the line terminators ending
+ * a row. Chunk boundaries are placed after them, and the lines and rows before each chunk are counted so that the
+ * tokenizer of a chunk numbers its rows like a tokenizer of the whole file would. This relies on the quote, carriage
+ * return and line feed bytes only ever standing for those characters, which holds for UTF-8 and the other ASCII
+ * compatible charsets, see {@link #isSplittable(Charset, CsvPreference)}.
+ */
+class MappedCsvFile {
+
+  static final long MAX_CHUNK_SIZE = 1 << 30;
+  static final long MIN_CHUNK_SIZE = 1 << 16;
+
+  private static final int SCAN_WINDOW = 1 << 26;
+
+  private final FileChannel channel;
+  private final Charset charset;
+  private final CsvPreference csvPreference;
+  private long headerStart;
+  private long headerEnd;
+  private final List<Chunk> chunks = new ArrayList<Chunk>();
+  private int rowCount;
+
+  private MappedCsvFile(FileChannel channel, Charset charset, CsvPreference csvPreference) {
+    this.channel = channel;
+    this.charset = charset;
+    this.csvPreference = csvPreference;
+  }
+
+  /**
+   * Whether the rows of a csv in the given charset can be told apart by its bytes.
+   */
+  static boolean isSplittable(Charset charset, CsvPreference csvPreference) {
+    if (!charset.canEncode()) return false;
+
+    String separators = new String(new char[]{(char) csvPreference.getQuoteChar(), '\r', '\n'});
+    try {
+      ByteBuffer encoded = charset.newEncoder().encode(CharBuffer.wrap(separators));
+      return encoded.remaining() == 3 && encoded.get(0) == csvPreference.getQuoteChar()
+        && encoded.get(1) == '\r' && encoded.get(2) == '\n';
+    } catch (CharacterCodingException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Splits a csv file in a splittable charset into chunks of about the given size, each holding at least one row.
+   * The header row is left out of the chunks, see {@link #openHeader()}.
+   */
+  static MappedCsvFile split(FileChannel channel, Charset charset, CsvPreference csvPreference, long chunkSize)
+    throws IOException {
+    MappedCsvFile csvFile = new MappedCsvFile(channel, charset, csvPreference);
+    csvFile.scan(Math.min(chunkSize, MAX_CHUNK_SIZE));
+    return csvFile;
+  }
+
+  /**
+   * A reader of the region of the file holding the header row, after the byte order mark of the charset if the file
+   * starts with one.
+   */
+  Reader openHeader() throws IOException {
+    return new ByteBufferReader(map(headerStart, headerEnd), charset);
+  }
+
+  /**
+   * A tokenizer of the rows of a chunk, numbering them after the rows of the chunks before.
+   */
+  CsvTokenizer openChunk(Chunk chunk) throws IOException {
+    return openChunk(chunk, map(chunk));
+  }
+
+  /**
+   * A tokenizer of the rows of a chunk mapped beforehand through {@link #map(Chunk)}, which stays readable after
+   * the channel of the file is closed.
+   */
+  CsvTokenizer openChunk(Chunk chunk, ByteBuffer region) {
+    CsvTokenizer tokenizer = new CsvTokenizer(new ByteBufferReader(region, charset), csvPreference);
+    tokenizer.startAt(chunk.linesBefore, chunk.rowsBefore);
+    return tokenizer;
+  }
+
+  MappedByteBuffer map(Chunk chunk) throws IOException {
+    return map(chunk.start, chunk.end);
+  }
+
+  List<Chunk> getChunks() {
+    return Collections.unmodifiableList(chunks);
+  }
+
+  /**
+   * The number of rows of the file, including the header.
+   */
+  int getRowCount() {
+    return rowCount;
+  }
+
+  private void scan(long chunkSize) throws IOException {
+    byte quote = (byte) csvPreference.getQuoteChar();
+    long size = channel.size();
+
+    boolean quoted = false;
+    boolean content = false;
+    boolean carriageReturn = false;
+    boolean rowStart = false;
+    int lines = 0;
+    long chunkStart = -1;
+    int chunkLines = 0;
+    int chunkRows = 0;
+
+    for (long windowStart = 0; windowStart < size; windowStart += SCAN_WINDOW) {
+      MappedByteBuffer window = map(windowStart, Math.min(size, windowStart + SCAN_WINDOW));
+      if (windowStart == 0) headerStart = byteOrderMarkLength(window);
+      for (int i = 0, limit = window.limit(); i < limit; i++) {
+        byte b = window.get(i);
+        if (b == '\n' && carriageReturn) {
+          carriageReturn = false;
+          continue;
+        }
+        carriageReturn = b == '\r';
+
+        if (rowStart) {
+          rowStart = false;
+          long offset = windowStart + i;
+          if (chunkStart < 0 || offset - chunkStart >= chunkSize) {
+            if (chunkStart < 0) headerEnd = offset;
+            else chunks.add(new Chunk(chunkStart, offset, chunkLines, chunkRows));
+            chunkStart = offset;
+            chunkLines = lines;
+            chunkRows = rowCount;
+          }
+        }
+
+        if (b == quote) {
+          quoted = !quoted;
+          content = true;
+        } else if (b == '\n' || b == '\r') {
+          lines++;
+          if (!quoted && content) {
+            rowCount++;
+            content = false;
+            rowStart = true;
+          }
+        } else {
+          content = true;
+        }
+      }
+    }
+
+    if (content) rowCount++;
+    if (chunkStart < 0) {
+      headerEnd = size;
+    } else {
+      chunks.add(new Chunk(chunkStart, size, chunkLines, chunkRows));
+    }
+  }
+
+  private int byteOrderMarkLength(ByteBuffer start) {
+    ByteOrderMark byteOrderMark = ByteOrderMark.find(start);
+    return byteOrderMark != null && byteOrderMark.charset.equals(charset) ? byteOrderMark.length() : 0;
+  }
+
+  private MappedByteBuffer map(long start, long end) throws IOException {
+    return channel.map(READ_ONLY, start, end - start);
+  }
+
+  /**
+   * A region of whole rows of the file, with the number of lines and rows before it.
+   */
+  static class Chunk {
+    final long start;
+    final long end;
+    final int linesBefore;
+    final int rowsBefore;
+
+    Chunk(long start, long end, int linesBefore, int rowsBefore) {
+      this.start = start;
+      this.end = end;
+      this.linesBefore = linesBefore;
+      this.rowsBefore = rowsBefore;
+    }
+  }
+}
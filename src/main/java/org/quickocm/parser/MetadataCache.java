@@ -0,0 +1,131 @@
+package org.quickocm.parser;
+
+import org.quickocm.model.Field;
+import org.quickocm.model.ModelClass;
+import org.quickocm.processor.CharCellProcessor;
+import org.quickocm.processor.CsvCellProcessors;
+import org.quickocm.processor.TypeRegistry;
+import org.supercsv.cellprocessor.ift.CellProcessor;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.util.Arrays.asList;
+
+/**
+ * Caches the reflected metadata of model classes and the header mappings built from them, so that repeated
+ * uploads of the same type do not scan annotations and configure bean binders over and over again.
+ * <p/>
+ * The metadata of a class is attached to the class itself through a <code>ClassValue</code>, so nothing outside the
+ * class refers to it and the class, and its class loader, can be unloaded as soon as the application no longer uses
+ * them. For every class only the most recently used header signatures are kept.
+ * <p/>
+ * Header mappings are cached per type registry, projection and processors mapped in
+ * <code>CsvCellProcessors.typeMappings</code>, so changing those mappings takes effect on the next csv read.
+ */
+public class MetadataCache {
+
+  static final int MAX_HEADER_MAPPINGS_PER_CLASS = 32;
+
+  private static final ClassValue<ClassMetadata> cache = new ClassValue<ClassMetadata>() {
+    @Override
+    protected ClassMetadata computeValue(Class<?> clazz) {
+      return new ClassMetadata(new ModelClass(clazz), generation);
+    }
+  };
+  private static volatile int generation;
+
+  /**
+   * Gives a model class for the given class, reusing the annotation scan of earlier calls.
+   * Each call returns a new instance, so changing its settings does not affect other callers.
+   *
+   * @param clazz the class of which each row is to be made object of
+   * @return the model class for the given class
+   */
+  public static ModelClass getModelClass(Class clazz) {
+    return new ModelClass(getClassMetadata(clazz).modelClass);
+  }
+
+  /**
+   * Discards all cached metadata, which is built again the next time each class is used.
+   */
+  public static synchronized void clear() {
+    generation++;
+  }
+
+  static HeaderMapping<?> getHeaderMapping(ModelClass modelClass, String[] headers) {
+    return getHeaderMapping(modelClass, headers, TypeRegistry.getDefault());
+  }
+
+  static HeaderMapping<?> getHeaderMapping(ModelClass modelClass, String[] headers, TypeRegistry typeRegistry) {
+    ClassMetadata classMetadata = getClassMetadata(modelClass.getClazz());
+    List<Object> signature = new ArrayList<Object>(headers.length + 3);
+    signature.add(typeRegistry);
+    signature.add(modelClass.getProjection());
+    signature.add(CsvCellProcessors.getTypeMappingsSnapshot());
+    signature.addAll(asList(headers));
+
+    HeaderMapping<?> headerMapping = classMetadata.get(signature);
+    if (headerMapping == null) {
+      ModelClass projectedModelClass = new ModelClass(classMetadata.modelClass);
+      projectedModelClass.setProjection(modelClass.getProjection());
+      headerMapping = createHeaderMapping(projectedModelClass, headers, typeRegistry);
+      classMetadata.put(signature, headerMapping);
+    }
+    return headerMapping;
+  }
+
+  private static ClassMetadata getClassMetadata(Class clazz) {
+    ClassMetadata classMetadata = cache.get(clazz);
+    if (classMetadata.generation == generation) return classMetadata;
+
+    cache.remove(clazz);
+    return cache.get(clazz);
+  }
+
+  private static HeaderMapping<?> createHeaderMapping(ModelClass modelClass, String[] headers,
+                                                   TypeRegistry typeRegistry) {
+    Field[] columnFields = modelClass.getColumnFields(headers);
+    String[] mappings = modelClass.getFieldNameMappings(headers);
+
+    List<CellProcessor> cellProcessors = typeRegistry.getProcessors(modelClass, asList(headers));
+    CellProcessor[] processors = cellProcessors.toArray(new CellProcessor[cellProcessors.size()]);
+
+    CharCellProcessor[] charProcessors = typeRegistry.getCharProcessors(modelClass, asList(headers));
+
+    boolean[] copiedByReference = new boolean[columnFields.length];
+    for (int i = 0; i < columnFields.length; i++) {
+      copiedByReference[i] = columnFields[i] != null && typeRegistry.isRegistered(columnFields[i].getType());
+    }
+
+    Class<?> clazz = modelClass.getClazz();
+    return new HeaderMapping<>(clazz, columnFields, mappings, processors, charProcessors, copiedByReference);
+  }
+
+  private static class ClassMetadata {
+    private final ModelClass modelClass;
+    private final int generation;
+    private final Map<List<Object>, HeaderMapping<?>> headerMappings =
+      new LinkedHashMap<List<Object>, HeaderMapping<?>>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<List<Object>, HeaderMapping<?>> eldest) {
+          return size() > MAX_HEADER_MAPPINGS_PER_CLASS;
+        }
+      };
+
+    private ClassMetadata(ModelClass modelClass, int generation) {
+      this.modelClass = modelClass;
+      this.generation = generation;
+    }
+
+    private synchronized HeaderMapping<?> get(List<Object> signature) {
+      return headerMappings.get(signature);
+    }
+
+    private synchronized void put(List<Object> signature, HeaderMapping<?> headerMapping) {
+      headerMappings.put(signature, headerMapping);
+    }
+  }
+}
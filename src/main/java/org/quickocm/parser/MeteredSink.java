@@ -0,0 +1,45 @@
+package org.quickocm.parser;
+
+/**
+ * Counts the time spent handing rows over to another sink, which is the time spent in the handler.
+ */
+class MeteredSink<I> implements RowSink<I> {
+
+  private final RowSink<I> rowSink;
+  private final ParseMetrics metrics;
+
+  MeteredSink(RowSink<I> rowSink, ParseMetrics metrics) {
+    this.rowSink = rowSink;
+    this.metrics = metrics;
+  }
+
+  @Override
+  public void start(CsvBeanReader<I> csvBeanReader) {
+    rowSink.start(csvBeanReader);
+  }
+
+  @Override
+  public void accept(I imported, CsvRow row) {
+    long start = System.nanoTime();
+    try {
+      rowSink.accept(imported, row);
+    } finally {
+      metrics.handled(System.nanoTime() - start);
+    }
+  }
+
+  @Override
+  public void finish() {
+    long start = System.nanoTime();
+    try {
+      rowSink.finish();
+    } finally {
+      metrics.handled(System.nanoTime() - start);
+    }
+  }
+
+  @Override
+  public void abort() {
+    rowSink.abort();
+  }
+}
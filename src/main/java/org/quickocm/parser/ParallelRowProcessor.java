@@ -0,0 +1,205 @@
+package org.quickocm.parser;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads the rows of a csv on the calling thread and converts them on a pool of worker threads.
+ * <p/>
+ * With ordered delivery rows are handed to the sink on the calling thread in the order of the rows, while up to
+ * <code>queueCapacity</code> rows are being converted ahead. With unordered delivery the workers hand rows to the
+ * sink themselves as soon as a row is converted, so the sink must be thread-safe.
+ * <p/>
+ * In both cases reading blocks once <code>queueCapacity</code> rows are waiting, and the failure of the lowest row
+ * number is rethrown once the rows before it have been handled. Errors thrown by the handler are rethrown as well,
+ * and reading stops as soon as no worker is left to take the rows.
+ */
+class ParallelRowProcessor<I> {
+
+  private static final CsvRow END_OF_ROWS = new CsvRow();
+  private static final long OFFER_TIMEOUT_MILLIS = 100;
+
+  private final CsvBeanReader<I> csvBeanReader;
+  private final RowConverter<I> rowConverter;
+  private final RowSink<I> rowSink;
+  private final int workerThreads;
+  private final int queueCapacity;
+
+  private Throwable failure;
+  private int failedRowNumber = Integer.MAX_VALUE;
+
+  ParallelRowProcessor(CsvBeanReader<I> csvBeanReader, RowConverter<I> rowConverter, RowSink<I> rowSink,
+                       int workerThreads, int queueCapacity) {
+    this.csvBeanReader = csvBeanReader;
+    this.rowConverter = rowConverter;
+    this.rowSink = rowSink;
+    this.workerThreads = workerThreads;
+    this.queueCapacity = queueCapacity;
+  }
+
+  void process(boolean ordered) throws IOException {
+    ExecutorService executor = Executors.newFixedThreadPool(workerThreads, new WorkerThreadFactory());
+    try {
+      if (ordered) processOrdered(executor);
+      else processUnordered(executor);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("csv processing interrupted");
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private void processOrdered(ExecutorService executor) throws IOException, InterruptedException {
+    Deque<Future<I>> pending = new ArrayDeque<Future<I>>();
+    Deque<CsvRow> pendingRows = new ArrayDeque<CsvRow>();
+
+    try {
+      CsvRow row;
+      while ((row = csvBeanReader.readRow()) != null) {
+        if (pending.size() == queueCapacity) deliver(pending.poll(), pendingRows.poll());
+
+        pending.add(executor.submit(new ConvertTask(row)));
+        pendingRows.add(row);
+      }
+    } catch (RuntimeException readFailure) {
+      while (!pending.isEmpty()) deliver(pending.poll(), pendingRows.poll());
+      throw readFailure;
+    }
+
+    while (!pending.isEmpty()) deliver(pending.poll(), pendingRows.poll());
+  }
+
+  private void deliver(Future<I> converted, CsvRow row) throws InterruptedException {
+    try {
+      I imported = converted.get();
+      if (imported != null) rowSink.accept(imported, row);
+    } catch (ExecutionException e) {
+      throw propagate(e.getCause());
+    }
+  }
+
+  private void processUnordered(ExecutorService executor) throws IOException, InterruptedException {
+    BlockingQueue<CsvRow> queue = new ArrayBlockingQueue<CsvRow>(queueCapacity);
+    List<Future<?>> workers = new ArrayList<Future<?>>();
+    for (int i = 0; i < workerThreads; i++) {
+      workers.add(executor.submit(new Worker(queue)));
+    }
+
+    RuntimeException readFailure = null;
+    try {
+      CsvRow row;
+      while (!hasFailed() && (row = csvBeanReader.readRow()) != null) {
+        if (!offer(queue, row, workers)) break;
+      }
+    } catch (RuntimeException e) {
+      readFailure = e;
+    } finally {
+      for (int i = 0; i < workerThreads; i++) {
+        if (!offer(queue, END_OF_ROWS, workers)) break;
+      }
+      for (Future<?> worker : workers) awaitWorker(worker);
+    }
+
+    if (failure != null) throw propagate(failure);
+    if (readFailure != null) throw readFailure;
+  }
+
+  /**
+   * Queues a row for the workers, giving up once none of them is left to take it.
+   */
+  private boolean offer(BlockingQueue<CsvRow> queue, CsvRow row, List<Future<?>> workers)
+    throws InterruptedException {
+    while (!queue.offer(row, OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+      if (allDone(workers)) return false;
+    }
+    return true;
+  }
+
+  private static boolean allDone(List<Future<?>> workers) {
+    for (Future<?> worker : workers) {
+      if (!worker.isDone()) return false;
+    }
+    return true;
+  }
+
+  private void awaitWorker(Future<?> worker) throws InterruptedException {
+    try {
+      worker.get();
+    } catch (ExecutionException e) {
+      throw propagate(e.getCause());
+    }
+  }
+
+  private synchronized boolean hasFailed() {
+    return failure != null;
+  }
+
+  private synchronized boolean shouldSkip(CsvRow row) {
+    return row.getRowNumber() > failedRowNumber;
+  }
+
+  private synchronized void fail(CsvRow row, Throwable exception) {
+    if (row.getRowNumber() < failedRowNumber) {
+      failedRowNumber = row.getRowNumber();
+      failure = exception;
+    }
+  }
+
+  private static RuntimeException propagate(Throwable throwable) {
+    if (throwable instanceof RuntimeException) return (RuntimeException) throwable;
+    if (throwable instanceof Error) throw (Error) throwable;
+    return new IllegalStateException(throwable);
+  }
+
+  private class ConvertTask implements Callable<I> {
+    private final CsvRow row;
+
+    private ConvertTask(CsvRow row) {
+      this.row = row;
+    }
+
+    @Override
+    public I call() {
+      return rowConverter.convert(row);
+    }
+  }
+
+  private class Worker implements Runnable {
+    private final BlockingQueue<CsvRow> queue;
+
+    private Worker(BlockingQueue<CsvRow> queue) {
+      this.queue = queue;
+    }
+
+    @Override
+    public void run() {
+      try {
+        CsvRow row;
+        while ((row = queue.take()) != END_OF_ROWS) {
+          if (shouldSkip(row)) continue;
+          try {
+            I imported = rowConverter.convert(row);
+            if (imported != null) rowSink.accept(imported, row);
+          } catch (Throwable e) {
+            fail(row, e);
+          }
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+}
@@ -0,0 +1,162 @@
+package org.quickocm.parser;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of where the time of parsing goes, filled in by a <code>CsvParser</code> the metrics are set on and read
+ * at any time, e.g. to be exported to a metrics system. One instance may be shared by parsers and runs, whose
+ * counts add up, and may be read while rows are being processed.
+ * <p/>
+ * Stage times are the time spent in each stage summed over all threads, so with worker threads they may add up to
+ * more than the elapsed time:
+ * <ul>
+ * <li>tokenizing: splitting the csv into rows and cells</li>
+ * <li>converting: running the cells through their cell processors, including the primitive fields written directly</li>
+ * <li>binding: populating the objects through the binding engine</li>
+ * <li>handling: the time spent in the <code>RecordHandler</code> or <code>BatchRecordHandler</code></li>
+ * </ul>
+ * Counting costs two <code>System.nanoTime()</code> calls per stage and row; parsers without metrics only check
+ * that they have none.
+ */
+public final class ParseMetrics {
+
+  private final LongAdder rows = new LongAdder();
+  private final LongAdder bytes = new LongAdder();
+  private final LongAdder elapsedNanos = new LongAdder();
+  private final LongAdder tokenizeNanos = new LongAdder();
+  private final LongAdder convertNanos = new LongAdder();
+  private final LongAdder bindNanos = new LongAdder();
+  private final LongAdder handlerNanos = new LongAdder();
+  private final LongAdder failedRows = new LongAdder();
+  private final ConcurrentMap<String, LongAdder> columnFailures = new ConcurrentHashMap<String, LongAdder>();
+
+  /**
+   * The number of rows read, not counting headers.
+   */
+  public long getRows() {
+    return rows.sum();
+  }
+
+  /**
+   * The number of bytes of csv read by the runs that completed or failed, once decompressed.
+   */
+  public long getBytes() {
+    return bytes.sum();
+  }
+
+  /**
+   * The time the runs of the <code>process</code>, <code>processInBatches</code> and <code>validate</code> methods
+   * took, from opening the csv to handing over the last row.
+   */
+  public long getElapsedNanos() {
+    return elapsedNanos.sum();
+  }
+
+  /**
+   * The rows read per second of the runs, 0 before any run has ended.
+   */
+  public double getRowsPerSecond() {
+    long elapsed = getElapsedNanos();
+    return elapsed == 0 ? 0 : getRows() * (double) TimeUnit.SECONDS.toNanos(1) / elapsed;
+  }
+
+  public long getTokenizeNanos() {
+    return tokenizeNanos.sum();
+  }
+
+  public long getConvertNanos() {
+    return convertNanos.sum();
+  }
+
+  public long getBindNanos() {
+    return bindNanos.sum();
+  }
+
+  public long getHandlerNanos() {
+    return handlerNanos.sum();
+  }
+
+  /**
+   * The number of rows that failed conversion, whether they stopped processing or were collected.
+   */
+  public long getFailedRows() {
+    return failedRows.sum();
+  }
+
+  /**
+   * The number of cells that failed conversion by the header of their column, which does not include the rows that
+   * failed for having more or fewer columns than headers.
+   */
+  public Map<String, Long> getColumnFailures() {
+    Map<String, Long> failures = new TreeMap<String, Long>();
+    for (Map.Entry<String, LongAdder> entry : columnFailures.entrySet()) {
+      failures.put(entry.getKey(), entry.getValue().sum());
+    }
+    return Collections.unmodifiableMap(failures);
+  }
+
+  public void reset() {
+    rows.reset();
+    bytes.reset();
+    elapsedNanos.reset();
+    tokenizeNanos.reset();
+    convertNanos.reset();
+    bindNanos.reset();
+    handlerNanos.reset();
+    failedRows.reset();
+    columnFailures.clear();
+  }
+
+  @Override
+  public String toString() {
+    return "ParseMetrics{rows=" + getRows() + ", bytes=" + getBytes() + ", rowsPerSecond=" + (long) getRowsPerSecond()
+      + ", tokenizeMillis=" + millis(getTokenizeNanos()) + ", convertMillis=" + millis(getConvertNanos())
+      + ", bindMillis=" + millis(getBindNanos()) + ", handlerMillis=" + millis(getHandlerNanos())
+      + ", failedRows=" + getFailedRows() + ", columnFailures=" + getColumnFailures() + "}";
+  }
+
+  void tokenized(boolean read, long nanos) {
+    if (read) rows.increment();
+    tokenizeNanos.add(nanos);
+  }
+
+  void converted(long nanos) {
+    convertNanos.add(nanos);
+  }
+
+  void bound(long nanos) {
+    bindNanos.add(nanos);
+  }
+
+  void handled(long nanos) {
+    handlerNanos.add(nanos);
+  }
+
+  void failed(String header) {
+    failedRows.increment();
+    if (header == null) return;
+
+    LongAdder failures = columnFailures.get(header);
+    if (failures == null) {
+      LongAdder created = new LongAdder();
+      failures = columnFailures.putIfAbsent(header, created);
+      if (failures == null) failures = created;
+    }
+    failures.increment();
+  }
+
+  void ran(long bytesRead, long nanos) {
+    bytes.add(bytesRead);
+    elapsedNanos.add(nanos);
+  }
+
+  private static long millis(long nanos) {
+    return TimeUnit.NANOSECONDS.toMillis(nanos);
+  }
+}
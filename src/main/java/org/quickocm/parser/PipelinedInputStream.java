@@ -0,0 +1,142 @@
+package org.quickocm.parser;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Reads a source stream ahead on a thread of its own, so that the work of the source, like decompressing, overlaps
+ * with the work of the reader of this stream.
+ * <p/>
+ * The source is read in blocks, of which up to {@link #BLOCKS_AHEAD} wait for the reader; the blocks are recycled,
+ * so reading allocates nothing after the start. A failure of the source, whatever it throws, is thrown by the read
+ * that reaches it as an <code>IOException</code>. The source is closed by the reading thread once it ends, fails or
+ * this stream is closed.
+ */
+class PipelinedInputStream extends InputStream {
+
+  static final int BLOCK_SIZE = 1 << 16;
+  static final int BLOCKS_AHEAD = 4;
+
+  private static final Block END = new Block(0);
+
+  private final InputStream source;
+  private final BlockingQueue<Block> filled = new ArrayBlockingQueue<Block>(BLOCKS_AHEAD + 1);
+  private final BlockingQueue<Block> free = new ArrayBlockingQueue<Block>(BLOCKS_AHEAD + 1);
+  private final Thread readingThread;
+
+  private volatile IOException failure;
+  private volatile boolean closed;
+  private Block block;
+  private int position;
+  private boolean ended;
+
+  PipelinedInputStream(InputStream source) {
+    this.source = source;
+    for (int i = 0; i < BLOCKS_AHEAD + 1; i++) free.add(new Block(BLOCK_SIZE));
+
+    readingThread = new WorkerThreadFactory().newThread(new Runnable() {
+      @Override
+      public void run() {
+        readAhead();
+      }
+    });
+    readingThread.start();
+  }
+
+  @Override
+  public int read() throws IOException {
+    if (!nextBlock()) return -1;
+    return block.bytes[position++] & 0xff;
+  }
+
+  @Override
+  public int read(byte[] bytes, int offset, int length) throws IOException {
+    if (length == 0) return 0;
+    if (!nextBlock()) return -1;
+
+    int read = Math.min(length, block.length - position);
+    System.arraycopy(block.bytes, position, bytes, offset, read);
+    position += read;
+    return read;
+  }
+
+  @Override
+  public int available() {
+    return block == null ? 0 : block.length - position;
+  }
+
+  @Override
+  public void close() {
+    if (closed) return;
+    closed = true;
+    readingThread.interrupt();
+  }
+
+  /**
+   * Makes sure the current block has bytes left, waiting for the next one when needed.
+   *
+   * @return false at the end of the source
+   */
+  private boolean nextBlock() throws IOException {
+    while (block == null || position >= block.length) {
+      if (ended) return false;
+      if (closed) throw new IOException("stream closed");
+
+      if (block != null) free.add(block);
+      block = takeFilledBlock();
+      position = 0;
+
+      if (block.length < 0) {
+        ended = true;
+        block = null;
+        if (failure != null) throw failure;
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private Block takeFilledBlock() throws InterruptedIOException {
+    try {
+      return filled.take();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("interrupted while waiting for input");
+    }
+  }
+
+  private void readAhead() {
+    boolean reachedEnd = false;
+    try {
+      while (!closed && !reachedEnd) {
+        Block next = free.take();
+        next.length = source.read(next.bytes, 0, next.bytes.length);
+        filled.put(next);
+        reachedEnd = next.length < 0;
+      }
+    } catch (IOException e) {
+      failure = e;
+    } catch (InterruptedException ignored) {
+    } catch (Throwable e) {
+      failure = new IOException("the input could not be read", e);
+    } finally {
+      if (!reachedEnd) filled.offer(END);
+      try {
+        source.close();
+      } catch (IOException ignored) {
+      }
+    }
+  }
+
+  private static class Block {
+    private final byte[] bytes;
+    private int length = -1;
+
+    private Block(int size) {
+      bytes = new byte[size];
+    }
+  }
+}
@@ -0,0 +1,116 @@
+package org.quickocm.parser;
+
+import org.quickocm.binding.Accessors;
+import org.quickocm.binding.ObjBooleanConsumer;
+import org.quickocm.model.Field;
+import org.quickocm.processor.CharCellProcessor;
+import org.supercsv.util.CsvContext;
+
+import java.util.function.ObjDoubleConsumer;
+import java.util.function.ObjIntConsumer;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * Writes a column of a primitive type straight from the characters of a row to the primitive field of an object,
+ * without boxing the value in between. Empty optional cells leave the field untouched, like null values do when
+ * binding the columns, and empty mandatory or unparsable cells fail the same way as their cell processors.
+ */
+abstract class PrimitiveColumn {
+
+  /**
+   * Creates the writer of a column, or returns null when the column is not a primitive field of the model class
+   * itself that has a char processor of its type.
+   */
+  static PrimitiveColumn compile(Class clazz, Field field, CharCellProcessor charProcessor) {
+    if (field == null || charProcessor == null || !field.getNested().isEmpty()) return null;
+
+    String property = field.getField().getName();
+    Class type = field.getField().getType();
+    if (type == int.class && charProcessor instanceof CharCellProcessor.IntProcessor) {
+      return new IntColumn((CharCellProcessor.IntProcessor) charProcessor, Accessors.intSetter(clazz, property));
+    }
+    if (type == long.class && charProcessor instanceof CharCellProcessor.LongProcessor) {
+      return new LongColumn((CharCellProcessor.LongProcessor) charProcessor, Accessors.longSetter(clazz, property));
+    }
+    if (type == double.class && charProcessor instanceof CharCellProcessor.DoubleProcessor) {
+      return new DoubleColumn((CharCellProcessor.DoubleProcessor) charProcessor, Accessors.doubleSetter(clazz, property));
+    }
+    if (type == boolean.class && charProcessor instanceof CharCellProcessor.BooleanProcessor) {
+      return new BooleanColumn((CharCellProcessor.BooleanProcessor) charProcessor, Accessors.booleanSetter(clazz, property));
+    }
+    return null;
+  }
+
+  /**
+   * Converts the cell of the column and writes it to the given object, or only converts it when the object is null.
+   */
+  abstract void write(Object bean, CsvRow row, int column, CsvContext context);
+
+  private static class IntColumn extends PrimitiveColumn {
+    private final CharCellProcessor.IntProcessor processor;
+    private final ObjIntConsumer<Object> setter;
+
+    private IntColumn(CharCellProcessor.IntProcessor processor, ObjIntConsumer<Object> setter) {
+      this.processor = processor;
+      this.setter = setter;
+    }
+
+    @Override
+    void write(Object bean, CsvRow row, int column, CsvContext context) {
+      if (processor.isAbsent(row.getStart(column), context)) return;
+      int value = processor.executeInt(row.getChars(), row.getStart(column), row.getEnd(column), context);
+      if (bean != null) setter.accept(bean, value);
+    }
+  }
+
+  private static class LongColumn extends PrimitiveColumn {
+    private final CharCellProcessor.LongProcessor processor;
+    private final ObjLongConsumer<Object> setter;
+
+    private LongColumn(CharCellProcessor.LongProcessor processor, ObjLongConsumer<Object> setter) {
+      this.processor = processor;
+      this.setter = setter;
+    }
+
+    @Override
+    void write(Object bean, CsvRow row, int column, CsvContext context) {
+      if (processor.isAbsent(row.getStart(column), context)) return;
+      long value = processor.executeLong(row.getChars(), row.getStart(column), row.getEnd(column), context);
+      if (bean != null) setter.accept(bean, value);
+    }
+  }
+
+  private static class DoubleColumn extends PrimitiveColumn {
+    private final CharCellProcessor.DoubleProcessor processor;
+    private final ObjDoubleConsumer<Object> setter;
+
+    private DoubleColumn(CharCellProcessor.DoubleProcessor processor, ObjDoubleConsumer<Object> setter) {
+      this.processor = processor;
+      this.setter = setter;
+    }
+
+    @Override
+    void write(Object bean, CsvRow row, int column, CsvContext context) {
+      if (processor.isAbsent(row.getStart(column), context)) return;
+      double value = processor.executeDouble(row.getChars(), row.getStart(column), row.getEnd(column), context);
+      if (bean != null) setter.accept(bean, value);
+    }
+  }
+
+  private static class BooleanColumn extends PrimitiveColumn {
+    private final CharCellProcessor.BooleanProcessor processor;
+    private final ObjBooleanConsumer<Object> setter;
+
+    private BooleanColumn(CharCellProcessor.BooleanProcessor processor, ObjBooleanConsumer<Object> setter) {
+      this.processor = processor;
+      this.setter = setter;
+    }
+
+    @Override
+    void write(Object bean, CsvRow row, int column, CsvContext context) {
+      if (processor.isAbsent(row.getStart(column), context)) return;
+      boolean value = processor.executeBoolean(row.getChars(), row.getStart(column), row.getEnd(column), context);
+      if (bean != null) setter.accept(bean, value);
+    }
+  }
+}
@@ -0,0 +1,36 @@
+package org.quickocm.parser;
+
+import org.quickocm.RecordHandler;
+
+import java.util.Map;
+
+/**
+ * Invokes a <code>RecordHandler</code> for each row.
+ */
+class RecordHandlerSink<I> implements RowSink<I> {
+
+  private final RecordHandler<I> recordHandler;
+  private final Map supplementaryInfo;
+
+  RecordHandlerSink(RecordHandler<I> recordHandler, Map supplementaryInfo) {
+    this.recordHandler = recordHandler;
+    this.supplementaryInfo = supplementaryInfo;
+  }
+
+  @Override
+  public void start(CsvBeanReader<I> csvBeanReader) {
+  }
+
+  @Override
+  public void accept(I imported, CsvRow row) {
+    recordHandler.execute(imported, row.getRowNumber(), supplementaryInfo);
+  }
+
+  @Override
+  public void finish() {
+  }
+
+  @Override
+  public void abort() {
+  }
+}
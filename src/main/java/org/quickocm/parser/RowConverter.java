@@ -0,0 +1,83 @@
+package org.quickocm.parser;
+
+import org.quickocm.RejectedRowHandler;
+import org.quickocm.exception.UploadErrorReport;
+import org.quickocm.exception.UploadException;
+import org.supercsv.exception.SuperCsvException;
+
+import java.util.Map;
+
+/**
+ * Converts rows for the processing loops of the parser. Without an error report a row that fails conversion fails
+ * processing. With one, the error of the row is recorded in the report and the row is handed to the rejected row
+ * handler, if any, and skipped; null is returned for it.
+ * <p/>
+ * When only validating, rows are run through the cell processors without creating objects, and null is returned
+ * for every row.
+ */
+class RowConverter<I> {
+
+  private final CsvBeanReader<I> csvBeanReader;
+  private final UploadErrorReport errorReport;
+  private final RejectedRowHandler rejectedRowHandler;
+  private final Map supplementaryInfo;
+  private final boolean validateOnly;
+
+  RowConverter(CsvBeanReader<I> csvBeanReader, UploadErrorReport errorReport, RejectedRowHandler rejectedRowHandler,
+               Map supplementaryInfo, boolean validateOnly) {
+    this.csvBeanReader = csvBeanReader;
+    this.validateOnly = validateOnly;
+    this.errorReport = errorReport;
+    this.rejectedRowHandler = rejectedRowHandler;
+    this.supplementaryInfo = supplementaryInfo;
+  }
+
+  /**
+   * @return the object of the row, or null when the row was rejected or only validated
+   */
+  I convert(CsvRow row) {
+    if (errorReport == null) return convertOrValidate(row);
+
+    try {
+      return convertOrValidate(row);
+    } catch (SuperCsvException e) {
+      reject(row, e);
+      return null;
+    }
+  }
+
+  /**
+   * Converts a row into the next row of a batch of columns, the same way as rows are converted into objects.
+   *
+   * @return false when the row was rejected
+   */
+  boolean append(CsvRow row, ColumnBatch batch) {
+    if (errorReport == null) {
+      batch.append(row);
+      return true;
+    }
+
+    try {
+      batch.append(row);
+      return true;
+    } catch (SuperCsvException e) {
+      reject(row, e);
+      return false;
+    }
+  }
+
+  private void reject(CsvRow row, SuperCsvException e) {
+    UploadException error = UploadExceptions.forInvalidData(csvBeanReader, csvBeanReader.getHeaders(), e);
+    errorReport.add(row.getRowNumber(), error);
+    if (rejectedRowHandler != null) {
+      rejectedRowHandler.reject(row.getColumns(), row.getRowNumber(), error, supplementaryInfo);
+    }
+  }
+
+  private I convertOrValidate(CsvRow row) {
+    if (!validateOnly) return csvBeanReader.convert(row);
+
+    csvBeanReader.validate(row);
+    return null;
+  }
+}
@@ -0,0 +1,27 @@
+package org.quickocm.parser;
+
+/**
+ * Receives the objects converted from the rows of a csv file, in the order they are handed over by the parser.
+ */
+interface RowSink<I> {
+
+  /**
+   * Called once the headers of the csv have been read and validated, before the first row is accepted.
+   *
+   * @param csvBeanReader the reader of the csv, whose <code>convert</code> method is thread-safe
+   */
+  void start(CsvBeanReader<I> csvBeanReader);
+
+  void accept(I imported, CsvRow row);
+
+  /**
+   * Called once after the last row has been accepted, unless processing failed.
+   */
+  void finish();
+
+  /**
+   * Called once when processing failed, including when {@link #finish()} failed, to release what the sink holds
+   * without handing over the rows it has not handed over yet. Does not throw.
+   */
+  void abort();
+}
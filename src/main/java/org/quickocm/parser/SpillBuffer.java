@@ -0,0 +1,259 @@
+package org.quickocm.parser;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Keeps tokenized rows off the heap, in a temporary file written through a direct buffer and memory mapped once
+ * sealed, so that they can be read back in order and converted when they are needed.
+ * <p/>
+ * Rows are encoded compactly from what the model class needs of them: the cells of columns that are not mapped to
+ * an import field are left out, the cells of <code>int</code> and <code>long</code> fields written as plain integers
+ * are kept as variable length numbers, and the characters of other cells as variable length codes, which take a
+ * single byte for ASCII. Each cell starts with a header: 0 for an empty cell, 1 for a number, or twice the number of
+ * characters that follow.
+ * <p/>
+ * The file is deleted once the buffer is sealed or closed, which its sink does when processing fails, and its mapped
+ * regions are released once the buffer is no longer referenced. Only the offsets of the rows stay on the heap.
+ */
+class SpillBuffer {
+
+  static final int MAX_SEGMENT_SIZE = 1 << 30;
+
+  private static final int WRITE_BUFFER_SIZE = 1 << 16;
+  private static final int MAX_LONG_DIGITS = 18;
+
+  private final Path directory;
+  private final boolean[] storedColumns;
+  private final boolean[] integerColumns;
+
+  private FileChannel channel;
+  private ByteBuffer writeBuffer;
+  private long written;
+  private long[] offsets = new long[1024];
+  private int size;
+  private final List<Long> segmentStarts = new ArrayList<Long>();
+  private long[] segmentOffsets;
+  private MappedByteBuffer[] segments;
+
+  /**
+   * @param directory      the directory of the temporary file, null for the default temporary directory
+   * @param storedColumns  whether the cells of each column are kept, false for columns that are not converted
+   * @param integerColumns whether the cells of each column are converted to an <code>int</code> or a
+   *                       <code>long</code>
+   */
+  SpillBuffer(Path directory, boolean[] storedColumns, boolean[] integerColumns) {
+    this.directory = directory;
+    this.storedColumns = storedColumns;
+    this.integerColumns = integerColumns;
+  }
+
+  int size() {
+    return size;
+  }
+
+  /**
+   * The number of bytes the rows take up off the heap.
+   */
+  long getBytes() {
+    return written + (writeBuffer == null ? 0 : writeBuffer.position());
+  }
+
+  void append(CsvRow row) throws IOException {
+    if (segments != null) throw new IllegalStateException("the spill buffer is sealed");
+    if (channel == null) open();
+
+    int maxLength = 20;
+    for (int i = 0; i < row.length(); i++) {
+      maxLength += 5 + (row.isNull(i) ? 0 : 3 * (row.getEnd(i) - row.getStart(i)));
+    }
+    if (writeBuffer.remaining() < maxLength) drain();
+    if (writeBuffer.capacity() < maxLength) writeBuffer = ByteBuffer.allocateDirect(maxLength);
+
+    long offset = getBytes();
+    long segmentStart = segmentStarts.get(segmentStarts.size() - 1);
+    if (offset + maxLength > segmentStart + MAX_SEGMENT_SIZE) segmentStarts.add(offset);
+    if (size == offsets.length) offsets = Arrays.copyOf(offsets, size * 2);
+    offsets[size++] = offset;
+
+    writeVarint(row.getRowNumber());
+    writeVarint(row.getLineNumber());
+    writeVarint(row.getSize());
+    writeVarint(row.length());
+    for (int i = 0; i < row.length(); i++) {
+      if (row.isNull(i) || (i < storedColumns.length && !storedColumns[i])) {
+        writeVarint(0);
+      } else {
+        writeCell(row, i);
+      }
+    }
+  }
+
+  /**
+   * Ends the writing of rows and maps the file for them to be read.
+   */
+  void seal() throws IOException {
+    if (segments != null) return;
+    if (channel == null) {
+      segments = new MappedByteBuffer[0];
+      return;
+    }
+
+    try {
+      drain();
+      segments = new MappedByteBuffer[segmentStarts.size()];
+      segmentOffsets = new long[segmentStarts.size()];
+      for (int i = 0; i < segments.length; i++) {
+        long start = segmentStarts.get(i);
+        long end = i + 1 < segments.length ? segmentStarts.get(i + 1) : written;
+        segmentOffsets[i] = start;
+        segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+      }
+    } finally {
+      close();
+    }
+  }
+
+  /**
+   * Decodes a row of a sealed buffer into the given row, replacing its content. Rows can be read concurrently.
+   */
+  void read(int index, CsvRow row) {
+    if (index < 0 || index >= size) throw new IndexOutOfBoundsException("no spilled row " + index);
+
+    int segment = Arrays.binarySearch(segmentOffsets, offsets[index]);
+    if (segment < 0) segment = -segment - 2;
+    ByteBuffer buffer = segments[segment].duplicate();
+    buffer.position((int) (offsets[index] - segmentOffsets[segment]));
+
+    row.clear();
+    int rowNumber = readVarint(buffer);
+    int lineNumber = readVarint(buffer);
+    int characters = readVarint(buffer);
+    int length = readVarint(buffer);
+    for (int i = 0; i < length; i++) {
+      int start = row.position();
+      int header = readVarint(buffer);
+      if (header == 1) {
+        appendNumber(row, readLong(buffer));
+      } else {
+        for (int j = header >>> 1; j > 0; j--) row.append((char) readVarint(buffer));
+      }
+      row.endColumn(start);
+    }
+    row.setNumbers(lineNumber, rowNumber, characters);
+  }
+
+  /**
+   * Releases the file of a buffer that is not sealed, discarding its rows.
+   */
+  void close() throws IOException {
+    if (channel == null) return;
+    try {
+      channel.close();
+    } finally {
+      channel = null;
+      writeBuffer = null;
+    }
+  }
+
+  private void open() throws IOException {
+    Path file = directory == null
+      ? Files.createTempFile("quickocm-spill", ".bin")
+      : Files.createTempFile(directory, "quickocm-spill", ".bin");
+    channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE,
+      StandardOpenOption.DELETE_ON_CLOSE);
+    writeBuffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE);
+    segmentStarts.add(0L);
+  }
+
+  private void drain() throws IOException {
+    writeBuffer.flip();
+    while (writeBuffer.hasRemaining()) written += channel.write(writeBuffer);
+    writeBuffer.clear();
+  }
+
+  private void writeCell(CsvRow row, int column) {
+    char[] chars = row.getChars();
+    int start = row.getStart(column), end = row.getEnd(column);
+    if (column < integerColumns.length && integerColumns[column] && isPlainInteger(chars, start, end)) {
+      writeVarint(1);
+      writeLong(parseLong(chars, start, end));
+      return;
+    }
+
+    writeVarint((end - start) << 1);
+    for (int i = start; i < end; i++) writeVarint(chars[i]);
+  }
+
+  /**
+   * Whether a cell is an integer written back the same way by <code>Long.toString</code>, so that it can be kept as
+   * a number and give the same characters when read back.
+   */
+  private static boolean isPlainInteger(char[] chars, int start, int end) {
+    int digits = start < end && chars[start] == '-' ? start + 1 : start;
+    if (digits == end || end - digits > MAX_LONG_DIGITS) return false;
+    if (chars[digits] == '0' && (end - digits > 1 || digits > start)) return false;
+    for (int i = digits; i < end; i++) {
+      if (chars[i] < '0' || chars[i] > '9') return false;
+    }
+    return true;
+  }
+
+  private static long parseLong(char[] chars, int start, int end) {
+    boolean negative = chars[start] == '-';
+    long value = 0;
+    for (int i = negative ? start + 1 : start; i < end; i++) value = value * 10 + (chars[i] - '0');
+    return negative ? -value : value;
+  }
+
+  private static void appendNumber(CsvRow row, long value) {
+    if (value < 0) row.append('-');
+    long magnitude = Math.abs(value);
+    long divisor = 1;
+    while (divisor <= magnitude / 10) divisor *= 10;
+    for (; divisor > 0; divisor /= 10) row.append((char) ('0' + magnitude / divisor % 10));
+  }
+
+  private void writeVarint(int value) {
+    while ((value & ~0x7f) != 0) {
+      writeBuffer.put((byte) ((value & 0x7f) | 0x80));
+      value >>>= 7;
+    }
+    writeBuffer.put((byte) value);
+  }
+
+  private void writeLong(long value) {
+    long zigzag = (value << 1) ^ (value >> 63);
+    while ((zigzag & ~0x7fL) != 0) {
+      writeBuffer.put((byte) ((zigzag & 0x7f) | 0x80));
+      zigzag >>>= 7;
+    }
+    writeBuffer.put((byte) zigzag);
+  }
+
+  private static int readVarint(ByteBuffer buffer) {
+    int value = 0;
+    for (int shift = 0; ; shift += 7) {
+      byte b = buffer.get();
+      value |= (b & 0x7f) << shift;
+      if (b >= 0) return value;
+    }
+  }
+
+  private static long readLong(ByteBuffer buffer) {
+    long zigzag = 0;
+    for (int shift = 0; ; shift += 7) {
+      byte b = buffer.get();
+      zigzag |= (long) (b & 0x7f) << shift;
+      if (b >= 0) return (zigzag >>> 1) ^ -(zigzag & 1);
+    }
+  }
+}
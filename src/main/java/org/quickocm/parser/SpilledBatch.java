@@ -0,0 +1,70 @@
+package org.quickocm.parser;
+
+import java.util.AbstractList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+
+/**
+ * A batch whose first objects are held on the heap and whose remaining rows are held in a sealed
+ * <code>SpillBuffer</code>, converted again into a new object each time they are got. Iterating converts the
+ * spilled rows one at a time in their order, so a handler that goes through the batch once, e.g. to add each
+ * object to a JDBC batch, never holds more than one of them.
+ * <p/>
+ * The rows were converted successfully before being spilled, so converting them again gives equal objects. Converting
+ * them again is not counted in the metrics of the parser, which counted their first conversion.
+ */
+class SpilledBatch<I> extends AbstractList<I> implements RandomAccess {
+
+  private final List<I> objects;
+  private final SpillBuffer spillBuffer;
+  private final CsvBeanReader<I> csvBeanReader;
+
+  SpilledBatch(List<I> objects, SpillBuffer spillBuffer, CsvBeanReader<I> csvBeanReader) {
+    this.objects = objects;
+    this.spillBuffer = spillBuffer;
+    this.csvBeanReader = csvBeanReader;
+  }
+
+  @Override
+  public I get(int index) {
+    if (index < objects.size()) return objects.get(index);
+
+    CsvRow row = new CsvRow();
+    spillBuffer.read(index - objects.size(), row);
+    return csvBeanReader.reconvert(row);
+  }
+
+  @Override
+  public int size() {
+    return objects.size() + spillBuffer.size();
+  }
+
+  @Override
+  public Iterator<I> iterator() {
+    return new Iterator<I>() {
+      private final CsvRow row = new CsvRow();
+      private int index;
+
+      @Override
+      public boolean hasNext() {
+        return index < size();
+      }
+
+      @Override
+      public I next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        if (index < objects.size()) return objects.get(index++);
+
+        spillBuffer.read(index++ - objects.size(), row);
+        return csvBeanReader.reconvert(row);
+      }
+
+      @Override
+      public void remove() {
+        throw new UnsupportedOperationException();
+      }
+    };
+  }
+}
@@ -0,0 +1,63 @@
+package org.quickocm.parser;
+
+import org.quickocm.exception.UploadException;
+import org.quickocm.processor.DateFormatException;
+import org.supercsv.exception.SuperCsvCellProcessorException;
+import org.supercsv.exception.SuperCsvConstraintViolationException;
+import org.supercsv.exception.SuperCsvException;
+import org.supercsv.util.CsvContext;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Translates the exceptions raised while reading a csv into the <code>UploadException</code>s reported to callers,
+ * so that every way of consuming a csv reports the same codes.
+ */
+class UploadExceptions {
+
+  static UploadException forInvalidData(CsvBeanReader csvBeanReader, String[] headers, SuperCsvException e) {
+    if (e instanceof SuperCsvConstraintViolationException) {
+      return forInvalidData(getErrorMessageForMissingFieldOrInvalidDate(e), headers, e);
+    }
+    if (e instanceof SuperCsvCellProcessorException) {
+      return forInvalidData("incorrect.data.type", headers, e);
+    }
+    return forInvalidData(getErrorMessageForHeaderCount(csvBeanReader, headers, e), headers, e);
+  }
+
+  static UploadException forUnreadableInput(IOException e) {
+    return new UploadException(e.getStackTrace().toString());
+  }
+
+  /**
+   * The failure of a <code>CheckpointStore</code> to load, save or clear the checkpoint of a resumable import.
+   */
+  static UploadException forCheckpointFailure(IOException e, String... params) {
+    UploadException uploadException = new UploadException("error.upload.checkpoint.failed", params);
+    uploadException.initCause(e);
+    return uploadException;
+  }
+
+  private static String getErrorMessageForMissingFieldOrInvalidDate(SuperCsvException e) {
+    return e instanceof DateFormatException || e.getMessage().contains("^\\d{1,2}/\\d{1,2}/\\d{4}$")
+      ? "incorrect.date.format"
+      : "missing.mandatory";
+  }
+
+  private static String getErrorMessageForHeaderCount(CsvBeanReader csvBeanReader, String[] headers,
+                                                      SuperCsvException e) {
+    List<Object> rowSource = e.getCsvContext().getRowSource();
+    int length = rowSource == null ? csvBeanReader.length() : rowSource.size();
+    return length > headers.length
+      ? "extra.columns.than.headers.found"
+      : "fewer.columns.than.headers.found";
+  }
+
+  private static UploadException forInvalidData(String error, String[] headers, SuperCsvException exception) {
+    CsvContext csvContext = exception.getCsvContext();
+    String header = headers[csvContext.getColumnNumber() - 1];
+    Integer rowNum = csvContext.getRowNumber() - 1;
+    return new UploadException(error, header, "record.number." + rowNum.toString());
+  }
+}
@@ -0,0 +1,25 @@
+package org.quickocm.parser;
+
+/**
+ * Stands in for the handler when a csv is only validated, in which case no row is converted to an object and
+ * nothing is ever accepted.
+ */
+class ValidationSink<I> implements RowSink<I> {
+
+  @Override
+  public void start(CsvBeanReader<I> csvBeanReader) {
+  }
+
+  @Override
+  public void accept(I imported, CsvRow row) {
+    throw new IllegalStateException("rows are not converted when only validating");
+  }
+
+  @Override
+  public void finish() {
+  }
+
+  @Override
+  public void abort() {
+  }
+}
@@ -0,0 +1,22 @@
+package org.quickocm.parser;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates the daemon threads of a pool of workers, named after the pool so that they can be told apart in dumps.
+ */
+class WorkerThreadFactory implements ThreadFactory {
+
+  private static final AtomicInteger poolNumber = new AtomicInteger();
+
+  private final int pool = poolNumber.incrementAndGet();
+  private final AtomicInteger threadNumber = new AtomicInteger();
+
+  @Override
+  public Thread newThread(Runnable runnable) {
+    Thread thread = new Thread(runnable, "quickocm-" + pool + "-worker-" + threadNumber.incrementAndGet());
+    thread.setDaemon(true);
+    return thread;
+  }
+}
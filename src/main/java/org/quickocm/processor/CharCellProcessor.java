@@ -0,0 +1,284 @@
+package org.quickocm.processor;
+
+import org.supercsv.cellprocessor.ift.CellProcessor;
+import org.supercsv.exception.SuperCsvCellProcessorException;
+import org.supercsv.exception.SuperCsvConstraintViolationException;
+import org.supercsv.util.CsvContext;
+
+import java.math.BigDecimal;
+import java.util.Date;
+import java.util.function.Function;
+
+/**
+ * Converts a cell straight from the character buffer of a row, in place of a <code>NotNull</code> or
+ * <code>Optional</code> chain of one of the SuperCSV parse processors. The exceptions thrown for empty mandatory
+ * cells and unparsable values are the same as the ones of the replaced chain.
+ * <p/>
+ * The processors of primitive types also convert to the primitive itself, so that the value can be written to a
+ * primitive field without being boxed.
+ */
+public abstract class CharCellProcessor {
+
+  private final boolean mandatory;
+  private final CellProcessor processor;
+
+  protected CharCellProcessor(boolean mandatory, CellProcessor processor) {
+    this.mandatory = mandatory;
+    this.processor = processor;
+  }
+
+  /**
+   * Converts the characters between start and end.
+   *
+   * @param start the offset of the first character of the cell, -1 when the cell is empty
+   */
+  public Object execute(char[] chars, int start, int end, CsvContext context) {
+    if (isAbsent(start, context)) return null;
+
+    try {
+      return parse(chars, start, end);
+    } catch (IllegalArgumentException e) {
+      throw parseFailure(chars, start, end, context, e);
+    }
+  }
+
+  /**
+   * Tells whether an optional cell is empty, so that there is nothing to convert.
+   *
+   * @param start the offset of the first character of the cell, -1 when the cell is empty
+   * @throws SuperCsvConstraintViolationException when a mandatory cell is empty
+   */
+  public boolean isAbsent(int start, CsvContext context) {
+    if (start >= 0) return false;
+    if (mandatory) throw new SuperCsvConstraintViolationException("null value encountered", context, processor);
+    return true;
+  }
+
+  protected abstract Object parse(char[] chars, int start, int end);
+
+  protected CellProcessor getProcessor() {
+    return processor;
+  }
+
+  protected abstract String getErrorFormat();
+
+  protected SuperCsvCellProcessorException parseFailure(char[] chars, int start, int end, CsvContext context,
+                                                        RuntimeException e) {
+    return new SuperCsvCellProcessorException(String.format(getErrorFormat(), new String(chars, start, end - start)),
+      context, processor, e);
+  }
+
+  /**
+   * Converts <code>int</code> cells, either boxed through {@link #execute} or as primitives through
+   * {@link #executeInt}, which expects a cell that is not empty.
+   */
+  public static class IntProcessor extends CharCellProcessor {
+    IntProcessor(boolean mandatory, CellProcessor processor) {
+      super(mandatory, processor);
+    }
+
+    public int executeInt(char[] chars, int start, int end, CsvContext context) {
+      try {
+        return CharParsers.parseInt(chars, start, end);
+      } catch (IllegalArgumentException e) {
+        throw parseFailure(chars, start, end, context, e);
+      }
+    }
+
+    @Override
+    protected Object parse(char[] chars, int start, int end) {
+      return CharParsers.parseInt(chars, start, end);
+    }
+
+    @Override
+    protected String getErrorFormat() {
+      return "'%s' could not be parsed as an Integer";
+    }
+  }
+
+  public static class LongProcessor extends CharCellProcessor {
+    LongProcessor(boolean mandatory, CellProcessor processor) {
+      super(mandatory, processor);
+    }
+
+    public long executeLong(char[] chars, int start, int end, CsvContext context) {
+      try {
+        return CharParsers.parseLong(chars, start, end);
+      } catch (IllegalArgumentException e) {
+        throw parseFailure(chars, start, end, context, e);
+      }
+    }
+
+    @Override
+    protected Object parse(char[] chars, int start, int end) {
+      return CharParsers.parseLong(chars, start, end);
+    }
+
+    @Override
+    protected String getErrorFormat() {
+      return "'%s' could not be parsed as an Long";
+    }
+  }
+
+  public static class DoubleProcessor extends CharCellProcessor {
+    DoubleProcessor(boolean mandatory, CellProcessor processor) {
+      super(mandatory, processor);
+    }
+
+    public double executeDouble(char[] chars, int start, int end, CsvContext context) {
+      try {
+        return CharParsers.parseDouble(chars, start, end);
+      } catch (IllegalArgumentException e) {
+        throw parseFailure(chars, start, end, context, e);
+      }
+    }
+
+    @Override
+    protected Object parse(char[] chars, int start, int end) {
+      return CharParsers.parseDouble(chars, start, end);
+    }
+
+    @Override
+    protected String getErrorFormat() {
+      return "'%s' could not be parsed as a Double";
+    }
+  }
+
+  public static class BooleanProcessor extends CharCellProcessor {
+    BooleanProcessor(boolean mandatory, CellProcessor processor) {
+      super(mandatory, processor);
+    }
+
+    public boolean executeBoolean(char[] chars, int start, int end, CsvContext context) {
+      try {
+        return CharParsers.parseBoolean(chars, start, end);
+      } catch (IllegalArgumentException e) {
+        throw parseFailure(chars, start, end, context, e);
+      }
+    }
+
+    @Override
+    protected Object parse(char[] chars, int start, int end) {
+      return CharParsers.parseBoolean(chars, start, end);
+    }
+
+    @Override
+    protected String getErrorFormat() {
+      return "'%s' could not be parsed as a Boolean";
+    }
+  }
+
+  /**
+   * Converts <code>BigDecimal</code> cells from the characters of the row, without creating a <code>String</code>.
+   */
+  static class BigDecimalProcessor extends CharCellProcessor {
+    BigDecimalProcessor(boolean mandatory, CellProcessor processor) {
+      super(mandatory, processor);
+    }
+
+    @Override
+    protected Object parse(char[] chars, int start, int end) {
+      return new BigDecimal(chars, start, end - start);
+    }
+
+    @Override
+    protected String getErrorFormat() {
+      return "'%s' could not be parsed as a BigDecimal";
+    }
+  }
+
+  /**
+   * Converts <code>Date</code> cells from the characters of the row through the shared parser of their pattern,
+   * failing with a {@link DateFormatException} when a cell is not in the pattern.
+   */
+  static class DateProcessor extends CharCellProcessor {
+    private final DateParser dateParser;
+
+    DateProcessor(boolean mandatory, CellProcessor processor, DateParser dateParser) {
+      super(mandatory, processor);
+      this.dateParser = dateParser;
+    }
+
+    @Override
+    public Object execute(char[] chars, int start, int end, CsvContext context) {
+      try {
+        return super.execute(chars, start, end, context);
+      } catch (SuperCsvCellProcessorException e) {
+        if (!(e.getCause() instanceof DateParser.FormatMismatchException)) throw e;
+        throw new DateFormatException(new String(chars, start, end - start), dateParser.getPattern(), context,
+          getProcessor());
+      }
+    }
+
+    @Override
+    protected Date parse(char[] chars, int start, int end) {
+      return dateParser.parse(chars, start, end);
+    }
+
+    @Override
+    protected String getErrorFormat() {
+      return "'%s' could not be parsed as a Date";
+    }
+  }
+
+  /**
+   * Trims <code>String</code> cells like SuperCSV's <code>Trim</code> does, sharing repeated values through a
+   * dictionary when one is given.
+   */
+  static class StringProcessor extends CharCellProcessor {
+    private final StringDictionary dictionary;
+
+    StringProcessor(boolean mandatory, CellProcessor processor, StringDictionary dictionary) {
+      super(mandatory, processor);
+      this.dictionary = dictionary;
+    }
+
+    @Override
+    protected String parse(char[] chars, int start, int end) {
+      while (start < end && chars[start] <= ' ') start++;
+      while (end > start && chars[end - 1] <= ' ') end--;
+      return dictionary == null ? new String(chars, start, end - start) : dictionary.intern(chars, start, end);
+    }
+
+    @Override
+    protected String getErrorFormat() {
+      return "'%s' could not be parsed as a String";
+    }
+  }
+
+  /**
+   * Converts the cells of a type registered in a {@link TypeRegistry} through its converter, reporting any runtime
+   * exception of the converter as a failure to parse the cell.
+   */
+  static class ConverterProcessor extends CharCellProcessor {
+    private final String errorFormat;
+    private final Function<String, ?> converter;
+
+    ConverterProcessor(boolean mandatory, CellProcessor processor, String type, Function<String, ?> converter) {
+      super(mandatory, processor);
+      this.errorFormat = "'%s' could not be parsed as " + type;
+      this.converter = converter;
+    }
+
+    @Override
+    public Object execute(char[] chars, int start, int end, CsvContext context) {
+      if (isAbsent(start, context)) return null;
+
+      try {
+        return parse(chars, start, end);
+      } catch (RuntimeException e) {
+        throw parseFailure(chars, start, end, context, e);
+      }
+    }
+
+    @Override
+    protected Object parse(char[] chars, int start, int end) {
+      return converter.apply(new String(chars, start, end - start));
+    }
+
+    @Override
+    protected String getErrorFormat() {
+      return errorFormat;
+    }
+  }
+}
@@ -0,0 +1,119 @@
+package org.quickocm.processor;
+
+/**
+ * Parses numbers and booleans straight from a range of a character buffer.
+ * <p/>
+ * The common forms, plain digits with an optional sign and plain decimals, are parsed without creating a
+ * <code>String</code>. Anything else is handed to the JDK parser used by the equivalent SuperCSV processor, so the
+ * accepted values and the failures are always the same as with <code>ParseInt</code>, <code>ParseLong</code>,
+ * <code>ParseDouble</code> and <code>ParseBool</code>.
+ */
+public class CharParsers {
+
+  private static final double[] POWERS_OF_TEN = {
+    1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+    1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+
+  private static final String[] TRUE_VALUES = {"1", "true", "t", "y"};
+  private static final String[] FALSE_VALUES = {"0", "false", "f", "n"};
+
+  public static int parseInt(char[] chars, int start, int end) {
+    int i = start;
+    boolean negative = false;
+    if (i < end && (chars[i] == '-' || chars[i] == '+')) negative = chars[i++] == '-';
+
+    if (i == end || end - i > 9) return Integer.parseInt(new String(chars, start, end - start));
+
+    int result = 0;
+    for (; i < end; i++) {
+      int digit = chars[i] - '0';
+      if (digit < 0 || digit > 9) return Integer.parseInt(new String(chars, start, end - start));
+      result = result * 10 + digit;
+    }
+    return negative ? -result : result;
+  }
+
+  public static long parseLong(char[] chars, int start, int end) {
+    int i = start;
+    boolean negative = false;
+    if (i < end && (chars[i] == '-' || chars[i] == '+')) negative = chars[i++] == '-';
+
+    if (i == end || end - i > 18) return Long.parseLong(new String(chars, start, end - start));
+
+    long result = 0;
+    for (; i < end; i++) {
+      int digit = chars[i] - '0';
+      if (digit < 0 || digit > 9) return Long.parseLong(new String(chars, start, end - start));
+      result = result * 10 + digit;
+    }
+    return negative ? -result : result;
+  }
+
+  /**
+   * Parses decimals of up to 15 significant digits and exponents up to 22 exactly, since both the digits and the
+   * power of ten are exact doubles and a single division or multiplication rounds correctly.
+   */
+  public static double parseDouble(char[] chars, int start, int end) {
+    int i = start;
+    boolean negative = false;
+    if (i < end && (chars[i] == '-' || chars[i] == '+')) negative = chars[i++] == '-';
+    int numberStart = i;
+
+    long mantissa = 0;
+    int digits = 0;
+    int exponent = 0;
+    boolean fraction = false;
+    for (; i < end; i++) {
+      char c = chars[i];
+      if (c >= '0' && c <= '9') {
+        if (mantissa == 0 && c == '0') {
+          if (fraction) exponent--;
+          continue;
+        }
+        if (++digits > 15) return parseDoubleSlowly(chars, start, end);
+        mantissa = mantissa * 10 + (c - '0');
+        if (fraction) exponent--;
+      } else if (c == '.' && !fraction) {
+        fraction = true;
+      } else {
+        return parseDoubleSlowly(chars, start, end);
+      }
+    }
+
+    boolean hasDigits = end - numberStart > (fraction ? 1 : 0);
+    if (!hasDigits || exponent < -22) return parseDoubleSlowly(chars, start, end);
+
+    double result = exponent == 0 ? mantissa : mantissa / POWERS_OF_TEN[-exponent];
+    return negative ? -result : result;
+  }
+
+  /**
+   * Accepts the values of SuperCSV's <code>ParseBool</code>, ignoring case.
+   *
+   * @throws IllegalArgumentException when the value is not one of them
+   */
+  public static boolean parseBoolean(char[] chars, int start, int end) {
+    if (matchesAny(TRUE_VALUES, chars, start, end)) return true;
+    if (matchesAny(FALSE_VALUES, chars, start, end)) return false;
+    throw new IllegalArgumentException("'" + new String(chars, start, end - start) + "' could not be parsed as a Boolean");
+  }
+
+  private static double parseDoubleSlowly(char[] chars, int start, int end) {
+    return Double.parseDouble(new String(chars, start, end - start));
+  }
+
+  private static boolean matchesAny(String[] values, char[] chars, int start, int end) {
+    for (String value : values) {
+      if (value.length() != end - start) continue;
+
+      boolean matches = true;
+      for (int i = 0; i < value.length() && matches; i++) {
+        char c = chars[start + i];
+        if (c >= 'A' && c <= 'Z') c = (char) (c + ('a' - 'A'));
+        matches = c == value.charAt(i);
+      }
+      if (matches) return true;
+    }
+    return false;
+  }
+}
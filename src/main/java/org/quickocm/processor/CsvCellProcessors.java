@@ -1,58 +1,134 @@
 package org.quickocm.processor;
 
-import org.apache.commons.collections.Transformer;
 import org.quickocm.model.Field;
 import org.quickocm.model.ModelClass;
 import org.supercsv.cellprocessor.*;
 import org.supercsv.cellprocessor.constraint.NotNull;
-import org.supercsv.cellprocessor.constraint.StrRegEx;
 import org.supercsv.cellprocessor.ift.CellProcessor;
+import org.supercsv.util.CsvContext;
 
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
-import static org.apache.commons.collections.CollectionUtils.collect;
-
 /**
  * This class provides the cell processors that are used to handle specific data-types marked in
  * <code>@Importable</code> annotation
  */
 public class CsvCellProcessors {
 
-  private static final String format = "dd/MM/yyyy";
+  /**
+   * The processors of the built in types, shared by every parser of the JVM.
+   *
+   * @deprecated register types in a {@link TypeRegistry} given to the parser instead
+   */
+  @Deprecated
   public static Map<String, CellProcessor> typeMappings = new HashMap<String, CellProcessor>();
+  private static final Map<String, CellProcessor> defaultTypeMappings = new HashMap<String, CellProcessor>();
 
   static {
     typeMappings.put("int", new ParseInt());
     typeMappings.put("long", new ParseLong());
     typeMappings.put("boolean", new ParseBool());
     typeMappings.put("double", new ParseDouble());
-    typeMappings.put("Date", new StrRegEx("^\\d{1,2}/\\d{1,2}/\\d{4}$", new ParseDate(format))); //second parameter for leniency
+    typeMappings.put("Date", new ParseFormattedDate(DateParser.DEFAULT_PATTERN));
     typeMappings.put("String", new Trim());
     typeMappings.put("BigDecimal", new ParseBigDecimal());
+    defaultTypeMappings.putAll(typeMappings);
   }
 
+  /**
+   * Gives the cell processors of the columns of the given headers, as resolved by the default type registry.
+   */
   public static List<CellProcessor> getProcessors(final ModelClass modelClass, List<String> headers) {
-    List<CellProcessor> processors = new ArrayList<CellProcessor>();
+    return TypeRegistry.getDefault().getProcessors(modelClass, headers);
+  }
+
+  /**
+   * Gives the processors converting the columns of the given headers straight from the characters of a row, as
+   * resolved by the default type registry.
+   * Only the columns of the types <code>int</code>, <code>long</code>, <code>double</code>, <code>boolean</code>,
+   * <code>BigDecimal</code>, <code>Date</code> and <code>String</code> whose processor has not been replaced in
+   * <code>typeMappings</code> get one, besides the types of the registry.
+   */
+  public static CharCellProcessor[] getCharProcessors(final ModelClass modelClass, List<String> headers) {
+    return TypeRegistry.getDefault().getCharProcessors(modelClass, headers);
+  }
+
+  /**
+   * Whether a type is one of the built in types, whatever <code>typeMappings</code> holds now.
+   */
+  static boolean isBuiltIn(String type) {
+    return defaultTypeMappings.containsKey(type);
+  }
+
+  /**
+   * Whether <code>typeMappings</code> holds a processor of a type, which may have been added there by an application.
+   */
+  static boolean isMapped(String type) {
+    return typeMappings.containsKey(type);
+  }
 
-    collect(headers, getHeaderToProcessorTransformer(modelClass), processors);
+  /**
+   * A copy of the processors <code>typeMappings</code> holds now, equal to another copy as long as the same
+   * processors are mapped to the same types.
+   */
+  public static Map<String, CellProcessor> getTypeMappingsSnapshot() {
+    return new HashMap<String, CellProcessor>(typeMappings);
+  }
+
+  static CharCellProcessor getCharProcessor(Field field) {
+    if (field == null) return null;
+
+    String type = field.getType();
+    if (typeMappings.get(type) != defaultTypeMappings.get(type)) return null;
+
+    CellProcessor processor = getProcessor(field);
+    if (type.equals("int")) return new CharCellProcessor.IntProcessor(field.isMandatory(), processor);
+    if (type.equals("long")) return new CharCellProcessor.LongProcessor(field.isMandatory(), processor);
+    if (type.equals("double")) return new CharCellProcessor.DoubleProcessor(field.isMandatory(), processor);
+    if (type.equals("boolean")) return new CharCellProcessor.BooleanProcessor(field.isMandatory(), processor);
+    if (type.equals("BigDecimal")) return new CharCellProcessor.BigDecimalProcessor(field.isMandatory(), processor);
+    if (type.equals("String")) {
+      StringDictionary dictionary = field.isIntern() ? new StringDictionary() : null;
+      return new CharCellProcessor.StringProcessor(field.isMandatory(), processor, dictionary);
+    }
+    if (type.equals("Date")) {
+      DateParser dateParser = DateParser.forPattern(getDatePattern(field));
+      return new CharCellProcessor.DateProcessor(field.isMandatory(), processor, dateParser);
+    }
+    return null;
+  }
+
+  static CellProcessor getProcessor(Field field) {
+    if (field == null) return null;
+
+    CellProcessor mappedProcessor = typeMappings.get(field.getType());
+    boolean defaultDateMapping = field.getType().equals("Date") && mappedProcessor == defaultTypeMappings.get("Date");
+    if (defaultDateMapping && !field.getFormat().isEmpty()) mappedProcessor = new ParseFormattedDate(field.getFormat());
+    if (field.getType().equals("String") && field.isIntern()) mappedProcessor = new Interned(mappedProcessor);
+    return field.isMandatory() ? new NotNull(mappedProcessor) : new Optional(mappedProcessor);
+  }
 
-    return processors;
+  private static String getDatePattern(Field field) {
+    return field.getFormat().isEmpty() ? DateParser.DEFAULT_PATTERN : field.getFormat();
   }
 
-  private static Transformer getHeaderToProcessorTransformer(final ModelClass modelClass) {
-    return new Transformer() {
-      @Override
-      public Object transform(Object headerObject) {
-        Field field = modelClass.findImportFieldWithName((String) headerObject);
+  /**
+   * Shares repeated values of a column through a dictionary after running the processor of the column.
+   */
+  private static class Interned implements CellProcessor {
+    private final CellProcessor processor;
+    private final StringDictionary dictionary = new StringDictionary();
 
-        if (field == null) return null;
+    private Interned(CellProcessor processor) {
+      this.processor = processor;
+    }
 
-        CellProcessor mappedProcessor = typeMappings.get(field.getType());
-        return field.isMandatory() ? new NotNull(mappedProcessor) : new Optional(mappedProcessor);
-      }
-    };
+    @Override
+    public Object execute(Object value, CsvContext context) {
+      Object result = processor.execute(value, context);
+      return result instanceof String ? dictionary.intern((String) result) : result;
+    }
   }
 }
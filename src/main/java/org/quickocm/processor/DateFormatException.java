@@ -0,0 +1,22 @@
+package org.quickocm.processor;
+
+import org.supercsv.cellprocessor.ift.CellProcessor;
+import org.supercsv.exception.SuperCsvConstraintViolationException;
+import org.supercsv.util.CsvContext;
+
+/**
+ * Thrown when the text of a <code>Date</code> cell is not in the date format of its column, which is reported as
+ * <code>incorrect.date.format</code> rather than as an incorrect data type.
+ * <p/>
+ * For the default format the message is the one of the <code>StrRegEx</code> processor that used to check dates.
+ */
+public class DateFormatException extends SuperCsvConstraintViolationException {
+
+  static final String DEFAULT_PATTERN_REGEX = "^\\d{1,2}/\\d{1,2}/\\d{4}$";
+
+  public DateFormatException(String value, String pattern, CsvContext context, CellProcessor processor) {
+    super(pattern.equals(DateParser.DEFAULT_PATTERN)
+      ? String.format("'%s' does not match the regular expression '%s'", value, DEFAULT_PATTERN_REGEX)
+      : String.format("'%s' does not match the date format '%s'", value, pattern), context, processor);
+  }
+}
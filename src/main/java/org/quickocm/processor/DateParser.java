@@ -0,0 +1,230 @@
+package org.quickocm.processor;
+
+import org.joda.time.DateTimeZone;
+import org.joda.time.IllegalFieldValueException;
+import org.joda.time.chrono.GJChronology;
+import org.joda.time.format.DateTimeFormat;
+import org.joda.time.format.DateTimeFormatter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Parses dates of one pattern straight from a range of a character buffer, and formats them back. Instances are
+ * immutable apart from their cache and are shared by every column and thread using the same pattern, see
+ * {@link #forPattern(String)}.
+ * <p/>
+ * Patterns made of day, month and four digit year fields separated by literals, like <code>dd/MM/yyyy</code> or
+ * <code>yyyy-MM-dd</code>, are parsed by hand; anything else is handed to a joda-time formatter of the pattern.
+ * Dates are read in the default time zone with the Julian calendar before 1582, as <code>SimpleDateFormat</code>
+ * does. The last dates parsed are cached by their text, since the same dates tend to repeat throughout a csv.
+ * <p/>
+ * For the default pattern <code>dd/MM/yyyy</code> a text is only accepted when it matches
+ * <code>^\d{1,2}/\d{1,2}/\d{4}$</code>, as it was with the regular expression checked before <code>ParseDate</code>.
+ */
+public class DateParser {
+
+  public static final String DEFAULT_PATTERN = "dd/MM/yyyy";
+
+  private static final int CACHE_SIZE = 256;
+  private static final int FIRST_GREGORIAN_YEAR = 1583;
+  private static final long MILLIS_PER_DAY = 24L * 60 * 60 * 1000;
+
+  private static final ConcurrentMap<String, DateParser> PARSERS = new ConcurrentHashMap<String, DateParser>();
+
+  private final String pattern;
+  private final boolean strict;
+  private final DateTimeFormatter formatter;
+  private final List<Object> fastPattern;
+  private final CachedDate[] cache = new CachedDate[CACHE_SIZE];
+
+  private DateParser(String pattern) {
+    this.pattern = pattern;
+    this.strict = pattern.equals(DEFAULT_PATTERN);
+    this.formatter = DateTimeFormat.forPattern(pattern);
+    this.fastPattern = compile(pattern);
+  }
+
+  /**
+   * Gives the parser of the given pattern, in the syntax of <code>SimpleDateFormat</code>.
+   *
+   * @throws IllegalArgumentException when the pattern is invalid
+   */
+  public static DateParser forPattern(String pattern) {
+    DateParser parser = PARSERS.get(pattern);
+    if (parser != null) return parser;
+
+    DateParser created = new DateParser(pattern);
+    parser = PARSERS.putIfAbsent(pattern, created);
+    return parser == null ? created : parser;
+  }
+
+  public String getPattern() {
+    return pattern;
+  }
+
+  /**
+   * Parses the characters between start and end as a date of the pattern of this parser.
+   *
+   * @throws FormatMismatchException  when the text is not in the pattern of this parser
+   * @throws IllegalArgumentException when the text is in the pattern but is not a valid date, like 31/02/2014
+   */
+  public Date parse(char[] chars, int start, int end) {
+    DateTimeZone zone = DateTimeZone.getDefault();
+    int hash = hash(chars, start, end);
+    int slot = (hash ^ (hash >>> 16)) & (CACHE_SIZE - 1);
+
+    CachedDate cached = cache[slot];
+    if (cached != null && cached.zone == zone && cached.matches(chars, start, end)) return new Date(cached.millis);
+
+    long millis = parseMillis(chars, start, end, zone);
+    cache[slot] = new CachedDate(new String(chars, start, end - start), zone, millis);
+    return new Date(millis);
+  }
+
+  /**
+   * Appends a date in the pattern of this parser, in the default time zone and calendar dates are parsed in.
+   */
+  public void format(Date date, StringBuilder out) {
+    try {
+      formatter.withChronology(GJChronology.getInstance(DateTimeZone.getDefault())).printTo(out, date.getTime());
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private long parseMillis(char[] chars, int start, int end, DateTimeZone zone) {
+    int[] fields = fastPattern == null ? null : matchFastPattern(chars, start, end);
+    if (fields == null && strict) throw new FormatMismatchException(pattern);
+    if (fields == null || fields[0] < FIRST_GREGORIAN_YEAR) return parseWithFormatter(chars, start, end, zone);
+
+    int year = fields[0], month = fields[1], day = fields[2];
+    if (month < 1 || month > 12 || day < 1 || day > daysInMonth(year, month)) {
+      throw new IllegalArgumentException("'" + new String(chars, start, end - start) + "' is not a valid date");
+    }
+    return zone.convertLocalToUTC(daysSinceEpoch(year, month, day) * MILLIS_PER_DAY, false);
+  }
+
+  private long parseWithFormatter(char[] chars, int start, int end, DateTimeZone zone) {
+    try {
+      return formatter.withChronology(GJChronology.getInstance(zone))
+        .parseMillis(new String(chars, start, end - start));
+    } catch (IllegalFieldValueException e) {
+      throw e;
+    } catch (IllegalArgumentException e) {
+      throw new FormatMismatchException(pattern);
+    }
+  }
+
+  /**
+   * Reads the year, month and day of a text in the fast pattern, or gives null when it does not match.
+   */
+  private int[] matchFastPattern(char[] chars, int start, int end) {
+    int[] fields = new int[3];
+    int i = start;
+    for (Object element : fastPattern) {
+      if (element instanceof Character) {
+        if (i == end || chars[i] != (Character) element) return null;
+        i++;
+        continue;
+      }
+
+      int field = (Integer) element;
+      int maxDigits = field == 0 ? 4 : 2;
+      int minDigits = field == 0 ? 4 : 1;
+      int value = 0, digits = 0;
+      while (i < end && digits < maxDigits && chars[i] >= '0' && chars[i] <= '9') {
+        value = value * 10 + (chars[i++] - '0');
+        digits++;
+      }
+      if (digits < minDigits) return null;
+      fields[field] = value;
+    }
+    return i == end ? fields : null;
+  }
+
+  /**
+   * Splits a pattern into literal characters and the indexes of the year, month and day fields, or gives null when
+   * it has other fields, repeats one or has two fields next to each other.
+   */
+  private static List<Object> compile(String pattern) {
+    List<Object> elements = new ArrayList<Object>();
+    boolean[] seen = new boolean[3];
+    boolean lastWasField = false;
+    for (int i = 0; i < pattern.length(); ) {
+      char c = pattern.charAt(i);
+      int run = 1;
+      while (i + run < pattern.length() && pattern.charAt(i + run) == c) run++;
+
+      if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '\'') {
+        int field = c == 'y' && run == 4 ? 0 : c == 'M' && run <= 2 ? 1 : c == 'd' && run <= 2 ? 2 : -1;
+        if (field < 0 || seen[field] || lastWasField) return null;
+        seen[field] = true;
+        elements.add(field);
+        lastWasField = true;
+      } else {
+        for (int j = 0; j < run; j++) elements.add(c);
+        lastWasField = false;
+      }
+      i += run;
+    }
+    return seen[0] && seen[1] && seen[2] ? elements : null;
+  }
+
+  private static int hash(char[] chars, int start, int end) {
+    int hash = 0;
+    for (int i = start; i < end; i++) hash = 31 * hash + chars[i];
+    return hash;
+  }
+
+  private static int daysInMonth(int year, int month) {
+    if (month == 2) return year % 4 == 0 && (year % 100 != 0 || year % 400 == 0) ? 29 : 28;
+    return month == 4 || month == 6 || month == 9 || month == 11 ? 30 : 31;
+  }
+
+  /**
+   * The days from 1970-01-01 in the Gregorian calendar, for years from 0 on.
+   */
+  private static long daysSinceEpoch(int year, int month, int day) {
+    int y = month <= 2 ? year - 1 : year;
+    int era = y / 400;
+    int yearOfEra = y - era * 400;
+    int dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+    int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+    return era * 146097L + dayOfEra - 719468;
+  }
+
+  /**
+   * Thrown when a text is not in the pattern of the parser at all, as opposed to a text in the pattern holding an
+   * invalid date.
+   */
+  public static class FormatMismatchException extends IllegalArgumentException {
+    FormatMismatchException(String pattern) {
+      super("the text does not match the date format '" + pattern + "'");
+    }
+  }
+
+  private static class CachedDate {
+    private final String text;
+    private final DateTimeZone zone;
+    private final long millis;
+
+    private CachedDate(String text, DateTimeZone zone, long millis) {
+      this.text = text;
+      this.zone = zone;
+      this.millis = millis;
+    }
+
+    private boolean matches(char[] chars, int start, int end) {
+      if (text.length() != end - start) return false;
+      for (int i = 0; i < text.length(); i++) {
+        if (text.charAt(i) != chars[start + i]) return false;
+      }
+      return true;
+    }
+  }
+}
@@ -0,0 +1,39 @@
+package org.quickocm.processor;
+
+import org.supercsv.cellprocessor.CellProcessorAdaptor;
+import org.supercsv.cellprocessor.ift.StringCellProcessor;
+import org.supercsv.exception.SuperCsvCellProcessorException;
+import org.supercsv.util.CsvContext;
+
+/**
+ * Converts a cell to a <code>Date</code> of the given pattern through the shared {@link DateParser} of the pattern,
+ * in place of a <code>StrRegEx</code> check followed by <code>ParseDate</code>. It is thread-safe, so a single
+ * instance can serve concurrent uploads.
+ *
+ * @throws DateFormatException when the cell is not in the pattern
+ * @throws SuperCsvCellProcessorException when the cell is in the pattern but is not a valid date
+ */
+public class ParseFormattedDate extends CellProcessorAdaptor implements StringCellProcessor {
+
+  private final DateParser dateParser;
+
+  public ParseFormattedDate(String pattern) {
+    this.dateParser = DateParser.forPattern(pattern);
+  }
+
+  @Override
+  public Object execute(Object value, CsvContext context) {
+    validateInputNotNull(value, context);
+
+    String text = value.toString();
+    char[] chars = text.toCharArray();
+    try {
+      return next.execute(dateParser.parse(chars, 0, chars.length), context);
+    } catch (DateParser.FormatMismatchException e) {
+      throw new DateFormatException(text, dateParser.getPattern(), context, this);
+    } catch (IllegalArgumentException e) {
+      throw new SuperCsvCellProcessorException(String.format("'%s' could not be parsed as a Date", text), context,
+        this, e);
+    }
+  }
+}
@@ -0,0 +1,54 @@
+package org.quickocm.processor;
+
+/**
+ * A bounded cache of the distinct values of a column, handing back the same <code>String</code> instance for
+ * repeated values. Values are looked up from the characters of a cell, so a repeated value creates no
+ * <code>String</code> at all.
+ * <p/>
+ * The cache holds up to {@link #CAPACITY} values in open addressed slots. When the few slots a value may take are
+ * all held by other values, the value replaces one of them, so columns of many distinct values cost no more memory
+ * than the slots and simply share fewer instances. Slots are read and written without locking: a race may leave
+ * two equal instances in use, which is harmless since the cache only saves memory.
+ */
+class StringDictionary {
+
+  static final int CAPACITY = 2048;
+
+  private static final int PROBES = 4;
+
+  private final String[] values = new String[CAPACITY];
+
+  String intern(char[] chars, int start, int end) {
+    int hash = 0;
+    for (int i = start; i < end; i++) hash = 31 * hash + chars[i];
+
+    int home = (hash ^ (hash >>> 16)) & (CAPACITY - 1);
+    for (int probe = 0; probe < PROBES; probe++) {
+      int slot = (home + probe) & (CAPACITY - 1);
+      String value = values[slot];
+      if (value == null) return values[slot] = new String(chars, start, end - start);
+      if (value.hashCode() == hash && matches(value, chars, start, end)) return value;
+    }
+    return values[home] = new String(chars, start, end - start);
+  }
+
+  String intern(String text) {
+    int hash = text.hashCode();
+    int home = (hash ^ (hash >>> 16)) & (CAPACITY - 1);
+    for (int probe = 0; probe < PROBES; probe++) {
+      int slot = (home + probe) & (CAPACITY - 1);
+      String value = values[slot];
+      if (value == null) return values[slot] = text;
+      if (value.hashCode() == hash && value.equals(text)) return value;
+    }
+    return values[home] = text;
+  }
+
+  private static boolean matches(String value, char[] chars, int start, int end) {
+    if (value.length() != end - start) return false;
+    for (int i = 0; i < value.length(); i++) {
+      if (value.charAt(i) != chars[start + i]) return false;
+    }
+    return true;
+  }
+}
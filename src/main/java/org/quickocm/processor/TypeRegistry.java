@@ -0,0 +1,260 @@
+package org.quickocm.processor;
+
+import org.quickocm.binding.Accessors;
+import org.quickocm.exception.UploadException;
+import org.quickocm.model.Field;
+import org.quickocm.model.ModelClass;
+import org.supercsv.cellprocessor.CellProcessorAdaptor;
+import org.supercsv.cellprocessor.Optional;
+import org.supercsv.cellprocessor.constraint.NotNull;
+import org.supercsv.cellprocessor.ift.CellProcessor;
+import org.supercsv.cellprocessor.ift.StringCellProcessor;
+import org.supercsv.exception.SuperCsvCellProcessorException;
+import org.supercsv.util.CsvContext;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Resolves the <code>type</code> of each <code>@ImportField</code> to the conversion of its cells. A registry is
+ * immutable once built, so a single instance can be shared by any number of parsers running at the same time.
+ * <p/>
+ * Besides the types of {@link CsvCellProcessors}, every registry knows these types:
+ * <ul>
+ * <li><code>LocalDate</code>, in ISO format or the <code>format</code> of the field</li>
+ * <li><code>Instant</code>, in ISO format</li>
+ * <li><code>UUID</code></li>
+ * <li><code>enum</code>, by the constant name of the enum type of the field</li>
+ * </ul>
+ * Types registered through converters are compiled into a single {@link CharCellProcessor} per column, which checks
+ * for empty cells and converts in one call instead of going through a chain of <code>NotNull</code> or
+ * <code>Optional</code> and the converting processor. Conversion failures are reported as
+ * <code>incorrect.data.type</code>.
+ * <p/>
+ * Types that are neither known to the registry nor mapped in <code>CsvCellProcessors.typeMappings</code> are reported
+ * as <code>error.upload.type.unknown</code> with the type and the field.
+ *
+ * <pre>
+ * TypeRegistry typeRegistry = TypeRegistry.builder()
+ *   .register("Money", Money::parse)
+ *   .register("Status", Status.class)
+ *   .build();
+ * csvParser.setTypeRegistry(typeRegistry);
+ * </pre>
+ */
+public final class TypeRegistry {
+
+  private static final TypeRegistry DEFAULT = builder().build();
+
+  private final Map<String, Function<Field, Function<String, ?>>> converters;
+  private final Map<String, CellProcessor> processors;
+  private final Set<String> registeredTypes;
+
+  private TypeRegistry(Builder builder) {
+    this.converters = new HashMap<String, Function<Field, Function<String, ?>>>(builder.converters);
+    this.processors = new HashMap<String, CellProcessor>(builder.processors);
+    this.registeredTypes = new HashSet<String>(builder.registeredTypes);
+  }
+
+  /**
+   * The registry of the built in types.
+   * <p/>
+   * The types of <code>CsvCellProcessors</code> are converted through the processors mapped to them in
+   * <code>CsvCellProcessors.typeMappings</code>, unless they have been registered in the registry, so they can still be
+   * replaced there. Types added to <code>typeMappings</code> that no registry knows are converted through their
+   * processor too.
+   */
+  public static TypeRegistry getDefault() {
+    return DEFAULT;
+  }
+
+  /**
+   * Starts a registry with the built in types, any of which can be replaced.
+   */
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * Whether the cells of a type are converted by this registry rather than by <code>CsvCellProcessors</code>, in
+   * which case they may be converted to objects of any type.
+   */
+  public boolean isRegistered(String type) {
+    return !isMappedInCsvCellProcessors(type) && (converters.containsKey(type) || processors.containsKey(type));
+  }
+
+  public List<CellProcessor> getProcessors(ModelClass modelClass, List<String> headers) {
+    List<CellProcessor> cellProcessors = new ArrayList<CellProcessor>();
+
+    for (Field field : modelClass.getColumnFields(headers.toArray(new String[headers.size()]))) {
+      cellProcessors.add(getProcessor(field));
+    }
+    return cellProcessors;
+  }
+
+  /**
+   * Gives the processors converting the columns of the given headers straight from the characters of a row, null
+   * for the columns that are converted through their cell processor.
+   */
+  public CharCellProcessor[] getCharProcessors(ModelClass modelClass, List<String> headers) {
+    Field[] columnFields = modelClass.getColumnFields(headers.toArray(new String[headers.size()]));
+    CharCellProcessor[] charProcessors = new CharCellProcessor[columnFields.length];
+
+    for (int i = 0; i < columnFields.length; i++) {
+      charProcessors[i] = getCharProcessor(columnFields[i]);
+    }
+    return charProcessors;
+  }
+
+  CellProcessor getProcessor(Field field) {
+    if (field == null) return null;
+
+    String type = field.getType();
+    if (isMappedInCsvCellProcessors(type)) return CsvCellProcessors.getProcessor(field);
+    if (converters.containsKey(type)) return wrap(field, new ParseWith(type, getConverter(field)));
+    if (processors.containsKey(type)) return wrap(field, processors.get(type));
+    throw new UploadException("error.upload.type.unknown", type, field.getFieldNameMapping());
+  }
+
+  CharCellProcessor getCharProcessor(Field field) {
+    if (field == null) return null;
+
+    String type = field.getType();
+    if (isMappedInCsvCellProcessors(type)) return CsvCellProcessors.getCharProcessor(field);
+    if (converters.containsKey(type)) {
+      return new CharCellProcessor.ConverterProcessor(field.isMandatory(), getProcessor(field), type,
+        getConverter(field));
+    }
+    return null;
+  }
+
+  /**
+   * The converter of the type of a field, sharing the repeated strings it gives when the field is interned.
+   */
+  private Function<String, ?> getConverter(Field field) {
+    Function<String, ?> converter = converters.get(field.getType()).apply(field);
+    if (!field.isIntern()) return converter;
+
+    StringDictionary dictionary = new StringDictionary();
+    return converter.andThen(value -> value instanceof String ? dictionary.intern((String) value) : value);
+  }
+
+  /**
+   * Whether a type is converted through <code>CsvCellProcessors.typeMappings</code>: a built in type that has not been
+   * registered in this registry, or a type this registry does not know that an application has mapped there.
+   */
+  private boolean isMappedInCsvCellProcessors(String type) {
+    if (registeredTypes.contains(type)) return false;
+    if (CsvCellProcessors.isBuiltIn(type)) return true;
+    return !converters.containsKey(type) && !processors.containsKey(type) && CsvCellProcessors.isMapped(type);
+  }
+
+  private static CellProcessor wrap(Field field, CellProcessor processor) {
+    return field.isMandatory() ? new NotNull(processor) : new Optional(processor);
+  }
+
+  private static Function<String, ?> localDate(Field field) {
+    if (field.getFormat().isEmpty()) return LocalDate::parse;
+
+    DateTimeFormatter formatter = DateTimeFormatter.ofPattern(field.getFormat());
+    return text -> LocalDate.parse(text, formatter);
+  }
+
+  private static Function<String, ?> enumConstant(Field field) {
+    Class type = field.getField().getType();
+    for (String property : field.getNested().isEmpty() ? new String[0] : field.getNested().split("\\.")) {
+      type = Accessors.propertyType(type, property);
+    }
+    if (!type.isEnum()) {
+      throw new IllegalArgumentException(field.getFieldNameMapping() + " is not an enum, but is of type enum");
+    }
+    @SuppressWarnings("unchecked")
+    Function<String, ?> converter = enumConstant(type);
+    return converter;
+  }
+
+  private static <E extends Enum<E>> Function<String, E> enumConstant(Class<E> enumClass) {
+    return text -> Enum.valueOf(enumClass, text);
+  }
+
+  public static class Builder {
+    private final Map<String, Function<Field, Function<String, ?>>> converters =
+      new HashMap<String, Function<Field, Function<String, ?>>>();
+    private final Map<String, CellProcessor> processors = new HashMap<String, CellProcessor>();
+    private final Set<String> registeredTypes = new HashSet<String>();
+
+    private Builder() {
+      converters.put("LocalDate", TypeRegistry::localDate);
+      converters.put("Instant", field -> Instant::parse);
+      converters.put("UUID", field -> UUID::fromString);
+      converters.put("enum", TypeRegistry::enumConstant);
+    }
+
+    /**
+     * Registers a type converted by a function of the text of its cells, which fails with a runtime exception on
+     * texts it can not convert. The function must be thread-safe.
+     */
+    public Builder register(String type, Function<String, ?> converter) {
+      processors.remove(type);
+      converters.put(type, field -> converter);
+      registeredTypes.add(type);
+      return this;
+    }
+
+    /**
+     * Registers a type converted to the constants of an enum by their name.
+     */
+    public <E extends Enum<E>> Builder register(String type, Class<E> enumClass) {
+      return register(type, enumConstant(enumClass));
+    }
+
+    /**
+     * Registers a type converted by a SuperCSV cell processor, which is wrapped in <code>NotNull</code> or
+     * <code>Optional</code> depending on the field. The processor must be thread-safe.
+     */
+    public Builder registerProcessor(String type, CellProcessor processor) {
+      converters.remove(type);
+      processors.put(type, processor);
+      registeredTypes.add(type);
+      return this;
+    }
+
+    public TypeRegistry build() {
+      return new TypeRegistry(this);
+    }
+  }
+
+  /**
+   * Runs a converter of a registered type, for the cells that are not converted from the characters of the row.
+   */
+  private static class ParseWith extends CellProcessorAdaptor implements StringCellProcessor {
+    private final String type;
+    private final Function<String, ?> converter;
+
+    private ParseWith(String type, Function<String, ?> converter) {
+      this.type = type;
+      this.converter = converter;
+    }
+
+    @Override
+    public Object execute(Object value, CsvContext context) {
+      validateInputNotNull(value, context);
+      try {
+        return next.execute(converter.apply(value.toString()), context);
+      } catch (RuntimeException e) {
+        if (e instanceof SuperCsvCellProcessorException) throw e;
+        throw new SuperCsvCellProcessorException(String.format("'%s' could not be parsed as %s", value, type),
+          context, this, e);
+      }
+    }
+  }
+}
@@ -0,0 +1,41 @@
+package org.quickocm.binding;
+
+import org.junit.Test;
+import org.quickocm.model.DummyImportable;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class AccessorsTest {
+
+  @Test
+  public void shouldSetPrimitivesThroughSettersOfPublicClasses() {
+    DummyImportable imported = new DummyImportable();
+
+    Accessors.intSetter(DummyImportable.class, "optionalIntField").accept(imported, 42);
+
+    assertThat(imported.getOptionalIntField(), is(42));
+  }
+
+  @Test
+  public void shouldSetPrimitiveFieldsOfNonPublicClasses() {
+    Primitives primitives = new Primitives();
+
+    Accessors.intSetter(Primitives.class, "count").accept(primitives, 5);
+    Accessors.longSetter(Primitives.class, "total").accept(primitives, 6L);
+    Accessors.doubleSetter(Primitives.class, "ratio").accept(primitives, 0.5);
+    Accessors.booleanSetter(Primitives.class, "active").accept(primitives, true);
+
+    assertThat(primitives.count, is(5));
+    assertThat(primitives.total, is(6L));
+    assertThat(primitives.ratio, is(0.5));
+    assertThat(primitives.active, is(true));
+  }
+
+  static class Primitives {
+    private int count;
+    private long total;
+    private double ratio;
+    private boolean active;
+  }
+}
@@ -0,0 +1,77 @@
+package org.quickocm.binding;
+
+import org.junit.Test;
+import org.quickocm.model.DummyImportable;
+import org.quickocm.model.DummyNestedField;
+
+import java.util.Date;
+
+import static java.util.Arrays.asList;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+public class BeanResetterTest {
+
+  private static final String[] MAPPINGS = {"mandatoryStringField", "mandatoryIntField", "optionalDateField",
+    "dummyNestedField.code", "multipleNestedFields.entityCode1", null};
+
+  @Test
+  public void shouldResetMappedPropertiesAndKeepNestedObjects() {
+    DummyImportable bean = new CompiledBeanBinder<DummyImportable>(DummyImportable.class, MAPPINGS)
+      .bind(asList((Object) "Random1", 23, new Date(), "code", "code-1", "ignored"));
+    DummyNestedField nestedField = bean.getDummyNestedField();
+    bean.setNonAnnotatedField("not mapped");
+    bean.getMultipleNestedFields().setEntityCode2("not mapped");
+
+    new BeanResetter<DummyImportable>(DummyImportable.class, MAPPINGS).reset(bean);
+
+    assertThat(bean.getMandatoryStringField(), is(nullValue()));
+    assertThat(bean.getMandatoryIntField(), is(0));
+    assertThat(bean.getOptionalDateField(), is(nullValue()));
+    assertThat(bean.getDummyNestedField(), is(sameInstance(nestedField)));
+    assertThat(bean.getDummyNestedField().getCode(), is(nullValue()));
+    assertThat(bean.getMultipleNestedFields().getEntityCode1(), is(nullValue()));
+    assertThat(bean.getMultipleNestedFields().getEntityCode2(), is("not mapped"));
+    assertThat(bean.getNonAnnotatedField(), is("not mapped"));
+  }
+
+  @Test
+  public void shouldResetPropertiesToTheValuesOfTheirInitializers() {
+    Order order = new Order();
+    order.status = "SHIPPED";
+    order.quantity = 12;
+    order.note = "fragile";
+    order.address.country = "FR";
+
+    new BeanResetter<Order>(Order.class, new String[]{"status", "quantity", "note", "address.country"}).reset(order);
+
+    assertThat(order.status, is("NEW"));
+    assertThat(order.quantity, is(1));
+    assertThat(order.note, is(nullValue()));
+    assertThat(order.address.country, is("IN"));
+  }
+
+  @Test
+  public void shouldLeaveNullNestedObjectsNull() {
+    DummyImportable bean = new DummyImportable();
+    bean.setMandatoryIntField(7);
+
+    new BeanResetter<DummyImportable>(DummyImportable.class, MAPPINGS).reset(bean);
+
+    assertThat(bean.getMandatoryIntField(), is(0));
+    assertThat(bean.getDummyNestedField(), is(nullValue()));
+  }
+
+  static class Order {
+    String status = "NEW";
+    int quantity = 1;
+    String note;
+    Address address = new Address();
+  }
+
+  static class Address {
+    String country = "IN";
+  }
+}
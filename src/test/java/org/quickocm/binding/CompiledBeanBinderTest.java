@@ -0,0 +1,59 @@
+package org.quickocm.binding;
+
+import org.junit.Test;
+import org.quickocm.model.DummyImportable;
+
+import java.util.Date;
+
+import static java.util.Arrays.asList;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class CompiledBeanBinderTest {
+
+  @Test
+  public void shouldSetFlatAndNestedProperties() {
+    String[] mappings = {"mandatoryStringField", "mandatoryIntField", "dummyNestedField.code",
+      "multipleNestedFields.entityCode1", "multipleNestedFields.entityCode2", null};
+    Date date = new Date();
+
+    CompiledBeanBinder<DummyImportable> binder = new CompiledBeanBinder<DummyImportable>(DummyImportable.class, mappings);
+    DummyImportable imported = binder.bind(asList((Object) "Random1", 23, "code", "code-1", "code-2", date));
+
+    assertThat(imported.getMandatoryStringField(), is("Random1"));
+    assertThat(imported.getMandatoryIntField(), is(23));
+    assertThat(imported.getDummyNestedField().getCode(), is("code"));
+    assertThat(imported.getMultipleNestedFields().getEntityCode1(), is("code-1"));
+    assertThat(imported.getMultipleNestedFields().getEntityCode2(), is("code-2"));
+    assertThat(imported.getOptionalDateField(), is(nullValue()));
+  }
+
+  @Test
+  public void shouldNotSetNullValuesNorCreateNestedObjectsForThem() {
+    String[] mappings = {"mandatoryStringField", "mandatoryIntField", "dummyNestedField.code"};
+
+    CompiledBeanBinder<DummyImportable> binder = new CompiledBeanBinder<DummyImportable>(DummyImportable.class, mappings);
+    DummyImportable imported = binder.bind(asList((Object) null, null, null));
+
+    assertThat(imported.getMandatoryStringField(), is(nullValue()));
+    assertThat(imported.getMandatoryIntField(), is(0));
+    assertThat(imported.getDummyNestedField(), is(nullValue()));
+  }
+
+  @Test
+  public void shouldSetFieldsWithoutSettersOfNonPublicClasses() {
+    CompiledBeanBinder<WithoutSetters> binder = new CompiledBeanBinder<WithoutSetters>(WithoutSetters.class,
+      new String[]{"count", "name"});
+
+    WithoutSetters imported = binder.bind(asList((Object) 5, "name"));
+
+    assertThat(imported.count, is(5));
+    assertThat(imported.name, is("name"));
+  }
+
+  static class WithoutSetters {
+    private int count;
+    private String name;
+  }
+}
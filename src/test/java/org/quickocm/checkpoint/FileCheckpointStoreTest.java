@@ -0,0 +1,64 @@
+package org.quickocm.checkpoint;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static java.util.Arrays.asList;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class FileCheckpointStoreTest {
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Test
+  public void shouldSaveLoadAndClearCheckpoint() throws IOException {
+    Path path = new File(temporaryFolder.getRoot(), "import.checkpoint").toPath();
+    FileCheckpointStore store = new FileCheckpointStore(path);
+    assertThat(store.load(), is(nullValue()));
+
+    Checkpoint checkpoint = new Checkpoint(12345678901L, 120, 101, "UTF-8",
+      asList("mandatory string field", "Zürich, \"quoted\"=\n", null));
+    store.save(checkpoint);
+    store.save(checkpoint);
+
+    assertThat(new FileCheckpointStore(path).load(), is(checkpoint));
+    assertThat(Files.exists(path.resolveSibling("import.checkpoint.tmp")), is(false));
+
+    store.clear();
+    assertThat(store.load(), is(nullValue()));
+  }
+
+  @Test
+  public void shouldFailWithIOExceptionOnCorruptCheckpoint() throws IOException {
+    Path path = new File(temporaryFolder.getRoot(), "import.checkpoint").toPath();
+    FileCheckpointStore store = new FileCheckpointStore(path);
+    store.save(new Checkpoint(12345678901L, 120, 101, "UTF-8", asList("mandatory string field")));
+    byte[] saved = Files.readAllBytes(path);
+
+    String[] corruptions = {
+      new String(saved, 0, saved.length / 2, StandardCharsets.ISO_8859_1),
+      new String(saved, StandardCharsets.ISO_8859_1).replace("rowNumber=101", "rowNumber=1x1"),
+      new String(saved, StandardCharsets.ISO_8859_1).replace("headers=1", "headers=-1"),
+      "byteOffset=1\\u12"
+    };
+    for (String corruption : corruptions) {
+      Files.write(path, corruption.getBytes(StandardCharsets.ISO_8859_1));
+      try {
+        store.load();
+        fail("a corrupt checkpoint should fail loading: " + corruption);
+      } catch (IOException expected) {
+      }
+    }
+  }
+}
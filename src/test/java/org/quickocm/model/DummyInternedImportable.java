@@ -0,0 +1,42 @@
+package org.quickocm.model;
+
+import org.quickocm.annotation.ImportField;
+import org.quickocm.annotation.ImportFields;
+
+public class DummyInternedImportable {
+
+  @ImportField(mandatory = true, type = "String", intern = true)
+  String status;
+
+  @ImportField(type = "String")
+  String label;
+
+  @ImportFields(importFields = {
+    @ImportField(type = "String", name = "entity 1 code", nested = "entityCode1", intern = true),
+    @ImportField(type = "String", name = "entity 2 code", nested = "entityCode2")})
+  DummyNestedField entityCodes;
+
+  public String getStatus() {
+    return status;
+  }
+
+  public void setStatus(String status) {
+    this.status = status;
+  }
+
+  public String getLabel() {
+    return label;
+  }
+
+  public void setLabel(String label) {
+    this.label = label;
+  }
+
+  public DummyNestedField getEntityCodes() {
+    return entityCodes;
+  }
+
+  public void setEntityCodes(DummyNestedField entityCodes) {
+    this.entityCodes = entityCodes;
+  }
+}
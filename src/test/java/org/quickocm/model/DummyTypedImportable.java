@@ -0,0 +1,67 @@
+package org.quickocm.model;
+
+import org.quickocm.annotation.ImportField;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.UUID;
+
+public class DummyTypedImportable {
+
+  public enum Status {ACTIVE, INACTIVE}
+
+  @ImportField(mandatory = true, type = "UUID")
+  UUID id;
+
+  @ImportField(type = "LocalDate", name = "start date", format = "dd/MM/yyyy")
+  LocalDate startDate;
+
+  @ImportField(type = "Instant")
+  Instant createdAt;
+
+  @ImportField(type = "enum")
+  Status status;
+
+  @ImportField(type = "Code")
+  String code;
+
+  public UUID getId() {
+    return id;
+  }
+
+  public void setId(UUID id) {
+    this.id = id;
+  }
+
+  public LocalDate getStartDate() {
+    return startDate;
+  }
+
+  public void setStartDate(LocalDate startDate) {
+    this.startDate = startDate;
+  }
+
+  public Instant getCreatedAt() {
+    return createdAt;
+  }
+
+  public void setCreatedAt(Instant createdAt) {
+    this.createdAt = createdAt;
+  }
+
+  public Status getStatus() {
+    return status;
+  }
+
+  public void setStatus(Status status) {
+    this.status = status;
+  }
+
+  public String getCode() {
+    return code;
+  }
+
+  public void setCode(String code) {
+    this.code = code;
+  }
+}
@@ -10,6 +10,7 @@ import java.util.List;
 
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
 import static org.junit.Assert.assertThat;
 
 public class ModelClassTest {
@@ -89,4 +90,29 @@ public class ModelClassTest {
         ModelClass modelClass = new ModelClass(DummyImportable.class);
         modelClass.validateHeaders(headers);
     }
+
+    @Test
+    public void shouldResolveColumnFieldsIgnoringCaseAndLeaveUnmappedColumnsEmpty() {
+        ModelClass modelClass = new ModelClass(DummyImportable.class);
+
+        Field[] columnFields = modelClass.getColumnFields(new String[]{"ENTITY 2 CODE", "unknown", "mandatoryintfield"});
+
+        assertThat(columnFields[0].getFieldNameMapping(), is("multipleNestedFields.entityCode2"));
+        assertThat(columnFields[1], is(nullValue()));
+        assertThat(columnFields[2].getFieldNameMapping(), is("mandatoryIntField"));
+    }
+
+    @Test
+    public void shouldReportRepeatedHeaderAsInvalid() {
+        List<String> headers = new ArrayList<String>() {{
+            add("mandatory string field");
+            add("mandatoryIntField");
+            add("MandatoryIntField");
+        }};
+
+        expectedEx.expect(equalTo(new UploadException("error.upload.invalid.header", "[mandatoryintfield]")));
+
+        ModelClass modelClass = new ModelClass(DummyImportable.class);
+        modelClass.validateHeaders(headers);
+    }
 }
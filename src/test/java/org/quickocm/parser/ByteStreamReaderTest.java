@@ -0,0 +1,111 @@
+package org.quickocm.parser;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class ByteStreamReaderTest {
+
+  private static final String TEXT = "name, city\nJosé, Zürich\n\"日本\", 😀 emoji\nplain, ascii\n";
+
+  @Test
+  public void shouldDecodeUtf8LikeInputStreamReaderWithAnyBufferSize() throws IOException {
+    byte[] bytes = TEXT.getBytes(StandardCharsets.UTF_8);
+    for (int bufferSize : new int[]{1, 16, 17, 64, ByteStreamReader.DEFAULT_BUFFER_SIZE}) {
+      for (int readSize : new int[]{1, 2, 3, 7, 1000}) {
+        assertThat(readAll(new ByteStreamReader(new ByteArrayInputStream(bytes), StandardCharsets.UTF_8, bufferSize),
+          readSize), is(TEXT));
+      }
+    }
+  }
+
+  @Test
+  public void shouldReplaceMalformedInputLikeInputStreamReader() throws IOException {
+    byte[] bytes = {'a', (byte) 0xc3, 'b', (byte) 0xe6, (byte) 0x97, ',', (byte) 0xff, 'c', (byte) 0xf0, (byte) 0x9f};
+    String expected = readAll(new InputStreamReader(new ByteArrayInputStream(bytes), StandardCharsets.UTF_8), 1000);
+
+    assertThat(readAll(new ByteStreamReader(new ByteArrayInputStream(bytes), StandardCharsets.UTF_8, 16), 1000),
+      is(expected));
+    assertThat(readAll(new ByteStreamReader(new ByteArrayInputStream(bytes), StandardCharsets.UTF_8, 16), 2),
+      is(expected));
+  }
+
+  @Test
+  public void shouldTellByteOffsetsOfCharactersDecodedFromMalformedInput() throws IOException {
+    byte[] bytes = {'a', (byte) 0xff, 'b', (byte) 0x80, (byte) 0x80, 'c', (byte) 0xc3, 'd', (byte) 0xc3, (byte) 0xa9,
+      (byte) 0xf0, (byte) 0x9f, (byte) 0x98, (byte) 0x80, 'e', '\n'};
+    long[] offsets = {0, 1, 2, 3, 4, 5, 6, 7, 8, 10, -1, 14, 15, 16};
+
+    for (int bufferSize : new int[]{16, 17, 64}) {
+      for (int readSize : new int[]{1, 2, 3, 1000}) {
+        ByteStreamReader reader = new ByteStreamReader(new ByteArrayInputStream(bytes), StandardCharsets.UTF_8,
+          bufferSize);
+        char[] chars = new char[readSize];
+        int before = 0, read;
+        while ((read = reader.read(chars, 0, readSize)) >= 0) {
+          for (int count = 0; count <= read; count++) {
+            long expected = offsets[before + count];
+            if (expected >= 0) assertThat(reader.getByteOffset(count), is(expected));
+          }
+          before += read;
+        }
+        assertThat(before, is(offsets.length - 1));
+      }
+    }
+  }
+
+  @Test
+  public void shouldDecodeOtherCharsets() throws IOException {
+    for (Charset charset : new Charset[]{StandardCharsets.ISO_8859_1, StandardCharsets.UTF_16LE,
+      Charset.forName("windows-1252")}) {
+      String text = charset.newEncoder().canEncode(TEXT) ? TEXT : "name, city\nJosé, Zürich\n";
+      byte[] bytes = text.getBytes(charset);
+
+      assertThat(readAll(new ByteStreamReader(new ByteArrayInputStream(bytes), charset, 16), 5), is(text));
+    }
+  }
+
+  @Test
+  public void shouldSkipByteOrderMarkAndDecodeInItsCharset() throws IOException {
+    byte[] utf8 = concat(new byte[]{(byte) 0xef, (byte) 0xbb, (byte) 0xbf}, TEXT.getBytes(StandardCharsets.UTF_8));
+    ByteStreamReader reader = new ByteStreamReader(new ByteArrayInputStream(utf8), StandardCharsets.ISO_8859_1, 16);
+    assertThat(readAll(reader, 100), is(TEXT));
+    assertThat(reader.getCharset(), is(StandardCharsets.UTF_8));
+
+    byte[] utf16 = concat(new byte[]{(byte) 0xfe, (byte) 0xff}, TEXT.getBytes(StandardCharsets.UTF_16BE));
+    assertThat(readAll(new ByteStreamReader(new ByteArrayInputStream(utf16), StandardCharsets.UTF_8, 16), 100),
+      is(TEXT));
+  }
+
+  @Test
+  public void shouldReadEmptyAndTinyInput() throws IOException {
+    assertThat(readAll(new ByteStreamReader(new ByteArrayInputStream(new byte[0]), StandardCharsets.UTF_8, 16), 10),
+      is(""));
+    assertThat(readAll(new ByteStreamReader(new ByteArrayInputStream(new byte[]{'a'}), StandardCharsets.UTF_8, 16),
+      10), is("a"));
+  }
+
+  private static String readAll(Reader reader, int readSize) throws IOException {
+    StringBuilder text = new StringBuilder();
+    char[] chars = new char[readSize];
+    int read;
+    while ((read = reader.read(chars, 0, readSize)) >= 0) text.append(chars, 0, read);
+    reader.close();
+    return text.toString();
+  }
+
+  private static byte[] concat(byte[] first, byte[] second) {
+    byte[] bytes = new byte[first.length + second.length];
+    System.arraycopy(first, 0, bytes, 0, first.length);
+    System.arraycopy(second, 0, bytes, first.length, second.length);
+    return bytes;
+  }
+}
@@ -0,0 +1,211 @@
+package org.quickocm.parser;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.quickocm.ColumnBatchHandler;
+import org.quickocm.annotation.ImportField;
+import org.quickocm.exception.InvalidRowsException;
+import org.quickocm.exception.UploadException;
+import org.quickocm.model.DummyImportable;
+
+import java.io.ByteArrayInputStream;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import static java.util.Arrays.asList;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class ColumnBatchTest {
+
+  private static final String ENCODING = "UTF-8";
+
+  @Rule
+  public ExpectedException expectedEx = ExpectedException.none();
+
+  private CsvParser<Object> csvParser;
+
+  @Before
+  public void setUp() {
+    csvParser = new CsvParser<Object>();
+  }
+
+  @Test
+  public void shouldHandRowsOverInBatchesOfPrimitiveColumns() throws Exception {
+    String csvInput =
+      "count, total, ratio, active\n" +
+        "1, 10000000000, 0.5, true\n" +
+        "2, , 1.5, false\n" +
+        "3, 30, , \n" +
+        "4, 40, 4.5, true\n" +
+        "5, 50, 5.5, false\n";
+    csvParser.setBatchSize(2);
+    final List<ColumnBatch> batches = new ArrayList<ColumnBatch>();
+    final List<String> rows = new ArrayList<String>();
+
+    int rowNumber = csvParser.processColumnar(new ByteArrayInputStream(csvInput.getBytes(ENCODING)), Measures.class,
+      new ColumnBatchHandler() {
+        @Override
+        public void execute(ColumnBatch batch, int firstRowNumber, int lastRowNumber, Map supplementaryInfo) {
+          batches.add(batch);
+          ColumnVector.IntVector counts = (ColumnVector.IntVector) batch.getColumn("COUNT");
+          ColumnVector.LongVector totals = (ColumnVector.LongVector) batch.getColumn("total");
+          ColumnVector.DoubleVector ratios = (ColumnVector.DoubleVector) batch.getColumn("ratio");
+          ColumnVector.BooleanVector actives = (ColumnVector.BooleanVector) batch.getColumn("active");
+          for (int row = 0; row < batch.size(); row++) {
+            rows.add(firstRowNumber + "-" + lastRowNumber + ": " + counts.get(row) + " " +
+              (totals.isNull(row) ? "null" : totals.get(row)) + " " + (ratios.isNull(row) ? "null" : ratios.get(row)) +
+              " " + (actives.isNull(row) ? "null" : actives.get(row)));
+          }
+        }
+      });
+
+    assertThat(rowNumber, is(5));
+    assertThat(rows, is(asList("2-3: 1 10000000000 0.5 true", "2-3: 2 null 1.5 false", "4-5: 3 30 null null",
+      "4-5: 4 40 4.5 true", "6-6: 5 50 5.5 false")));
+    assertThat(batches.size(), is(3));
+    assertThat(batches.get(1), is(sameInstance(batches.get(0))));
+    assertThat(batches.get(2), is(sameInstance(batches.get(0))));
+  }
+
+  @Test
+  public void shouldDictionaryEncodeStringColumnsAndKeepOtherTypesAsObjects() throws Exception {
+    String csvInput =
+      "mandatory string field, mandatoryIntField, optionalStringField, OPTIONAL DATE FIELD, entity 1 code\n" +
+        "Red, 1, , 13/02/1989, e1\n" +
+        " Blue , 2, x, , e2\n" +
+        "Red, 3, x, 20/02/1986, e1\n";
+    final List<String> rows = new ArrayList<String>();
+
+    csvParser.processColumnar(new ByteArrayInputStream(csvInput.getBytes(ENCODING)), DummyImportable.class,
+      new ColumnBatchHandler() {
+        @Override
+        public void execute(ColumnBatch batch, int firstRowNumber, int lastRowNumber, Map supplementaryInfo) {
+          assertThat(batch.getColumns().size(), is(5));
+          ColumnVector.StringVector names = (ColumnVector.StringVector) batch.getColumn("mandatory string field");
+          ColumnVector.StringVector optionals = (ColumnVector.StringVector) batch.getColumn("optionalStringField");
+          ColumnVector.StringVector codes = (ColumnVector.StringVector) batch.getColumn("entity 1 code");
+          assertThat(batch.getColumn("OPTIONAL DATE FIELD"), is(instanceOf(ColumnVector.ObjectVector.class)));
+          ColumnVector.ObjectVector dates = (ColumnVector.ObjectVector) batch.getColumn("OPTIONAL DATE FIELD");
+
+          assertThat(names.getDictionarySize(), is(2));
+          assertThat(names.getDictionaryValue(names.getCode(2)), is("Red"));
+          for (int row = 0; row < batch.size(); row++) {
+            rows.add(names.getCode(row) + " " + names.get(row) + " " + optionals.get(row) + " " +
+              optionals.isNull(row) + " " + codes.get(row) + " " + dates.get(row));
+          }
+          assertThat(names.get(0), is(sameInstance(names.get(2))));
+        }
+      });
+
+    SimpleDateFormat dateFormat = new SimpleDateFormat("dd/MM/yyyy");
+    Date first = dateFormat.parse("13/02/1989");
+    Date third = dateFormat.parse("20/02/1986");
+    assertThat(rows, is(asList("0 Red null true e1 " + first, "1 Blue x false e2 null", "0 Red x false e1 " + third)));
+  }
+
+  @Test
+  public void shouldReportInvalidCellsWithTheirRecordNumber() throws Exception {
+    String csvInput =
+      "mandatory string field, mandatoryIntField\n" +
+        "Random1, 1\n" +
+        "Random2, not a number\n";
+
+    expectedEx.expect(equalTo(new UploadException("incorrect.data.type", "mandatoryIntField", "record.number.2")));
+
+    csvParser.processColumnar(new ByteArrayInputStream(csvInput.getBytes(ENCODING)), DummyImportable.class,
+      new ColumnBatchHandler() {
+        @Override
+        public void execute(ColumnBatch batch, int firstRowNumber, int lastRowNumber, Map supplementaryInfo) {
+        }
+      });
+  }
+
+  @Test
+  public void shouldLeaveOutRejectedRowsWhenCollectingErrors() throws Exception {
+    String csvInput =
+      "mandatory string field, mandatoryIntField\n" +
+        "Random1, 1\n" +
+        ", 2\n" +
+        "Random3, 3\n";
+    csvParser.setCollectErrors(true);
+    final List<Integer> counts = new ArrayList<Integer>();
+
+    try {
+      csvParser.processColumnar(new ByteArrayInputStream(csvInput.getBytes(ENCODING)), DummyImportable.class,
+        new ColumnBatchHandler() {
+          @Override
+          public void execute(ColumnBatch batch, int firstRowNumber, int lastRowNumber, Map supplementaryInfo) {
+            ColumnVector.IntVector ints = (ColumnVector.IntVector) batch.getColumn("mandatoryIntField");
+            for (int row = 0; row < batch.size(); row++) counts.add(ints.get(row));
+          }
+        });
+      fail("rejected rows should be reported");
+    } catch (InvalidRowsException e) {
+      assertThat(e.getErrorReport().getErrors().size(), is(1));
+    }
+
+    assertThat(counts, is(asList(1, 3)));
+  }
+
+  @Test
+  public void shouldReportFailureOfHandlerWithTheRecordsOfTheBatch() throws Exception {
+    String csvInput =
+      "mandatory string field, mandatoryIntField\n" +
+        "Random1, 1\n" +
+        "Random2, 2\n" +
+        "Random3, 3\n";
+    csvParser.setBatchSize(2);
+
+    expectedEx.expect(equalTo(new UploadException("error.upload.batch.failed", "batch.number.2", "record.number.3",
+      "record.number.3")));
+
+    csvParser.processColumnar(new ByteArrayInputStream(csvInput.getBytes(ENCODING)), DummyImportable.class,
+      new ColumnBatchHandler() {
+        @Override
+        public void execute(ColumnBatch batch, int firstRowNumber, int lastRowNumber, Map supplementaryInfo) {
+          if (batch.size() == 1) throw new IllegalStateException("warehouse unavailable");
+        }
+      });
+  }
+
+  @Test
+  public void shouldHaveNoColumnForAFieldMissingFromTheCsv() throws Exception {
+    String csvInput = "mandatory string field, mandatoryIntField\nRandom1, 1\n";
+    final List<ColumnVector> missing = new ArrayList<ColumnVector>();
+
+    csvParser.processColumnar(new ByteArrayInputStream(csvInput.getBytes(ENCODING)), DummyImportable.class,
+      new ColumnBatchHandler() {
+        @Override
+        public void execute(ColumnBatch batch, int firstRowNumber, int lastRowNumber, Map supplementaryInfo) {
+          missing.add(batch.getColumn("optionalStringField"));
+        }
+      });
+
+    assertThat(missing.get(0), is(nullValue()));
+  }
+
+  static class Measures {
+    @ImportField(mandatory = true, type = "int")
+    int count;
+
+    @ImportField(type = "long")
+    long total;
+
+    @ImportField(type = "double")
+    double ratio;
+
+    @ImportField(type = "boolean")
+    boolean active;
+  }
+}
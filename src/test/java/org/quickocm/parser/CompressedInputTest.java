@@ -0,0 +1,126 @@
+package org.quickocm.parser;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class CompressedInputTest {
+
+  private static final byte[] CSV = csv(20000);
+
+  @Test
+  public void shouldDecompressGzipInputOnSeparateThread() throws IOException {
+    ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+    try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+      gzip.write(CSV);
+    }
+
+    InputStream inputStream = CompressedInput.open(new ByteArrayInputStream(compressed.toByteArray()));
+
+    assertThat(inputStream, is(instanceOf(PipelinedInputStream.class)));
+    assertThat(readAll(inputStream), is(CSV));
+  }
+
+  @Test
+  public void shouldDecompressZlibInput() throws IOException {
+    ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+    try (DeflaterOutputStream deflater = new DeflaterOutputStream(compressed)) {
+      deflater.write(CSV);
+    }
+
+    assertThat(readAll(CompressedInput.open(new ByteArrayInputStream(compressed.toByteArray()))), is(CSV));
+  }
+
+  @Test
+  public void shouldPassPlainInputThrough() throws IOException {
+    for (String plain : new String[]{"", "a", "x^,b\n1,2\n", "a,b\n1,2\n"}) {
+      byte[] bytes = plain.getBytes("UTF-8");
+      InputStream inputStream = CompressedInput.open(new ByteArrayInputStream(bytes));
+
+      assertThat(inputStream instanceof PipelinedInputStream, is(false));
+      assertThat(readAll(inputStream), is(bytes));
+    }
+  }
+
+  @Test
+  public void shouldReportCorruptCompressedInputWhenReadingReachesIt() throws IOException {
+    ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+    try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+      gzip.write(CSV);
+    }
+    byte[] truncated = new byte[compressed.size() / 2];
+    System.arraycopy(compressed.toByteArray(), 0, truncated, 0, truncated.length);
+
+    try {
+      readAll(CompressedInput.open(new ByteArrayInputStream(truncated)));
+      fail("truncated gzip input should fail");
+    } catch (IOException expected) {
+    }
+  }
+
+  @Test(timeout = 10000)
+  public void shouldHandAnyFailureOfTheSourceToTheReader() throws IOException {
+    InputStream failingSource = new InputStream() {
+      @Override
+      public int read() {
+        throw new IllegalStateException("codec failure");
+      }
+    };
+
+    try {
+      readAll(new PipelinedInputStream(failingSource));
+      fail("the failure of the source should be thrown");
+    } catch (IOException expected) {
+      assertThat(expected.getCause(), is(instanceOf(IllegalStateException.class)));
+    }
+  }
+
+  @Test(timeout = 10000)
+  public void shouldStopReadingAheadWhenClosedBeforeTheEnd() throws Exception {
+    final CountDownLatch sourceClosed = new CountDownLatch(1);
+    InputStream endlessSource = new InputStream() {
+      @Override
+      public int read() {
+        return 'a';
+      }
+
+      @Override
+      public void close() {
+        sourceClosed.countDown();
+      }
+    };
+
+    PipelinedInputStream inputStream = new PipelinedInputStream(endlessSource);
+    inputStream.read();
+    inputStream.close();
+
+    assertThat(sourceClosed.await(5, TimeUnit.SECONDS), is(true));
+  }
+
+  private static byte[] readAll(InputStream inputStream) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    byte[] buffer = new byte[1000];
+    int read;
+    while ((read = inputStream.read(buffer)) >= 0) bytes.write(buffer, 0, read);
+    inputStream.close();
+    return bytes.toByteArray();
+  }
+
+  private static byte[] csv(int rows) {
+    StringBuilder csv = new StringBuilder("mandatory string field, mandatoryIntField\n");
+    for (int row = 2; row <= rows + 1; row++) csv.append("Random").append(row).append(", ").append(row).append("\n");
+    return csv.toString().getBytes();
+  }
+}
@@ -7,22 +7,65 @@ import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+import org.quickocm.AsyncRecordHandler;
+import org.quickocm.BatchRecordHandler;
+import org.quickocm.RecordHandler;
+import org.quickocm.RejectedRowHandler;
+import org.quickocm.binding.BindingMode;
+import org.quickocm.checkpoint.Checkpoint;
+import org.quickocm.checkpoint.CheckpointStore;
+import org.quickocm.checkpoint.FileCheckpointStore;
+import org.quickocm.exception.InvalidRowsException;
 import org.quickocm.exception.UploadException;
 import org.quickocm.model.DummyImportable;
+import org.quickocm.model.DummyInternedImportable;
+import org.quickocm.model.DummyNestedField;
 import org.quickocm.model.DummyRecordHandler;
+import org.quickocm.model.DummyTypedImportable;
+import org.quickocm.processor.TypeRegistry;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
 
+import static java.util.Arrays.asList;
 import static junit.framework.Assert.assertEquals;
 import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.not;
 import static org.hamcrest.CoreMatchers.sameInstance;
 import static org.hamcrest.core.Is.is;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeTrue;
 
 public class CsvParserTest {
 
@@ -34,6 +77,9 @@ public class CsvParserTest {
   @Rule
   public ExpectedException expectedEx = ExpectedException.none();
 
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
   @Before
   public void setUp() throws Exception {
     csvParser = new CsvParser();
@@ -187,6 +233,19 @@ public class CsvParserTest {
     csvParser.process(inputStream, DummyImportable.class, recordHandler);
   }
 
+  @Test
+  public void shouldThrowErrorIfDateDoesNotExist() throws IOException {
+    String csvInput = "mandatory string field   , mandatoryIntField, OPTIONAL DATE FIELD\n" +
+      " Random1               , 23, 19/12/2012\n" +
+      " Random2                , 25, 31/02/2012\n";
+
+    InputStream inputStream = new ByteArrayInputStream(csvInput.getBytes(ENCODING));
+
+    expectedEx.expect(equalTo(new UploadException("incorrect.data.type", "OPTIONAL DATE FIELD", "record.number.2")));
+
+    csvParser.process(inputStream, DummyImportable.class, recordHandler);
+  }
+
   @Test
   public void shouldUseUserSpecifiedFieldMapping() throws IOException {
     String csvInput = "mandatory string field   , mandatoryIntField, OPTIONAL NESTED FIELD, OPTIONAL DATE FIELD\n" +
@@ -249,4 +308,1007 @@ public class CsvParserTest {
     assertThat(dummyImportable.getMultipleNestedFields().getEntityCode2(), is("code1-2"));
   }
 
+  @Test
+  public void shouldPopulateSameObjectsWithCompiledBinding() throws Exception {
+    csvParser.process(getClass().getClassLoader().getResourceAsStream("test.csv"), DummyImportable.class, recordHandler);
+
+    DummyRecordHandler compiledRecordHandler = new DummyRecordHandler();
+    csvParser.setBindingMode(BindingMode.COMPILED);
+    csvParser.process(getClass().getClassLoader().getResourceAsStream("test.csv"), DummyImportable.class, compiledRecordHandler);
+
+    assertThat(compiledRecordHandler.importedObjects, is(recordHandler.importedObjects));
+  }
+
+  @Test
+  public void shouldReportIncorrectDataTypeWithCompiledBinding() throws Exception {
+    String csvInput =
+      "mandatory string field, mandatoryIntField, OPTIONAL INT FIELD, entity 1 code\n" +
+        "RandomString1, 2533, , code1\n" +
+        "RandomString2, 123, random, code2\n";
+
+    InputStream inputStream = new ByteArrayInputStream(csvInput.getBytes(ENCODING));
+
+    expectedEx.expect(equalTo(new UploadException("incorrect.data.type", "OPTIONAL INT FIELD", "record.number.2")));
+
+    csvParser.setBindingMode(BindingMode.COMPILED);
+    csvParser.process(inputStream, DummyImportable.class, recordHandler);
+  }
+
+  @Test
+  public void shouldWritePrimitiveColumnsAndLeaveEmptyOptionalOnesUnset() throws Exception {
+    String csvInput =
+      "mandatory string field, mandatoryIntField, OPTIONAL INT FIELD\n" +
+        "RandomString1, 2533, \n" +
+        "RandomString2, -7, 42\n";
+
+    for (BindingMode bindingMode : BindingMode.values()) {
+      recordHandler = new DummyRecordHandler();
+      csvParser.setBindingMode(bindingMode);
+      csvParser.process(new ByteArrayInputStream(csvInput.getBytes(ENCODING)), DummyImportable.class, recordHandler);
+
+      List<DummyImportable> importedObjects = recordHandler.importedObjects;
+      assertThat(importedObjects.get(0).getMandatoryIntField(), is(2533));
+      assertThat(importedObjects.get(0).getOptionalIntField(), is(0));
+      assertThat(importedObjects.get(1).getMandatoryIntField(), is(-7));
+      assertThat(importedObjects.get(1).getOptionalIntField(), is(42));
+    }
+  }
+
+  @Test
+  public void shouldInvokeRecordHandlerInRowOrderWithWorkerThreads() throws Exception {
+    final List<Integer> rowNumbers = new ArrayList<Integer>();
+    RecordHandler<DummyImportable> orderRecordingHandler = new RecordHandler<DummyImportable>() {
+      @Override
+      public void execute(DummyImportable imported, int rowNumber, Map supplementaryInfo) {
+        assertThat(imported.getMandatoryIntField(), is(rowNumber));
+        rowNumbers.add(rowNumber);
+      }
+    };
+
+    csvParser.setWorkerThreads(4);
+    csvParser.setQueueCapacity(8);
+    int processedRows = csvParser.process(csvWithRows(500), DummyImportable.class, orderRecordingHandler);
+
+    assertThat(processedRows, is(500));
+    assertThat(rowNumbers.size(), is(500));
+    for (int i = 0; i < rowNumbers.size(); i++) {
+      assertThat(rowNumbers.get(i), is(i + 2));
+    }
+  }
+
+  @Test
+  public void shouldHandleEveryRowOnceWithUnorderedWorkerThreads() throws Exception {
+    final Set<Integer> rowNumbers = Collections.synchronizedSet(new HashSet<Integer>());
+    RecordHandler<DummyImportable> concurrentRecordHandler = new RecordHandler<DummyImportable>() {
+      @Override
+      public void execute(DummyImportable imported, int rowNumber, Map supplementaryInfo) {
+        assertThat(imported.getMandatoryIntField(), is(rowNumber));
+        rowNumbers.add(rowNumber);
+      }
+    };
+
+    csvParser.setWorkerThreads(4);
+    csvParser.setPreserveOrder(false);
+    csvParser.process(csvWithRows(500), DummyImportable.class, concurrentRecordHandler);
+
+    assertThat(rowNumbers.size(), is(500));
+  }
+
+  @Test
+  public void shouldReportFirstFailingRowWithUnorderedWorkerThreads() throws Exception {
+    String csvInput =
+      "mandatory string field, mandatoryIntField, OPTIONAL INT FIELD\n" +
+        "RandomString1, 2533, \n" +
+        "RandomString2, 123, random\n" +
+        "RandomString3, 123, random\n" +
+        "RandomString4, 123, \n";
+
+    InputStream inputStream = new ByteArrayInputStream(csvInput.getBytes(ENCODING));
+
+    expectedEx.expect(equalTo(new UploadException("incorrect.data.type", "OPTIONAL INT FIELD", "record.number.2")));
+
+    csvParser.setWorkerThreads(3);
+    csvParser.setPreserveOrder(false);
+    csvParser.process(inputStream, DummyImportable.class, new RecordHandler<DummyImportable>() {
+      @Override
+      public void execute(DummyImportable imported, int rowNumber, Map supplementaryInfo) {
+      }
+    });
+  }
+
+  @Test(timeout = 10000)
+  public void shouldRethrowErrorOfHandlerWithUnorderedWorkerThreads() throws Exception {
+    csvParser.setWorkerThreads(4);
+    csvParser.setQueueCapacity(4);
+    csvParser.setPreserveOrder(false);
+
+    try {
+      csvParser.process(csvWithRows(500), DummyImportable.class, new RecordHandler<DummyImportable>() {
+        @Override
+        public void execute(DummyImportable imported, int rowNumber, Map supplementaryInfo) {
+          throw new AssertionError("handler broke on row " + rowNumber);
+        }
+      });
+      fail("the error of the handler should be rethrown");
+    } catch (AssertionError e) {
+      assertThat(e.getMessage().startsWith("handler broke on row"), is(true));
+    }
+  }
+
+  @Test
+  public void shouldProcessFileInChunksWithWorkerThreads() throws Exception {
+    final Set<Integer> rowNumbers = Collections.synchronizedSet(new HashSet<Integer>());
+    RecordHandler<DummyImportable> concurrentRecordHandler = new RecordHandler<DummyImportable>() {
+      @Override
+      public void execute(DummyImportable imported, int rowNumber, Map supplementaryInfo) {
+        assertThat(imported.getMandatoryIntField(), is(rowNumber));
+        rowNumbers.add(rowNumber);
+      }
+    };
+
+    csvParser.setWorkerThreads(4);
+    int processedRows = csvParser.process(csvFileWithRows(20000, -1), DummyImportable.class, concurrentRecordHandler);
+
+    assertThat(processedRows, is(20000));
+    assertThat(rowNumbers.size(), is(20000));
+  }
+
+  @Test
+  public void shouldHandleRowsOfFileChunksInOrderOnCallingThreadWhenPreservingOrder() throws Exception {
+    final Thread callingThread = Thread.currentThread();
+    final List<Integer> rowNumbers = new ArrayList<Integer>();
+    csvParser.setWorkerThreads(4);
+    csvParser.setQueueCapacity(16);
+
+    int processedRows = csvParser.process(csvFileWithRows(20000, -1), DummyImportable.class, new RecordHandler<DummyImportable>() {
+      @Override
+      public void execute(DummyImportable imported, int rowNumber, Map supplementaryInfo) {
+        assertThat(Thread.currentThread(), is(callingThread));
+        assertThat(imported.getMandatoryIntField(), is(rowNumber));
+        rowNumbers.add(rowNumber);
+      }
+    });
+
+    assertThat(processedRows, is(20000));
+    assertThat(rowNumbers.size(), is(20000));
+    for (int i = 0; i < rowNumbers.size(); i++) {
+      assertThat(rowNumbers.get(i), is(i + 2));
+    }
+  }
+
+  @Test
+  public void shouldProcessFileOnCallingThreadInRowOrder() throws Exception {
+    final List<Integer> rowNumbers = new ArrayList<Integer>();
+    int processedRows = csvParser.process(csvFileWithRows(100, -1), DummyImportable.class, new RecordHandler<DummyImportable>() {
+      @Override
+      public void execute(DummyImportable imported, int rowNumber, Map supplementaryInfo) {
+        rowNumbers.add(rowNumber);
+      }
+    });
+
+    assertThat(processedRows, is(100));
+    for (int i = 0; i < rowNumbers.size(); i++) {
+      assertThat(rowNumbers.get(i), is(i + 2));
+    }
+  }
+
+  @Test
+  public void shouldReportFailingRowOfFileProcessedInChunks() throws Exception {
+    expectedEx.expect(equalTo(new UploadException("incorrect.data.type", "mandatoryIntField", "record.number.15000")));
+
+    csvParser.setWorkerThreads(4);
+    csvParser.process(csvFileWithRows(20000, 15001), DummyImportable.class, new RecordHandler<DummyImportable>() {
+      @Override
+      public void execute(DummyImportable imported, int rowNumber, Map supplementaryInfo) {
+      }
+    });
+  }
+
+  @Test
+  public void shouldCollectErrorsOfInvalidRowsAndHandleTheOthers() throws Exception {
+    String csvInput =
+      "mandatory string field, mandatoryIntField, OPTIONAL INT FIELD\n" +
+        "RandomString1, 2533, \n" +
+        "RandomString2, 123, random\n" +
+        "RandomString3, 7, 8\n" +
+        "RandomString4, , 9\n";
+
+    final List<String> rejectedRows = new ArrayList<String>();
+    csvParser.setCollectErrors(true);
+    csvParser.setRejectedRowHandler(new RejectedRowHandler() {
+      @Override
+      public void reject(List<String> columns, int rowNumber, UploadException error, Map supplementaryInfo) {
+        rejectedRows.add(rowNumber + ":" + columns.get(0));
+      }
+    });
+
+    try {
+      csvParser.process(new ByteArrayInputStream(csvInput.getBytes(ENCODING)), DummyImportable.class, recordHandler);
+      fail("invalid rows should be reported at the end");
+    } catch (InvalidRowsException e) {
+      assertThat(e.getCode(), is("error.upload.rows.invalid"));
+      assertThat(e.getParams(), is(new String[]{"2"}));
+      assertThat(e.getErrorReport().getErrors(), is(asList(
+        new UploadException("incorrect.data.type", "OPTIONAL INT FIELD", "record.number.2"),
+        new UploadException("missing.mandatory", "mandatoryIntField", "record.number.4"))));
+    }
+
+    assertThat(recordHandler.importedObjects.size(), is(2));
+    assertThat(recordHandler.importedObjects.get(1).getOptionalIntField(), is(8));
+    assertThat(rejectedRows, is(asList("3:RandomString2", "5:RandomString4")));
+  }
+
+  @Test
+  public void shouldKeepErrorsOfLowestRowsWithUnorderedWorkerThreads() throws Exception {
+    StringBuilder csvInput = new StringBuilder("mandatory string field, mandatoryIntField\n");
+    for (int row = 2; row <= 501; row++) {
+      csvInput.append("Random").append(row).append(row % 2 == 0 ? ", invalid\n" : ", 1\n");
+    }
+
+    csvParser.setCollectErrors(true);
+    csvParser.setMaxErrors(3);
+    csvParser.setWorkerThreads(4);
+    csvParser.setPreserveOrder(false);
+    try {
+      csvParser.process(new ByteArrayInputStream(csvInput.toString().getBytes(ENCODING)), DummyImportable.class,
+        new RecordHandler<DummyImportable>() {
+          @Override
+          public void execute(DummyImportable imported, int rowNumber, Map supplementaryInfo) {
+          }
+        });
+      fail("invalid rows should be reported at the end");
+    } catch (InvalidRowsException e) {
+      assertThat(e.getErrorReport().getErrorCount(), is(250));
+      assertThat(e.getErrorReport().isTruncated(), is(true));
+      assertThat(e.getErrorReport().getErrors(), is(asList(
+        new UploadException("incorrect.data.type", "mandatoryIntField", "record.number.1"),
+        new UploadException("incorrect.data.type", "mandatoryIntField", "record.number.3"),
+        new UploadException("incorrect.data.type", "mandatoryIntField", "record.number.5"))));
+    }
+  }
+
+  @Test
+  public void shouldValidateRowsWithoutCreatingObjects() throws Exception {
+    assertThat(csvParser.validate(csvWithRows(10), DummyImportable.class), is(10));
+    assertThat(csvParser.validate(csvFileWithRows(100, -1), DummyImportable.class), is(100));
+  }
+
+  @Test
+  public void shouldReportInvalidRowWhenValidating() throws Exception {
+    expectedEx.expect(equalTo(new UploadException("incorrect.data.type", "mandatoryIntField", "record.number.15000")));
+
+    csvParser.setWorkerThreads(4);
+    csvParser.validate(csvFileWithRows(20000, 15001), DummyImportable.class);
+  }
+
+  @Test
+  public void shouldCollectErrorsWhenValidating() throws Exception {
+    String csvInput =
+      "mandatory string field, mandatoryIntField\n" +
+        "RandomString1, 2533\n" +
+        "RandomString2, random\n" +
+        "RandomString3, \n";
+
+    csvParser.setCollectErrors(true);
+    try {
+      csvParser.validate(new ByteArrayInputStream(csvInput.getBytes(ENCODING)), DummyImportable.class);
+      fail("invalid rows should be reported at the end");
+    } catch (InvalidRowsException e) {
+      assertThat(e.getErrorReport().getErrors(), is(asList(
+        new UploadException("incorrect.data.type", "mandatoryIntField", "record.number.2"),
+        new UploadException("missing.mandatory", "mandatoryIntField", "record.number.3"))));
+    }
+  }
+
+  @Test
+  public void shouldConvertTypesOfTypeRegistryWithBothBindingModes() throws Exception {
+    String csvInput = "id, start date, createdAt, status, code\n" +
+      "0f8fad5b-d9cb-469f-a165-70867728950e, 20/02/1986, 2014-01-02T10:15:30Z, ACTIVE, abc\n";
+
+    CsvParser<DummyTypedImportable> csvParser = new CsvParser<DummyTypedImportable>();
+    csvParser.setTypeRegistry(TypeRegistry.builder().register("Code", (String text) -> text.toUpperCase()).build());
+    for (BindingMode bindingMode : BindingMode.values()) {
+      csvParser.setBindingMode(bindingMode);
+      DummyTypedImportable imported = csvParser.stream(
+        new ByteArrayInputStream(csvInput.getBytes(ENCODING)), DummyTypedImportable.class).findFirst().get();
+
+      assertThat(imported.getId(), is(UUID.fromString("0f8fad5b-d9cb-469f-a165-70867728950e")));
+      assertThat(imported.getStartDate(), is(LocalDate.of(1986, 2, 20)));
+      assertThat(imported.getCreatedAt(), is(Instant.parse("2014-01-02T10:15:30Z")));
+      assertThat(imported.getStatus(), is(DummyTypedImportable.Status.ACTIVE));
+      assertThat(imported.getCode(), is("ABC"));
+    }
+  }
+
+  @Test
+  public void shouldReportValueNotConvertedByTypeRegistry() throws Exception {
+    String csvInput = "id, status\n" +
+      "0f8fad5b-d9cb-469f-a165-70867728950e, ACTIVE\n" +
+      "not-a-uuid, ACTIVE\n";
+
+    expectedEx.expect(equalTo(new UploadException("incorrect.data.type", "id", "record.number.2")));
+
+    new CsvParser<DummyTypedImportable>().process(new ByteArrayInputStream(csvInput.getBytes(ENCODING)),
+      DummyTypedImportable.class, new RecordHandler<DummyTypedImportable>() {
+        @Override
+        public void execute(DummyTypedImportable imported, int rowNumber, Map supplementaryInfo) {
+        }
+      });
+  }
+
+  @Test
+  public void shouldShareRepeatedValuesOfInternedFieldsWithBothBindingModes() throws Exception {
+    String csvInput = "status, label, entity 1 code, entity 2 code\n" +
+      "ACTIVE, Random1, FAC1, PRG1\n" +
+      "ACTIVE, Random1, \"FAC1\", PRG1\n";
+
+    for (BindingMode bindingMode : BindingMode.values()) {
+      CsvParser<DummyInternedImportable> internedParser = new CsvParser<DummyInternedImportable>();
+      internedParser.setBindingMode(bindingMode);
+      Object[] imported = internedParser.stream(new ByteArrayInputStream(csvInput.getBytes(ENCODING)),
+        DummyInternedImportable.class).toArray();
+
+      DummyInternedImportable firstRow = (DummyInternedImportable) imported[0];
+      DummyInternedImportable secondRow = (DummyInternedImportable) imported[1];
+      assertThat(secondRow.getStatus(), is(sameInstance(firstRow.getStatus())));
+      assertThat(secondRow.getLabel(), is(not(sameInstance(firstRow.getLabel()))));
+      DummyNestedField first = firstRow.getEntityCodes();
+      DummyNestedField second = secondRow.getEntityCodes();
+      assertThat(second.getEntityCode1(), is(sameInstance(first.getEntityCode1())));
+      assertThat(second.getEntityCode2(), is(not(sameInstance(first.getEntityCode2()))));
+      assertThat(second.getEntityCode2(), is("PRG1"));
+    }
+  }
+
+  @Test(timeout = 10000)
+  public void shouldStopDecompressingWhenProcessingFails() throws Exception {
+    ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+    try (OutputStream outputStream = new GZIPOutputStream(compressed)) {
+      Files.copy(csvFileWithRows(50000, -1), outputStream);
+    }
+    final CountDownLatch inputClosed = new CountDownLatch(1);
+    InputStream inputStream = new ByteArrayInputStream(compressed.toByteArray()) {
+      @Override
+      public void close() {
+        inputClosed.countDown();
+      }
+    };
+
+    try {
+      csvParser.process(inputStream, DummyImportable.class, new RecordHandler<DummyImportable>() {
+        @Override
+        public void execute(DummyImportable imported, int rowNumber, Map supplementaryInfo) {
+          throw new UploadException("error.upload.rejected");
+        }
+      });
+      fail("the failure of the handler should be thrown");
+    } catch (UploadException expected) {
+    }
+
+    assertThat(inputClosed.await(5, TimeUnit.SECONDS), is(true));
+  }
+
+  @Test
+  public void shouldProcessGzippedStreamsAndFiles() throws Exception {
+    Path path = csvFileWithRows(1000, -1);
+    Path gzipped = temporaryFolder.newFile("rows.csv.gz").toPath();
+    try (OutputStream outputStream = new GZIPOutputStream(Files.newOutputStream(gzipped))) {
+      Files.copy(path, outputStream);
+    }
+
+    csvParser.setWorkerThreads(2);
+    assertThat(csvParser.process(gzipped, DummyImportable.class, recordHandler), is(1000));
+    assertThat(csvParser.validate(Files.newInputStream(gzipped), DummyImportable.class), is(1000));
+    assertThat(recordHandler.importedObjects.get(999).getMandatoryIntField(), is(1001));
+  }
+
+  @Test
+  public void shouldSkipUtf8ByteOrderMarkBeforeHeaders() throws Exception {
+    String csvInput = "\ufeffmandatory string field, mandatoryIntField\nZürich, 1\nJosé, 2\n";
+    byte[] bytes = csvInput.getBytes(ENCODING);
+    Path path = temporaryFolder.newFile("bom.csv").toPath();
+    Files.write(path, bytes);
+
+    csvParser.setCharset(StandardCharsets.ISO_8859_1);
+    assertThat(csvParser.process(new ByteArrayInputStream(bytes), DummyImportable.class, recordHandler), is(2));
+    assertThat(csvParser.process(path, DummyImportable.class, recordHandler), is(2));
+
+    assertThat(recordHandler.importedObjects.get(0).getMandatoryStringField(), is("Zürich"));
+    assertThat(recordHandler.importedObjects.get(3).getMandatoryStringField(), is("José"));
+  }
+
+  @Test
+  public void shouldDecodeInputInConfiguredCharset() throws Exception {
+    String csvInput = "mandatory string field, mandatoryIntField\nZürich, 1\n";
+
+    csvParser.setCharset(StandardCharsets.ISO_8859_1);
+    csvParser.setBufferSize(8);
+    csvParser.process(new ByteArrayInputStream(csvInput.getBytes("ISO-8859-1")), DummyImportable.class,
+      recordHandler);
+
+    assertThat(recordHandler.importedObjects.get(0).getMandatoryStringField(), is("Zürich"));
+  }
+
+  @Test
+  public void shouldResumeFileImportFromCheckpointAfterHandlerFailure() throws Exception {
+    Path path = csvFileWithRows(1000, -1);
+    CheckpointStore checkpointStore = new FileCheckpointStore(temporaryFolder.newFile("rows.checkpoint").toPath());
+    checkpointStore.clear();
+    csvParser.setCheckpointStore(checkpointStore);
+    csvParser.setCheckpointInterval(100);
+    csvParser.setWorkerThreads(4);
+
+    try {
+      csvParser.process(path, DummyImportable.class, failingAt(537));
+      fail("the handler should have failed");
+    } catch (IllegalStateException expected) {
+    }
+    assertThat(checkpointStore.load().getRowNumber(), is(501));
+
+    List<Integer> rowNumbers = new ArrayList<Integer>();
+    assertThat(csvParser.process(path, DummyImportable.class, recordingRowNumbers(rowNumbers)), is(1000));
+    assertThat(rowNumbers.size(), is(500));
+    assertThat(rowNumbers.get(0), is(502));
+    assertThat(rowNumbers.get(499), is(1001));
+    assertThat(checkpointStore.load(), is((Checkpoint) null));
+  }
+
+  @Test
+  public void shouldResumeStreamImportFromCheckpointWithMultiByteCharacters() throws Exception {
+    StringBuilder csvInput = new StringBuilder("\ufeffmandatory string field, mandatoryIntField\r\n");
+    for (int row = 2; row <= 201; row++) {
+      csvInput.append("Zürich ").append(row % 3 == 0 ? "\ud83d\ude00" : "日本").append(", ").append(row)
+        .append(row % 2 == 0 ? "\r" : "\r\n");
+    }
+    byte[] bytes = csvInput.toString().getBytes(ENCODING);
+    CheckpointStore checkpointStore = new FileCheckpointStore(temporaryFolder.newFile("stream.checkpoint").toPath());
+    checkpointStore.clear();
+    csvParser.setCheckpointStore(checkpointStore);
+    csvParser.setCheckpointInterval(7);
+    csvParser.setBufferSize(16);
+
+    try {
+      csvParser.process(new ByteArrayInputStream(bytes), DummyImportable.class, failingAt(150));
+      fail("the handler should have failed");
+    } catch (IllegalStateException expected) {
+    }
+    assertThat(checkpointStore.load().getRowNumber(), is(148));
+
+    List<Integer> rowNumbers = new ArrayList<Integer>();
+    assertThat(csvParser.process(new ByteArrayInputStream(bytes), DummyImportable.class,
+      recordingRowNumbers(rowNumbers)), is(200));
+    assertThat(rowNumbers.get(0), is(149));
+    assertThat(rowNumbers.size(), is(53));
+  }
+
+  @Test
+  public void shouldReportFailureOfCheckpointStoreApartFromUnreadableInput() throws Exception {
+    csvParser.setCheckpointInterval(100);
+    csvParser.setCheckpointStore(new CheckpointStore() {
+      @Override
+      public Checkpoint load() {
+        return null;
+      }
+
+      @Override
+      public void save(Checkpoint checkpoint) throws IOException {
+        throw new IOException("disk full");
+      }
+
+      @Override
+      public void clear() {
+      }
+    });
+
+    expectedEx.expect(equalTo(new UploadException("error.upload.checkpoint.failed", "record.number.100")));
+
+    csvParser.process(csvWithRows(500), DummyImportable.class, recordHandler);
+  }
+
+  @Test
+  public void shouldReportCorruptCheckpointFileAsFailureOfCheckpointStore() throws Exception {
+    Path path = temporaryFolder.newFile("corrupt.checkpoint").toPath();
+    Files.write(path, "byteOffset=120\nlineNumber=not a number\n".getBytes(StandardCharsets.ISO_8859_1));
+    csvParser.setCheckpointStore(new FileCheckpointStore(path));
+
+    expectedEx.expect(equalTo(new UploadException("error.upload.checkpoint.failed")));
+
+    csvParser.process(csvWithRows(10), DummyImportable.class, recordHandler);
+  }
+
+  private RecordHandler<DummyImportable> failingAt(final int failingRowNumber) {
+    return new RecordHandler<DummyImportable>() {
+      @Override
+      public void execute(DummyImportable imported, int rowNumber, Map supplementaryInfo) {
+        if (rowNumber == failingRowNumber) throw new IllegalStateException("database unavailable");
+        assertThat(imported.getMandatoryIntField(), is(rowNumber));
+      }
+    };
+  }
+
+  private RecordHandler<DummyImportable> recordingRowNumbers(final List<Integer> rowNumbers) {
+    return new RecordHandler<DummyImportable>() {
+      @Override
+      public void execute(DummyImportable imported, int rowNumber, Map supplementaryInfo) {
+        assertThat(imported.getMandatoryIntField(), is(rowNumber));
+        rowNumbers.add(rowNumber);
+      }
+    };
+  }
+
+  @Test
+  public void shouldReuseOneObjectAndResetItBetweenRows() throws Exception {
+    String csvInput =
+      "mandatory string field, mandatoryIntField, OPTIONAL INT FIELD, OPTIONAL NESTED FIELD, entity 1 code\n" +
+        "Random1, 1, 10, code1, entity1\n" +
+        "Random2, 2, , , entity2\n" +
+        "Random3, 3, 30, code3, \n";
+    csvParser.setReuseObjects(true);
+
+    for (BindingMode bindingMode : BindingMode.values()) {
+      final Set<DummyImportable> instances = Collections.newSetFromMap(new IdentityHashMap<DummyImportable, Boolean>());
+      final List<String> rows = new ArrayList<String>();
+      csvParser.setBindingMode(bindingMode);
+      csvParser.process(new ByteArrayInputStream(csvInput.getBytes(ENCODING)), DummyImportable.class,
+        new RecordHandler<DummyImportable>() {
+          @Override
+          public void execute(DummyImportable imported, int rowNumber, Map supplementaryInfo) {
+            instances.add(imported);
+            rows.add(imported.getMandatoryStringField() + " " + imported.getMandatoryIntField() + " " +
+              imported.getOptionalIntField() + " " + imported.getDummyNestedField().getCode() + " " +
+              imported.getMultipleNestedFields().getEntityCode1());
+          }
+        });
+
+      assertThat(instances.size(), is(1));
+      assertThat(rows, is(asList("Random1 1 10 code1 entity1", "Random2 2 0 null entity2", "Random3 3 30 code3 null")));
+    }
+  }
+
+  @Test
+  public void shouldReuseObjectsOnlyWhereEachIsHandledBeforeTheNextRowIsConverted() throws Exception {
+    csvParser.setReuseObjects(true);
+    csvParser.setWorkerThreads(4);
+    csvParser.setPreserveOrder(false);
+    final Set<DummyImportable> instances = Collections.newSetFromMap(
+      Collections.synchronizedMap(new IdentityHashMap<DummyImportable, Boolean>()));
+    final List<Integer> rowNumbers = Collections.synchronizedList(new ArrayList<Integer>());
+    final RecordHandler<DummyImportable> checkingRowNumbers = recordingRowNumbers(rowNumbers);
+
+    csvParser.process(csvFileWithRows(20000, -1), DummyImportable.class, new RecordHandler<DummyImportable>() {
+      @Override
+      public void execute(DummyImportable imported, int rowNumber, Map supplementaryInfo) {
+        checkingRowNumbers.execute(imported, rowNumber, supplementaryInfo);
+        instances.add(imported);
+      }
+    });
+    assertThat(rowNumbers.size(), is(20000));
+    assertThat(instances.size() <= 4, is(true));
+
+    csvParser.setWorkerThreads(1);
+    instances.clear();
+    csvParser.processInBatches(csvWithRows(3), DummyImportable.class, new BatchRecordHandler<DummyImportable>() {
+      @Override
+      public void execute(List<DummyImportable> batch, int firstRowNumber, int lastRowNumber, Map supplementaryInfo) {
+        instances.addAll(batch);
+      }
+    });
+    assertThat(instances.size(), is(3));
+  }
+
+  @Test
+  public void shouldCountRowsBytesStageTimesAndColumnFailuresInMetrics() throws Exception {
+    String csvInput =
+      "mandatory string field, mandatoryIntField\n" +
+        "Random1, 1\n" +
+        "Random2, not a number\n" +
+        "Random3, 3\n";
+    ParseMetrics metrics = new ParseMetrics();
+    csvParser.setMetrics(metrics);
+    csvParser.setCollectErrors(true);
+
+    try {
+      csvParser.process(new ByteArrayInputStream(csvInput.getBytes(ENCODING)), DummyImportable.class, recordHandler);
+      fail("the invalid row should have been reported");
+    } catch (InvalidRowsException expected) {
+    }
+
+    assertThat(metrics.getRows(), is(3L));
+    assertThat(metrics.getBytes(), is((long) csvInput.length()));
+    assertThat(metrics.getFailedRows(), is(1L));
+    assertThat(metrics.getColumnFailures(), is(Collections.singletonMap("mandatoryIntField", 1L)));
+    assertThat(metrics.getTokenizeNanos() > 0 && metrics.getConvertNanos() > 0 && metrics.getBindNanos() > 0
+      && metrics.getHandlerNanos() > 0 && metrics.getElapsedNanos() > 0 && metrics.getRowsPerSecond() > 0, is(true));
+
+    Path path = csvFileWithRows(1000, -1);
+    metrics.reset();
+    csvParser.setWorkerThreads(4);
+    csvParser.process(path, DummyImportable.class, recordHandler);
+    assertThat(metrics.getRows(), is(1000L));
+    assertThat(metrics.getBytes(), is(Files.size(path)));
+    assertThat(metrics.getColumnFailures().isEmpty(), is(true));
+  }
+
+  @Test
+  public void shouldHandleRowsAsynchronouslyWithinInFlightLimit() throws Exception {
+    final ExecutorService executor = Executors.newFixedThreadPool(8);
+    final AtomicInteger inFlight = new AtomicInteger();
+    final AtomicInteger maxInFlight = new AtomicInteger();
+    final Set<Integer> rowNumbers = Collections.synchronizedSet(new HashSet<Integer>());
+    csvParser.setMaxInFlight(4);
+
+    try {
+      int rows = csvParser.processAsync(csvWithRows(100), DummyImportable.class,
+        new AsyncRecordHandler<DummyImportable>() {
+          @Override
+          public CompletableFuture<?> execute(final DummyImportable imported, final int rowNumber,
+                                              Map supplementaryInfo) {
+            int outstanding = inFlight.incrementAndGet();
+            maxInFlight.accumulateAndGet(outstanding, Math::max);
+            return CompletableFuture.runAsync(() -> {
+              sleep(2);
+              assertThat(imported.getMandatoryIntField(), is(rowNumber));
+              rowNumbers.add(rowNumber);
+              inFlight.decrementAndGet();
+            }, executor);
+          }
+        });
+
+      assertThat(rows, is(100));
+      assertThat(rowNumbers.size(), is(100));
+      assertThat(maxInFlight.get() <= 4, is(true));
+      assertThat(maxInFlight.get() > 1, is(true));
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void shouldReportFailingAsyncCall() throws Exception {
+    expectedEx.expect(equalTo(new UploadException("error.upload.async.failed", "record.number.7")));
+
+    csvParser.processAsync(csvWithRows(50), DummyImportable.class, new AsyncRecordHandler<DummyImportable>() {
+      @Override
+      public CompletableFuture<?> execute(DummyImportable imported, int rowNumber, Map supplementaryInfo) {
+        CompletableFuture<Void> future = new CompletableFuture<Void>();
+        if (rowNumber == 8) future.completeExceptionally(new IllegalStateException("service unavailable"));
+        else future.complete(null);
+        return future;
+      }
+    });
+  }
+
+  @Test
+  public void shouldWaitForOutstandingAsyncCallsWhenProcessingFails() throws Exception {
+    String csvInput =
+      "mandatory string field, mandatoryIntField\n" +
+        "Random1, 1\n" +
+        "Random2, 2\n" +
+        "Random3, not a number\n";
+    final ExecutorService executor = Executors.newFixedThreadPool(2);
+    final AtomicInteger started = new AtomicInteger();
+    final AtomicInteger completed = new AtomicInteger();
+
+    try {
+      csvParser.processAsync(new ByteArrayInputStream(csvInput.getBytes(ENCODING)), DummyImportable.class,
+        new AsyncRecordHandler<DummyImportable>() {
+          @Override
+          public CompletableFuture<?> execute(DummyImportable imported, int rowNumber, Map supplementaryInfo) {
+            started.incrementAndGet();
+            return CompletableFuture.runAsync(() -> {
+              sleep(100);
+              completed.incrementAndGet();
+            }, executor);
+          }
+        });
+      fail("the invalid row should have been reported");
+    } catch (UploadException expected) {
+      assertThat(started.get(), is(2));
+      assertThat(completed.get(), is(2));
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private static void sleep(long millis) {
+    try {
+      Thread.sleep(millis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  @Test
+  public void shouldSkipExtraColumnsAndRejectRowsWithoutTheirContent() throws Exception {
+    String csvInput =
+      "vendor code, mandatory string field, vendor notes, mandatoryIntField\n" +
+        "V1, Random1, \"notes, with\ncomma and \"\"quotes\"\"\", 1\n" +
+        "V2, Random2, plain, not a number\n" +
+        "V3, Random3, , 3\n";
+    final List<List<String>> rejectedRows = new ArrayList<List<String>>();
+    csvParser.setAcceptExtraHeaders(true);
+    csvParser.setSkipUnmappedColumns(true);
+    csvParser.setCollectErrors(true);
+    csvParser.setRejectedRowHandler(new RejectedRowHandler() {
+      @Override
+      public void reject(List<String> columns, int rowNumber, UploadException error, Map supplementaryInfo) {
+        rejectedRows.add(columns);
+      }
+    });
+
+    try {
+      csvParser.process(new ByteArrayInputStream(csvInput.getBytes(ENCODING)), DummyImportable.class, recordHandler);
+      fail("the invalid row should have been reported");
+    } catch (InvalidRowsException expected) {
+      assertThat(expected.getErrorReport().getErrors().get(0),
+        is(new UploadException("incorrect.data.type", "mandatoryIntField", "record.number.2")));
+    }
+
+    assertThat(recordHandler.importedObjects.size(), is(2));
+    assertThat(recordHandler.importedObjects.get(1).getMandatoryStringField(), is("Random3"));
+    assertThat(recordHandler.importedObjects.get(1).getMandatoryIntField(), is(3));
+    assertThat(rejectedRows, is(asList(asList(null, "Random2", null, "not a number"))));
+  }
+
+  @Test
+  public void shouldConvertOnlyProjectedFields() throws Exception {
+    Path path = temporaryFolder.newFile("projected.csv").toPath();
+    StringBuilder csvInput = new StringBuilder("mandatory string field, mandatoryIntField, optional int field\n");
+    for (int row = 2; row <= 501; row++) {
+      csvInput.append("\"Random\n").append(row).append("\", not a number, ").append(row).append("\n");
+    }
+    Files.write(path, csvInput.toString().getBytes(ENCODING));
+    csvParser.setProjection(asList("Mandatory String Field", "OPTIONAL INT FIELD"));
+
+    assertThat(csvParser.process(new ByteArrayInputStream(csvInput.toString().getBytes(ENCODING)),
+      DummyImportable.class, recordHandler), is(500));
+    csvParser.setWorkerThreads(4);
+    assertThat(csvParser.process(path, DummyImportable.class, recordHandler), is(500));
+
+    assertThat(recordHandler.importedObjects.size(), is(1000));
+    for (DummyImportable imported : recordHandler.importedObjects) {
+      assertThat(imported.getMandatoryIntField(), is(0));
+      assertThat(imported.getMandatoryStringField(), is("Random\n" + imported.getOptionalIntField()));
+    }
+  }
+
+  @Test
+  public void shouldStreamRowsLazilyAndStopReadingEarly() throws Exception {
+    String csvInput =
+      "mandatory string field, mandatoryIntField\n" +
+        "Random1, 1\n" +
+        "Random2, 2\n" +
+        "Random3, 3\n" +
+        "Random4, not a number\n";
+
+    List<String> names = new ArrayList<String>();
+    Iterator<DummyImportable> iterator = csvParser.stream(new ByteArrayInputStream(csvInput.getBytes(ENCODING)),
+      DummyImportable.class).filter(new Predicate<DummyImportable>() {
+      @Override
+      public boolean test(DummyImportable imported) {
+        return imported.getMandatoryIntField() != 2;
+      }
+    }).limit(2).iterator();
+    while (iterator.hasNext()) names.add(iterator.next().getMandatoryStringField());
+
+    assertThat(names, is(asList("Random1", "Random3")));
+  }
+
+  @Test
+  public void shouldReportInvalidRowFromStream() throws Exception {
+    String csvInput =
+      "mandatory string field, mandatoryIntField, OPTIONAL INT FIELD\n" +
+        "RandomString1, 2533, \n" +
+        "RandomString2, 123, random\n";
+
+    expectedEx.expect(equalTo(new UploadException("incorrect.data.type", "OPTIONAL INT FIELD", "record.number.2")));
+
+    Stream<DummyImportable> stream = csvParser.stream(new ByteArrayInputStream(csvInput.getBytes(ENCODING)), DummyImportable.class);
+    stream.toArray();
+  }
+
+  @Test
+  public void shouldCloseInputStreamOnceIteratorIsExhausted() throws Exception {
+    final boolean[] closed = {false};
+    InputStream inputStream = new ByteArrayInputStream("mandatory string field, mandatoryIntField\nRandom1, 1\n".getBytes(ENCODING)) {
+      @Override
+      public void close() throws IOException {
+        closed[0] = true;
+      }
+    };
+
+    CsvBeanIterator<DummyImportable> iterator = csvParser.iterator(inputStream, DummyImportable.class);
+    assertThat(iterator.next().getMandatoryIntField(), is(1));
+    assertThat(iterator.getRowNumber(), is(2));
+    assertThat(closed[0], is(false));
+    assertThat(iterator.hasNext(), is(false));
+    assertThat(closed[0], is(true));
+  }
+
+  @Test
+  public void shouldStreamFileInParallelInRowOrder() throws Exception {
+    Object[] imported = csvParser.stream(csvFileWithRows(20000, -1), DummyImportable.class).parallel().toArray();
+
+    assertThat(imported.length, is(20000));
+    for (int i = 0; i < imported.length; i++) {
+      assertThat(((DummyImportable) imported[i]).getMandatoryIntField(), is(i + 2));
+    }
+  }
+
+  @Test
+  public void shouldHandBatchesOfConfiguredSizeAndTheRemainingRowsAtTheEnd() throws Exception {
+    final List<String> batches = new ArrayList<String>();
+    csvParser.setBatchSize(4);
+
+    int processedRows = csvParser.processInBatches(csvWithRows(10), DummyImportable.class, new BatchRecordHandler<DummyImportable>() {
+      @Override
+      public void execute(List<DummyImportable> batch, int firstRowNumber, int lastRowNumber, Map supplementaryInfo) {
+        assertThat(batch.get(0).getMandatoryIntField(), is(firstRowNumber));
+        batches.add(batch.size() + ":" + firstRowNumber + "-" + lastRowNumber);
+      }
+    });
+
+    assertThat(processedRows, is(10));
+    assertThat(batches, is(asList("4:2-5", "4:6-9", "2:10-11")));
+  }
+
+  @Test
+  public void shouldHandBatchesOfRowsInOrderEvenWithUnorderedWorkerThreads() throws Exception {
+    final List<String> batches = new ArrayList<String>();
+    csvParser.setBatchSize(100);
+    csvParser.setWorkerThreads(4);
+    csvParser.setPreserveOrder(false);
+
+    csvParser.processInBatches(csvWithRows(500), DummyImportable.class, new BatchRecordHandler<DummyImportable>() {
+      @Override
+      public void execute(List<DummyImportable> batch, int firstRowNumber, int lastRowNumber, Map supplementaryInfo) {
+        for (int i = 0; i < batch.size(); i++) {
+          assertThat(batch.get(i).getMandatoryIntField(), is(firstRowNumber + i));
+        }
+        batches.add(firstRowNumber + "-" + lastRowNumber);
+      }
+    });
+
+    assertThat(batches, is(asList("2-101", "102-201", "202-301", "302-401", "402-501")));
+  }
+
+  @Test
+  public void shouldHandBatchesOnceTheyReachConfiguredCharacters() throws Exception {
+    final List<Integer> batchSizes = new ArrayList<Integer>();
+    csvParser.setBatchCharacters(30);
+
+    csvParser.processInBatches(csvWithRows(10), DummyImportable.class, new BatchRecordHandler<DummyImportable>() {
+      @Override
+      public void execute(List<DummyImportable> batch, int firstRowNumber, int lastRowNumber, Map supplementaryInfo) {
+        batchSizes.add(batch.size());
+      }
+    });
+
+    assertThat(batchSizes, is(asList(3, 3, 3, 1)));
+  }
+
+  @Test
+  public void shouldReportFailingBatch() throws Exception {
+    csvParser.setBatchSize(4);
+
+    expectedEx.expect(equalTo(new UploadException("error.upload.batch.failed", "batch.number.2", "record.number.5",
+      "record.number.8")));
+
+    csvParser.processInBatches(csvWithRows(10), DummyImportable.class, new BatchRecordHandler<DummyImportable>() {
+      @Override
+      public void execute(List<DummyImportable> batch, int firstRowNumber, int lastRowNumber, Map supplementaryInfo) {
+        if (firstRowNumber > 2) throw new IllegalStateException("database unavailable");
+      }
+    });
+  }
+
+  @Test
+  public void shouldHandSpilledBatchesWithTheRowsOfBatchesHeldOnTheHeap() throws Exception {
+    final List<String> spilled = new ArrayList<String>();
+    final List<List<DummyImportable>> batches = new ArrayList<List<DummyImportable>>();
+    csvParser.setBatchSize(40);
+    csvParser.setSpillCharacters(30);
+    csvParser.setSpillDirectory(temporaryFolder.getRoot().toPath());
+
+    int processedRows = csvParser.processInBatches(csvWithRows(100), DummyImportable.class, new BatchRecordHandler<DummyImportable>() {
+      @Override
+      public void execute(List<DummyImportable> batch, int firstRowNumber, int lastRowNumber, Map supplementaryInfo) {
+        for (DummyImportable dummyImportable : batch) {
+          spilled.add(dummyImportable.getMandatoryStringField() + ":" + dummyImportable.getMandatoryIntField());
+        }
+        batches.add(batch);
+      }
+    });
+
+    final List<String> expected = new ArrayList<String>();
+    CsvParser<DummyImportable> heapParser = new CsvParser<DummyImportable>();
+    heapParser.setBatchSize(40);
+    heapParser.processInBatches(csvWithRows(100), DummyImportable.class, new BatchRecordHandler<DummyImportable>() {
+      @Override
+      public void execute(List<DummyImportable> batch, int firstRowNumber, int lastRowNumber, Map supplementaryInfo) {
+        for (DummyImportable dummyImportable : batch) {
+          expected.add(dummyImportable.getMandatoryStringField() + ":" + dummyImportable.getMandatoryIntField());
+        }
+      }
+    });
+
+    assertThat(processedRows, is(100));
+    assertThat(spilled, is(expected));
+    assertThat(batches.size(), is(3));
+    assertThat(batches.get(0) instanceof SpilledBatch, is(true));
+    assertThat(batches.get(1).get(39).getMandatoryIntField(), is(81));
+    assertThat(batches.get(2).size(), is(20));
+  }
+
+  @Test
+  public void shouldNotCountSpilledRowsInMetricsAgainWhenTheHandlerGoesThroughThem() throws Exception {
+    final ParseMetrics metrics = new ParseMetrics();
+    final List<Long> convertAndBindNanos = new ArrayList<Long>();
+    csvParser.setMetrics(metrics);
+    csvParser.setBatchSize(40);
+    csvParser.setSpillCharacters(30);
+
+    csvParser.processInBatches(csvWithRows(100), DummyImportable.class, new BatchRecordHandler<DummyImportable>() {
+      @Override
+      public void execute(List<DummyImportable> batch, int firstRowNumber, int lastRowNumber, Map supplementaryInfo) {
+        long before = metrics.getConvertNanos() + metrics.getBindNanos();
+        for (DummyImportable dummyImportable : batch) dummyImportable.getMandatoryIntField();
+        convertAndBindNanos.add(metrics.getConvertNanos() + metrics.getBindNanos() - before);
+      }
+    });
+
+    assertThat(convertAndBindNanos, is(asList(0L, 0L, 0L)));
+  }
+
+  @Test
+  public void shouldCloseTheSpillBufferOfTheBatchBeingAccumulatedWhenProcessingFails() throws Exception {
+    Path openFiles = Paths.get("/proc/self/fd");
+    assumeTrue(Files.isDirectory(openFiles));
+    StringBuilder csvInput = new StringBuilder("mandatory string field, mandatoryIntField\n");
+    for (int row = 2; row <= 30; row++) csvInput.append("Random").append(row).append(", ").append(row).append("\n");
+    csvInput.append("Random31, not a number\n");
+    csvParser.setBatchSize(40);
+    csvParser.setSpillCharacters(30);
+    csvParser.setSpillDirectory(temporaryFolder.newFolder("spill").toPath());
+
+    try {
+      csvParser.processInBatches(new ByteArrayInputStream(csvInput.toString().getBytes(ENCODING)),
+        DummyImportable.class, new BatchRecordHandler<DummyImportable>() {
+          @Override
+          public void execute(List<DummyImportable> batch, int firstRowNumber, int lastRowNumber,
+                              Map supplementaryInfo) {
+            fail("the batch should not have been handed over");
+          }
+        });
+      fail("the invalid row should have been reported");
+    } catch (UploadException expected) {
+    }
+
+    try (DirectoryStream<Path> descriptors = Files.newDirectoryStream(openFiles)) {
+      for (Path descriptor : descriptors) {
+        try {
+          assertThat(Files.readSymbolicLink(descriptor).toString().contains("quickocm-spill"), is(false));
+        } catch (IOException closedMeanwhile) {
+        }
+      }
+    }
+  }
+
+  private Path csvFileWithRows(int rows, int invalidRow) throws IOException {
+    StringBuilder csvInput = new StringBuilder("mandatory string field, mandatoryIntField\n");
+    for (int row = 2; row <= rows + 1; row++) {
+      csvInput.append("\"Random\n").append(row).append("\", ").append(row == invalidRow ? "random" : row).append("\n");
+    }
+    Path path = temporaryFolder.newFile("rows.csv").toPath();
+    Files.write(path, csvInput.toString().getBytes(ENCODING));
+    return path;
+  }
+
+  private InputStream csvWithRows(int rows) throws IOException {
+    StringBuilder csvInput = new StringBuilder("mandatory string field, mandatoryIntField\n");
+    for (int row = 2; row <= rows + 1; row++) {
+      csvInput.append("Random").append(row).append(", ").append(row).append("\n");
+    }
+    return new ByteArrayInputStream(csvInput.toString().getBytes(ENCODING));
+  }
 }
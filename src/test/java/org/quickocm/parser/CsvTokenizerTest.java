@@ -0,0 +1,114 @@
+package org.quickocm.parser;
+
+import org.junit.Test;
+import org.supercsv.exception.SuperCsvException;
+import org.supercsv.io.Tokenizer;
+import org.supercsv.prefs.CsvPreference;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class CsvTokenizerTest {
+
+  private static final CsvPreference SURROUNDING_SPACES_NEED_QUOTES =
+    new CsvPreference.Builder(CsvPreference.STANDARD_PREFERENCE).surroundingSpacesNeedQuotes(true).build();
+
+  private static final String[] INPUTS = {
+    "a,b,c\n1,2,3\n",
+    "a,b\r\n1,2\r\n",
+    "a,b\r1,2\r",
+    "a,b\n1,2",
+    "a,,c\n,,\n",
+    "\n\na,b\n\n1,2\n\n",
+    "  a  ,  b c  ,c  \n",
+    "\"a\",\"b,c\",\"d\"\"e\"\n",
+    "  \"a\"  , x \"b\" y,\"\"\n",
+    "\"multi\nline\",next\n\"crlf\r\nline\",x\n",
+    "ab\"c,d\"ef,g\n",
+    "Random2                     , 25                ,\"with, comma\"      , 20/02/1986\n",
+  };
+
+  @Test
+  public void shouldSplitRowsLikeSuperCsvTokenizer() throws IOException {
+    for (String input : INPUTS) {
+      assertSameRows(input, SURROUNDING_SPACES_NEED_QUOTES);
+      assertSameRows(input, CsvPreference.STANDARD_PREFERENCE);
+    }
+  }
+
+  @Test
+  public void shouldExposeCellsAsRangesOfTheRowBuffer() throws IOException {
+    CsvTokenizer tokenizer = new CsvTokenizer(new StringReader(" 12 ,,\"a\"\"b\"\n"), SURROUNDING_SPACES_NEED_QUOTES);
+    CsvRow row = new CsvRow();
+
+    tokenizer.readRow(row);
+
+    assertThat(new String(row.getChars(), row.getStart(0), row.getEnd(0) - row.getStart(0)), is("12"));
+    assertThat(row.isNull(1), is(true));
+    assertThat(row.getColumn(2), is("a\"b"));
+    assertThat(row.getRowNumber(), is(1));
+    assertThat(row.getSize(), is(13));
+  }
+
+  @Test(expected = SuperCsvException.class)
+  public void shouldFailOnUnterminatedQuote() throws IOException {
+    CsvTokenizer tokenizer = new CsvTokenizer(new StringReader("a,\"b\nc\n"), SURROUNDING_SPACES_NEED_QUOTES);
+
+    tokenizer.readRow(new CsvRow());
+  }
+
+  @Test
+  public void shouldReadRowsLongerThanTheBuffer() throws IOException {
+    String input = "first column,\"second, quoted\",third\nfourth,fifth,sixth\n";
+    CsvTokenizer tokenizer = new CsvTokenizer(new StringReader(input), SURROUNDING_SPACES_NEED_QUOTES, 3);
+    CsvRow row = new CsvRow();
+
+    tokenizer.readRow(row);
+    assertThat(row.getColumns().toString(), is("[first column, second, quoted, third]"));
+    tokenizer.readRow(row);
+    assertThat(row.getColumns().toString(), is("[fourth, fifth, sixth]"));
+  }
+
+  @Test
+  public void shouldSkipColumnsLeavingTheOthersAndLineNumbersAsTheyAre() throws IOException {
+    boolean[] skippedColumns = {true, false, true, false};
+    for (String input : INPUTS) {
+      CsvTokenizer expected = new CsvTokenizer(new StringReader(input), SURROUNDING_SPACES_NEED_QUOTES);
+      CsvTokenizer actual = new CsvTokenizer(new StringReader(input), SURROUNDING_SPACES_NEED_QUOTES, 4);
+      actual.setSkippedColumns(skippedColumns);
+      CsvRow expectedRow = new CsvRow();
+      CsvRow row = new CsvRow();
+
+      while (expected.readRow(expectedRow)) {
+        assertThat(input, actual.readRow(row), is(true));
+        assertThat(input, row.length(), is(expectedRow.length()));
+        for (int i = 0; i < row.length(); i++) {
+          String column = i < skippedColumns.length && skippedColumns[i] ? null : expectedRow.getColumn(i);
+          assertThat(input, row.getColumn(i), is(column));
+        }
+        assertThat(input, row.getLineNumber(), is(expectedRow.getLineNumber()));
+        assertThat(input, row.getSize(), is(expectedRow.getSize()));
+      }
+      assertThat(input, actual.readRow(row), is(false));
+    }
+  }
+
+  private void assertSameRows(String input, CsvPreference preference) throws IOException {
+    Tokenizer expected = new Tokenizer(new StringReader(input), preference);
+    CsvTokenizer actual = new CsvTokenizer(new StringReader(input), preference);
+    List<String> expectedColumns = new ArrayList<String>();
+    CsvRow row = new CsvRow();
+
+    boolean hasRow;
+    do {
+      hasRow = expected.readColumns(expectedColumns);
+      assertThat(input, actual.readRow(row), is(hasRow));
+      if (hasRow) assertThat(input, row.getColumns(), is(expectedColumns));
+    } while (hasRow);
+  }
+}
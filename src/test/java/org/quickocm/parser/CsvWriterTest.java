@@ -0,0 +1,193 @@
+package org.quickocm.parser;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.quickocm.annotation.ImportField;
+import org.quickocm.model.DummyImportable;
+import org.quickocm.model.DummyNestedField;
+import org.quickocm.model.ModelClass;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static java.util.Arrays.asList;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class CsvWriterTest {
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Test
+  public void shouldWriteHeadersAndRowsOfImportFields() throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (CsvWriter<DummyImportable> csvWriter = new CsvWriter<DummyImportable>(DummyImportable.class, out)) {
+      csvWriter.write(dummyImportable("Random", 12, "22/04/2014", "code", "e1"));
+      csvWriter.write(dummyImportable("Other", -3, null, null, null));
+    }
+
+    assertThat(out.toString("UTF-8"),
+      is("Mandatory String Field,mandatoryIntField,optionalStringField,OPTIONAL INT FIELD,OPTIONAL DATE FIELD," +
+        "OPTIONAL NESTED FIELD,entity 1 code,entity 2 code\r\n" +
+        "Random,12,,0,22/04/2014,code,e1,\r\n" +
+        "Other,-3,,0,,,,\r\n"));
+  }
+
+  @Test
+  public void shouldQuoteCellsTheParserWouldSplitOrTrim() throws Exception {
+    List<DummyImportable> beans = asList(
+      dummyImportable("with, comma", 1, null, "say \"hi\"", null),
+      dummyImportable("two\nlines", 2, null, " padded ", "tab\tonly"));
+
+    byte[] csv = write(beans, 64);
+
+    assertThat(new String(csv, StandardCharsets.UTF_8).split("\r\n", 2)[1],
+      is("\"with, comma\",1,,0,,\"say \"\"hi\"\"\",,\r\n\"two\nlines\",2,,0,,\" padded \",tab\tonly,\r\n"));
+    beans.get(1).getDummyNestedField().setCode("padded");
+    assertRoundTrip(beans, csv);
+  }
+
+  @Test
+  public void shouldReadBackWhatItWritesThroughSmallBuffers() throws Exception {
+    List<DummyImportable> beans = IntStream.range(0, 500)
+      .mapToObj(i -> dummyImportable("José 日本 " + i, i, i % 3 == 0 ? null : "0" + (i % 28 + 1) % 10 + "/01/2015",
+        i % 2 == 0 ? null : "😀 " + i, "e" + i))
+      .collect(Collectors.toList());
+
+    assertRoundTrip(beans, write(beans, 16));
+    assertRoundTrip(beans, write(beans, CsvWriter.DEFAULT_BUFFER_SIZE));
+  }
+
+  @Test
+  public void shouldWriteStreamToFileChannel() throws Exception {
+    File file = temporaryFolder.newFile("export.csv");
+    List<DummyImportable> beans = asList(dummyImportable("Random1", 1, null, null, null),
+      dummyImportable("Random2", 2, null, null, null));
+
+    try (CsvWriter<DummyImportable> csvWriter = new CsvWriter<DummyImportable>(DummyImportable.class,
+      FileChannel.open(file.toPath(), StandardOpenOption.WRITE))) {
+      csvWriter.writeAll(beans.stream());
+      assertThat(csvWriter.getRowCount(), is(2L));
+    }
+
+    assertRoundTrip(beans, Files.readAllBytes(file.toPath()));
+  }
+
+  @Test
+  public void shouldWriteOnlyProjectedColumns() throws Exception {
+    ModelClass modelClass = modelClassProjecting("mandatory string field", "mandatoryIntField");
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    try (CsvWriter<DummyImportable> csvWriter = new CsvWriter<DummyImportable>(modelClass, Channels.newChannel(out),
+      StandardCharsets.UTF_8, 16)) {
+      csvWriter.write(dummyImportable("Random", 12, "22/04/2014", "code", "e1"));
+    }
+
+    assertThat(out.toString("UTF-8"), is("Mandatory String Field,mandatoryIntField\r\nRandom,12\r\n"));
+  }
+
+  @Test
+  public void shouldWriteHeaderOfEmptyExport() throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    new CsvWriter<DummyImportable>(modelClassProjecting("mandatoryIntField"), Channels.newChannel(out),
+      StandardCharsets.UTF_8, 16).close();
+
+    assertThat(out.toString("UTF-8"), is("mandatoryIntField\r\n"));
+  }
+
+  @Test
+  public void shouldFormatDatesInPatternsOnlyTheDateParserKnows() throws Exception {
+    Stamped stamped = new Stamped();
+    stamped.day = new SimpleDateFormat("dd/MM/yyyy").parse("22/04/2014");
+    stamped.label = "a \"b\", c";
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    try (CsvWriter<Stamped> csvWriter = new CsvWriter<Stamped>(Stamped.class, out)) {
+      csvWriter.write(stamped);
+    }
+
+    assertThat(out.toString("UTF-8"), is("day,label\r\n22/04/2014#,\"a \"\"b\"\", c\"\r\n"));
+  }
+
+  private static ModelClass modelClassProjecting(String... importFieldNames) {
+    ModelClass modelClass = MetadataCache.getModelClass(DummyImportable.class);
+    modelClass.setProjection(asList(importFieldNames));
+    return modelClass;
+  }
+
+  private static byte[] write(List<DummyImportable> beans, int bufferSize) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (CsvWriter<DummyImportable> csvWriter = new CsvWriter<DummyImportable>(
+      MetadataCache.getModelClass(DummyImportable.class), Channels.newChannel(out), StandardCharsets.UTF_8,
+      bufferSize)) {
+      csvWriter.writeAll(beans);
+    }
+    return out.toByteArray();
+  }
+
+  private static void assertRoundTrip(List<DummyImportable> beans, byte[] csv) throws Exception {
+    CsvParser<DummyImportable> csvParser = new CsvParser<DummyImportable>();
+    csvParser.setCharset(StandardCharsets.UTF_8);
+    List<DummyImportable> imported = new ArrayList<DummyImportable>();
+    csvParser.stream(new ByteArrayInputStream(csv), DummyImportable.class).forEachOrdered(imported::add);
+
+    assertThat(imported.size(), is(beans.size()));
+    for (int i = 0; i < beans.size(); i++) {
+      DummyImportable expected = beans.get(i), actual = imported.get(i);
+      assertThat(actual.getMandatoryStringField(), is(expected.getMandatoryStringField()));
+      assertThat(actual.getMandatoryIntField(), is(expected.getMandatoryIntField()));
+      assertThat(actual.getOptionalDateField(), is(expected.getOptionalDateField()));
+      assertThat(code(actual.getDummyNestedField()), is(code(expected.getDummyNestedField())));
+      assertThat(actual.getMultipleNestedFields() == null ? null : actual.getMultipleNestedFields().getEntityCode1(),
+        is(expected.getMultipleNestedFields().getEntityCode1()));
+    }
+  }
+
+  private static String code(DummyNestedField nestedField) {
+    return nestedField == null ? null : nestedField.getCode();
+  }
+
+  static class Stamped {
+    @ImportField(type = "Date", format = "dd/MM/yyyy#")
+    Date day;
+
+    @ImportField
+    String label;
+  }
+
+  private static DummyImportable dummyImportable(String mandatoryString, int mandatoryInt, String date, String code,
+                                                 String entityCode1) {
+    try {
+      DummyImportable dummyImportable = new DummyImportable();
+      dummyImportable.setMandatoryStringField(mandatoryString);
+      dummyImportable.setMandatoryIntField(mandatoryInt);
+      if (date != null) dummyImportable.setOptionalDateField(new SimpleDateFormat("dd/MM/yyyy").parse(date));
+      if (code != null) {
+        DummyNestedField nestedField = new DummyNestedField();
+        nestedField.setCode(code);
+        dummyImportable.setDummyNestedField(nestedField);
+      }
+      DummyNestedField entityCodes = new DummyNestedField();
+      entityCodes.setEntityCode1(entityCode1);
+      dummyImportable.setMultipleNestedFields(entityCodes);
+      return dummyImportable;
+    } catch (Exception e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
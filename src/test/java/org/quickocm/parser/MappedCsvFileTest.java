@@ -0,0 +1,94 @@
+package org.quickocm.parser;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class MappedCsvFileTest {
+
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private int files;
+
+  @Test
+  public void shouldSplitOnRowsOutsideQuotesAndKeepRowAndLineNumbers() throws IOException {
+    String csv = "a,b\r\n" +
+      "\"multi\nline\",1\r\n" +
+      "\n" +
+      "\"quoted \"\"x\"\"\r\nagain\",2\r" +
+      "plain,3\n" +
+      "\"a,\nb\",\"ü\"\n" +
+      "last,5";
+
+    for (long chunkSize = 1; chunkSize <= csv.length(); chunkSize++) {
+      assertThat(readInChunks(csv, chunkSize), is(readWhole(csv)));
+    }
+  }
+
+  @Test
+  public void shouldCountRowsIncludingHeader() throws IOException {
+    MappedCsvFile csvFile = split("a,b\n\n1,2\n3,4\n", 1);
+
+    assertThat(csvFile.getRowCount(), is(3));
+    assertThat(csvFile.getChunks().size(), is(2));
+  }
+
+  @Test
+  public void shouldLeaveCsvWithOnlyHeaderWithoutChunks() throws IOException {
+    MappedCsvFile csvFile = split("a,b\n", 1);
+
+    assertThat(csvFile.getRowCount(), is(1));
+    assertThat(csvFile.getChunks().size(), is(0));
+  }
+
+  @Test
+  public void shouldNotSplitCharsetsWithMultiByteSeparators() {
+    assertThat(MappedCsvFile.isSplittable(UTF_8, CsvBeanReader.DEFAULT_PREFERENCE), is(true));
+    assertThat(MappedCsvFile.isSplittable(Charset.forName("UTF-16"), CsvBeanReader.DEFAULT_PREFERENCE), is(false));
+  }
+
+  private List<String> readInChunks(String csv, long chunkSize) throws IOException {
+    MappedCsvFile csvFile = split(csv, chunkSize);
+    List<String> rows = readAll(new CsvTokenizer(csvFile.openHeader(), CsvBeanReader.DEFAULT_PREFERENCE));
+    for (MappedCsvFile.Chunk chunk : csvFile.getChunks()) {
+      rows.addAll(readAll(csvFile.openChunk(chunk)));
+    }
+    return rows;
+  }
+
+  private List<String> readWhole(String csv) throws IOException {
+    return readAll(new CsvTokenizer(new StringReader(csv), CsvBeanReader.DEFAULT_PREFERENCE));
+  }
+
+  private MappedCsvFile split(String csv, long chunkSize) throws IOException {
+    File file = temporaryFolder.newFile("chunks" + files++ + ".csv");
+    Files.write(file.toPath(), csv.getBytes(UTF_8));
+    FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+    return MappedCsvFile.split(channel, UTF_8, CsvBeanReader.DEFAULT_PREFERENCE, chunkSize);
+  }
+
+  private static List<String> readAll(CsvTokenizer tokenizer) throws IOException {
+    List<String> rows = new ArrayList<String>();
+    CsvRow row = new CsvRow();
+    while (tokenizer.readRow(row)) {
+      rows.add(row.getRowNumber() + ":" + row.getLineNumber() + ":" + row.getColumns());
+    }
+    return rows;
+  }
+}
@@ -0,0 +1,128 @@
+package org.quickocm.parser;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.quickocm.model.DummyImportable;
+import org.quickocm.model.ModelClass;
+import org.quickocm.processor.CsvCellProcessors;
+import org.supercsv.cellprocessor.ift.CellProcessor;
+import org.supercsv.util.CsvContext;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.WeakReference;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+public class MetadataCacheTest {
+
+  private String[] headers = {"Mandatory String Field", "mandatoryIntField", "OPTIONAL NESTED FIELD"};
+
+  @Before
+  public void setUp() throws Exception {
+    MetadataCache.clear();
+  }
+
+  @Test
+  public void shouldGiveNewModelClassForEachCallSoThatSettingsAreNotShared() {
+    ModelClass modelClass = MetadataCache.getModelClass(DummyImportable.class);
+    modelClass.setAcceptExtraHeaders(true);
+
+    ModelClass anotherModelClass = MetadataCache.getModelClass(DummyImportable.class);
+
+    assertThat(anotherModelClass, is(not(sameInstance(modelClass))));
+    assertThat(anotherModelClass.isAcceptExtraHeaders(), is(false));
+    assertThat(anotherModelClass.findImportFieldWithName("mandatoryIntField").getName(), is("mandatoryIntField"));
+  }
+
+  @Test
+  public void shouldReuseHeaderMappingForSameClassAndHeaders() {
+    HeaderMapping headerMapping = MetadataCache.getHeaderMapping(new ModelClass(DummyImportable.class), headers);
+    HeaderMapping cachedHeaderMapping = MetadataCache.getHeaderMapping(new ModelClass(DummyImportable.class), headers.clone());
+
+    assertThat(cachedHeaderMapping, is(sameInstance(headerMapping)));
+    assertThat(headerMapping.getFieldNameMappings()[2], is("dummyNestedField.code"));
+    assertThat(headerMapping.getProcessors().length, is(3));
+  }
+
+  @Test
+  public void shouldBuildNewHeaderMappingForDifferentHeaders() {
+    HeaderMapping headerMapping = MetadataCache.getHeaderMapping(new ModelClass(DummyImportable.class), headers);
+    HeaderMapping otherHeaderMapping = MetadataCache.getHeaderMapping(new ModelClass(DummyImportable.class),
+      new String[]{"mandatoryIntField", "Mandatory String Field"});
+
+    assertThat(otherHeaderMapping, is(not(sameInstance(headerMapping))));
+    assertThat(otherHeaderMapping.getFieldNameMappings()[0], is("mandatoryIntField"));
+  }
+
+  @Test
+  @SuppressWarnings("deprecation")
+  public void shouldBuildNewHeaderMappingOnceTypeMappingsChange() {
+    HeaderMapping headerMapping = MetadataCache.getHeaderMapping(new ModelClass(DummyImportable.class), headers);
+    CellProcessor trim = CsvCellProcessors.typeMappings.get("String");
+    CsvCellProcessors.typeMappings.put("String", (value, context) -> value.toString().toUpperCase());
+    try {
+      HeaderMapping changedHeaderMapping = MetadataCache.getHeaderMapping(new ModelClass(DummyImportable.class),
+        headers);
+
+      assertThat(changedHeaderMapping, is(not(sameInstance(headerMapping))));
+      assertThat(changedHeaderMapping.getProcessors()[0].execute("abc", new CsvContext(2, 2, 1)), is((Object) "ABC"));
+    } finally {
+      CsvCellProcessors.typeMappings.put("String", trim);
+    }
+
+    assertThat(MetadataCache.getHeaderMapping(new ModelClass(DummyImportable.class), headers),
+      is(sameInstance(headerMapping)));
+  }
+
+  @Test
+  public void shouldNotKeepTheClassLoaderOfACachedClassFromBeingCollected() throws Exception {
+    ClassLoader classLoader = new IsolatingClassLoader(DummyImportable.class.getName());
+    Class clazz = classLoader.loadClass(DummyImportable.class.getName());
+    MetadataCache.getHeaderMapping(MetadataCache.getModelClass(clazz), headers);
+    WeakReference<ClassLoader> reference = new WeakReference<ClassLoader>(classLoader);
+    classLoader = null;
+    clazz = null;
+
+    for (int i = 0; i < 50 && reference.get() != null; i++) {
+      System.gc();
+      Thread.sleep(10);
+    }
+    assertThat(reference.get(), is(nullValue()));
+  }
+
+  /**
+   * Defines a class of its own from the class file of the class path, leaving all other classes to its parent.
+   */
+  private static class IsolatingClassLoader extends ClassLoader {
+    private final String className;
+
+    private IsolatingClassLoader(String className) {
+      super(IsolatingClassLoader.class.getClassLoader());
+      this.className = className;
+    }
+
+    @Override
+    protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+      if (!name.equals(className)) return super.loadClass(name, resolve);
+
+      synchronized (getClassLoadingLock(name)) {
+        Class<?> loaded = findLoadedClass(name);
+        if (loaded != null) return loaded;
+        try (InputStream classFile = getParent().getResourceAsStream(name.replace('.', '/') + ".class")) {
+          ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+          byte[] buffer = new byte[4096];
+          for (int read; (read = classFile.read(buffer)) > 0; ) bytes.write(buffer, 0, read);
+          return defineClass(name, bytes.toByteArray(), 0, bytes.size());
+        } catch (IOException e) {
+          throw new ClassNotFoundException(name, e);
+        }
+      }
+    }
+  }
+}
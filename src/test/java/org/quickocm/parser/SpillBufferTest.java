@@ -0,0 +1,87 @@
+package org.quickocm.parser;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+
+import static java.util.Arrays.asList;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class SpillBufferTest {
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Test
+  public void shouldReadBackRowsWithTheirNumbersAfterSealing() throws Exception {
+    SpillBuffer spillBuffer = new SpillBuffer(temporaryFolder.getRoot().toPath(), new boolean[]{true, true, true},
+      new boolean[]{false, true, false});
+
+    spillBuffer.append(row(2, 3, 40, "José 日本 😀", "-9223372036854775807", null));
+    spillBuffer.append(row(3, 5, 12, "", "007", "tab\tand\nline"));
+    spillBuffer.append(row(4, 6, 8, "a", "-0", "b"));
+    spillBuffer.seal();
+
+    CsvRow row = new CsvRow();
+    spillBuffer.read(1, row);
+    assertThat(row.getColumns(), is(asList(null, "007", "tab\tand\nline")));
+    assertThat(row.getRowNumber(), is(3));
+    assertThat(row.getLineNumber(), is(5));
+    assertThat(row.getSize(), is(12));
+
+    spillBuffer.read(0, row);
+    assertThat(row.getColumns(), is(asList("José 日本 😀", "-9223372036854775807", null)));
+    spillBuffer.read(2, row);
+    assertThat(row.getColumns(), is(asList("a", "-0", "b")));
+    assertThat(spillBuffer.size(), is(3));
+  }
+
+  @Test
+  public void shouldKeepIntegersCompactlyAndLeaveOutColumnsThatAreNotStored() throws Exception {
+    SpillBuffer spillBuffer = new SpillBuffer(null, new boolean[]{false, true}, new boolean[]{false, true});
+
+    spillBuffer.append(row(2, 2, 30, "a long cell that is not converted", "123456789"));
+    long bytes = spillBuffer.getBytes();
+    spillBuffer.seal();
+
+    CsvRow row = new CsvRow();
+    spillBuffer.read(0, row);
+    assertThat(row.getColumns(), is(asList(null, "123456789")));
+    assertThat(bytes < 16, is(true));
+  }
+
+  @Test
+  public void shouldNotLeaveItsFileBehind() throws Exception {
+    File directory = temporaryFolder.newFolder("spill");
+    SpillBuffer spillBuffer = new SpillBuffer(directory.toPath(), new boolean[]{true}, new boolean[]{false});
+    for (int i = 0; i < 10000; i++) spillBuffer.append(row(i + 2, i + 2, 6, "row " + i));
+    spillBuffer.seal();
+
+    assertThat(directory.list().length, is(0));
+    CsvRow row = new CsvRow();
+    spillBuffer.read(9999, row);
+    assertThat(row.getColumn(0), is("row 9999"));
+  }
+
+  @Test
+  public void shouldSealAnEmptyBuffer() throws Exception {
+    SpillBuffer spillBuffer = new SpillBuffer(null, new boolean[0], new boolean[0]);
+    spillBuffer.seal();
+
+    assertThat(spillBuffer.size(), is(0));
+  }
+
+  private static CsvRow row(int rowNumber, int lineNumber, int size, String... cells) {
+    CsvRow row = new CsvRow();
+    for (String cell : cells) {
+      int start = row.position();
+      if (cell != null) for (char c : cell.toCharArray()) row.append(c);
+      row.endColumn(start);
+    }
+    row.setNumbers(lineNumber, rowNumber, size);
+    return row;
+  }
+}
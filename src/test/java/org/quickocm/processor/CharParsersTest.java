@@ -0,0 +1,84 @@
+package org.quickocm.processor;
+
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class CharParsersTest {
+
+  private static final String[] NUMBERS = {"0", "7", "-12", "+12", "2147483647", "-2147483648", "2147483648",
+    "9223372036854775807", "-9223372036854775809", "0012", "1.5", "-0", "0.1", "12.340", ".5", "5.", "-.25",
+    "123456789012345678", "3.141592653589793238", "1e10", "1E-3", "NaN", "-Infinity", "1d", " 1", "1 ", "", "-", "+",
+    ".", "1.2.3", "abc", "0x10", "١٢"};
+
+  @Test
+  public void shouldParseIntegersLikeJdk() {
+    for (String number : NUMBERS) {
+      Object expected;
+      try {
+        expected = Integer.parseInt(number);
+      } catch (NumberFormatException e) {
+        expected = NumberFormatException.class;
+      }
+      assertThat(number, parse(number, "int"), is(expected));
+    }
+  }
+
+  @Test
+  public void shouldParseLongsLikeJdk() {
+    for (String number : NUMBERS) {
+      Object expected;
+      try {
+        expected = Long.parseLong(number);
+      } catch (NumberFormatException e) {
+        expected = NumberFormatException.class;
+      }
+      assertThat(number, parse(number, "long"), is(expected));
+    }
+  }
+
+  @Test
+  public void shouldParseDoublesLikeJdk() {
+    for (String number : NUMBERS) {
+      Object expected;
+      try {
+        expected = Double.parseDouble(number);
+      } catch (NumberFormatException e) {
+        expected = NumberFormatException.class;
+      }
+      assertThat(number, parse(number, "double"), is(expected));
+    }
+  }
+
+  @Test
+  public void shouldParseBooleanValuesOfParseBoolIgnoringCase() {
+    assertThat(parseBoolean("TRUE"), is(true));
+    assertThat(parseBoolean("y"), is(true));
+    assertThat(parseBoolean("1"), is(true));
+    assertThat(parseBoolean("False"), is(false));
+    assertThat(parseBoolean("N"), is(false));
+    try {
+      parseBoolean("yes");
+      fail();
+    } catch (IllegalArgumentException expected) {
+    }
+  }
+
+  private Object parse(String number, String type) {
+    char[] chars = ("##" + number + "##").toCharArray();
+    int end = chars.length - 2;
+    try {
+      if (type.equals("int")) return CharParsers.parseInt(chars, 2, end);
+      if (type.equals("long")) return CharParsers.parseLong(chars, 2, end);
+      return CharParsers.parseDouble(chars, 2, end);
+    } catch (NumberFormatException e) {
+      return NumberFormatException.class;
+    }
+  }
+
+  private boolean parseBoolean(String value) {
+    return CharParsers.parseBoolean(value.toCharArray(), 0, value.length());
+  }
+}
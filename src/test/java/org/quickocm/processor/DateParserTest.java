@@ -0,0 +1,78 @@
+package org.quickocm.processor;
+
+import org.junit.Test;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class DateParserTest {
+
+  private static final String[] DATES = {"20/02/1986", "1/2/1986", "01/12/2014", "29/02/2016", "29/02/2015",
+    "31/04/2014", "00/01/2014", "1/13/2014", "31/12/1582", "04/10/1582", "15/10/1582", "01/01/0001", "99/99/99",
+    "1/1/14", "1/1/12345", "20-02-1986", "20/02/1986 ", " 20/02/1986", "20/02/1986x", "", "/", "a/b/cdef"};
+
+  @Test
+  public void shouldParseDefaultPatternLikeRegExAndSimpleDateFormat() {
+    for (String date : DATES) {
+      assertThat(date, parse(DateParser.forPattern("dd/MM/yyyy"), date), is(parseWithRegExAndSimpleDateFormat(date)));
+      assertThat(date, parse(DateParser.forPattern("dd/MM/yyyy"), date), is(parseWithRegExAndSimpleDateFormat(date)));
+    }
+  }
+
+  @Test
+  public void shouldParseOtherPatternsByHandOrThroughFormatter() throws ParseException {
+    assertThat(parse(DateParser.forPattern("yyyy-MM-dd"), "1986-02-20"), is((Object) date("20/02/1986")));
+    assertThat(parse(DateParser.forPattern("yyyy-MM-dd"), "1986-02-30"), is((Object) IllegalArgumentException.class));
+    assertThat(parse(DateParser.forPattern("yyyy-MM-dd"), "20/02/1986"),
+      is((Object) DateParser.FormatMismatchException.class));
+    assertThat(parse(DateParser.forPattern("dd MMM yyyy"), "20 Feb 1986"), is((Object) date("20/02/1986")));
+    assertThat(parse(DateParser.forPattern("dd MMM yyyy"), "20/02/1986"),
+      is((Object) DateParser.FormatMismatchException.class));
+  }
+
+  @Test
+  public void shouldShareParserOfPattern() {
+    assertThat(DateParser.forPattern("dd.MM.yyyy") == DateParser.forPattern("dd.MM.yyyy"), is(true));
+  }
+
+  @Test
+  public void shouldNotShareParsedDates() throws ParseException {
+    DateParser dateParser = DateParser.forPattern("dd/MM/yyyy");
+    char[] chars = "20/02/1986".toCharArray();
+    Date first = dateParser.parse(chars, 0, chars.length);
+    first.setTime(0);
+
+    assertThat(dateParser.parse(chars, 0, chars.length), is(date("20/02/1986")));
+  }
+
+  private Object parse(DateParser dateParser, String date) {
+    try {
+      char[] chars = ("x" + date + "x").toCharArray();
+      return dateParser.parse(chars, 1, chars.length - 1);
+    } catch (DateParser.FormatMismatchException e) {
+      return DateParser.FormatMismatchException.class;
+    } catch (IllegalArgumentException e) {
+      return IllegalArgumentException.class;
+    }
+  }
+
+  private Object parseWithRegExAndSimpleDateFormat(String date) {
+    if (!date.matches("^\\d{1,2}/\\d{1,2}/\\d{4}$")) return DateParser.FormatMismatchException.class;
+    try {
+      return date(date);
+    } catch (ParseException e) {
+      return IllegalArgumentException.class;
+    }
+  }
+
+  private Date date(String date) throws ParseException {
+    SimpleDateFormat format = new SimpleDateFormat("dd/MM/yyyy");
+    format.setLenient(false);
+    return format.parse(date);
+  }
+}
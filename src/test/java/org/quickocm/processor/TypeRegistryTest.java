@@ -0,0 +1,112 @@
+package org.quickocm.processor;
+
+import org.junit.Test;
+import org.quickocm.exception.UploadException;
+import org.quickocm.model.DummyImportable;
+import org.quickocm.model.DummyTypedImportable;
+import org.quickocm.model.ModelClass;
+import org.supercsv.cellprocessor.Trim;
+import org.supercsv.exception.SuperCsvCellProcessorException;
+import org.supercsv.exception.SuperCsvConstraintViolationException;
+import org.supercsv.util.CsvContext;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.UUID;
+
+import static java.util.Arrays.asList;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class TypeRegistryTest {
+
+  private final ModelClass modelClass = new ModelClass(DummyTypedImportable.class);
+  private final CsvContext context = new CsvContext(2, 2, 1);
+
+  @Test
+  public void shouldConvertBuiltInTypesFromCharacters() {
+    CharCellProcessor[] processors = TypeRegistry.getDefault().getCharProcessors(modelClass,
+      asList("id", "start date", "createdAt", "status"));
+
+    assertThat(execute(processors[0], "0f8fad5b-d9cb-469f-a165-70867728950e"),
+      is((Object) UUID.fromString("0f8fad5b-d9cb-469f-a165-70867728950e")));
+    assertThat(execute(processors[1], "20/02/1986"), is((Object) LocalDate.of(1986, 2, 20)));
+    assertThat(execute(processors[2], "2014-01-02T10:15:30Z"), is((Object) Instant.parse("2014-01-02T10:15:30Z")));
+    assertThat(execute(processors[3], "INACTIVE"), is((Object) DummyTypedImportable.Status.INACTIVE));
+    assertThat(processors[3].execute(new char[0], -1, -1, context), is(nullValue()));
+  }
+
+  @Test
+  public void shouldReportInvalidAndMissingCellsLikeProcessorChains() {
+    CharCellProcessor[] processors = TypeRegistry.getDefault().getCharProcessors(modelClass, asList("id", "status"));
+
+    try {
+      processors[0].execute(new char[0], -1, -1, context);
+      fail("missing mandatory cell should fail");
+    } catch (SuperCsvConstraintViolationException expected) {
+    }
+    try {
+      execute(processors[1], "UNKNOWN");
+      fail("unknown constant should fail");
+    } catch (SuperCsvCellProcessorException e) {
+      assertThat(e.getMessage(), is("'UNKNOWN' could not be parsed as enum"));
+    }
+  }
+
+  @Test
+  public void shouldUseRegisteredConverterInPlaceOfBuiltInOne() {
+    TypeRegistry typeRegistry = TypeRegistry.builder()
+      .register("Code", (String text) -> text.toUpperCase())
+      .register("String", text -> "[" + text + "]")
+      .build();
+
+    CharCellProcessor[] processors = typeRegistry.getCharProcessors(modelClass, asList("code"));
+    assertThat(execute(processors[0], "abc"), is((Object) "ABC"));
+
+    CharCellProcessor[] stringProcessors = typeRegistry.getCharProcessors(new ModelClass(DummyImportable.class),
+      asList("optionalStringField"));
+    assertThat(execute(stringProcessors[0], "abc"), is((Object) "[abc]"));
+    assertThat(TypeRegistry.getDefault().getCharProcessors(new ModelClass(DummyImportable.class),
+      asList("optionalStringField"))[0].execute("abc".toCharArray(), 0, 3, context), is((Object) "abc"));
+  }
+
+  @Test
+  public void shouldRunRegisteredCellProcessorThroughItsCellProcessor() {
+    TypeRegistry typeRegistry = TypeRegistry.builder()
+      .registerProcessor("Code", new Trim())
+      .build();
+
+    assertThat(typeRegistry.getCharProcessors(modelClass, asList("code"))[0], is(nullValue()));
+    assertThat(typeRegistry.getProcessors(modelClass, asList("code")).get(0).execute(" abc ", context),
+      is((Object) "abc"));
+  }
+
+  @Test
+  @SuppressWarnings("deprecation")
+  public void shouldConvertTypesAddedToTypeMappingsThatTheRegistryDoesNotKnow() {
+    CsvCellProcessors.typeMappings.put("Code", new Trim());
+    try {
+      assertThat(TypeRegistry.getDefault().getProcessors(modelClass, asList("code")).get(0).execute(" abc ", context),
+        is((Object) "abc"));
+      assertThat(TypeRegistry.getDefault().isRegistered("Code"), is(false));
+    } finally {
+      CsvCellProcessors.typeMappings.remove("Code");
+    }
+  }
+
+  @Test
+  public void shouldReportTypesThatAreNeitherRegisteredNorMapped() {
+    try {
+      TypeRegistry.getDefault().getProcessors(modelClass, asList("code"));
+      fail("unknown type should fail");
+    } catch (UploadException e) {
+      assertThat(e, is(new UploadException("error.upload.type.unknown", "Code", "code")));
+    }
+  }
+
+  private Object execute(CharCellProcessor processor, String text) {
+    return processor.execute(text.toCharArray(), 0, text.length(), context);
+  }
+}